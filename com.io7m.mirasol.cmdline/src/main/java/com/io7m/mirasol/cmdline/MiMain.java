@@ -17,8 +17,15 @@
 package com.io7m.mirasol.cmdline;
 
 import com.io7m.mirasol.cmdline.internal.MiCmdCompile;
+import com.io7m.mirasol.cmdline.internal.MiCmdDaemon;
+import com.io7m.mirasol.cmdline.internal.MiCmdDecode;
 import com.io7m.mirasol.cmdline.internal.MiCmdExtractors;
 import com.io7m.mirasol.cmdline.internal.MiCmdGenerate;
+import com.io7m.mirasol.cmdline.internal.MiCmdLanguageServer;
+import com.io7m.mirasol.cmdline.internal.MiCmdQuery;
+import com.io7m.mirasol.cmdline.internal.MiCmdStats;
+import com.io7m.mirasol.cmdline.internal.MiCmdTrace;
+import com.io7m.mirasol.cmdline.internal.MiCmdTrainingRun;
 import com.io7m.quarrel.core.QApplication;
 import com.io7m.quarrel.core.QApplicationMetadata;
 import com.io7m.quarrel.core.QApplicationType;
@@ -68,7 +75,14 @@ public final class MiMain implements Runnable
     final var builder = QApplication.builder(metadata);
     builder.addCommand(new MiCmdExtractors());
     builder.addCommand(new MiCmdCompile());
+    builder.addCommand(new MiCmdDaemon());
+    builder.addCommand(new MiCmdDecode());
     builder.addCommand(new MiCmdGenerate());
+    builder.addCommand(new MiCmdLanguageServer());
+    builder.addCommand(new MiCmdQuery());
+    builder.addCommand(new MiCmdStats());
+    builder.addCommand(new MiCmdTrace());
+    builder.addCommand(new MiCmdTrainingRun());
 
     this.application = builder.build();
     this.exitCode = 0;
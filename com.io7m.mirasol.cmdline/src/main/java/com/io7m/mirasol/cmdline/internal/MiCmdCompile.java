@@ -17,13 +17,17 @@
 
 package com.io7m.mirasol.cmdline.internal;
 
-import com.io7m.mirasol.compiler.MiCompilers;
 import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.MiHTTPRemoteCache;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.core.MiTimingRecorder;
 import com.io7m.quarrel.core.QCommandContextType;
 import com.io7m.quarrel.core.QCommandMetadata;
 import com.io7m.quarrel.core.QCommandStatus;
 import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed01;
 import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamed1;
 import com.io7m.quarrel.core.QParameterNamedType;
 import com.io7m.quarrel.core.QStringType.QConstant;
 import com.io7m.quarrel.ext.logback.QLogback;
@@ -31,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -64,6 +69,35 @@ public final class MiCmdCompile implements QCommandType
       Path.class
     );
 
+  private static final QParameterNamed01<Path> DAEMON_SOCKET =
+    new QParameterNamed01<>(
+      "--daemon-socket",
+      List.of(),
+      new QConstant("Forward the request to the daemon on the given socket."),
+      Optional.empty(),
+      Path.class
+    );
+
+  private static final QParameterNamed01<URI> REMOTE_CACHE =
+    new QParameterNamed01<>(
+      "--remote-cache",
+      List.of(),
+      new QConstant(
+        "Share compiled packages through the HTTP cache at the given URI."),
+      Optional.empty(),
+      URI.class
+    );
+
+  private static final QParameterNamed1<Boolean> TIMINGS =
+    new QParameterNamed1<>(
+      "--timings",
+      List.of(),
+      new QConstant(
+        "Print a summary of the time spent in each phase."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
   /**
    * {@code compile}
    */
@@ -78,8 +112,11 @@ public final class MiCmdCompile implements QCommandType
   {
     return QLogback.plusParameters(
       List.of(
+        DAEMON_SOCKET,
         FILES,
-        PACKAGE_DIRECTORIES
+        PACKAGE_DIRECTORIES,
+        REMOTE_CACHE,
+        TIMINGS
       )
     );
   }
@@ -91,11 +128,54 @@ public final class MiCmdCompile implements QCommandType
   {
     QLogback.configure(context);
 
+    if (!context.parameterValue(TIMINGS).booleanValue()) {
+      return this.execute(context);
+    }
+
+    if (context.parameterValue(DAEMON_SOCKET).isPresent()) {
+      LOG.error(
+        "The --timings parameter cannot be combined with --daemon-socket.");
+      return QCommandStatus.FAILURE;
+    }
+
+    try (var recorder = MiTimingRecorder.open()) {
+      try {
+        return this.execute(context);
+      } finally {
+        MiTimingReport.write(context.output(), recorder.records());
+      }
+    }
+  }
+
+  private QCommandStatus execute(
+    final QCommandContextType context)
+    throws IOException
+  {
     final var files =
       context.parameterValues(FILES);
     final var packageDirectories =
       context.parameterValues(PACKAGE_DIRECTORIES);
 
+    final var daemonSocket =
+      context.parameterValue(DAEMON_SOCKET);
+    final Optional<MiRemoteCacheType> remoteCache =
+      context.parameterValue(REMOTE_CACHE)
+        .map(MiHTTPRemoteCache::new);
+
+    if (daemonSocket.isPresent()) {
+      if (remoteCache.isPresent()) {
+        LOG.error("The --remote-cache parameter cannot be combined with "
+                  + "--daemon-socket.");
+        return QCommandStatus.FAILURE;
+      }
+
+      return MiDaemonClient.execute(
+        LOG,
+        daemonSocket.get(),
+        new MiDaemonProtocol.MiDaemonCompile(files, packageDirectories)
+      );
+    }
+
     final var directories =
       MiDirectories.create();
     final var packageDirectoriesAll =
@@ -106,12 +186,14 @@ public final class MiCmdCompile implements QCommandType
     Files.createDirectories(systemPackageDirectory);
     packageDirectoriesAll.addFirst(systemPackageDirectory);
 
+    final var compilers =
+      MiCompilation.compilers(remoteCache);
     final var loader =
-      new MiDirectoryLoaders(packageDirectoriesAll)
+      new MiDirectoryLoaders(packageDirectoriesAll, compilers)
         .create();
 
     try {
-      MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+      MiCompilation.doCompile(LOG, compilers, loader, files);
       return QCommandStatus.SUCCESS;
     } catch (final MiCompilation.MiCompilationFailed e) {
       return QCommandStatus.FAILURE;
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed1;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@code daemon}
+ */
+
+public final class MiCmdDaemon implements QCommandType
+{
+  private static final QParameterNamed1<Path> SOCKET =
+    new QParameterNamed1<>(
+      "--socket",
+      List.of(),
+      new QConstant("The Unix domain socket on which to listen."),
+      Optional.empty(),
+      Path.class
+    );
+
+  /**
+   * {@code daemon}
+   */
+
+  public MiCmdDaemon()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        SOCKET
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var socket =
+      context.parameterValue(SOCKET);
+
+    final var directories =
+      MiDirectories.create();
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    return new MiDaemon(systemPackageDirectory).run(socket);
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "daemon",
+      new QConstant(
+        "Run a compilation daemon for the compile and generate commands."),
+      Optional.empty()
+    );
+  }
+}
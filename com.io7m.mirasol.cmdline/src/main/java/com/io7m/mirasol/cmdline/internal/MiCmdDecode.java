@@ -0,0 +1,305 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.runtime.MiDecodeFormat;
+import com.io7m.mirasol.runtime.MiDecoder;
+import com.io7m.mirasol.runtime.MiDecoderConfiguration;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed01;
+import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamed1;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.io7m.mirasol.cmdline.internal.MiCompilation.logError;
+
+/**
+ * {@code decode}
+ */
+
+public final class MiCmdDecode implements QCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCmdDecode.class);
+
+  private static final QParameterNamed0N<Path> FILES =
+    new QParameterNamed0N<>(
+      "--file",
+      List.of(),
+      new QConstant("The source file(s) to compile."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<Path> PACKAGE_DIRECTORIES =
+    new QParameterNamed0N<>(
+      "--package-directory",
+      List.of(),
+      new QConstant("The source package directories."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed1<String> PACKAGE =
+    new QParameterNamed1<>(
+      "--package",
+      List.of(),
+      new QConstant("The package containing the maps."),
+      Optional.empty(),
+      String.class
+    );
+
+  private static final QParameterNamed0N<String> MAPS =
+    new QParameterNamed0N<>(
+      "--map",
+      List.of(),
+      new QConstant("The map(s) to decode (all maps if not specified)."),
+      List.of(),
+      String.class
+    );
+
+  private static final QParameterNamed0N<Path> DUMPS =
+    new QParameterNamed0N<>(
+      "--dump",
+      List.of(),
+      new QConstant("The dump file(s) to decode."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed01<String> DUMP_BASE =
+    new QParameterNamed01<>(
+      "--dump-base",
+      List.of(),
+      new QConstant(
+        "The address of the first octet of each dump (defaults to the lowest map address)."),
+      Optional.empty(),
+      String.class
+    );
+
+  private static final QParameterNamed01<Long> RECORD_SIZE =
+    new QParameterNamed01<>(
+      "--record-size",
+      List.of(),
+      new QConstant(
+        "The size of each record, if dumps consist of consecutive captures of the same region."),
+      Optional.empty(),
+      Long.class
+    );
+
+  private static final QParameterNamed1<String> FORMAT =
+    new QParameterNamed1<>(
+      "--format",
+      List.of(),
+      new QConstant("The output format (jsonl, csv)."),
+      Optional.of(MiDecodeFormat.JSON_LINES.show()),
+      String.class
+    );
+
+  private static final QParameterNamed01<Path> OUTPUT =
+    new QParameterNamed01<>(
+      "--output",
+      List.of(),
+      new QConstant("The output file (standard output if not specified)."),
+      Optional.empty(),
+      Path.class
+    );
+
+  private static final QParameterNamed1<Boolean> BIG_ENDIAN =
+    new QParameterNamed1<>(
+      "--big-endian",
+      List.of(),
+      new QConstant("Registers are big-endian."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Integer> THREADS =
+    new QParameterNamed1<>(
+      "--threads",
+      List.of(),
+      new QConstant("The number of threads used to decode large dumps."),
+      Optional.of(Integer.valueOf(Runtime.getRuntime().availableProcessors())),
+      Integer.class
+    );
+
+  /**
+   * {@code decode}
+   */
+
+  public MiCmdDecode()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        BIG_ENDIAN,
+        DUMPS,
+        DUMP_BASE,
+        FILES,
+        FORMAT,
+        MAPS,
+        OUTPUT,
+        PACKAGE,
+        PACKAGE_DIRECTORIES,
+        RECORD_SIZE,
+        THREADS
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var files =
+      context.parameterValues(FILES);
+    final var packageDirectories =
+      context.parameterValues(PACKAGE_DIRECTORIES);
+    final var packageName =
+      context.parameterValue(PACKAGE);
+    final var dumps =
+      context.parameterValues(DUMPS);
+
+    final MiDecoderConfiguration configuration;
+    try {
+      configuration =
+        new MiDecoderConfiguration(
+          context.parameterValues(MAPS)
+            .stream()
+            .map(MiSimpleName::new)
+            .toList(),
+          context.parameterValue(DUMP_BASE)
+            .map(MiCmdDecode::parseAddress),
+          context.parameterValue(RECORD_SIZE)
+            .map(x -> OptionalLong.of(x.longValue()))
+            .orElse(OptionalLong.empty()),
+          context.parameterValue(BIG_ENDIAN).booleanValue()
+            ? ByteOrder.BIG_ENDIAN
+            : ByteOrder.LITTLE_ENDIAN,
+          MiDecodeFormat.of(context.parameterValue(FORMAT)),
+          context.parameterValue(THREADS).intValue()
+        );
+    } catch (final IllegalArgumentException e) {
+      LOG.error("{}", e.getMessage());
+      return QCommandStatus.FAILURE;
+    }
+
+    final var directories =
+      MiDirectories.create();
+    final var packageDirectoriesAll =
+      new ArrayList<>(packageDirectories);
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    packageDirectoriesAll.addFirst(systemPackageDirectory);
+
+    final var loader =
+      new MiDirectoryLoaders(packageDirectoriesAll)
+        .create();
+
+    final ArrayList<MiPackageType> packages;
+    try {
+      packages =
+        MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      return QCommandStatus.FAILURE;
+    }
+
+    packages.addAll(loader.loadedPackages());
+
+    final var packageOpt =
+      packages.stream()
+        .filter(p -> Objects.equals(p.name().toString(), packageName))
+        .findFirst();
+
+    if (packageOpt.isEmpty()) {
+      LOG.error("No such package exists.");
+      return QCommandStatus.FAILURE;
+    }
+
+    try {
+      final var decoder =
+        MiDecoder.create(packageOpt.get(), configuration);
+
+      final var outputFile = context.parameterValue(OUTPUT);
+      if (outputFile.isPresent()) {
+        try (var writer = Files.newBufferedWriter(outputFile.get())) {
+          decoder.decode(dumps, writer);
+        }
+      } else {
+        decoder.decode(dumps, context.output());
+      }
+    } catch (final MiRuntimeException e) {
+      logError(LOG, e);
+      return QCommandStatus.FAILURE;
+    }
+
+    return QCommandStatus.SUCCESS;
+  }
+
+  private static BigInteger parseAddress(
+    final String text)
+  {
+    if (text.startsWith("0x") || text.startsWith("0X")) {
+      return new BigInteger(text.substring(2), 16);
+    }
+    return new BigInteger(text);
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "decode",
+      new QConstant("Decode memory dumps into named register values."),
+      Optional.empty()
+    );
+  }
+}
@@ -17,16 +17,23 @@
 
 package com.io7m.mirasol.cmdline.internal;
 
-import com.io7m.mirasol.compiler.MiCompilers;
 import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.MiHTTPRemoteCache;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.core.MiException;
+import com.io7m.mirasol.core.MiPackageName;
 import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiTimingRecorder;
 import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
 import com.io7m.mirasol.extractor.api.MiExtractorException;
 import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorOptions;
+import com.io7m.mirasol.parser.api.MiParserFactoryType;
 import com.io7m.quarrel.core.QCommandContextType;
 import com.io7m.quarrel.core.QCommandMetadata;
 import com.io7m.quarrel.core.QCommandStatus;
 import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed01;
 import com.io7m.quarrel.core.QParameterNamed0N;
 import com.io7m.quarrel.core.QParameterNamed1;
 import com.io7m.quarrel.core.QParameterNamedType;
@@ -36,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -91,6 +99,104 @@ public final class MiCmdGenerate implements QCommandType
       String.class
     );
 
+  private static final QParameterNamed1<Boolean> DEPFILES =
+    new QParameterNamed1<>(
+      "--depfiles",
+      List.of(),
+      new QConstant(
+        "Write a make-style dependency file alongside each output file."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Boolean> SPLIT_OUTPUT =
+    new QParameterNamed1<>(
+      "--split-output",
+      List.of(),
+      new QConstant(
+        "Write one file per map and type, plus an umbrella file (C, C++)."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Boolean> ACCESSORS =
+    new QParameterNamed1<>(
+      "--accessors",
+      List.of(),
+      new QConstant("Produce inline accessor functions for bit fields."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Boolean> BASE_ADDRESSES =
+    new QParameterNamed1<>(
+      "--base-addresses",
+      List.of(),
+      new QConstant(
+        "Produce base addresses per map and offsets per structure (C)."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Boolean> SNAPSHOTS =
+    new QParameterNamed1<>(
+      "--snapshots",
+      List.of(),
+      new QConstant(
+        "Produce snapshot functions for the readable registers of structures (C)."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed01<URI> REMOTE_CACHE =
+    new QParameterNamed01<>(
+      "--remote-cache",
+      List.of(),
+      new QConstant(
+        "Share packages and outputs through the HTTP cache at the given URI."),
+      Optional.empty(),
+      URI.class
+    );
+
+  private static final QParameterNamed01<String> SHARD =
+    new QParameterNamed01<>(
+      "--shard",
+      List.of(),
+      new QConstant(
+        "Generate only the outputs of shard INDEX of COUNT (INDEX/COUNT)."),
+      Optional.empty(),
+      String.class
+    );
+
+  private static final QParameterNamed01<Path> DAEMON_SOCKET =
+    new QParameterNamed01<>(
+      "--daemon-socket",
+      List.of(),
+      new QConstant("Forward the request to the daemon on the given socket."),
+      Optional.empty(),
+      Path.class
+    );
+
+  private static final QParameterNamed1<Boolean> WATCH =
+    new QParameterNamed1<>(
+      "--watch",
+      List.of(),
+      new QConstant(
+        "Watch the sources and regenerate affected outputs when they change."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
+  private static final QParameterNamed1<Boolean> TIMINGS =
+    new QParameterNamed1<>(
+      "--timings",
+      List.of(),
+      new QConstant(
+        "Print a summary of the time spent in each phase."),
+      Optional.of(Boolean.FALSE),
+      Boolean.class
+    );
+
   /**
    * {@code generate}
    */
@@ -105,10 +211,20 @@ public final class MiCmdGenerate implements QCommandType
   {
     return QLogback.plusParameters(
       List.of(
+        ACCESSORS,
+        BASE_ADDRESSES,
+        DAEMON_SOCKET,
+        DEPFILES,
         EXTRACTOR,
         FILES,
         OUTPUT_DIRECTORY,
-        PACKAGE_DIRECTORIES
+        PACKAGE_DIRECTORIES,
+        REMOTE_CACHE,
+        SHARD,
+        SNAPSHOTS,
+        SPLIT_OUTPUT,
+        TIMINGS,
+        WATCH
       )
     );
   }
@@ -120,6 +236,30 @@ public final class MiCmdGenerate implements QCommandType
   {
     QLogback.configure(context);
 
+    if (!context.parameterValue(TIMINGS).booleanValue()) {
+      return this.execute(context);
+    }
+
+    if (context.parameterValue(DAEMON_SOCKET).isPresent()
+        || context.parameterValue(WATCH).booleanValue()) {
+      LOG.error("The --timings parameter cannot be combined with "
+                + "--daemon-socket or --watch.");
+      return QCommandStatus.FAILURE;
+    }
+
+    try (var recorder = MiTimingRecorder.open()) {
+      try {
+        return this.execute(context);
+      } finally {
+        MiTimingReport.write(context.output(), recorder.records());
+      }
+    }
+  }
+
+  private QCommandStatus execute(
+    final QCommandContextType context)
+    throws IOException
+  {
     final var files =
       context.parameterValues(FILES);
     final var packageDirectories =
@@ -128,6 +268,63 @@ public final class MiCmdGenerate implements QCommandType
       context.parameterValue(OUTPUT_DIRECTORY);
     final var extractorName =
       context.parameterValue(EXTRACTOR);
+    final var options =
+      new MiExtractorOptions(
+        context.parameterValue(DEPFILES).booleanValue(),
+        context.parameterValue(SPLIT_OUTPUT).booleanValue(),
+        context.parameterValue(BASE_ADDRESSES).booleanValue(),
+        context.parameterValue(ACCESSORS).booleanValue(),
+        context.parameterValue(SNAPSHOTS).booleanValue()
+      );
+
+    final var watch =
+      context.parameterValue(WATCH).booleanValue();
+
+    final Optional<MiShard> shard;
+    try {
+      shard = context.parameterValue(SHARD).map(MiShard::parse);
+    } catch (final IllegalArgumentException e) {
+      LOG.error("{}", e.getMessage());
+      return QCommandStatus.FAILURE;
+    }
+
+    if (watch && shard.isPresent()) {
+      LOG.error("The --watch and --shard parameters cannot be combined.");
+      return QCommandStatus.FAILURE;
+    }
+
+    final Optional<MiRemoteCacheType> remoteCache =
+      context.parameterValue(REMOTE_CACHE)
+        .map(MiHTTPRemoteCache::new);
+
+    if (watch && remoteCache.isPresent()) {
+      LOG.error(
+        "The --watch and --remote-cache parameters cannot be combined.");
+      return QCommandStatus.FAILURE;
+    }
+
+    final var daemonSocket =
+      context.parameterValue(DAEMON_SOCKET);
+
+    if (daemonSocket.isPresent()) {
+      if (watch || shard.isPresent() || remoteCache.isPresent()) {
+        LOG.error("The --daemon-socket parameter cannot be combined with "
+                  + "--watch, --shard, or --remote-cache.");
+        return QCommandStatus.FAILURE;
+      }
+
+      return MiDaemonClient.execute(
+        LOG,
+        daemonSocket.get(),
+        new MiDaemonProtocol.MiDaemonGenerate(
+          files,
+          packageDirectories,
+          extractorName,
+          outputDirectory,
+          options
+        )
+      );
+    }
 
     final var extractorsOpt =
       ServiceLoader.load(MiExtractorFactoryType.class)
@@ -154,33 +351,155 @@ public final class MiCmdGenerate implements QCommandType
     Files.createDirectories(systemPackageDirectory);
     packageDirectoriesAll.addFirst(systemPackageDirectory);
 
+    final var compilers =
+      MiCompilation.compilers(remoteCache);
+    final var loaders =
+      new MiDirectoryLoaders(packageDirectoriesAll, compilers);
+
+    if (watch) {
+      return new MiGenerateWatcher(
+        loaders,
+        files,
+        packageDirectoriesAll,
+        extractors,
+        outputDirectory,
+        options
+      ).run();
+    }
+
     final var loader =
-      new MiDirectoryLoaders(packageDirectoriesAll)
-        .create();
+      loaders.create();
+
+    /*
+     * When sharding, work out which packages belong to this shard before
+     * compiling anything, so that only those packages (and the packages
+     * they import) are compiled.
+     */
+
+    final List<Path> filesSelected;
+    final List<MiPackageName> importsSelected;
+    if (shard.isPresent()) {
+      final MiShardPlanner.MiShardPlan plan;
+      try {
+        plan = MiShardPlanner.plan(
+          LOG,
+          ServiceLoader.load(MiParserFactoryType.class)
+            .findFirst()
+            .orElseThrow(),
+          loaders,
+          files
+        );
+      } catch (final MiCompilation.MiCompilationFailed e) {
+        return QCommandStatus.FAILURE;
+      }
+
+      filesSelected =
+        files.stream()
+          .filter(f -> shard.get().includes(plan.filePackages().get(f)))
+          .toList();
+      importsSelected =
+        plan.importedPackages()
+          .stream()
+          .filter(n -> shard.get().includes(n))
+          .toList();
+    } else {
+      filesSelected = files;
+      importsSelected = List.of();
+    }
 
     final ArrayList<MiPackageType> packages;
     try {
-      packages = MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+      packages =
+        MiCompilation.doCompile(LOG, compilers, loader, filesSelected);
     } catch (final MiCompilation.MiCompilationFailed e) {
       return QCommandStatus.FAILURE;
     }
 
+    for (final var name : importsSelected) {
+      try {
+        loader.openPackage(name);
+      } catch (final MiException e) {
+        logError(LOG, e);
+        for (final var error : e.extras()) {
+          logError(LOG, error);
+        }
+        return QCommandStatus.FAILURE;
+      }
+    }
+
     packages.addAll(loader.loadedPackages());
 
+    final var outputs =
+      new ArrayList<MiPackageType>();
+    final var dependencies =
+      new ArrayList<MiPackageType>();
+
+    for (final var pack : packages) {
+      if (shard.isEmpty() || shard.get().includes(pack.name())) {
+        outputs.add(pack);
+      } else {
+        dependencies.add(pack);
+      }
+    }
+
+    final boolean extracted;
+    if (remoteCache.isPresent()) {
+      extracted =
+        MiRemoteOutputs.extract(
+          MiDiagnosticsType.ofLogger(LOG),
+          remoteCache.get(),
+          extractors,
+          outputs,
+          dependencies,
+          outputDirectory,
+          options
+        );
+    } else {
+      extracted =
+        extract(
+          MiDiagnosticsType.ofLogger(LOG),
+          extractors,
+          outputs,
+          dependencies,
+          outputDirectory,
+          options
+        );
+    }
+
+    if (!extracted) {
+      return QCommandStatus.FAILURE;
+    }
+    return QCommandStatus.SUCCESS;
+  }
+
+  static boolean extract(
+    final MiDiagnosticsType diagnostics,
+    final MiExtractorFactoryType extractors,
+    final List<MiPackageType> outputs,
+    final List<MiPackageType> dependencies,
+    final Path outputDirectory,
+    final MiExtractorOptions options)
+  {
     final var extractor =
-      extractors.create(new MiExtractorConfiguration(packages, outputDirectory));
+      extractors.create(
+        new MiExtractorConfiguration(
+          outputs,
+          dependencies,
+          outputDirectory,
+          options
+        )
+      );
 
     try {
       extractor.execute();
+      return true;
     } catch (final MiExtractorException e) {
-      logError(LOG, e);
+      diagnostics.onError(e);
       for (final var error : e.extras()) {
-        logError(LOG, error);
+        diagnostics.onError(error);
       }
-      return QCommandStatus.FAILURE;
+      return false;
     }
-
-    return QCommandStatus.SUCCESS;
   }
 
   @Override
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.lsp.MiLanguageServer;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@code language-server}
+ */
+
+public final class MiCmdLanguageServer implements QCommandType
+{
+  private static final QParameterNamed0N<Path> PACKAGE_DIRECTORIES =
+    new QParameterNamed0N<>(
+      "--package-directory",
+      List.of(),
+      new QConstant("The source package directories."),
+      List.of(),
+      Path.class
+    );
+
+  /**
+   * {@code language-server}
+   */
+
+  public MiCmdLanguageServer()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        PACKAGE_DIRECTORIES
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var packageDirectories =
+      context.parameterValues(PACKAGE_DIRECTORIES);
+
+    final var directories =
+      MiDirectories.create();
+    final var packageDirectoriesAll =
+      new ArrayList<>(packageDirectories);
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    packageDirectoriesAll.addFirst(systemPackageDirectory);
+
+    final var loader =
+      new MiDirectoryLoaders(packageDirectoriesAll)
+        .create();
+
+    final var server =
+      new MiLanguageServer(new MiCompilers(), loader, System.in, System.out);
+
+    return server.run() == 0 ? QCommandStatus.SUCCESS : QCommandStatus.FAILURE;
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "language-server",
+      new QConstant(
+        "Run a language server on the standard input and output streams."),
+      Optional.empty()
+    );
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.runtime.MiAddressIndex;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed01;
+import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.mirasol.cmdline.internal.MiCompilation.logError;
+
+/**
+ * {@code query}
+ */
+
+public final class MiCmdQuery implements QCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCmdQuery.class);
+
+  private static final QParameterNamed0N<Path> FILES =
+    new QParameterNamed0N<>(
+      "--file",
+      List.of(),
+      new QConstant("The source file(s) to compile."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<Path> PACKAGE_DIRECTORIES =
+    new QParameterNamed0N<>(
+      "--package-directory",
+      List.of(),
+      new QConstant("The source package directories."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<String> ADDRESSES =
+    new QParameterNamed0N<>(
+      "--address",
+      List.of(),
+      new QConstant("The address(es) to look up."),
+      List.of(),
+      String.class
+    );
+
+  private static final QParameterNamed01<Integer> BIT =
+    new QParameterNamed01<>(
+      "--bit",
+      List.of(),
+      new QConstant("The bit (0-7) within the octet at each address."),
+      Optional.empty(),
+      Integer.class
+    );
+
+  /**
+   * {@code query}
+   */
+
+  public MiCmdQuery()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        ADDRESSES,
+        BIT,
+        FILES,
+        PACKAGE_DIRECTORIES
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var files =
+      context.parameterValues(FILES);
+    final var packageDirectories =
+      context.parameterValues(PACKAGE_DIRECTORIES);
+    final var bit =
+      context.parameterValue(BIT);
+
+    if (bit.isPresent()) {
+      final var b = bit.get().intValue();
+      if (b < 0 || b > 7) {
+        LOG.error("Bit index must be in the range [0, 7].");
+        return QCommandStatus.FAILURE;
+      }
+    }
+
+    final var addresses = new ArrayList<Long>();
+    try {
+      for (final var text : context.parameterValues(ADDRESSES)) {
+        addresses.add(Long.valueOf(parseAddress(text)));
+      }
+    } catch (final NumberFormatException e) {
+      LOG.error("{}", e.getMessage());
+      return QCommandStatus.FAILURE;
+    }
+
+    final var directories =
+      MiDirectories.create();
+    final var packageDirectoriesAll =
+      new ArrayList<>(packageDirectories);
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    packageDirectoriesAll.addFirst(systemPackageDirectory);
+
+    final var loader =
+      new MiDirectoryLoaders(packageDirectoriesAll)
+        .create();
+
+    final ArrayList<MiPackageType> packages;
+    try {
+      packages =
+        MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      return QCommandStatus.FAILURE;
+    }
+
+    packages.addAll(loader.loadedPackages());
+
+    final MiAddressIndex index;
+    try {
+      index = MiAddressIndex.create(packages);
+    } catch (final MiRuntimeException e) {
+      logError(LOG, e);
+      return QCommandStatus.FAILURE;
+    }
+
+    final var output = context.output();
+    var status = QCommandStatus.SUCCESS;
+    for (final var address : addresses) {
+      final var a = address.longValue();
+      final var entry = index.find(a);
+      if (entry < 0) {
+        LOG.error("No register contains address 0x{}.", Long.toUnsignedString(a, 16));
+        status = QCommandStatus.FAILURE;
+        continue;
+      }
+
+      output.print("0x");
+      output.print(Long.toUnsignedString(a, 16));
+      output.print(" ");
+      if (bit.isPresent()) {
+        final var range = index.findRange(entry, a, bit.get().intValue());
+        if (range >= 0) {
+          output.print(index.rangePath(range));
+        } else {
+          output.print(index.path(entry));
+        }
+      } else {
+        output.print(index.path(entry));
+      }
+      output.print(" ");
+      output.print(index.access(entry).show());
+      output.println();
+    }
+    output.flush();
+    return status;
+  }
+
+  private static long parseAddress(
+    final String text)
+  {
+    if (text.startsWith("0x") || text.startsWith("0X")) {
+      return Long.parseUnsignedLong(text.substring(2), 16);
+    }
+    return Long.parseUnsignedLong(text);
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "query",
+      new QConstant("Find the registers containing the given addresses."),
+      Optional.empty()
+    );
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.MiPackageStatistics;
+import com.io7m.mirasol.compiler.MiStatistics;
+import com.io7m.mirasol.compiler.MiStatisticsCounts;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@code stats}
+ */
+
+public final class MiCmdStats implements QCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCmdStats.class);
+
+  private static final QParameterNamed0N<Path> FILES =
+    new QParameterNamed0N<>(
+      "--file",
+      List.of(),
+      new QConstant("The source file(s) to compile."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<Path> PACKAGE_DIRECTORIES =
+    new QParameterNamed0N<>(
+      "--package-directory",
+      List.of(),
+      new QConstant("The source package directories."),
+      List.of(),
+      Path.class
+    );
+
+  /**
+   * {@code stats}
+   */
+
+  public MiCmdStats()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        FILES,
+        PACKAGE_DIRECTORIES
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var files =
+      context.parameterValues(FILES);
+    final var packageDirectories =
+      context.parameterValues(PACKAGE_DIRECTORIES);
+
+    final var directories =
+      MiDirectories.create();
+    final var packageDirectoriesAll =
+      new ArrayList<>(packageDirectories);
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    packageDirectoriesAll.addFirst(systemPackageDirectory);
+
+    final var loader =
+      new MiDirectoryLoaders(packageDirectoriesAll)
+        .create();
+
+    final ArrayList<MiPackageType> compiled;
+    try {
+      compiled =
+        MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      return QCommandStatus.FAILURE;
+    }
+
+    /*
+     * Report the named packages along with everything that they import,
+     * each package exactly once.
+     */
+
+    final var packages = new TreeMap<MiPackageName, MiPackageType>();
+    for (final var pack : loader.loadedPackages()) {
+      packages.put(pack.name(), pack);
+    }
+    for (final var pack : compiled) {
+      packages.put(pack.name(), pack);
+    }
+
+    final var statistics =
+      packages.values()
+        .stream()
+        .map(MiStatistics::ofPackage)
+        .toList();
+
+    writeJSON(context.output(), statistics, MiStatistics.total(statistics));
+    return QCommandStatus.SUCCESS;
+  }
+
+  private static void writeJSON(
+    final PrintWriter output,
+    final List<MiPackageStatistics> statistics,
+    final MiStatisticsCounts total)
+  {
+    output.println("{");
+    output.println("  \"packages\": [");
+
+    for (int index = 0; index < statistics.size(); ++index) {
+      final var pack = statistics.get(index);
+      output.println("    {");
+      output.printf(
+        "      \"name\": \"%s\",%n",
+        escapeJSON(pack.name().toString())
+      );
+      writeCounts(output, "      ", pack.counts());
+      output.println(",");
+      output.println("      \"mapLeaves\": [");
+
+      final var maps = pack.maps();
+      for (int mapIndex = 0; mapIndex < maps.size(); ++mapIndex) {
+        final var map = maps.get(mapIndex);
+        output.printf(
+          "        { \"name\": \"%s\", \"leaves\": %d }%s%n",
+          escapeJSON(map.name().value()),
+          Long.valueOf(map.leaves()),
+          separator(mapIndex, maps.size())
+        );
+      }
+
+      output.println("      ]");
+      output.printf("    }%s%n", separator(index, statistics.size()));
+    }
+
+    output.println("  ],");
+    output.println("  \"total\": {");
+    writeCounts(output, "    ", total);
+    output.println();
+    output.println("  }");
+    output.println("}");
+    output.flush();
+  }
+
+  private static void writeCounts(
+    final PrintWriter output,
+    final String indent,
+    final MiStatisticsCounts counts)
+  {
+    final var fields = List.of(
+      new Field("imports", counts.imports()),
+      new Field("scalars", counts.scalars()),
+      new Field("structures", counts.structures()),
+      new Field("fields", counts.fields()),
+      new Field("bitRanges", counts.bitRanges()),
+      new Field("maps", counts.maps()),
+      new Field("maxNestingDepth", counts.maxNestingDepth()),
+      new Field("leaves", counts.leaves()),
+      new Field("estimatedHeapOctets", counts.estimatedHeapOctets())
+    );
+
+    for (int index = 0; index < fields.size(); ++index) {
+      final var field = fields.get(index);
+      output.printf(
+        "%s\"%s\": %d",
+        indent,
+        field.name,
+        Long.valueOf(field.value)
+      );
+      if (index + 1 < fields.size()) {
+        output.println(",");
+      }
+    }
+  }
+
+  private static String separator(
+    final int index,
+    final int size)
+  {
+    return index + 1 < size ? "," : "";
+  }
+
+  private static String escapeJSON(
+    final String text)
+  {
+    final var result = new StringBuilder(text.length());
+    for (int index = 0; index < text.length(); ++index) {
+      final var c = text.charAt(index);
+      switch (c) {
+        case '"' -> result.append("\\\"");
+        case '\\' -> result.append("\\\\");
+        default -> {
+          if (c < 0x20) {
+            result.append("\\u%04x".formatted(Integer.valueOf(c)));
+          } else {
+            result.append(c);
+          }
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  private record Field(
+    String name,
+    long value)
+  {
+
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "stats",
+      new QConstant("Report statistics and estimated memory use of packages."),
+      Optional.empty()
+    );
+  }
+}
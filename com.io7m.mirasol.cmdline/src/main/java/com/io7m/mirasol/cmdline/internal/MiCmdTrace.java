@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.runtime.MiAddressIndex;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import com.io7m.mirasol.runtime.MiTraceConfiguration;
+import com.io7m.mirasol.runtime.MiTraceDecoder;
+import com.io7m.mirasol.runtime.MiTraceFormat;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamed01;
+import com.io7m.quarrel.core.QParameterNamed0N;
+import com.io7m.quarrel.core.QParameterNamed1;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.mirasol.cmdline.internal.MiCompilation.logError;
+
+/**
+ * {@code trace}
+ */
+
+public final class MiCmdTrace implements QCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCmdTrace.class);
+
+  private static final QParameterNamed0N<Path> FILES =
+    new QParameterNamed0N<>(
+      "--file",
+      List.of(),
+      new QConstant("The source file(s) to compile."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<Path> PACKAGE_DIRECTORIES =
+    new QParameterNamed0N<>(
+      "--package-directory",
+      List.of(),
+      new QConstant("The source package directories."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed0N<Path> TRACES =
+    new QParameterNamed0N<>(
+      "--trace",
+      List.of(),
+      new QConstant("The trace file(s) to decode."),
+      List.of(),
+      Path.class
+    );
+
+  private static final QParameterNamed1<String> FORMAT =
+    new QParameterNamed1<>(
+      "--format",
+      List.of(),
+      new QConstant("The trace format (binary, csv)."),
+      Optional.of(MiTraceFormat.BINARY.show()),
+      String.class
+    );
+
+  private static final QParameterNamed01<Path> OUTPUT =
+    new QParameterNamed01<>(
+      "--output",
+      List.of(),
+      new QConstant(
+        "The output file for annotated records (standard output if not specified)."),
+      Optional.empty(),
+      Path.class
+    );
+
+  private static final QParameterNamed01<Path> SUMMARY_OUTPUT =
+    new QParameterNamed01<>(
+      "--summary-output",
+      List.of(),
+      new QConstant(
+        "The output file for register summaries (not written if not specified)."),
+      Optional.empty(),
+      Path.class
+    );
+
+  private static final QParameterNamed1<Integer> THREADS =
+    new QParameterNamed1<>(
+      "--threads",
+      List.of(),
+      new QConstant("The number of threads used to decode traces."),
+      Optional.of(Integer.valueOf(Runtime.getRuntime().availableProcessors())),
+      Integer.class
+    );
+
+  /**
+   * {@code trace}
+   */
+
+  public MiCmdTrace()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(
+      List.of(
+        FILES,
+        FORMAT,
+        OUTPUT,
+        PACKAGE_DIRECTORIES,
+        SUMMARY_OUTPUT,
+        THREADS,
+        TRACES
+      )
+    );
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var files =
+      context.parameterValues(FILES);
+    final var packageDirectories =
+      context.parameterValues(PACKAGE_DIRECTORIES);
+    final var traces =
+      context.parameterValues(TRACES);
+
+    final MiTraceConfiguration configuration;
+    try {
+      configuration =
+        new MiTraceConfiguration(
+          MiTraceFormat.of(context.parameterValue(FORMAT)),
+          context.parameterValue(THREADS).intValue()
+        );
+    } catch (final IllegalArgumentException e) {
+      LOG.error("{}", e.getMessage());
+      return QCommandStatus.FAILURE;
+    }
+
+    final var directories =
+      MiDirectories.create();
+    final var packageDirectoriesAll =
+      new ArrayList<>(packageDirectories);
+    final var systemPackageDirectory =
+      directories.dataDirectory().resolve("packages");
+
+    Files.createDirectories(systemPackageDirectory);
+    packageDirectoriesAll.addFirst(systemPackageDirectory);
+
+    final var loader =
+      new MiDirectoryLoaders(packageDirectoriesAll)
+        .create();
+
+    final ArrayList<MiPackageType> packages;
+    try {
+      packages =
+        MiCompilation.doCompile(LOG, new MiCompilers(), loader, files);
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      return QCommandStatus.FAILURE;
+    }
+
+    packages.addAll(loader.loadedPackages());
+
+    try {
+      final var decoder =
+        MiTraceDecoder.create(MiAddressIndex.create(packages), configuration);
+
+      final var outputFile =
+        context.parameterValue(OUTPUT);
+      final var summaryFile =
+        context.parameterValue(SUMMARY_OUTPUT);
+
+      try (var records = openOutput(context, outputFile);
+           var summaries = openSummaries(summaryFile)) {
+        decoder.decode(traces, records, summaries);
+      }
+    } catch (final MiRuntimeException e) {
+      logError(LOG, e);
+      return QCommandStatus.FAILURE;
+    }
+
+    return QCommandStatus.SUCCESS;
+  }
+
+  private static Writer openOutput(
+    final QCommandContextType context,
+    final Optional<Path> file)
+    throws IOException
+  {
+    if (file.isPresent()) {
+      return Files.newBufferedWriter(file.get());
+    }
+
+    /*
+     * Standard output must not be closed along with the other outputs.
+     */
+
+    final var output = context.output();
+    return new Writer()
+    {
+      @Override
+      public void write(
+        final char[] buffer,
+        final int offset,
+        final int length)
+      {
+        output.write(buffer, offset, length);
+      }
+
+      @Override
+      public void flush()
+      {
+        output.flush();
+      }
+
+      @Override
+      public void close()
+      {
+        output.flush();
+      }
+    };
+  }
+
+  private static Writer openSummaries(
+    final Optional<Path> file)
+    throws IOException
+  {
+    if (file.isPresent()) {
+      return Files.newBufferedWriter(file.get());
+    }
+    return Writer.nullWriter();
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "trace",
+      new QConstant("Annotate bus traces with registers and bit ranges."),
+      Optional.empty()
+    );
+  }
+}
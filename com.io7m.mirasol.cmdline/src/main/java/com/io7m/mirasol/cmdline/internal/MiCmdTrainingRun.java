@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.MiStandardPackages;
+import com.io7m.mirasol.compiler.MiStatistics;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorOptions;
+import com.io7m.quarrel.core.QCommandContextType;
+import com.io7m.quarrel.core.QCommandMetadata;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.quarrel.core.QCommandType;
+import com.io7m.quarrel.core.QParameterNamedType;
+import com.io7m.quarrel.core.QStringType.QConstant;
+import com.io7m.quarrel.ext.logback.QLogback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * {@code training-run}
+ *
+ * <p>Exercise the compiler and every available extractor against the
+ * standard packages, touching only temporary files. This is intended to be
+ * run with {@code -XX:ArchiveClassesAtExit} (or
+ * {@code -XX:+AutoCreateSharedArchive}) so that the resulting class data
+ * sharing archive contains the classes that ordinary invocations load.</p>
+ */
+
+public final class MiCmdTrainingRun implements QCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCmdTrainingRun.class);
+
+  /**
+   * {@code training-run}
+   */
+
+  public MiCmdTrainingRun()
+  {
+
+  }
+
+  @Override
+  public List<QParameterNamedType<?>> onListNamedParameters()
+  {
+    return QLogback.plusParameters(List.of());
+  }
+
+  @Override
+  public QCommandStatus onExecute(
+    final QCommandContextType context)
+    throws IOException
+  {
+    QLogback.configure(context);
+
+    final var directory =
+      Files.createTempDirectory("mirasol-training-");
+
+    try {
+      return execute(directory);
+    } finally {
+      MiDirectories.deleteRecursively(directory);
+    }
+  }
+
+  private static QCommandStatus execute(
+    final Path directory)
+    throws IOException
+  {
+    final var sources =
+      Files.createDirectories(directory.resolve("sources"));
+    final var file =
+      sources.resolve("core.xml");
+
+    try (var stream = MiStandardPackages.core().openStream()) {
+      Files.copy(stream, file);
+    }
+
+    final var loader =
+      new MiDirectoryLoaders(List.of(sources))
+        .create();
+
+    final ArrayList<MiPackageType> packages;
+    try {
+      packages =
+        MiCompilation.doCompile(LOG, new MiCompilers(), loader, List.of(file));
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      return QCommandStatus.FAILURE;
+    }
+
+    packages.addAll(loader.loadedPackages());
+
+    final var statistics =
+      packages.stream()
+        .map(MiStatistics::ofPackage)
+        .toList();
+
+    LOG.info(
+      "Trained compiler on {} structures",
+      Long.valueOf(MiStatistics.total(statistics).structures())
+    );
+
+    final var options =
+      new MiExtractorOptions(true, true, true, true, true);
+
+    var extracted = true;
+    for (final var provider :
+      ServiceLoader.load(MiExtractorFactoryType.class)) {
+      final var outputDirectory =
+        Files.createDirectories(directory.resolve(provider.name()));
+
+      LOG.info("Training extractor {}", provider.name());
+      extracted &= MiCmdGenerate.extract(
+        MiDiagnosticsType.ofLogger(LOG),
+        provider,
+        packages,
+        List.of(),
+        outputDirectory,
+        options
+      );
+    }
+
+    if (!extracted) {
+      return QCommandStatus.FAILURE;
+    }
+    return QCommandStatus.SUCCESS;
+  }
+
+  @Override
+  public QCommandMetadata metadata()
+  {
+    return new QCommandMetadata(
+      "training-run",
+      new QConstant(
+        "Exercise the compiler and extractors to train a class archive."),
+      Optional.empty()
+    );
+  }
+}
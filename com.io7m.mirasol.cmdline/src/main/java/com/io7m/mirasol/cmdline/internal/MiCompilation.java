@@ -18,8 +18,10 @@
 package com.io7m.mirasol.cmdline.internal;
 
 import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.mirasol.cmdline.MiVersion;
 import com.io7m.mirasol.compiler.MiCompilers;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
 import com.io7m.mirasol.core.MiPackageType;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.seltzer.api.SStructuredErrorType;
@@ -29,6 +31,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 final class MiCompilation
 {
@@ -37,9 +40,29 @@ final class MiCompilation
 
   }
 
+  static MiCompilers compilers(
+    final Optional<MiRemoteCacheType> remoteCache)
+  {
+    final var version =
+      "%s/%s".formatted(MiVersion.MAIN_VERSION, MiVersion.MAIN_BUILD);
+
+    return remoteCache.map(cache -> new MiCompilers(cache, version))
+      .orElseGet(MiCompilers::new);
+  }
+
   static void logError(
     final Logger logger,
     final SStructuredErrorType<String> error)
+  {
+    logger.error("{}", formatError(error));
+
+    if (error.exception().isPresent()) {
+      logger.error("", error.exception().get());
+    }
+  }
+
+  static String formatError(
+    final SStructuredErrorType<String> error)
   {
     var maxKeyLength = 0;
     for (final var entry : error.attributes().entrySet()) {
@@ -72,11 +95,7 @@ final class MiCompilation
       builder.append(System.lineSeparator());
     }
 
-    logger.error("{}", builder);
-
-    if (error.exception().isPresent()) {
-      logger.error("", error.exception().get());
-    }
+    return builder.toString();
   }
 
   static ArrayList<MiPackageType> doCompile(
@@ -85,6 +104,21 @@ final class MiCompilation
     final MiLoaderType loader,
     final List<Path> files)
     throws MiCompilationFailed
+  {
+    return doCompile(
+      MiDiagnosticsType.ofLogger(logger),
+      compilers,
+      loader,
+      files
+    );
+  }
+
+  static ArrayList<MiPackageType> doCompile(
+    final MiDiagnosticsType diagnostics,
+    final MiCompilers compilers,
+    final MiLoaderType loader,
+    final List<Path> files)
+    throws MiCompilationFailed
   {
     final var compiler =
       compilers.create(loader);
@@ -107,12 +141,12 @@ final class MiCompilation
           case final MiCompilerResultType.Failed<MiPackageType> failed -> {
             exceptionTracker.addException(new MiCompilationFailed());
             for (final var error : failed.errors()) {
-              logError(logger, error);
+              diagnostics.onError(error);
             }
           }
         }
       } catch (final IOException e) {
-        logger.error("I/O error: {}: ", file, e);
+        diagnostics.onIOError(file, e);
         exceptionTracker.addException(new MiCompilationFailed());
       }
     }
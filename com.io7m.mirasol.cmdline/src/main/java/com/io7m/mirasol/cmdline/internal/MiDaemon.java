@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.MiDaemonCompile;
+import com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.MiDaemonGenerate;
+import com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.MiDaemonRequestType;
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.quarrel.core.QCommandStatus;
+import com.io7m.seltzer.api.SStructuredErrorType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * The compilation daemon.
+ *
+ * <p>The daemon accepts connections on a Unix domain socket and serves each
+ * connection on its own virtual thread. The compiler factory, the extractor
+ * factories, and the packages compiled from package directories are kept
+ * for the lifetime of the daemon, so that requests do not pay for service
+ * discovery, resource loading, or recompiling unchanged packages.</p>
+ */
+
+final class MiDaemon
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiDaemon.class);
+
+  private final Path systemPackageDirectory;
+  private final MiCompilers compilers;
+  private final Map<String, MiExtractorFactoryType> extractors;
+  private final ConcurrentHashMap<List<Path>, MiDaemonWorkspace> workspaces;
+
+  MiDaemon(
+    final Path inSystemPackageDirectory)
+  {
+    this.systemPackageDirectory =
+      inSystemPackageDirectory.toAbsolutePath().normalize();
+    this.compilers =
+      new MiCompilers();
+    this.extractors =
+      new HashMap<>();
+    this.workspaces =
+      new ConcurrentHashMap<>();
+
+    ServiceLoader.load(MiExtractorFactoryType.class)
+      .stream()
+      .map(ServiceLoader.Provider::get)
+      .forEach(e -> this.extractors.putIfAbsent(e.name(), e));
+  }
+
+  QCommandStatus run(
+    final Path socket)
+    throws IOException
+  {
+    final var address =
+      UnixDomainSocketAddress.of(socket);
+
+    /*
+     * A socket file left behind by a daemon that did not exit cleanly would
+     * otherwise prevent binding. A socket file that still accepts
+     * connections belongs to a running daemon, and is left alone.
+     */
+
+    if (Files.exists(socket)) {
+      try (var ignored = SocketChannel.open(address)) {
+        LOG.error("A daemon is already listening on {}", socket);
+        return QCommandStatus.FAILURE;
+      } catch (final IOException e) {
+        Files.delete(socket);
+      }
+    }
+
+    try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+         var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      server.bind(address);
+      LOG.info("Listening on {}", socket);
+
+      while (true) {
+        final var channel = server.accept();
+        executor.execute(() -> this.serve(channel));
+      }
+    } catch (final ClosedByInterruptException e) {
+      return QCommandStatus.SUCCESS;
+    } finally {
+      Files.deleteIfExists(socket);
+    }
+  }
+
+  private void serve(
+    final SocketChannel channel)
+  {
+    try (channel;
+         var input = new DataInputStream(
+           new BufferedInputStream(Channels.newInputStream(channel)));
+         var output = new DataOutputStream(
+           new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+
+      final MiDaemonRequestType request;
+      try {
+        request = MiDaemonProtocol.readRequest(input);
+      } catch (final IOException e) {
+        MiDaemonProtocol.writeError(
+          output,
+          "Malformed request: %s".formatted(e)
+        );
+        MiDaemonProtocol.writeStatus(output, false);
+        return;
+      }
+
+      /*
+       * A request that fails unexpectedly must still be answered, or the
+       * client would wait forever for a status. Failures to write to the
+       * client are connection failures, and are handled below.
+       */
+
+      final boolean success;
+      try {
+        success = this.execute(request, new MiDaemonDiagnostics(output));
+      } catch (final UncheckedIOException e) {
+        throw e;
+      } catch (final RuntimeException e) {
+        LOG.error("Request failed: ", e);
+        MiDaemonProtocol.writeError(
+          output,
+          "Internal error: %s".formatted(e)
+        );
+        MiDaemonProtocol.writeStatus(output, false);
+        return;
+      }
+
+      MiDaemonProtocol.writeStatus(output, success);
+    } catch (final IOException | UncheckedIOException e) {
+      LOG.debug("Client connection failed: ", e);
+    }
+  }
+
+  private boolean execute(
+    final MiDaemonRequestType request,
+    final MiDiagnosticsType diagnostics)
+  {
+    final var directories =
+      new ArrayList<>(request.packageDirectories());
+    directories.addFirst(this.systemPackageDirectory);
+
+    final var workspace =
+      this.workspaces.computeIfAbsent(
+        List.copyOf(directories),
+        MiDaemonWorkspace::new
+      );
+
+    final var loader =
+      workspace.createLoader();
+
+    final ArrayList<MiPackageType> packages;
+    try {
+      packages =
+        MiCompilation.doCompile(
+          diagnostics,
+          this.compilers,
+          loader,
+          request.files()
+        );
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      workspace.merge(loader.loadedPackages());
+      return false;
+    }
+
+    workspace.merge(loader.loadedPackages());
+
+    return switch (request) {
+      case final MiDaemonCompile compile -> {
+        yield true;
+      }
+      case final MiDaemonGenerate generate -> {
+        final var extractor =
+          this.extractors.get(generate.extractor());
+
+        if (extractor == null) {
+          diagnostics.onMessage("No such extractor exists.");
+          yield false;
+        }
+
+        packages.addAll(loader.loadedPackages());
+        yield MiCmdGenerate.extract(
+          diagnostics,
+          extractor,
+          packages,
+          List.of(),
+          generate.outputDirectory(),
+          generate.options()
+        );
+      }
+    };
+  }
+
+  /**
+   * Diagnostics that are relayed to the client.
+   */
+
+  private static final class MiDaemonDiagnostics implements MiDiagnosticsType
+  {
+    private final DataOutputStream output;
+
+    MiDaemonDiagnostics(
+      final DataOutputStream inOutput)
+    {
+      this.output = Objects.requireNonNull(inOutput, "output");
+    }
+
+    @Override
+    public void onError(
+      final SStructuredErrorType<String> error)
+    {
+      this.onMessage(MiCompilation.formatError(error));
+    }
+
+    @Override
+    public void onIOError(
+      final Path file,
+      final IOException e)
+    {
+      this.onMessage("I/O error: %s: %s".formatted(file, e));
+    }
+
+    @Override
+    public void onMessage(
+      final String message)
+    {
+      try {
+        MiDaemonProtocol.writeError(this.output, message);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.MiDaemonRequestType;
+import com.io7m.quarrel.core.QCommandStatus;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+import static com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.RESPONSE_ERROR;
+import static com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.RESPONSE_STATUS;
+import static com.io7m.mirasol.cmdline.internal.MiDaemonProtocol.STATUS_SUCCESS;
+
+/**
+ * The client side of the daemon protocol, used by commands that are
+ * forwarded to a daemon.
+ */
+
+final class MiDaemonClient
+{
+  private MiDaemonClient()
+  {
+
+  }
+
+  static QCommandStatus execute(
+    final Logger logger,
+    final Path socket,
+    final MiDaemonRequestType request)
+  {
+    try (var channel =
+           SocketChannel.open(UnixDomainSocketAddress.of(socket));
+         var input = new DataInputStream(
+           new BufferedInputStream(Channels.newInputStream(channel)));
+         var output = new DataOutputStream(
+           new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+
+      MiDaemonProtocol.writeRequest(output, request);
+
+      while (true) {
+        final var tag = input.readByte();
+        switch (tag) {
+          case RESPONSE_ERROR -> {
+            logger.error("{}", MiDaemonProtocol.readString(input));
+          }
+          case RESPONSE_STATUS -> {
+            if (input.readByte() == STATUS_SUCCESS) {
+              return QCommandStatus.SUCCESS;
+            }
+            return QCommandStatus.FAILURE;
+          }
+          default -> {
+            throw new IOException(
+              "Unrecognized response type %d".formatted(Byte.valueOf(tag))
+            );
+          }
+        }
+      }
+    } catch (final IOException e) {
+      logger.error("Daemon request failed: {}: {}", socket, e.toString());
+      return QCommandStatus.FAILURE;
+    }
+  }
+}
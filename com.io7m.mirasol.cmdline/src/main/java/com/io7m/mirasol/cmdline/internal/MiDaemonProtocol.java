@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.extractor.api.MiExtractorOptions;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The protocol spoken between the {@code daemon} command and its clients.
+ *
+ * <p>A client connects, sends the protocol version and a single request,
+ * and then reads responses until it receives a status. Each response is a
+ * tag octet followed by the response body. Strings are sent as a 32-bit
+ * length followed by that many octets of UTF-8. Paths are always sent in
+ * absolute form, as the daemon does not share the working directory of the
+ * client.</p>
+ */
+
+final class MiDaemonProtocol
+{
+  static final int VERSION = 1;
+
+  static final byte REQUEST_COMPILE = 0;
+  static final byte REQUEST_GENERATE = 1;
+
+  static final byte RESPONSE_ERROR = 0;
+  static final byte RESPONSE_STATUS = 1;
+
+  static final byte STATUS_SUCCESS = 0;
+  static final byte STATUS_FAILURE = 1;
+
+  private static final int STRING_LENGTH_MAXIMUM = 1 << 20;
+  private static final int LIST_LENGTH_MAXIMUM = 1 << 16;
+
+  private MiDaemonProtocol()
+  {
+
+  }
+
+  /**
+   * The type of requests.
+   */
+
+  sealed interface MiDaemonRequestType
+  {
+    /**
+     * @return The source files to compile
+     */
+
+    List<Path> files();
+
+    /**
+     * @return The package directories, excluding the system package directory
+     */
+
+    List<Path> packageDirectories();
+  }
+
+  /**
+   * A request to compile sources.
+   *
+   * @param files              The source files to compile
+   * @param packageDirectories The package directories
+   */
+
+  record MiDaemonCompile(
+    List<Path> files,
+    List<Path> packageDirectories)
+    implements MiDaemonRequestType
+  {
+    MiDaemonCompile
+    {
+      files = absolute(files);
+      packageDirectories = absolute(packageDirectories);
+    }
+  }
+
+  /**
+   * A request to compile sources and generate code.
+   *
+   * @param files              The source files to compile
+   * @param packageDirectories The package directories
+   * @param extractor          The name of the extractor
+   * @param outputDirectory    The output directory
+   * @param options            The extractor options
+   */
+
+  record MiDaemonGenerate(
+    List<Path> files,
+    List<Path> packageDirectories,
+    String extractor,
+    Path outputDirectory,
+    MiExtractorOptions options)
+    implements MiDaemonRequestType
+  {
+    MiDaemonGenerate
+    {
+      files = absolute(files);
+      packageDirectories = absolute(packageDirectories);
+      Objects.requireNonNull(extractor, "extractor");
+      outputDirectory = outputDirectory.toAbsolutePath().normalize();
+      Objects.requireNonNull(options, "options");
+    }
+  }
+
+  private static List<Path> absolute(
+    final List<Path> paths)
+  {
+    return paths.stream()
+      .map(p -> p.toAbsolutePath().normalize())
+      .toList();
+  }
+
+  static void writeRequest(
+    final DataOutputStream output,
+    final MiDaemonRequestType request)
+    throws IOException
+  {
+    output.writeInt(VERSION);
+
+    switch (request) {
+      case final MiDaemonCompile compile -> {
+        output.writeByte(REQUEST_COMPILE);
+        writePaths(output, compile.files());
+        writePaths(output, compile.packageDirectories());
+      }
+      case final MiDaemonGenerate generate -> {
+        output.writeByte(REQUEST_GENERATE);
+        writePaths(output, generate.files());
+        writePaths(output, generate.packageDirectories());
+        writeString(output, generate.extractor());
+        writeString(output, generate.outputDirectory().toString());
+
+        final var options = generate.options();
+        output.writeBoolean(options.writeDepfiles());
+        output.writeBoolean(options.splitOutput());
+        output.writeBoolean(options.baseAddresses());
+        output.writeBoolean(options.accessors());
+        output.writeBoolean(options.snapshots());
+      }
+    }
+    output.flush();
+  }
+
+  static MiDaemonRequestType readRequest(
+    final DataInputStream input)
+    throws IOException
+  {
+    final var version = input.readInt();
+    if (version != VERSION) {
+      throw new IOException(
+        "Unsupported protocol version %d (expected %d)"
+          .formatted(Integer.valueOf(version), Integer.valueOf(VERSION))
+      );
+    }
+
+    final var kind = input.readByte();
+    return switch (kind) {
+      case REQUEST_COMPILE -> {
+        yield new MiDaemonCompile(readPaths(input), readPaths(input));
+      }
+      case REQUEST_GENERATE -> {
+        final var files = readPaths(input);
+        final var packageDirectories = readPaths(input);
+        final var extractor = readString(input);
+        final var outputDirectory = Path.of(readString(input));
+        final var options =
+          new MiExtractorOptions(
+            input.readBoolean(),
+            input.readBoolean(),
+            input.readBoolean(),
+            input.readBoolean(),
+            input.readBoolean()
+          );
+        yield new MiDaemonGenerate(
+          files,
+          packageDirectories,
+          extractor,
+          outputDirectory,
+          options
+        );
+      }
+      default -> {
+        throw new IOException(
+          "Unrecognized request type %d".formatted(Byte.valueOf(kind))
+        );
+      }
+    };
+  }
+
+  static void writeError(
+    final DataOutputStream output,
+    final String text)
+    throws IOException
+  {
+    output.writeByte(RESPONSE_ERROR);
+    writeString(output, text);
+  }
+
+  static void writeStatus(
+    final DataOutputStream output,
+    final boolean success)
+    throws IOException
+  {
+    output.writeByte(RESPONSE_STATUS);
+    output.writeByte(success ? STATUS_SUCCESS : STATUS_FAILURE);
+    output.flush();
+  }
+
+  private static void writePaths(
+    final DataOutputStream output,
+    final List<Path> paths)
+    throws IOException
+  {
+    output.writeInt(paths.size());
+    for (final var path : paths) {
+      writeString(output, path.toString());
+    }
+  }
+
+  private static List<Path> readPaths(
+    final DataInputStream input)
+    throws IOException
+  {
+    final var count = input.readInt();
+    if (count < 0 || count > LIST_LENGTH_MAXIMUM) {
+      throw new IOException(
+        "List length %d out of range".formatted(Integer.valueOf(count))
+      );
+    }
+
+    final var paths = new ArrayList<Path>(count);
+    for (int index = 0; index < count; ++index) {
+      paths.add(Path.of(readString(input)));
+    }
+    return paths;
+  }
+
+  static void writeString(
+    final DataOutputStream output,
+    final String text)
+    throws IOException
+  {
+    final var data = text.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(data.length);
+    output.write(data);
+  }
+
+  static String readString(
+    final DataInputStream input)
+    throws IOException
+  {
+    final var length = input.readInt();
+    if (length < 0 || length > STRING_LENGTH_MAXIMUM) {
+      throw new IOException(
+        "String length %d out of range".formatted(Integer.valueOf(length))
+      );
+    }
+
+    final var data = input.readNBytes(length);
+    if (data.length != length) {
+      throw new EOFException();
+    }
+    return new String(data, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.loader.api.MiLoaderType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The packages compiled by the daemon for one list of package directories.
+ *
+ * <p>A cached package is reused as long as the loader would still locate it
+ * in the same file, that file has not been modified, and every package it
+ * imports is also reusable. Requests compile against their own loaders, and
+ * merge the packages they loaded back into the workspace afterwards; a merge
+ * is discarded if it would mix packages from two different compilations of
+ * the same source, so that every set of cached packages handed to a loader
+ * refers to itself consistently.</p>
+ */
+
+final class MiDaemonWorkspace
+{
+  private final MiDirectoryLoaders loaders;
+  private final HashMap<MiPackageName, MiCachedPackage> packages;
+
+  private record MiCachedPackage(
+    MiPackageType pack,
+    Path file,
+    FileTime modified,
+    long size)
+  {
+
+  }
+
+  MiDaemonWorkspace(
+    final List<Path> directories)
+  {
+    this.loaders =
+      new MiDirectoryLoaders(directories);
+    this.packages =
+      new HashMap<>();
+  }
+
+  /**
+   * @return A new loader that starts with every reusable package loaded
+   */
+
+  MiLoaderType createLoader()
+  {
+    return this.loaders.createWithPackages(this.reusablePackages());
+  }
+
+  private synchronized List<MiPackageType> reusablePackages()
+  {
+    this.packages.values().removeIf(c -> !this.isCurrent(c));
+
+    boolean removed;
+    do {
+      removed = this.packages.values().removeIf(c -> {
+        return c.pack()
+          .imports()
+          .stream()
+          .anyMatch(i -> !this.packages.containsKey(i.packageName()));
+      });
+    } while (removed);
+
+    return this.packages.values()
+      .stream()
+      .map(MiCachedPackage::pack)
+      .toList();
+  }
+
+  private boolean isCurrent(
+    final MiCachedPackage cached)
+  {
+    final var located =
+      this.loaders.locate(cached.pack().name())
+        .map(p -> p.toAbsolutePath().normalize());
+
+    if (!Objects.equals(located, Optional.of(cached.file()))) {
+      return false;
+    }
+
+    try {
+      final var attributes =
+        Files.readAttributes(cached.file(), BasicFileAttributes.class);
+      return Objects.equals(attributes.lastModifiedTime(), cached.modified())
+             && attributes.size() == cached.size();
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Merge the packages loaded by a loader created with
+   * {@link #createLoader()} back into the workspace.
+   *
+   * @param loaded The loaded packages
+   */
+
+  synchronized void merge(
+    final Collection<MiPackageType> loaded)
+  {
+    for (final var pack : loaded) {
+      final var existing = this.packages.get(pack.name());
+      if (existing != null && existing.pack() != pack) {
+        return;
+      }
+    }
+
+    final var added = new ArrayList<MiCachedPackage>();
+    for (final var pack : loaded) {
+      if (this.packages.containsKey(pack.name())) {
+        continue;
+      }
+
+      final var source = pack.source();
+      if (!Objects.equals(source.getScheme(), "file")) {
+        return;
+      }
+
+      final var file = Path.of(source).toAbsolutePath().normalize();
+      try {
+        final var attributes =
+          Files.readAttributes(file, BasicFileAttributes.class);
+        added.add(new MiCachedPackage(
+          pack,
+          file,
+          attributes.lastModifiedTime(),
+          attributes.size()
+        ));
+      } catch (final IOException e) {
+        return;
+      }
+    }
+
+    for (final var cached : added) {
+      this.packages.put(cached.pack().name(), cached);
+    }
+  }
+}
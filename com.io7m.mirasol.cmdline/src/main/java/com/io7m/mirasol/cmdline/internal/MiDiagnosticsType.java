@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.seltzer.api.SStructuredErrorType;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A receiver of the diagnostics produced when compiling sources and
+ * generating code. Diagnostics are normally logged, but are relayed to the
+ * client when running inside the daemon.
+ */
+
+interface MiDiagnosticsType
+{
+  /**
+   * A structured error was produced.
+   *
+   * @param error The error
+   */
+
+  void onError(
+    SStructuredErrorType<String> error);
+
+  /**
+   * A file could not be read.
+   *
+   * @param file The file
+   * @param e    The exception
+   */
+
+  void onIOError(
+    Path file,
+    IOException e);
+
+  /**
+   * A plain error message was produced.
+   *
+   * @param message The message
+   */
+
+  void onMessage(
+    String message);
+
+  /**
+   * @param logger The logger
+   *
+   * @return A receiver that logs diagnostics to the given logger
+   */
+
+  static MiDiagnosticsType ofLogger(
+    final Logger logger)
+  {
+    Objects.requireNonNull(logger, "logger");
+
+    return new MiDiagnosticsType()
+    {
+      @Override
+      public void onError(
+        final SStructuredErrorType<String> error)
+      {
+        MiCompilation.logError(logger, error);
+      }
+
+      @Override
+      public void onIOError(
+        final Path file,
+        final IOException e)
+      {
+        logger.error("I/O error: {}: ", file, e);
+      }
+
+      @Override
+      public void onMessage(
+        final String message)
+      {
+        logger.error("{}", message);
+      }
+    };
+  }
+}
@@ -21,6 +21,11 @@ import com.io7m.jade.api.ApplicationDirectories;
 import com.io7m.jade.api.ApplicationDirectoriesType;
 import com.io7m.jade.api.ApplicationDirectoryConfiguration;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
 final class MiDirectories
 {
   private MiDirectories()
@@ -38,4 +43,17 @@ final class MiDirectories
 
     return ApplicationDirectories.get(directoryConfiguration);
   }
+
+  static void deleteRecursively(
+    final Path directory)
+    throws IOException
+  {
+    try (var paths = Files.walk(directory)) {
+      final var ordered =
+        paths.sorted(Comparator.reverseOrder()).toList();
+      for (final var path : ordered) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
 }
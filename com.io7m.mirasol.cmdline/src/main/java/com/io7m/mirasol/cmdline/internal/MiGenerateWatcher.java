@@ -0,0 +1,400 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageReference;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorOptions;
+import com.io7m.quarrel.core.QCommandStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * The {@code generate --watch} loop.
+ *
+ * <p>The watcher keeps every successfully compiled package in memory. When
+ * sources change, only the packages declared by the changed files (and the
+ * packages that transitively import them) are discarded and recompiled; the
+ * remaining packages are handed to the new loader as already loaded. The
+ * extractor is then executed with only the recompiled packages as outputs,
+ * and the retained packages as dependencies.</p>
+ *
+ * <p>Creating a package file in a package directory always causes a
+ * rebuild: the new file might provide a package that a previous build
+ * failed to find, or might shadow a package that was previously loaded from
+ * a later directory in the search path.</p>
+ *
+ * <p>If compilation fails, the previous packages are kept, and the failed
+ * work is retried along with the next change.</p>
+ */
+
+final class MiGenerateWatcher
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiGenerateWatcher.class);
+
+  /**
+   * Editors frequently produce several events for a single save (truncate,
+   * write, rename, attribute changes). Events are collected until nothing
+   * has arrived for this long, and are then handled as one change.
+   */
+
+  private static final long QUIET_MILLISECONDS = 50L;
+
+  private static final String PACKAGE_SUFFIX = ".mpx";
+
+  private final MiDirectoryLoaders loaders;
+  private final MiCompilers compilers;
+  private final List<Path> files;
+  private final Set<Path> packageDirectories;
+  private final MiExtractorFactoryType extractors;
+  private final Path outputDirectory;
+  private final MiExtractorOptions options;
+  private final Map<Path, MiPackageType> filePackages;
+  private final Map<MiPackageName, MiPackageType> loadedPackages;
+  private final Set<Path> pendingFiles;
+  private final Set<MiPackageName> pendingPackages;
+  private boolean pendingCreation;
+
+  MiGenerateWatcher(
+    final MiDirectoryLoaders inLoaders,
+    final List<Path> inFiles,
+    final List<Path> inPackageDirectories,
+    final MiExtractorFactoryType inExtractors,
+    final Path inOutputDirectory,
+    final MiExtractorOptions inOptions)
+  {
+    this.loaders =
+      Objects.requireNonNull(inLoaders, "loaders");
+    this.files =
+      inFiles.stream()
+        .map(MiGenerateWatcher::normalize)
+        .distinct()
+        .toList();
+    this.packageDirectories =
+      new LinkedHashSet<>(
+        inPackageDirectories.stream()
+          .map(MiGenerateWatcher::normalize)
+          .toList()
+      );
+    this.extractors =
+      Objects.requireNonNull(inExtractors, "extractors");
+    this.outputDirectory =
+      Objects.requireNonNull(inOutputDirectory, "outputDirectory");
+    this.options =
+      Objects.requireNonNull(inOptions, "options");
+    this.compilers =
+      new MiCompilers();
+    this.filePackages =
+      new HashMap<>();
+    this.loadedPackages =
+      new HashMap<>();
+    this.pendingFiles =
+      new LinkedHashSet<>(this.files);
+    this.pendingPackages =
+      new HashSet<>();
+  }
+
+  private static Path normalize(
+    final Path path)
+  {
+    return path.toAbsolutePath().normalize();
+  }
+
+  QCommandStatus run()
+    throws IOException
+  {
+    try (var watchService = FileSystems.getDefault().newWatchService()) {
+      final var directories = this.register(watchService);
+
+      this.rebuild();
+      LOG.info("Watching for changes.");
+
+      while (true) {
+        var key = watchService.take();
+        do {
+          this.collect(directories, key);
+          key = watchService.poll(QUIET_MILLISECONDS, TimeUnit.MILLISECONDS);
+        } while (key != null);
+
+        if (this.pendingCreation
+            || !this.pendingFiles.isEmpty()
+            || !this.pendingPackages.isEmpty()) {
+          this.rebuild();
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return QCommandStatus.SUCCESS;
+    }
+  }
+
+  private Map<WatchKey, Path> register(
+    final WatchService watchService)
+    throws IOException
+  {
+    final var directories = new LinkedHashSet<Path>(this.packageDirectories);
+    for (final var file : this.files) {
+      directories.add(file.getParent());
+    }
+
+    final var keys = new HashMap<WatchKey, Path>();
+    for (final var directory : directories) {
+      if (Files.isDirectory(directory)) {
+        keys.put(
+          directory.register(
+            watchService,
+            ENTRY_CREATE,
+            ENTRY_DELETE,
+            ENTRY_MODIFY
+          ),
+          directory
+        );
+      } else {
+        LOG.warn("Not a directory, and will not be watched: {}", directory);
+      }
+    }
+    return keys;
+  }
+
+  private void collect(
+    final Map<WatchKey, Path> directories,
+    final WatchKey key)
+  {
+    final var directory = directories.get(key);
+
+    for (final var event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        this.pendingFiles.addAll(this.files);
+        this.pendingPackages.addAll(this.loadedPackages.keySet());
+        continue;
+      }
+
+      final var file = directory.resolve((Path) event.context());
+      if (this.files.contains(file)) {
+        this.pendingFiles.add(file);
+      }
+
+      if (this.packageDirectories.contains(directory)
+          && file.getFileName().toString().endsWith(PACKAGE_SUFFIX)) {
+        this.pendingPackages.addAll(this.packagesCompiledFrom(file));
+
+        if (event.kind() == ENTRY_CREATE) {
+          this.pendingPackages.addAll(this.packagesNamedBy(file));
+          this.pendingCreation = true;
+        }
+      }
+    }
+
+    key.reset();
+  }
+
+  private List<MiPackageName> packagesCompiledFrom(
+    final Path file)
+  {
+    return this.loadedPackages.values()
+      .stream()
+      .filter(p -> Objects.equals(p.source().getScheme(), "file"))
+      .filter(p -> Objects.equals(normalize(Path.of(p.source())), file))
+      .map(MiPackageType::name)
+      .toList();
+  }
+
+  private List<MiPackageName> packagesNamedBy(
+    final Path file)
+  {
+    final var fileName = file.getFileName().toString();
+    return this.loadedPackages.keySet()
+      .stream()
+      .filter(name -> Objects.equals(name + PACKAGE_SUFFIX, fileName))
+      .toList();
+  }
+
+  private void rebuild()
+  {
+    final var timeThen = System.nanoTime();
+    this.pendingCreation = false;
+
+    /*
+     * Work out which packages are invalidated by the changes. Changing a
+     * file invalidates the package it last declared, and invalidating a
+     * package invalidates everything that imports it.
+     */
+
+    final var invalidated = new HashSet<>(this.pendingPackages);
+    for (final var file : this.pendingFiles) {
+      final var pack = this.filePackages.get(file);
+      if (pack != null) {
+        invalidated.add(pack.name());
+      }
+    }
+    this.addDependents(invalidated);
+
+    final var retained = new ArrayList<MiPackageType>();
+    for (final var pack : this.loadedPackages.values()) {
+      if (!invalidated.contains(pack.name())) {
+        retained.add(pack);
+      }
+    }
+
+    final var compileFiles = new ArrayList<Path>();
+    for (final var file : this.files) {
+      final var pack = this.filePackages.get(file);
+      if (pack == null
+          || this.pendingFiles.contains(file)
+          || invalidated.contains(pack.name())) {
+        compileFiles.add(file);
+      }
+    }
+
+    final var loader =
+      this.loaders.createWithPackages(retained);
+
+    final ArrayList<MiPackageType> compiled;
+    try {
+      compiled =
+        MiCompilation.doCompile(LOG, this.compilers, loader, compileFiles);
+    } catch (final MiCompilation.MiCompilationFailed e) {
+      this.pendingPackages.addAll(invalidated);
+      LOG.error("Compilation failed. Waiting for changes.");
+      return;
+    }
+
+    for (int index = 0; index < compiled.size(); ++index) {
+      this.filePackages.put(compileFiles.get(index), compiled.get(index));
+    }
+
+    this.loadedPackages.clear();
+    for (final var pack : loader.loadedPackages()) {
+      this.loadedPackages.put(pack.name(), pack);
+    }
+
+    this.pendingFiles.clear();
+    this.pendingPackages.clear();
+
+    /*
+     * The packages compiled in this round are the input files that were
+     * compiled, and the packages that the loader compiled on demand (that
+     * is, everything it holds that it was not handed as-is). Only these
+     * have outputs that need to be regenerated.
+     */
+
+    final var fresh = new HashSet<>(this.loadedPackages.keySet());
+    for (final var pack : retained) {
+      fresh.remove(pack.name());
+    }
+    for (final var pack : compiled) {
+      fresh.add(pack.name());
+    }
+
+    final var all = new LinkedHashMap<MiPackageName, MiPackageType>();
+    for (final var file : this.files) {
+      final var pack = this.filePackages.get(file);
+      all.put(pack.name(), pack);
+    }
+    for (final var pack : this.loadedPackages.values()) {
+      all.putIfAbsent(pack.name(), pack);
+    }
+
+    final var outputs = new ArrayList<MiPackageType>();
+    final var dependencies = new ArrayList<MiPackageType>();
+    for (final var pack : all.values()) {
+      if (fresh.contains(pack.name())) {
+        outputs.add(pack);
+      } else {
+        dependencies.add(pack);
+      }
+    }
+
+    if (outputs.isEmpty()) {
+      return;
+    }
+
+    final var extracted =
+      MiCmdGenerate.extract(
+        MiDiagnosticsType.ofLogger(LOG),
+        this.extractors,
+        outputs,
+        dependencies,
+        this.outputDirectory,
+        this.options
+      );
+
+    final var timeNow = System.nanoTime();
+    if (extracted) {
+      LOG.info(
+        "Regenerated {} package(s) in {} ms.",
+        Integer.valueOf(outputs.size()),
+        Long.valueOf(TimeUnit.NANOSECONDS.toMillis(timeNow - timeThen))
+      );
+    }
+  }
+
+  private void addDependents(
+    final Set<MiPackageName> invalidated)
+  {
+    final var importers = new HashMap<MiPackageName, List<MiPackageName>>();
+    final var known = new ArrayList<>(this.loadedPackages.values());
+    known.addAll(this.filePackages.values());
+
+    for (final var pack : known) {
+      for (final MiPackageReference imported : pack.imports()) {
+        importers.computeIfAbsent(
+          imported.packageName(),
+          k -> new ArrayList<>()
+        ).add(pack.name());
+      }
+    }
+
+    final var pending = new ArrayList<>(invalidated);
+    while (!pending.isEmpty()) {
+      final var name = pending.removeLast();
+      for (final var importer : importers.getOrDefault(name, List.of())) {
+        if (invalidated.add(importer)) {
+          pending.add(importer);
+        }
+      }
+    }
+  }
+}
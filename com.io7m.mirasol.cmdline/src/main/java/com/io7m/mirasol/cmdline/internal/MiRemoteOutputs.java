@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.cmdline.MiVersion;
+import com.io7m.mirasol.compiler.MiPackageFingerprints;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generated outputs held in a remote cache.
+ *
+ * <p>The outputs of an extractor are a function of the extractor, its
+ * options, and the fingerprints of the packages it is given. The outputs
+ * are generated into a temporary directory, stored in the remote cache as a
+ * zip archive under the hash of those inputs, and then unpacked into the
+ * output directory; a later run with the same inputs unpacks the archive
+ * from the cache without running the extractor. Depfiles name local source
+ * files, and so outputs are never shared when depfiles are requested.</p>
+ */
+
+final class MiRemoteOutputs
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiRemoteOutputs.class);
+
+  private MiRemoteOutputs()
+  {
+
+  }
+
+  static boolean extract(
+    final MiDiagnosticsType diagnostics,
+    final MiRemoteCacheType cache,
+    final MiExtractorFactoryType extractors,
+    final List<MiPackageType> outputs,
+    final List<MiPackageType> dependencies,
+    final Path outputDirectory,
+    final MiExtractorOptions options)
+    throws IOException
+  {
+    if (options.writeDepfiles()) {
+      return MiCmdGenerate.extract(
+        diagnostics,
+        extractors,
+        outputs,
+        dependencies,
+        outputDirectory,
+        options
+      );
+    }
+
+    final var key = keyOf(extractors, outputs, dependencies, options);
+
+    final Optional<byte[]> cached;
+    try {
+      cached = cache.get(key);
+    } catch (final IOException e) {
+      LOG.warn("Remote cache: Failed to fetch {}: {}", key, e.toString());
+      return extractAndStore(
+        diagnostics,
+        Optional.empty(),
+        key,
+        extractors,
+        outputs,
+        dependencies,
+        outputDirectory,
+        options
+      );
+    }
+
+    if (cached.isPresent()) {
+      try {
+        unpack(cached.get(), outputDirectory);
+        LOG.info("Remote cache: Restored outputs {}", key);
+        return true;
+      } catch (final IOException e) {
+        LOG.warn("Remote cache: Malformed entry {}: {}", key, e.toString());
+      }
+    }
+
+    return extractAndStore(
+      diagnostics,
+      Optional.of(cache),
+      key,
+      extractors,
+      outputs,
+      dependencies,
+      outputDirectory,
+      options
+    );
+  }
+
+  private static boolean extractAndStore(
+    final MiDiagnosticsType diagnostics,
+    final Optional<MiRemoteCacheType> cache,
+    final String key,
+    final MiExtractorFactoryType extractors,
+    final List<MiPackageType> outputs,
+    final List<MiPackageType> dependencies,
+    final Path outputDirectory,
+    final MiExtractorOptions options)
+    throws IOException
+  {
+    final var temporary =
+      Files.createTempDirectory("mirasol-outputs-");
+
+    try {
+      final var extracted =
+        MiCmdGenerate.extract(
+          diagnostics,
+          extractors,
+          outputs,
+          dependencies,
+          temporary,
+          options
+        );
+
+      if (!extracted) {
+        return false;
+      }
+
+      final var archive = pack(temporary);
+      if (cache.isPresent()) {
+        try {
+          cache.get().put(key, archive);
+        } catch (final IOException e) {
+          LOG.warn(
+            "Remote cache: Failed to store {}: {}", key, e.toString());
+        }
+      }
+
+      unpack(archive, outputDirectory);
+      return true;
+    } finally {
+      MiDirectories.deleteRecursively(temporary);
+    }
+  }
+
+  private static String keyOf(
+    final MiExtractorFactoryType extractors,
+    final List<MiPackageType> outputs,
+    final List<MiPackageType> dependencies,
+    final MiExtractorOptions options)
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    final var text = new StringBuilder(256);
+    text.append("com.io7m.mirasol.outputs\n");
+    text.append(MiVersion.MAIN_VERSION).append('\n');
+    text.append(MiVersion.MAIN_BUILD).append('\n');
+    text.append(extractors.name()).append('\n');
+    text.append(options).append('\n');
+    appendFingerprints(text, "output", outputs);
+    appendFingerprints(text, "dependency", dependencies);
+
+    digest.update(text.toString().getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void appendFingerprints(
+    final StringBuilder text,
+    final String kind,
+    final List<MiPackageType> packages)
+  {
+    final var sorted =
+      packages.stream()
+        .sorted(Comparator.comparing(MiPackageType::name))
+        .toList();
+
+    for (final var pack : sorted) {
+      text.append(kind);
+      text.append(' ');
+      text.append(pack.name());
+      text.append(' ');
+      text.append(MiPackageFingerprints.fingerprint(pack));
+      text.append('\n');
+    }
+  }
+
+  private static byte[] pack(
+    final Path directory)
+    throws IOException
+  {
+    final List<Path> files;
+    try (var paths = Files.walk(directory)) {
+      files = paths.filter(Files::isRegularFile)
+        .sorted()
+        .toList();
+    }
+
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new ZipOutputStream(bytes)) {
+      for (final var file : files) {
+        final var name =
+          directory.relativize(file).toString().replace('\\', '/');
+        output.putNextEntry(new ZipEntry(name));
+        Files.copy(file, output);
+        output.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void unpack(
+    final byte[] archive,
+    final Path outputDirectory)
+    throws IOException
+  {
+    final var root =
+      outputDirectory.toAbsolutePath().normalize();
+
+    try (var input = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      while (true) {
+        final var entry = input.getNextEntry();
+        if (entry == null) {
+          break;
+        }
+
+        final var file = root.resolve(entry.getName()).normalize();
+        if (!file.startsWith(root) || entry.isDirectory()) {
+          throw new IOException(
+            "Unsafe archive entry: %s".formatted(entry.getName())
+          );
+        }
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, input.readAllBytes());
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.core.MiPackageName;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A shard of a generation run. Packages are assigned to shards using a
+ * stable hash of the package name, so every node in a distributed build
+ * agrees on the assignment without coordination.
+ *
+ * @param index The shard index in the range {@code [0, count)}
+ * @param count The number of shards
+ */
+
+record MiShard(
+  int index,
+  int count)
+{
+  MiShard
+  {
+    if (count < 1) {
+      throw new IllegalArgumentException(
+        "Shard count %d must be positive".formatted(count)
+      );
+    }
+    if (index < 0 || index >= count) {
+      throw new IllegalArgumentException(
+        "Shard index %d must be in the range [0, %d)".formatted(index, count)
+      );
+    }
+  }
+
+  /**
+   * Parse a shard specification of the form {@code INDEX/COUNT}.
+   *
+   * @param text The text
+   *
+   * @return A shard
+   *
+   * @throws IllegalArgumentException On malformed specifications
+   */
+
+  static MiShard parse(
+    final String text)
+  {
+    final var segments = text.split("/");
+    if (segments.length != 2) {
+      throw new IllegalArgumentException(
+        "Shard '%s' must be of the form INDEX/COUNT".formatted(text)
+      );
+    }
+
+    try {
+      return new MiShard(
+        Integer.parseInt(segments[0].trim()),
+        Integer.parseInt(segments[1].trim())
+      );
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException(
+        "Shard '%s' must be of the form INDEX/COUNT".formatted(text), e
+      );
+    }
+  }
+
+  /**
+   * @param name The package name
+   *
+   * @return {@code true} if the given package belongs to this shard
+   */
+
+  boolean includes(
+    final MiPackageName name)
+  {
+    return Long.remainderUnsigned(hashOf(name), this.count) == this.index;
+  }
+
+  private static long hashOf(
+    final MiPackageName name)
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    final var bytes =
+      digest.digest(name.toString().getBytes(StandardCharsets.UTF_8));
+
+    var value = 0L;
+    for (int index = 0; index < 8; ++index) {
+      value = (value << 8) | (bytes[index] & 0xffL);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.anethum.api.ParsingException;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.parser.api.MiLexical;
+import com.io7m.mirasol.parser.api.MiParserFactoryType;
+import com.io7m.mirasol.parser.api.ast.MiASTImportDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTPackageDeclaration;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Determine the full set of packages involved in a generation run without
+ * type-checking anything. Only parsing is performed, so that a shard can
+ * decide which packages it owns before it pays for compilation.
+ */
+
+final class MiShardPlanner
+{
+  private MiShardPlanner()
+  {
+
+  }
+
+  /**
+   * The packages involved in a run.
+   *
+   * @param filePackages     The package declared by each input file
+   * @param importedPackages The packages reachable through imports that are
+   *                         not declared by any input file
+   */
+
+  record MiShardPlan(
+    Map<Path, MiPackageName> filePackages,
+    SortedSet<MiPackageName> importedPackages)
+  {
+    MiShardPlan
+    {
+      Objects.requireNonNull(filePackages, "filePackages");
+      Objects.requireNonNull(importedPackages, "importedPackages");
+    }
+  }
+
+  static MiShardPlan plan(
+    final Logger logger,
+    final MiParserFactoryType parsers,
+    final MiDirectoryLoaders loaders,
+    final List<Path> files)
+    throws MiCompilation.MiCompilationFailed
+  {
+    final var filePackages =
+      new LinkedHashMap<Path, MiPackageName>();
+    final var pending =
+      new ArrayList<MiPackageName>();
+    var failed = false;
+
+    for (final var file : files) {
+      try {
+        final var parsed = parse(parsers, file);
+        filePackages.put(file, parsed.name().toPackageName());
+        pending.addAll(importsOf(parsed));
+      } catch (final IOException e) {
+        logger.error("I/O error: {}: ", file, e);
+        failed = true;
+      } catch (final ParsingException e) {
+        logger.error("{}: {}", file, e.getMessage());
+        failed = true;
+      }
+    }
+
+    if (failed) {
+      throw new MiCompilation.MiCompilationFailed();
+    }
+
+    final var visited =
+      new HashSet<>(filePackages.values());
+    final var importedPackages =
+      new TreeSet<MiPackageName>();
+
+    while (!pending.isEmpty()) {
+      final var name = pending.removeLast();
+      if (!visited.add(name)) {
+        continue;
+      }
+
+      importedPackages.add(name);
+
+      /*
+       * Packages that cannot be located or parsed here will produce
+       * proper diagnostics when the importing package is compiled.
+       */
+
+      final var fileOpt = loaders.locate(name);
+      if (fileOpt.isEmpty()) {
+        continue;
+      }
+
+      try {
+        pending.addAll(importsOf(parse(parsers, fileOpt.get())));
+      } catch (final IOException | ParsingException e) {
+        logger.debug("{}: {}", fileOpt.get(), e.getMessage());
+      }
+    }
+
+    return new MiShardPlan(filePackages, importedPackages);
+  }
+
+  private static List<MiPackageName> importsOf(
+    final MiASTPackageDeclaration parsed)
+  {
+    return parsed.elements()
+      .stream()
+      .filter(e -> e instanceof MiASTImportDeclaration)
+      .map(MiASTImportDeclaration.class::cast)
+      .map(i -> i.packageName().toPackageName())
+      .toList();
+  }
+
+  private static MiASTPackageDeclaration parse(
+    final MiParserFactoryType parsers,
+    final Path file)
+    throws IOException, ParsingException
+  {
+    try (var stream = Files.newInputStream(file);
+         var parser = parsers.createParserWithContext(
+           MiLexical.DISCARD_LEXICAL,
+           file.toUri(),
+           stream,
+           status -> {
+
+           })) {
+      return parser.execute();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.cmdline.internal;
+
+import com.io7m.mirasol.core.MiTimingPhase;
+import com.io7m.mirasol.core.MiTimingRecord;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.io7m.mirasol.core.MiTimingPhase.PACKAGE_RESOLUTION;
+
+/**
+ * A human-readable summary of recorded timings.
+ */
+
+final class MiTimingReport
+{
+  private static final int SLOWEST_COUNT = 10;
+
+  private MiTimingReport()
+  {
+
+  }
+
+  /**
+   * Write a summary of the given timings. Package resolution encloses the
+   * parsing and checking of the resolved package, so it is excluded from
+   * the per-package totals to avoid counting time twice.
+   *
+   * @param output  The output
+   * @param records The timings
+   */
+
+  static void write(
+    final PrintWriter output,
+    final List<MiTimingRecord> records)
+  {
+    Objects.requireNonNull(output, "output");
+    Objects.requireNonNull(records, "records");
+
+    final var byPhase =
+      new EnumMap<MiTimingPhase, PhaseSummary>(MiTimingPhase.class);
+    final var byPackage =
+      new HashMap<String, Duration>();
+
+    for (final var record : records) {
+      byPhase.computeIfAbsent(record.phase(), p -> new PhaseSummary())
+        .add(record.duration());
+
+      if (record.phase() != PACKAGE_RESOLUTION) {
+        byPackage.merge(
+          record.packageName(),
+          record.duration(),
+          Duration::plus
+        );
+      }
+    }
+
+    output.printf(
+      "# %-18s %8s %12s %12s %12s%n",
+      "Phase",
+      "Count",
+      "Total (ms)",
+      "Mean (ms)",
+      "Max (ms)"
+    );
+
+    for (final var entry : byPhase.entrySet()) {
+      final var summary = entry.getValue();
+      output.printf(
+        "  %-18s %8d %12s %12s %12s%n",
+        entry.getKey().humanName(),
+        Integer.valueOf(summary.count),
+        millis(summary.total),
+        millis(summary.total.dividedBy(summary.count)),
+        millis(summary.max)
+      );
+    }
+
+    output.println();
+    output.printf("# %-46s %12s%n", "Slowest packages", "Total (ms)");
+
+    byPackage.entrySet()
+      .stream()
+      .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+      .limit(SLOWEST_COUNT)
+      .forEach(e -> {
+        output.printf("  %-46s %12s%n", e.getKey(), millis(e.getValue()));
+      });
+
+    output.println();
+    output.printf(
+      "# %-27s %-18s %12s%n",
+      "Slowest phases",
+      "Phase",
+      "Time (ms)"
+    );
+
+    records.stream()
+      .sorted(Comparator.comparing(MiTimingRecord::duration).reversed())
+      .limit(SLOWEST_COUNT)
+      .forEach(r -> {
+        output.printf(
+          "  %-27s %-18s %12s%n",
+          r.packageName(),
+          r.phase().humanName(),
+          millis(r.duration())
+        );
+      });
+
+    output.flush();
+  }
+
+  private static String millis(
+    final Duration duration)
+  {
+    return String.format("%.3f", duration.toNanos() / 1_000_000.0);
+  }
+
+  private static final class PhaseSummary
+  {
+    private int count;
+    private Duration total = Duration.ZERO;
+    private Duration max = Duration.ZERO;
+
+    PhaseSummary()
+    {
+
+    }
+
+    void add(
+      final Duration duration)
+    {
+      ++this.count;
+      this.total = this.total.plus(duration);
+      if (duration.compareTo(this.max) > 0) {
+        this.max = duration;
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 
 import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.parser.api.MiParserFactoryType;
 
 /**
  * Machine-readable memory map documentation (Command-line)
@@ -26,6 +27,9 @@ open module com.io7m.mirasol.cmdline
   requires com.io7m.mirasol.core;
   requires com.io7m.mirasol.extractor.api;
   requires com.io7m.mirasol.loader.api;
+  requires com.io7m.mirasol.lsp;
+  requires com.io7m.mirasol.parser.api;
+  requires com.io7m.mirasol.runtime;
   requires com.io7m.mirasol.strings;
   requires com.io7m.mirasol.compiler.api;
 
@@ -37,6 +41,7 @@ open module com.io7m.mirasol.cmdline
   requires com.io7m.quarrel.ext.logback;
 
   uses MiExtractorFactoryType;
+  uses MiParserFactoryType;
 
   exports com.io7m.mirasol.cmdline;
 }
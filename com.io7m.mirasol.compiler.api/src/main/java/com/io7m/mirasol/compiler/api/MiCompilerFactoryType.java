@@ -17,8 +17,11 @@
 
 package com.io7m.mirasol.compiler.api;
 
+import com.io7m.mirasol.core.MiCompilationListenerType;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 
+import java.net.URI;
+
 /**
  * The type of compiler factories.
  */
@@ -34,4 +37,36 @@ public interface MiCompilerFactoryType
    */
 
   MiCompilerType create(MiLoaderType loader);
+
+  /**
+   * Create an incremental checker for successive versions of a single
+   * source.
+   *
+   * @param loader A package loader
+   * @param source The URI of the source
+   *
+   * @return A new incremental checker
+   */
+
+  MiIncrementalCheckerType createIncremental(
+    MiLoaderType loader,
+    URI source);
+
+  /**
+   * Add a listener that will receive the parse, pass, and error events of
+   * all compilers created by this factory.
+   *
+   * @param listener The listener
+   */
+
+  void addListener(MiCompilationListenerType listener);
+
+  /**
+   * Remove a listener added with
+   * {@link #addListener(MiCompilationListenerType)}.
+   *
+   * @param listener The listener
+   */
+
+  void removeListener(MiCompilationListenerType listener);
 }
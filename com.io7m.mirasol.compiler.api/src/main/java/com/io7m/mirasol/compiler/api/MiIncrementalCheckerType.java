@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler.api;
+
+import com.io7m.seltzer.api.SStructuredErrorType;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A checker for successive versions of a single source, such as a document
+ * open in an editor. Each version is parsed in full, but only the package
+ * elements that changed since the previous version (and the elements that
+ * refer to them) are checked again; the results for every other element are
+ * carried over from the previous version.
+ */
+
+public interface MiIncrementalCheckerType
+{
+  /**
+   * Check a new version of the source.
+   *
+   * @param stream The source text
+   *
+   * @return The errors in the new version, or an empty list if there are none
+   */
+
+  List<SStructuredErrorType<String>> check(
+    InputStream stream);
+
+  /**
+   * @return The number of package elements that were checked by the most
+   * recent call to {@link #check(InputStream)}
+   */
+
+  int elementsChecked();
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler.api;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * The type of remote content-addressed caches. A remote cache is a
+ * key-value store shared between machines, used as a second cache tier
+ * behind the packages held in memory by a loader. Keys are lowercase
+ * hexadecimal content hashes, and so a value stored under a key never
+ * changes meaning. Callers treat any failure as a cache miss.
+ */
+
+public interface MiRemoteCacheType
+{
+  /**
+   * Fetch the value stored under the given key.
+   *
+   * @param key The key
+   *
+   * @return The value, or nothing if the cache has no value for the key
+   *
+   * @throws IOException On I/O errors
+   */
+
+  Optional<byte[]> get(
+    String key)
+    throws IOException;
+
+  /**
+   * Store a value under the given key, replacing any existing value.
+   *
+   * @param key   The key
+   * @param value The value
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void put(
+    String key,
+    byte[] value)
+    throws IOException;
+}
@@ -19,14 +19,26 @@ package com.io7m.mirasol.compiler;
 
 import com.io7m.mirasol.compiler.api.MiCompilerFactoryType;
 import com.io7m.mirasol.compiler.api.MiCompilerType;
+import com.io7m.mirasol.compiler.api.MiIncrementalCheckerType;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.compiler.internal.MiCompilationEvents;
 import com.io7m.mirasol.compiler.internal.MiCompiler;
+import com.io7m.mirasol.compiler.internal.MiDirectoryLoader;
+import com.io7m.mirasol.compiler.internal.MiIncrementalChecker;
+import com.io7m.mirasol.compiler.internal.MiRemotePackageCache;
+import com.io7m.mirasol.core.MiCompilationEventType;
+import com.io7m.mirasol.core.MiCompilationListenerType;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.parser.api.MiParserFactoryType;
 import com.io7m.mirasol.strings.MiStrings;
 
+import java.net.URI;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * The default compiler factory.
@@ -34,18 +46,20 @@ import java.util.ServiceLoader;
 
 public final class MiCompilers implements MiCompilerFactoryType
 {
-  private final MiParserFactoryType parsers;
+  private final Supplier<MiParserFactoryType> parsersSupplier;
+  private final Optional<MiRemotePackageCache> remoteCache;
   private final MiStrings strings;
+  private final MiCompilationEvents events;
+  private MiParserFactoryType parsers;
 
   /**
-   * The default compiler factory.
+   * The default compiler factory. The parser service is not located until
+   * a compiler is first created.
    */
 
   public MiCompilers()
   {
-    this(
-      service(MiParserFactoryType.class)
-    );
+    this(() -> service(MiParserFactoryType.class), Optional.empty());
   }
 
   /**
@@ -57,10 +71,84 @@ public final class MiCompilers implements MiCompilerFactoryType
   public MiCompilers(
     final MiParserFactoryType inParsers)
   {
-    this.parsers =
-      Objects.requireNonNull(inParsers, "parsers");
+    this(
+      constant(Objects.requireNonNull(inParsers, "parsers")),
+      Optional.empty()
+    );
+  }
+
+  /**
+   * A compiler factory that uses the given remote cache as a second tier
+   * behind the packages held in memory by loaders. Compiled packages are
+   * fetched from the remote cache by the hash of their source text, and
+   * packages compiled locally are stored in the remote cache. If the remote
+   * cache cannot be reached, packages are compiled locally.
+   *
+   * <p>The compiler version must identify the exact build of the compiler
+   * (such as a version number and a commit hash), as entries are not
+   * checked again when they are fetched from the cache.</p>
+   *
+   * @param inRemoteCache     The remote cache
+   * @param inCompilerVersion The version and build of the compiler
+   */
+
+  public MiCompilers(
+    final MiRemoteCacheType inRemoteCache,
+    final String inCompilerVersion)
+  {
+    this(
+      () -> service(MiParserFactoryType.class),
+      Optional.of(new MiRemotePackageCache(inRemoteCache, inCompilerVersion))
+    );
+  }
+
+  /**
+   * A compiler factory that uses the given remote cache.
+   *
+   * @param inParsers         The parsers
+   * @param inRemoteCache     The remote cache
+   * @param inCompilerVersion The version and build of the compiler
+   *
+   * @see #MiCompilers(MiRemoteCacheType, String)
+   */
+
+  public MiCompilers(
+    final MiParserFactoryType inParsers,
+    final MiRemoteCacheType inRemoteCache,
+    final String inCompilerVersion)
+  {
+    this(
+      constant(Objects.requireNonNull(inParsers, "parsers")),
+      Optional.of(new MiRemotePackageCache(inRemoteCache, inCompilerVersion))
+    );
+  }
+
+  private MiCompilers(
+    final Supplier<MiParserFactoryType> inParsersSupplier,
+    final Optional<MiRemotePackageCache> inRemoteCache)
+  {
+    this.parsersSupplier =
+      Objects.requireNonNull(inParsersSupplier, "parsersSupplier");
+    this.remoteCache =
+      Objects.requireNonNull(inRemoteCache, "remoteCache");
     this.strings =
       MiStrings.create(Locale.getDefault());
+    this.events =
+      new MiCompilationEvents();
+  }
+
+  private static <T> Supplier<T> constant(
+    final T value)
+  {
+    return () -> value;
+  }
+
+  private synchronized MiParserFactoryType parsers()
+  {
+    if (this.parsers == null) {
+      this.parsers = this.parsersSupplier.get();
+    }
+    return this.parsers;
   }
 
   private static <T> T service(
@@ -79,6 +167,58 @@ public final class MiCompilers implements MiCompilerFactoryType
   public MiCompilerType create(
     final MiLoaderType loader)
   {
-    return new MiCompiler(this.strings, loader, this.parsers);
+    return new MiCompiler(
+      this.strings,
+      loader,
+      this.parsers(),
+      this.eventsFor(loader),
+      this.remoteCache
+    );
+  }
+
+  /**
+   * Packages compiled on demand by a directory loader are compiled with
+   * compilers from this factory, and their events are also delivered to
+   * the listeners of that loader.
+   */
+
+  private Consumer<MiCompilationEventType> eventsFor(
+    final MiLoaderType loader)
+  {
+    if (loader instanceof final MiDirectoryLoader directoryLoader) {
+      final var loaderEvents = directoryLoader.events();
+      return event -> {
+        this.events.publish(event);
+        loaderEvents.publish(event);
+      };
+    }
+    return this.events::publish;
+  }
+
+  @Override
+  public MiIncrementalCheckerType createIncremental(
+    final MiLoaderType loader,
+    final URI source)
+  {
+    return new MiIncrementalChecker(
+      this.strings,
+      loader,
+      this.parsers(),
+      source
+    );
+  }
+
+  @Override
+  public void addListener(
+    final MiCompilationListenerType listener)
+  {
+    this.events.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(
+    final MiCompilationListenerType listener)
+  {
+    this.events.removeListener(listener);
   }
 }
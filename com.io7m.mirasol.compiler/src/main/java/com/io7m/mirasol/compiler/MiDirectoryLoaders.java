@@ -18,14 +18,18 @@
 package com.io7m.mirasol.compiler;
 
 import com.io7m.mirasol.compiler.internal.MiDirectoryLoader;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
 import com.io7m.mirasol.loader.api.MiLoaderFactoryType;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.strings.MiStrings;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A loader implementation that reads package files from a directory.
@@ -45,11 +49,26 @@ public final class MiDirectoryLoaders implements MiLoaderFactoryType
 
   public MiDirectoryLoaders(
     final List<Path> inDirectories)
+  {
+    this(inDirectories, new MiCompilers());
+  }
+
+  /**
+   * A loader implementation that reads package files from list of
+   * directories, compiling them with the given compilers.
+   *
+   * @param inDirectories The directories
+   * @param inCompilers   The compilers
+   */
+
+  public MiDirectoryLoaders(
+    final List<Path> inDirectories,
+    final MiCompilers inCompilers)
   {
     this.directories =
       Objects.requireNonNull(inDirectories, "directory");
     this.compilers =
-      new MiCompilers();
+      Objects.requireNonNull(inCompilers, "compilers");
     this.strings =
       MiStrings.create(Locale.getDefault());
   }
@@ -63,4 +82,42 @@ public final class MiDirectoryLoaders implements MiLoaderFactoryType
       this.directories
     );
   }
+
+  /**
+   * Create a loader that starts with the given packages already loaded.
+   * Any package that is not in the given collection is compiled from the
+   * directories on demand, as with {@link #create()}. The caller is
+   * responsible for ensuring that none of the given packages imports a
+   * package that has changed since it was compiled.
+   *
+   * @param packages The already-loaded packages
+   *
+   * @return A loader
+   */
+
+  public MiLoaderType createWithPackages(
+    final Collection<MiPackageType> packages)
+  {
+    return new MiDirectoryLoader(
+      this.strings,
+      this.compilers,
+      this.directories,
+      packages
+    );
+  }
+
+  /**
+   * Find the file that a loader would use for the package with the given
+   * name, without compiling it.
+   *
+   * @param name The package name
+   *
+   * @return The file, if one exists
+   */
+
+  public Optional<Path> locate(
+    final MiPackageName name)
+  {
+    return MiDirectoryLoader.locate(this.directories, name);
+  }
 }
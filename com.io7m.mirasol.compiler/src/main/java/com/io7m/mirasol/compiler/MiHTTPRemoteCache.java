@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler;
+
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * A remote cache backed by a plain HTTP key-value store. Values are fetched
+ * with {@code GET} and stored with {@code PUT} requests to the base URI with
+ * the key appended. A {@code 404} response to a {@code GET} is a cache miss;
+ * any other non-{@code 2xx} response is an error. This is the protocol
+ * spoken by most build caches (and by any web server configured to accept
+ * uploads), so a simple local server can stand in for a shared one.
+ */
+
+public final class MiHTTPRemoteCache implements MiRemoteCacheType
+{
+  private static final Pattern VALID_KEY =
+    Pattern.compile("[0-9a-f]{1,128}");
+
+  private final URI base;
+  private final Duration timeout;
+  private final HttpClient client;
+
+  /**
+   * A remote cache backed by a plain HTTP key-value store.
+   *
+   * @param inBase    The base URI
+   * @param inTimeout The timeout for connections and requests
+   */
+
+  public MiHTTPRemoteCache(
+    final URI inBase,
+    final Duration inTimeout)
+  {
+    Objects.requireNonNull(inBase, "base");
+
+    final var text = inBase.toString();
+    this.base =
+      text.endsWith("/") ? inBase : URI.create(text + "/");
+    this.timeout =
+      Objects.requireNonNull(inTimeout, "timeout");
+    this.client =
+      HttpClient.newBuilder()
+        .connectTimeout(this.timeout)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+  }
+
+  /**
+   * A remote cache backed by a plain HTTP key-value store, using a
+   * ten second timeout.
+   *
+   * @param inBase The base URI
+   */
+
+  public MiHTTPRemoteCache(
+    final URI inBase)
+  {
+    this(inBase, Duration.ofSeconds(10L));
+  }
+
+  @Override
+  public Optional<byte[]> get(
+    final String key)
+    throws IOException
+  {
+    final var request =
+      HttpRequest.newBuilder(this.uriOf(key))
+        .timeout(this.timeout)
+        .GET()
+        .build();
+
+    final var response =
+      this.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+    final var status = response.statusCode();
+    if (status == 404) {
+      return Optional.empty();
+    }
+    if (status >= 200 && status < 300) {
+      return Optional.of(response.body());
+    }
+    throw errorStatus(request, status);
+  }
+
+  @Override
+  public void put(
+    final String key,
+    final byte[] value)
+    throws IOException
+  {
+    Objects.requireNonNull(value, "value");
+
+    final var request =
+      HttpRequest.newBuilder(this.uriOf(key))
+        .timeout(this.timeout)
+        .header("Content-Type", "application/octet-stream")
+        .PUT(HttpRequest.BodyPublishers.ofByteArray(value))
+        .build();
+
+    final var response =
+      this.send(request, HttpResponse.BodyHandlers.discarding());
+
+    final var status = response.statusCode();
+    if (status < 200 || status >= 300) {
+      throw errorStatus(request, status);
+    }
+  }
+
+  private <T> HttpResponse<T> send(
+    final HttpRequest request,
+    final HttpResponse.BodyHandler<T> handler)
+    throws IOException
+  {
+    try {
+      return this.client.send(request, handler);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  private URI uriOf(
+    final String key)
+  {
+    Objects.requireNonNull(key, "key");
+
+    if (!VALID_KEY.matcher(key).matches()) {
+      throw new IllegalArgumentException(
+        "Keys must be lowercase hexadecimal strings: %s".formatted(key)
+      );
+    }
+    return this.base.resolve(key);
+  }
+
+  private static IOException errorStatus(
+    final HttpRequest request,
+    final int status)
+  {
+    return new IOException(
+      "%s %s: HTTP status %d".formatted(
+        request.method(),
+        request.uri(),
+        Integer.valueOf(status)
+      )
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[MiHTTPRemoteCache %s]".formatted(this.base);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler;
+
+import com.io7m.mirasol.compiler.internal.MiPackageSerializer;
+import com.io7m.mirasol.core.MiPackageType;
+
+/**
+ * Functions to compute package fingerprints. A fingerprint is a content
+ * hash of the complete compiled form of a package (excluding the location
+ * of its source), and so two packages have the same fingerprint if and only
+ * if any code generated from them is identical.
+ */
+
+public final class MiPackageFingerprints
+{
+  private MiPackageFingerprints()
+  {
+
+  }
+
+  /**
+   * @param pack The package
+   *
+   * @return The fingerprint of the package as lowercase hexadecimal
+   */
+
+  public static String fingerprint(
+    final MiPackageType pack)
+  {
+    return MiPackageSerializer.fingerprint(pack);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler;
+
+import com.io7m.mirasol.core.MiPackageName;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics for a single package.
+ *
+ * @param name   The package name
+ * @param counts The element counts
+ * @param maps   The statistics of each map, in alphabetical order
+ */
+
+public record MiPackageStatistics(
+  MiPackageName name,
+  MiStatisticsCounts counts,
+  List<MiMapStatistics> maps)
+{
+  /**
+   * Statistics for a single package.
+   *
+   * @param name   The package name
+   * @param counts The element counts
+   * @param maps   The statistics of each map, in alphabetical order
+   */
+
+  public MiPackageStatistics
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(counts, "counts");
+    maps = List.copyOf(maps);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler;
+
+import com.io7m.mirasol.compiler.internal.MiHeapEstimator;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+
+/**
+ * Functions to calculate statistics for compiled packages.
+ */
+
+public final class MiStatistics
+{
+  private final IdentityHashMap<MiTypeType, Integer> depths;
+  private final IdentityHashMap<MiTypeType, Long> leaves;
+
+  private MiStatistics()
+  {
+    this.depths = new IdentityHashMap<>();
+    this.leaves = new IdentityHashMap<>();
+  }
+
+  /**
+   * Calculate statistics for a package. The estimated heap size covers the
+   * objects retained by the package itself, and excludes the types of any
+   * imported packages.
+   *
+   * @param pack The package
+   *
+   * @return The statistics
+   */
+
+  public static MiPackageStatistics ofPackage(
+    final MiPackageType pack)
+  {
+    Objects.requireNonNull(pack, "pack");
+    return new MiStatistics().statistics(pack);
+  }
+
+  /**
+   * Combine the counts of a set of packages.
+   *
+   * @param packages The package statistics
+   *
+   * @return The combined counts
+   */
+
+  public static MiStatisticsCounts total(
+    final Collection<MiPackageStatistics> packages)
+  {
+    Objects.requireNonNull(packages, "packages");
+
+    var total = MiStatisticsCounts.ZERO;
+    for (final var pack : packages) {
+      total = total.plus(pack.counts());
+    }
+    return total;
+  }
+
+  private MiPackageStatistics statistics(
+    final MiPackageType pack)
+  {
+    var scalars = 0L;
+    var structures = 0L;
+    var fields = 0L;
+    var bitRanges = 0L;
+    var maxDepth = 0;
+
+    for (final var type : pack.types()) {
+      switch (type) {
+        case final MiScalarType ignored -> {
+          ++scalars;
+        }
+        case final MiStructureType structure -> {
+          ++structures;
+          for (final var field : structure.fields()) {
+            ++fields;
+            if (field instanceof final MiBitFieldType bitField) {
+              bitRanges += bitField.ranges().size();
+            }
+          }
+        }
+      }
+      maxDepth = Math.max(maxDepth, this.depthOf(type));
+    }
+
+    final var maps = new ArrayList<MiMapStatistics>();
+    var leafTotal = 0L;
+    for (final var map : pack.maps()) {
+      final var mapLeaves = this.leavesOf(map.type().type());
+      maps.add(new MiMapStatistics(map.name(), mapLeaves));
+      leafTotal += mapLeaves;
+    }
+
+    return new MiPackageStatistics(
+      pack.name(),
+      new MiStatisticsCounts(
+        pack.imports().size(),
+        scalars,
+        structures,
+        fields,
+        bitRanges,
+        maps.size(),
+        maxDepth,
+        leafTotal,
+        MiHeapEstimator.estimate(pack)
+      ),
+      maps
+    );
+  }
+
+  /*
+   * Scalars have a depth of zero. A structure is one level deeper than the
+   * deepest type of any of its fields.
+   */
+
+  private int depthOf(
+    final MiTypeType type)
+  {
+    final var existing = this.depths.get(type);
+    if (existing != null) {
+      return existing.intValue();
+    }
+
+    final var depth = switch (type) {
+      case final MiScalarType ignored -> 0;
+      case final MiStructureType structure -> {
+        var deepest = 0;
+        for (final var field : structure.fields()) {
+          if (field instanceof final MiTypedFieldType typed) {
+            deepest = Math.max(deepest, this.depthOf(typed.type().type()));
+          }
+        }
+        yield deepest + 1;
+      }
+    };
+
+    this.depths.put(type, Integer.valueOf(depth));
+    return depth;
+  }
+
+  /*
+   * A leaf is a register: a scalar or a bit field.
+   */
+
+  private long leavesOf(
+    final MiTypeType type)
+  {
+    final var existing = this.leaves.get(type);
+    if (existing != null) {
+      return existing.longValue();
+    }
+
+    final var count = switch (type) {
+      case final MiScalarType ignored -> 1L;
+      case final MiStructureType structure -> {
+        var sum = 0L;
+        for (final var field : structure.fields()) {
+          sum += switch (field) {
+            case final MiBitFieldType ignored -> 1L;
+            case final MiTypedFieldType typed ->
+              this.leavesOf(typed.type().type());
+          };
+        }
+        yield sum;
+      }
+    };
+
+    this.leaves.put(type, Long.valueOf(count));
+    return count;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler;
+
+/**
+ * Counts of the elements of one or more packages.
+ *
+ * @param imports             The number of imports
+ * @param scalars             The number of scalar types
+ * @param structures          The number of structure types
+ * @param fields              The number of structure fields
+ * @param bitRanges           The number of bit ranges
+ * @param maps                The number of maps
+ * @param maxNestingDepth     The maximum depth of nested structures
+ * @param leaves              The number of registers in all maps once all
+ *                            structures are flattened
+ * @param estimatedHeapOctets The estimated retained heap size
+ */
+
+public record MiStatisticsCounts(
+  long imports,
+  long scalars,
+  long structures,
+  long fields,
+  long bitRanges,
+  long maps,
+  int maxNestingDepth,
+  long leaves,
+  long estimatedHeapOctets)
+{
+  /**
+   * No elements.
+   */
+
+  public static final MiStatisticsCounts ZERO =
+    new MiStatisticsCounts(0L, 0L, 0L, 0L, 0L, 0L, 0, 0L, 0L);
+
+  /**
+   * Combine two sets of counts. Counts are summed, and the maximum nesting
+   * depth is the larger of the two.
+   *
+   * @param other The other counts
+   *
+   * @return The combined counts
+   */
+
+  public MiStatisticsCounts plus(
+    final MiStatisticsCounts other)
+  {
+    return new MiStatisticsCounts(
+      this.imports + other.imports,
+      this.scalars + other.scalars,
+      this.structures + other.structures,
+      this.fields + other.fields,
+      this.bitRanges + other.bitRanges,
+      this.maps + other.maps,
+      Math.max(this.maxNestingDepth, other.maxNestingDepth),
+      this.leaves + other.leaves,
+      this.estimatedHeapOctets + other.estimatedHeapOctets
+    );
+  }
+}
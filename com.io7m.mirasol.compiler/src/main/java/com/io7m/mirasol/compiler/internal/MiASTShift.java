@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.parser.api.ast.MiASTBitField;
+import com.io7m.mirasol.parser.api.ast.MiASTBitRange;
+import com.io7m.mirasol.parser.api.ast.MiASTDocumentation;
+import com.io7m.mirasol.parser.api.ast.MiASTField;
+import com.io7m.mirasol.parser.api.ast.MiASTFieldType;
+import com.io7m.mirasol.parser.api.ast.MiASTImportDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTMap;
+import com.io7m.mirasol.parser.api.ast.MiASTOffset;
+import com.io7m.mirasol.parser.api.ast.MiASTPackageElementType;
+import com.io7m.mirasol.parser.api.ast.MiASTPackageName;
+import com.io7m.mirasol.parser.api.ast.MiASTScalarTypeDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTSimpleName;
+import com.io7m.mirasol.parser.api.ast.MiASTSizeAssertion;
+import com.io7m.mirasol.parser.api.ast.MiASTStructure;
+import com.io7m.mirasol.parser.api.ast.MiASTTypeReference;
+
+import java.net.URI;
+
+/**
+ * Functions to move AST elements up or down a source file. An element that
+ * has only moved (because lines were added or removed above it) is equal to
+ * the shifted original, and so does not need to be checked again.
+ */
+
+final class MiASTShift
+{
+  private MiASTShift()
+  {
+
+  }
+
+  static MiASTPackageElementType shift(
+    final MiASTPackageElementType element,
+    final int lines)
+  {
+    return switch (element) {
+      case final MiASTImportDeclaration e -> {
+        yield new MiASTImportDeclaration(
+          shift(e.lexical(), lines),
+          new MiASTPackageName(
+            shift(e.packageName().lexical(), lines),
+            e.packageName().value()
+          ),
+          shift(e.prefix(), lines)
+        );
+      }
+      case final MiASTMap e -> {
+        yield new MiASTMap(
+          shift(e.lexical(), lines),
+          shift(e.documentation(), lines),
+          shift(e.name(), lines),
+          shift(e.offset(), lines),
+          shift(e.type(), lines)
+        );
+      }
+      case final MiASTScalarTypeDeclaration e -> {
+        yield new MiASTScalarTypeDeclaration(
+          shift(e.lexical(), lines),
+          shift(e.documentation(), lines),
+          shift(e.name(), lines),
+          shift(e.kind(), lines),
+          e.size()
+        );
+      }
+      case final MiASTStructure e -> {
+        yield new MiASTStructure(
+          shift(e.lexical(), lines),
+          shift(e.documentation(), lines),
+          e.sizeAssertion()
+            .map(s -> new MiASTSizeAssertion(
+              shift(s.lexical(), lines),
+              s.value(),
+              s.isHex()
+            )),
+          shift(e.name(), lines),
+          e.fields()
+            .stream()
+            .map(f -> shift(f, lines))
+            .toList()
+        );
+      }
+    };
+  }
+
+  private static MiASTFieldType shift(
+    final MiASTFieldType field,
+    final int lines)
+  {
+    return switch (field) {
+      case final MiASTBitField f -> {
+        yield new MiASTBitField(
+          shift(f.lexical(), lines),
+          shift(f.documentation(), lines),
+          shift(f.name(), lines),
+          shift(f.offset(), lines),
+          f.ranges()
+            .stream()
+            .map(r -> shift(r, lines))
+            .toList(),
+          f.sizeOctets(),
+          f.access(),
+          f.reset()
+        );
+      }
+      case final MiASTField f -> {
+        yield new MiASTField(
+          shift(f.lexical(), lines),
+          shift(f.documentation(), lines),
+          shift(f.name(), lines),
+          shift(f.offset(), lines),
+          shift(f.type(), lines),
+          f.access(),
+          f.reset()
+        );
+      }
+    };
+  }
+
+  private static MiASTBitRange shift(
+    final MiASTBitRange range,
+    final int lines)
+  {
+    return new MiASTBitRange(
+      shift(range.lexical(), lines),
+      shift(range.documentation(), lines),
+      shift(range.name(), lines),
+      range.range(),
+      range.access(),
+      range.reset()
+    );
+  }
+
+  private static MiASTTypeReference shift(
+    final MiASTTypeReference type,
+    final int lines)
+  {
+    return new MiASTTypeReference(
+      shift(type.lexical(), lines),
+      type.prefix().map(p -> shift(p, lines)),
+      shift(type.name(), lines)
+    );
+  }
+
+  private static MiASTOffset shift(
+    final MiASTOffset offset,
+    final int lines)
+  {
+    return new MiASTOffset(
+      shift(offset.lexical(), lines),
+      offset.value(),
+      offset.isHex()
+    );
+  }
+
+  private static MiASTSimpleName shift(
+    final MiASTSimpleName name,
+    final int lines)
+  {
+    return new MiASTSimpleName(shift(name.lexical(), lines), name.value());
+  }
+
+  private static MiASTDocumentation shift(
+    final MiASTDocumentation documentation,
+    final int lines)
+  {
+    return new MiASTDocumentation(
+      shift(documentation.lexical(), lines),
+      documentation.value()
+    );
+  }
+
+  /**
+   * Positions on line zero are synthesized by the parser for defaulted
+   * values, and do not correspond to anything in the source, so they are
+   * never moved.
+   */
+
+  private static LexicalPosition<URI> shift(
+    final LexicalPosition<URI> position,
+    final int lines)
+  {
+    if (lines == 0 || position.line() == 0) {
+      return position;
+    }
+    return LexicalPosition.of(
+      position.line() + lines,
+      position.column(),
+      position.file()
+    );
+  }
+}
@@ -17,6 +17,7 @@
 
 package com.io7m.mirasol.compiler.internal;
 
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiBitFieldType;
 import com.io7m.mirasol.core.MiBitRangeType;
 import com.io7m.mirasol.core.MiSimpleName;
@@ -25,12 +26,15 @@ import com.io7m.mirasol.core.MiSizeOctets;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 record MiBitField(
   MiSimpleName name,
   BigInteger offset,
   MiSizeOctets size,
-  List<MiBitRangeType> ranges)
+  List<MiBitRangeType> ranges,
+  MiAccess access,
+  Optional<BigInteger> reset)
   implements MiBitFieldType
 {
   MiBitField
@@ -39,5 +43,7 @@ record MiBitField(
     Objects.requireNonNull(offset, "offset");
     Objects.requireNonNull(size, "size");
     Objects.requireNonNull(ranges, "ranges");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
   }
 }
@@ -18,18 +18,28 @@
 package com.io7m.mirasol.compiler.internal;
 
 import com.io7m.abstand.core.IntervalB;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiBitRangeType;
 import com.io7m.mirasol.core.MiSimpleName;
 
 import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Optional;
 
 record MiBitRange(
   MiSimpleName name,
-  IntervalB range)
+  IntervalB range,
+  MiAccess access,
+  Optional<BigInteger> reset)
   implements MiBitRangeType
 {
   MiBitRange
   {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(range, "range");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
+
     if (range.lower().compareTo(BigInteger.ZERO) < 0) {
       throw new IllegalArgumentException(
         "Lower bound of range %s must be >= 0"
@@ -18,13 +18,22 @@
 package com.io7m.mirasol.compiler.internal;
 
 import com.io7m.mirasol.compiler.api.MiCompilerResultType;
+import com.io7m.mirasol.core.MiCompilationEventType;
+import com.io7m.mirasol.core.MiCompilationEventType.ErrorEmitted;
+import com.io7m.mirasol.core.MiCompilationEventType.PassFinished;
+import com.io7m.mirasol.core.MiCompilationEventType.PassStarted;
 import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.parser.api.ast.MiASTPackageDeclaration;
 import com.io7m.mirasol.strings.MiStrings;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+
+import static com.io7m.mirasol.core.MiTimingPhase.CREATE_PACKAGE;
 
 /**
  * A binding and type checker.
@@ -32,29 +41,39 @@ import java.util.Objects;
 
 public final class MiChecker
 {
+  private final URI sourceURI;
   private final MiASTPackageDeclaration source;
   private final MiStrings strings;
   private final MiLoaderType loader;
+  private final Consumer<MiCompilationEventType> events;
 
   /**
    * A binding and type checker.
    *
    * @param inStrings The strings
-   * @param inLoader  The loader
-   * @param inSource  The source
+   * @param inLoader    The loader
+   * @param inSourceURI The URI of the source
+   * @param inSource    The source
+   * @param inEvents    The receiver of compilation events
    */
 
   public MiChecker(
     final MiStrings inStrings,
     final MiLoaderType inLoader,
-    final MiASTPackageDeclaration inSource)
+    final URI inSourceURI,
+    final MiASTPackageDeclaration inSource,
+    final Consumer<MiCompilationEventType> inEvents)
   {
     this.strings =
       Objects.requireNonNull(inStrings, "inStrings");
     this.loader =
       Objects.requireNonNull(inLoader, "inLoader");
+    this.sourceURI =
+      Objects.requireNonNull(inSourceURI, "sourceURI");
     this.source =
       Objects.requireNonNull(inSource, "source");
+    this.events =
+      Objects.requireNonNull(inEvents, "events");
   }
 
   /**
@@ -67,22 +86,45 @@ public final class MiChecker
       new MiCheckerContext(
         this.strings,
         this.loader,
+        this.sourceURI,
         this.source
       );
 
+    final var packageName =
+      this.source.name().toPackageName().toString();
+
     for (final var pass : List.of(
       new MiCheckerPassImports(),
       new MiCheckerPassBindings(),
       new MiCheckerPassSizes(),
       new MiCheckerPassBuild()
     )) {
-      try {
+      this.events.accept(new PassStarted(this.sourceURI, pass.phase()));
+
+      final var errorsBefore = context.errors().size();
+      var succeeded = false;
+      try (var ignored = MiTimings.start(pass.phase(), packageName)) {
         pass.execute(context);
+        succeeded = true;
       } catch (final MiCheckerException e) {
-        return new MiCompilerResultType.Failed<>(context.errors());
+        // Reported below
+      }
+
+      final var errors = context.errors();
+      for (final var error : errors.subList(errorsBefore, errors.size())) {
+        this.events.accept(new ErrorEmitted(this.sourceURI, error));
+      }
+      this.events.accept(
+        new PassFinished(this.sourceURI, pass.phase(), succeeded)
+      );
+
+      if (!succeeded) {
+        return new MiCompilerResultType.Failed<>(errors);
       }
     }
 
-    return new MiCompilerResultType.Succeeded<>(context.createPackage());
+    try (var ignored = MiTimings.start(CREATE_PACKAGE, packageName)) {
+      return new MiCompilerResultType.Succeeded<>(context.createPackage());
+    }
   }
 }
@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.function.Predicate;
 
 import static com.io7m.mirasol.strings.MiStringConstants.COLUMN;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_IMPORT_MISSING;
@@ -63,6 +64,7 @@ final class MiCheckerContext
   private static final Logger LOG =
     LoggerFactory.getLogger(MiCheckerPassSizes.class);
 
+  private final URI sourceURI;
   private final MiASTPackageDeclaration source;
   private final ArrayList<SStructuredErrorType<String>> errors;
   private final MiStrings strings;
@@ -71,24 +73,53 @@ final class MiCheckerContext
   private final HashMap<MiSimpleName, MiASTPackageElementType> elementsByName;
   private final HashMap<MiSimpleName, MiSizeOctets> sizesInOctets;
   private final HashMap<MiSimpleName, MiPackageElementType> buildElements;
+  private final Predicate<MiASTPackageElementType> focus;
 
   /**
    * A binding and type checker.
    *
    * @param inStrings The strings
-   * @param inLoader  The loader
-   * @param inSource  The source
+   * @param inLoader    The loader
+   * @param inSourceURI The URI of the source
+   * @param inSource    The source
    */
 
   MiCheckerContext(
     final MiStrings inStrings,
     final MiLoaderType inLoader,
+    final URI inSourceURI,
     final MiASTPackageDeclaration inSource)
   {
+    this(inStrings, inLoader, inSourceURI, inSource, e -> true);
+  }
+
+  /**
+   * A binding and type checker that only checks some of the elements of
+   * the source. All elements are still bound, so that references to
+   * unchecked elements resolve.
+   *
+   * @param inStrings   The strings
+   * @param inLoader    The loader
+   * @param inSourceURI The URI of the source
+   * @param inSource    The source
+   * @param inFocus     A predicate that is true for elements to check
+   */
+
+  MiCheckerContext(
+    final MiStrings inStrings,
+    final MiLoaderType inLoader,
+    final URI inSourceURI,
+    final MiASTPackageDeclaration inSource,
+    final Predicate<MiASTPackageElementType> inFocus)
+  {
+    this.focus =
+      Objects.requireNonNull(inFocus, "focus");
     this.strings =
       Objects.requireNonNull(inStrings, "inStrings");
     this.loader =
       Objects.requireNonNull(inLoader, "inLoader");
+    this.sourceURI =
+      Objects.requireNonNull(inSourceURI, "sourceURI");
     this.source =
       Objects.requireNonNull(inSource, "source");
     this.errors =
@@ -129,6 +160,12 @@ final class MiCheckerContext
     return this.source;
   }
 
+  public boolean isFocused(
+    final MiASTPackageElementType element)
+  {
+    return this.focus.test(element);
+  }
+
   public void bind(
     final MiASTPackageElementType element)
   {
@@ -233,7 +270,7 @@ final class MiCheckerContext
   public MiPackageType createPackage()
   {
     final var output =
-      new MiPackage(this.source.name().toPackageName());
+      new MiPackage(this.source.name().toPackageName(), this.sourceURI);
 
     output.setDocumentation(this.source.documentation().value());
 
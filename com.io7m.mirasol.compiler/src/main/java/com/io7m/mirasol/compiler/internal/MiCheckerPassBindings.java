@@ -19,6 +19,7 @@ package com.io7m.mirasol.compiler.internal;
 
 import com.io7m.jdeferthrow.core.ExceptionTracker;
 import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiTimingPhase;
 import com.io7m.mirasol.parser.api.ast.MiASTBitField;
 import com.io7m.mirasol.parser.api.ast.MiASTField;
 import com.io7m.mirasol.parser.api.ast.MiASTFieldType;
@@ -57,6 +58,12 @@ final class MiCheckerPassBindings
     this.graph = new DirectedAcyclicGraph<>(TypePeerReference.class);
   }
 
+  @Override
+  public MiTimingPhase phase()
+  {
+    return MiTimingPhase.CHECK_BINDINGS;
+  }
+
   @Override
   public void execute(
     final MiCheckerContext context)
@@ -98,6 +105,21 @@ final class MiCheckerPassBindings
     final var tracker = new ExceptionTracker<MiCheckerException>();
 
     for (final var element : context.source().elements()) {
+
+      /*
+       * The references of structures that are not being checked still need
+       * to be added to the graph (in source order, so that any cycle is
+       * reported against the same structure as in a full check). Errors are
+       * not reported for these.
+       */
+
+      if (!context.isFocused(element)) {
+        if (element instanceof final MiASTStructure structure) {
+          this.addStructureReferences(context, structure);
+        }
+        continue;
+      }
+
       switch (element) {
         case final MiASTImportDeclaration ignored -> {
           // Nothing
@@ -113,7 +135,11 @@ final class MiCheckerPassBindings
           this.checkBindingsTypeDeclaration(typeDeclaration);
         }
         case final MiASTStructure structure -> {
-          this.checkBindingsStructure(context, structure);
+          try {
+            this.checkBindingsStructure(context, structure);
+          } catch (final MiCheckerException e) {
+            tracker.addException(e);
+          }
         }
       }
     }
@@ -167,21 +193,48 @@ final class MiCheckerPassBindings
     if (type.prefix().isEmpty()) {
       final var source = new TypePeer(structure.name().toSimpleName());
       final var target = new TypePeer(type.name().toSimpleName());
-      try {
-        this.graph.addVertex(source);
-        this.graph.addVertex(target);
-        this.graph.addEdge(
-          source,
-          target,
-          new TypePeerReference(source, target)
-        );
-      } catch (final IllegalArgumentException e) {
+      if (!this.addReference(source, target)) {
         errorTypeCyclic(context, structure, source, target);
         throw new MiCheckerException();
       }
     }
   }
 
+  private void addStructureReferences(
+    final MiCheckerContext context,
+    final MiASTStructure structure)
+  {
+    final var source = new TypePeer(structure.name().toSimpleName());
+    for (final var field : structure.fields()) {
+      if (field instanceof final MiASTField plainField
+          && plainField.type().prefix().isEmpty()) {
+        final var targetName = plainField.type().name().toSimpleName();
+        final var target = context.get(targetName);
+        if (target != null && !(target instanceof MiASTMap)) {
+          this.addReference(source, new TypePeer(targetName));
+        }
+      }
+    }
+  }
+
+  private boolean addReference(
+    final TypePeer source,
+    final TypePeer target)
+  {
+    try {
+      this.graph.addVertex(source);
+      this.graph.addVertex(target);
+      this.graph.addEdge(
+        source,
+        target,
+        new TypePeerReference(source, target)
+      );
+      return true;
+    } catch (final IllegalArgumentException e) {
+      return false;
+    }
+  }
+
   private static void errorTypeCyclic(
     final MiCheckerContext context,
     final MiASTStructure structure,
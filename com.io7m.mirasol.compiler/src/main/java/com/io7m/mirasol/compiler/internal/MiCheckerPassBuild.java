@@ -17,6 +17,7 @@
 package com.io7m.mirasol.compiler.internal;
 
 import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiBitRangeType;
 import com.io7m.mirasol.core.MiFieldType;
 import com.io7m.mirasol.core.MiMapType;
@@ -25,6 +26,7 @@ import com.io7m.mirasol.core.MiPackageName;
 import com.io7m.mirasol.core.MiScalarKinds;
 import com.io7m.mirasol.core.MiScalarType;
 import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimingPhase;
 import com.io7m.mirasol.core.MiTypeReference;
 import com.io7m.mirasol.core.MiTypeType;
 import com.io7m.mirasol.parser.api.ast.MiASTBitField;
@@ -36,8 +38,10 @@ import com.io7m.mirasol.parser.api.ast.MiASTScalarTypeDeclaration;
 import com.io7m.mirasol.parser.api.ast.MiASTStructure;
 import com.io7m.mirasol.parser.api.ast.MiASTTypeReference;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Optional;
 
 /**
  * A checker pass that builds an output package.
@@ -51,6 +55,12 @@ final class MiCheckerPassBuild
 
   }
 
+  @Override
+  public MiTimingPhase phase()
+  {
+    return MiTimingPhase.CHECK_BUILD;
+  }
+
   @Override
   public void execute(
     final MiCheckerContext context)
@@ -218,17 +228,36 @@ final class MiCheckerPassBuild
       new MiTypeReference(
         elementReference.packageName,
         (MiTypeType) elementReference.element
-      )
+      ),
+      plainField.access().orElse(MiAccess.READ_WRITE),
+      plainField.reset()
     );
   }
 
   private static MiFieldType buildBitField(
     final MiASTBitField bitField)
   {
+    final var access =
+      bitField.access().orElse(MiAccess.READ_WRITE);
+    final var reset =
+      resetOfBitField(bitField);
+
     final var ranges = bitField.ranges();
     final var output = new ArrayList<MiBitRangeType>();
     for (final var r : ranges) {
-      output.add(new MiBitRange(r.name().toSimpleName(), r.range()));
+      final var lower =
+        r.range().lower().intValueExact();
+      final var width =
+        r.range().upper().intValueExact() - lower + 1;
+
+      output.add(
+        new MiBitRange(
+          r.name().toSimpleName(),
+          r.range(),
+          r.access().orElse(access),
+          reset.map(x -> x.shiftRight(lower).and(maskOfWidth(width)))
+        )
+      );
     }
     output.sort(Comparator.comparing(MiBitRangeType::range));
 
@@ -236,10 +265,53 @@ final class MiCheckerPassBuild
       bitField.name().toSimpleName(),
       bitField.offset().value(),
       bitField.sizeOctets(),
-      output
+      output,
+      access,
+      reset
     );
   }
 
+  /**
+   * Calculate the reset value of a bit field. The reset values of bit ranges
+   * take precedence over the reset value of the bit field, and any bits not
+   * covered by a reset value are assumed to reset to zero. If no reset values
+   * are specified at all, the reset value is unknown.
+   */
+
+  private static Optional<BigInteger> resetOfBitField(
+    final MiASTBitField bitField)
+  {
+    final var specified =
+      bitField.reset().isPresent()
+      || bitField.ranges().stream().anyMatch(r -> r.reset().isPresent());
+
+    if (!specified) {
+      return Optional.empty();
+    }
+
+    var value = bitField.reset().orElse(BigInteger.ZERO);
+    for (final var r : bitField.ranges()) {
+      if (r.reset().isPresent()) {
+        final var lower =
+          r.range().lower().intValueExact();
+        final var width =
+          r.range().upper().intValueExact() - lower + 1;
+        final var mask =
+          maskOfWidth(width).shiftLeft(lower);
+
+        value = value.andNot(mask)
+          .or(r.reset().get().shiftLeft(lower).and(mask));
+      }
+    }
+    return Optional.of(value);
+  }
+
+  private static BigInteger maskOfWidth(
+    final int width)
+  {
+    return BigInteger.ONE.shiftLeft(width).subtract(BigInteger.ONE);
+  }
+
   private static MiScalar buildScalar(
     final MiCheckerContext context,
     final MiASTScalarTypeDeclaration scalar)
@@ -20,6 +20,7 @@ package com.io7m.mirasol.compiler.internal;
 import com.io7m.jdeferthrow.core.ExceptionTracker;
 import com.io7m.mirasol.core.MiException;
 import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiTimingPhase;
 import com.io7m.mirasol.parser.api.ast.MiASTImportDeclaration;
 import com.io7m.mirasol.parser.api.ast.MiASTMap;
 import com.io7m.mirasol.parser.api.ast.MiASTScalarTypeDeclaration;
@@ -37,6 +38,12 @@ final class MiCheckerPassImports
 
   }
 
+  @Override
+  public MiTimingPhase phase()
+  {
+    return MiTimingPhase.CHECK_IMPORTS;
+  }
+
   @Override
   public void execute(
     final MiCheckerContext context)
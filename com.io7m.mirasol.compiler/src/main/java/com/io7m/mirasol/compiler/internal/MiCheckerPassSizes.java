@@ -21,7 +21,11 @@ import com.io7m.abstand.core.IntervalTree;
 import com.io7m.abstand.core.IntervalTreeDebuggableType;
 import com.io7m.abstand.core.IntervalType;
 import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiScalarType;
 import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiTimingPhase;
 import com.io7m.mirasol.parser.api.ast.MiASTBitField;
 import com.io7m.mirasol.parser.api.ast.MiASTBitRange;
 import com.io7m.mirasol.parser.api.ast.MiASTField;
@@ -36,21 +40,30 @@ import com.io7m.mirasol.parser.api.ast.MiASTTypeReference;
 import com.io7m.seltzer.api.SStructuredError;
 
 import java.math.BigInteger;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
 
+import static com.io7m.mirasol.strings.MiStringConstants.ACCESS;
+import static com.io7m.mirasol.strings.MiStringConstants.ACCESS_BIT_FIELD;
 import static com.io7m.mirasol.strings.MiStringConstants.BIT_FIELD;
 import static com.io7m.mirasol.strings.MiStringConstants.BIT_FIELD_CONFLICTING;
 import static com.io7m.mirasol.strings.MiStringConstants.BIT_FIELD_CURRENT;
+import static com.io7m.mirasol.strings.MiStringConstants.BIT_RANGE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_BIT_RANGE_ACCESS;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_BIT_FIELD_OVERLAP;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_BIT_FIELD_SIZE_INSUFFICIENT;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_FIELD_OVERLAP;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_RESET_NOT_SCALAR;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_RESET_VALUE_TOO_LARGE;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CHECKER_SIZE_POSITIVE;
+import static com.io7m.mirasol.strings.MiStringConstants.FIELD;
 import static com.io7m.mirasol.strings.MiStringConstants.FIELD_CONFLICTING;
 import static com.io7m.mirasol.strings.MiStringConstants.FIELD_CURRENT;
 import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.RESET_VALUE;
 import static com.io7m.mirasol.strings.MiStringConstants.SIZE_BITS;
 import static com.io7m.mirasol.strings.MiStringConstants.SIZE_OCTETS_ACTUAL;
 import static com.io7m.mirasol.strings.MiStringConstants.SIZE_OCTETS_REQUIRED;
@@ -68,6 +81,12 @@ final class MiCheckerPassSizes
 
   }
 
+  @Override
+  public MiTimingPhase phase()
+  {
+    return MiTimingPhase.CHECK_SIZES;
+  }
+
   @Override
   public void execute(
     final MiCheckerContext context)
@@ -76,6 +95,10 @@ final class MiCheckerPassSizes
     final var tracker = new ExceptionTracker<MiCheckerException>();
 
     for (final var element : context.source().elements()) {
+      if (!context.isFocused(element)) {
+        continue;
+      }
+
       try {
         this.sizeOfElement(context, element);
       } catch (final MiCheckerException e) {
@@ -211,6 +234,12 @@ final class MiCheckerPassSizes
             tracker.addException(e);
           }
 
+          try {
+            this.validateFieldReset(context, structure, plainField, fieldSize);
+          } catch (final MiCheckerException e) {
+            tracker.addException(e);
+          }
+
           sizeOctets = sizeOctets.max(fieldOffset.add(fieldSize.value()));
         }
       }
@@ -316,9 +345,170 @@ final class MiCheckerPassSizes
       tracker.addException(e);
     }
 
+    validateBitFieldRangesAccess(context, tracker, structure, bitField);
+    validateBitFieldResets(context, tracker, structure, bitField);
     tracker.throwIfNecessary();
   }
 
+  /**
+   * Validate that the reset value of a bit field fits within the bit field,
+   * and that the reset value of each bit range fits within the bit range.
+   */
+
+  private static void validateBitFieldResets(
+    final MiCheckerContext context,
+    final ExceptionTracker<MiCheckerException> tracker,
+    final MiASTStructure structure,
+    final MiASTBitField bitField)
+  {
+    final var fieldReset = bitField.reset();
+    if (fieldReset.isPresent()) {
+      final var sizeBits =
+        bitField.sizeOctets().value().multiply(BigInteger.valueOf(8L));
+
+      if (!fitsInBits(fieldReset.get(), sizeBits)) {
+        tracker.addException(
+          errorResetValueTooLarge(
+            context,
+            bitField.lexical(),
+            structure,
+            bitField.name().value(),
+            Optional.empty(),
+            fieldReset.get(),
+            sizeBits
+          )
+        );
+      }
+    }
+
+    for (final var range : bitField.ranges()) {
+      final var rangeReset = range.reset();
+      if (rangeReset.isPresent()) {
+        final var sizeBits =
+          range.range().upper().subtract(range.range().lower()).add(BigInteger.ONE);
+
+        if (!fitsInBits(rangeReset.get(), sizeBits)) {
+          tracker.addException(
+            errorResetValueTooLarge(
+              context,
+              range.lexical(),
+              structure,
+              bitField.name().value(),
+              Optional.of(range.name().value()),
+              rangeReset.get(),
+              sizeBits
+            )
+          );
+        }
+      }
+    }
+  }
+
+  /**
+   * Validate that the reset value of a field (if any) fits within the field,
+   * and that the field is of a scalar type.
+   */
+
+  private void validateFieldReset(
+    final MiCheckerContext context,
+    final MiASTStructure structure,
+    final MiASTField field,
+    final MiSizeOctets fieldSize)
+    throws MiCheckerException
+  {
+    final var resetOpt = field.reset();
+    if (resetOpt.isEmpty()) {
+      return;
+    }
+
+    if (!this.isScalar(context, field.type())) {
+      throw errorResetNotScalar(context, structure, field);
+    }
+
+    final var reset = resetOpt.get();
+    final var sizeBits =
+      fieldSize.value().multiply(BigInteger.valueOf(8L));
+
+    if (!fitsInBits(reset, sizeBits)) {
+      throw errorResetValueTooLarge(
+        context,
+        field.lexical(),
+        structure,
+        field.name().value(),
+        Optional.empty(),
+        reset,
+        sizeBits
+      );
+    }
+  }
+
+  private boolean isScalar(
+    final MiCheckerContext context,
+    final MiASTTypeReference typeRef)
+    throws MiCheckerException
+  {
+    if (typeRef.prefix().isEmpty()) {
+      return context.get(typeRef.name().toSimpleName())
+        instanceof MiASTScalarTypeDeclaration;
+    }
+
+    final var pack =
+      context.packageForPrefix(typeRef.prefix().get());
+
+    return pack.type(typeRef.name().toSimpleName())
+      .map(type -> type.type() instanceof MiScalarType)
+      .orElse(Boolean.FALSE)
+      .booleanValue();
+  }
+
+  private static boolean fitsInBits(
+    final BigInteger value,
+    final BigInteger sizeBits)
+  {
+    return value.bitLength() <= sizeBits.intValueExact();
+  }
+
+  /**
+   * Validate that the access semantics of each bit range are compatible with
+   * the access semantics of the bit field. Ranges within a read-only bit
+   * field cannot be writable, and ranges within a write-only bit field must
+   * be write-only.
+   */
+
+  private static void validateBitFieldRangesAccess(
+    final MiCheckerContext context,
+    final ExceptionTracker<MiCheckerException> tracker,
+    final MiASTStructure structure,
+    final MiASTBitField bitField)
+  {
+    final var fieldAccess =
+      bitField.access().orElse(MiAccess.READ_WRITE);
+
+    for (final var range : bitField.ranges()) {
+      final var rangeAccess =
+        range.access().orElse(fieldAccess);
+
+      final var compatible = switch (fieldAccess) {
+        case READ_ONLY, READ_TO_CLEAR -> !rangeAccess.isWritable();
+        case WRITE_ONLY -> rangeAccess == MiAccess.WRITE_ONLY;
+        case READ_WRITE, WRITE_ONE_TO_CLEAR -> true;
+      };
+
+      if (!compatible) {
+        tracker.addException(
+          errorBitRangeAccess(
+            context,
+            structure,
+            bitField,
+            range,
+            fieldAccess,
+            rangeAccess
+          )
+        );
+      }
+    }
+  }
+
   /**
    * Validate that there are no overlapping bit ranges in the given bit field.
    */
@@ -478,6 +668,132 @@ final class MiCheckerPassSizes
     );
   }
 
+  private static MiCheckerException errorBitRangeAccess(
+    final MiCheckerContext context,
+    final MiASTStructure structure,
+    final MiASTBitField bitField,
+    final MiASTBitRange range,
+    final MiAccess fieldAccess,
+    final MiAccess rangeAccess)
+  {
+    final var attributes = new TreeMap<String, String>();
+    context.putLexicalPosition(attributes, range.lexical());
+
+    attributes.put(
+      context.format(PACKAGE),
+      context.source().name().toPackageName().toString()
+    );
+    attributes.put(
+      context.format(TYPE),
+      structure.name().value()
+    );
+    attributes.put(
+      context.format(BIT_FIELD),
+      bitField.name().value()
+    );
+    attributes.put(
+      context.format(BIT_RANGE),
+      range.name().value()
+    );
+    attributes.put(
+      context.format(ACCESS_BIT_FIELD),
+      fieldAccess.show()
+    );
+    attributes.put(
+      context.format(ACCESS),
+      rangeAccess.show()
+    );
+
+    return context.error(
+      new SStructuredError<>(
+        "error-bit-range-access",
+        context.format(ERROR_CHECKER_BIT_RANGE_ACCESS),
+        attributes,
+        Optional.empty(),
+        Optional.empty()
+      )
+    );
+  }
+
+  private static MiCheckerException errorResetValueTooLarge(
+    final MiCheckerContext context,
+    final LexicalPosition<URI> lexical,
+    final MiASTStructure structure,
+    final String field,
+    final Optional<String> range,
+    final BigInteger reset,
+    final BigInteger sizeBits)
+  {
+    final var attributes = new TreeMap<String, String>();
+    context.putLexicalPosition(attributes, lexical);
+
+    attributes.put(
+      context.format(PACKAGE),
+      context.source().name().toPackageName().toString()
+    );
+    attributes.put(
+      context.format(TYPE),
+      structure.name().value()
+    );
+    attributes.put(
+      context.format(FIELD),
+      field
+    );
+    range.ifPresent(r -> {
+      attributes.put(context.format(BIT_RANGE), r);
+    });
+    attributes.put(
+      context.format(RESET_VALUE),
+      "0x" + reset.toString(16)
+    );
+    attributes.put(
+      context.format(SIZE_BITS),
+      sizeBits.toString()
+    );
+
+    return context.error(
+      new SStructuredError<>(
+        "error-reset-value-too-large",
+        context.format(ERROR_CHECKER_RESET_VALUE_TOO_LARGE),
+        attributes,
+        Optional.empty(),
+        Optional.empty()
+      )
+    );
+  }
+
+  private static MiCheckerException errorResetNotScalar(
+    final MiCheckerContext context,
+    final MiASTStructure structure,
+    final MiASTField field)
+  {
+    final var attributes = new TreeMap<String, String>();
+    context.putLexicalPosition(attributes, field.lexical());
+
+    attributes.put(
+      context.format(PACKAGE),
+      context.source().name().toPackageName().toString()
+    );
+    attributes.put(
+      context.format(TYPE),
+      structure.name().value()
+    );
+    attributes.put(
+      context.format(FIELD),
+      field.name().value()
+    );
+
+    return context.error(
+      new SStructuredError<>(
+        "error-reset-not-scalar",
+        context.format(ERROR_CHECKER_RESET_NOT_SCALAR),
+        attributes,
+        Optional.empty(),
+        Optional.empty()
+      )
+    );
+  }
+
   private static MiCheckerException errorBitRangeOverlap(
     final MiCheckerContext context,
     final MiASTStructure structure,
@@ -17,8 +17,12 @@
 
 package com.io7m.mirasol.compiler.internal;
 
+import com.io7m.mirasol.core.MiTimingPhase;
+
 interface MiCheckerPassType
 {
+  MiTimingPhase phase();
+
   void execute(MiCheckerContext context)
     throws MiCheckerException;
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.mirasol.core.MiCompilationEventType;
+import com.io7m.mirasol.core.MiCompilationListenerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of compilation listeners, and a single thread that delivers events
+ * to them. Publishing an event never blocks, and is a single list check if
+ * no listeners are registered. The delivery thread exits when idle.
+ */
+
+public final class MiCompilationEvents
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiCompilationEvents.class);
+
+  private final CopyOnWriteArrayList<MiCompilationListenerType> listeners;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * A set of compilation listeners.
+   */
+
+  public MiCompilationEvents()
+  {
+    this.listeners =
+      new CopyOnWriteArrayList<>();
+    this.executor =
+      new ThreadPoolExecutor(
+        1,
+        1,
+        10L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        Thread.ofVirtual()
+          .name("com.io7m.mirasol.compiler.events-", 0L)
+          .factory()
+      );
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Add a listener.
+   *
+   * @param listener The listener
+   */
+
+  public void addListener(
+    final MiCompilationListenerType listener)
+  {
+    this.listeners.add(Objects.requireNonNull(listener, "listener"));
+  }
+
+  /**
+   * Remove a listener.
+   *
+   * @param listener The listener
+   */
+
+  public void removeListener(
+    final MiCompilationListenerType listener)
+  {
+    this.listeners.remove(Objects.requireNonNull(listener, "listener"));
+  }
+
+  /**
+   * Publish an event to all listeners.
+   *
+   * @param event The event
+   */
+
+  public void publish(
+    final MiCompilationEventType event)
+  {
+    Objects.requireNonNull(event, "event");
+
+    if (this.listeners.isEmpty()) {
+      return;
+    }
+    this.executor.execute(() -> this.deliver(event));
+  }
+
+  private void deliver(
+    final MiCompilationEventType event)
+  {
+    for (final var listener : this.listeners) {
+      try {
+        listener.onEvent(event);
+      } catch (final Exception e) {
+        LOG.error("Listener raised exception: ", e);
+      }
+    }
+  }
+}
@@ -19,19 +19,36 @@ package com.io7m.mirasol.compiler.internal;
 
 import com.io7m.anethum.api.ParsingException;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType;
+import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
 import com.io7m.mirasol.compiler.api.MiCompilerType;
+import com.io7m.mirasol.core.MiCompilationEventType;
+import com.io7m.mirasol.core.MiCompilationEventType.ErrorEmitted;
+import com.io7m.mirasol.core.MiCompilationEventType.ParseFinished;
+import com.io7m.mirasol.core.MiCompilationEventType.ParseStarted;
+import com.io7m.mirasol.core.MiCompilationEventType.RemoteCacheHit;
+import com.io7m.mirasol.core.MiCompilationEventType.RemoteCacheMiss;
 import com.io7m.mirasol.core.MiPackageType;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.parser.api.MiLexical;
 import com.io7m.mirasol.parser.api.MiParserFactoryType;
 import com.io7m.mirasol.parser.api.ast.MiASTPackageDeclaration;
 import com.io7m.mirasol.strings.MiStrings;
+import com.io7m.seltzer.api.SStructuredError;
 import com.io7m.seltzer.api.SStructuredErrorType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
+import static com.io7m.mirasol.strings.MiStringConstants.SOURCE;
 
 /**
  * The default compiler.
@@ -42,6 +59,8 @@ public final class MiCompiler implements MiCompilerType
   private final MiLoaderType loader;
   private final MiParserFactoryType parsers;
   private final MiStrings strings;
+  private final Consumer<MiCompilationEventType> events;
+  private final Optional<MiRemotePackageCache> remoteCache;
 
   /**
    * The default compiler.
@@ -49,12 +68,34 @@ public final class MiCompiler implements MiCompilerType
    * @param inStrings The strings
    * @param inLoader  The loader factory
    * @param inParsers The parser factory
+   * @param inEvents  The receiver of compilation events
+   */
+
+  public MiCompiler(
+    final MiStrings inStrings,
+    final MiLoaderType inLoader,
+    final MiParserFactoryType inParsers,
+    final Consumer<MiCompilationEventType> inEvents)
+  {
+    this(inStrings, inLoader, inParsers, inEvents, Optional.empty());
+  }
+
+  /**
+   * The default compiler.
+   *
+   * @param inStrings     The strings
+   * @param inLoader      The loader factory
+   * @param inParsers     The parser factory
+   * @param inEvents      The receiver of compilation events
+   * @param inRemoteCache The remote cache tier, if any
    */
 
   public MiCompiler(
     final MiStrings inStrings,
     final MiLoaderType inLoader,
-    final MiParserFactoryType inParsers)
+    final MiParserFactoryType inParsers,
+    final Consumer<MiCompilationEventType> inEvents,
+    final Optional<MiRemotePackageCache> inRemoteCache)
   {
     this.strings =
       Objects.requireNonNull(inStrings, "strings");
@@ -62,16 +103,72 @@ public final class MiCompiler implements MiCompilerType
       Objects.requireNonNull(inLoader, "loader");
     this.parsers =
       Objects.requireNonNull(inParsers, "parsers");
+    this.events =
+      Objects.requireNonNull(inEvents, "events");
+    this.remoteCache =
+      Objects.requireNonNull(inRemoteCache, "remoteCache");
   }
 
   @Override
   public MiCompilerResultType<MiPackageType> compile(
     final URI source,
     final InputStream stream)
+  {
+    if (this.remoteCache.isEmpty()) {
+      return this.compileLocally(source, stream);
+    }
+
+    final var remote = this.remoteCache.get();
+    final byte[] data;
+    try {
+      data = stream.readAllBytes();
+    } catch (final IOException e) {
+      return this.errorIO(source, e);
+    }
+
+    final var key = remote.keyOf(data);
+    final var cached = remote.fetch(this.loader, source, key);
+    if (cached.isPresent()) {
+      this.events.accept(new RemoteCacheHit(source, key));
+      return new Succeeded<>(cached.get());
+    }
+
+    this.events.accept(new RemoteCacheMiss(source, key));
+    final var result =
+      this.compileLocally(source, new ByteArrayInputStream(data));
+
+    if (result instanceof final Succeeded<MiPackageType> succeeded) {
+      remote.store(this.loader, key, succeeded.result());
+    }
+    return result;
+  }
+
+  private MiCompilerResultType<MiPackageType> errorIO(
+    final URI source,
+    final IOException e)
+  {
+    final var error =
+      new SStructuredError<>(
+        "error-io",
+        this.strings.format(ERROR_IO),
+        Map.of(this.strings.format(SOURCE), source.toString()),
+        Optional.empty(),
+        Optional.<Throwable>of(e)
+      );
+
+    this.events.accept(new ErrorEmitted(source, error));
+    return new MiCompilerResultType.Failed<>(List.of(error));
+  }
+
+  private MiCompilerResultType<MiPackageType> compileLocally(
+    final URI source,
+    final InputStream stream)
   {
     final var errors =
       new ArrayList<SStructuredErrorType<String>>();
 
+    this.events.accept(new ParseStarted(source));
+
     final MiASTPackageDeclaration parsed;
     try {
       final var parser =
@@ -79,13 +176,24 @@ public final class MiCompiler implements MiCompilerType
           MiLexical.PRESERVE_LEXICAL,
           source,
           stream,
-          errors::add
+          error -> {
+            errors.add(error);
+            this.events.accept(new ErrorEmitted(source, error));
+          }
         );
       parsed = parser.execute();
     } catch (final ParsingException e) {
+      this.events.accept(new ParseFinished(source, false));
       return new MiCompilerResultType.Failed<>(errors);
     }
 
-    return new MiChecker(this.strings, this.loader, parsed).check();
+    this.events.accept(new ParseFinished(source, true));
+    return new MiChecker(
+      this.strings,
+      this.loader,
+      source,
+      parsed,
+      this.events
+    ).check();
   }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler.internal;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Functions to compute the content hashes used as remote cache keys.
+ */
+
+public final class MiContentHashes
+{
+  private MiContentHashes()
+  {
+
+  }
+
+  /**
+   * Hash the given sequence of values. Each value is prefixed with its
+   * length, so that distinct sequences cannot produce the same input to
+   * the hash function.
+   *
+   * @param values The values
+   *
+   * @return The SHA-256 hash as lowercase hexadecimal
+   */
+
+  public static String sha256(
+    final byte[]... values)
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    final var length = ByteBuffer.allocate(Integer.BYTES);
+    for (final var value : values) {
+      digest.update(length.clear().putInt(value.length).array());
+      digest.update(value);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+}
@@ -21,9 +21,14 @@ import com.io7m.mirasol.compiler.api.MiCompilerFactoryType;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType.Failed;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
+import com.io7m.mirasol.core.MiCompilationEventType.CacheHit;
+import com.io7m.mirasol.core.MiCompilationEventType.CacheMiss;
+import com.io7m.mirasol.core.MiCompilationEventType.PackageResolved;
+import com.io7m.mirasol.core.MiCompilationListenerType;
 import com.io7m.mirasol.core.MiException;
 import com.io7m.mirasol.core.MiPackageName;
 import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.strings.MiStrings;
 
@@ -40,6 +45,7 @@ import java.util.Optional;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 
+import static com.io7m.mirasol.core.MiTimingPhase.PACKAGE_RESOLUTION;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CIRCULAR_DEPENDENCY;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_CIRCULAR_PATH;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
@@ -58,6 +64,7 @@ public final class MiDirectoryLoader implements MiLoaderType
   private final List<Path> directories;
   private final HashMap<MiPackageName, MiPackageType> packageCache;
   private final ArrayList<MiPackageName> packageStack;
+  private final MiCompilationEvents events;
 
   /**
    * A directory-based package loader.
@@ -72,6 +79,28 @@ public final class MiDirectoryLoader implements MiLoaderType
     final MiCompilerFactoryType inCompilers,
     final List<Path> inDirectories)
   {
+    this(inStrings, inCompilers, inDirectories, List.of());
+  }
+
+  /**
+   * A directory-based package loader that starts with the given packages
+   * already loaded. The packages are returned as-is by
+   * {@link #openPackage(MiPackageName)} and are not recompiled.
+   *
+   * @param inDirectories The source directories
+   * @param inCompilers   The compilers
+   * @param inStrings     The strings
+   * @param inPackages    The already-loaded packages
+   */
+
+  public MiDirectoryLoader(
+    final MiStrings inStrings,
+    final MiCompilerFactoryType inCompilers,
+    final List<Path> inDirectories,
+    final Collection<MiPackageType> inPackages)
+  {
+    Objects.requireNonNull(inPackages, "packages");
+
     this.strings =
       Objects.requireNonNull(inStrings, "strings");
     this.compilers =
@@ -82,6 +111,12 @@ public final class MiDirectoryLoader implements MiLoaderType
       new HashMap<>();
     this.packageStack =
       new ArrayList<>();
+    this.events =
+      new MiCompilationEvents();
+
+    for (final var pack : inPackages) {
+      this.packageCache.put(pack.name(), pack);
+    }
   }
 
   @Override
@@ -99,54 +134,90 @@ public final class MiDirectoryLoader implements MiLoaderType
     try {
       final var existing = this.packageCache.get(name);
       if (existing != null) {
+        this.events.publish(new CacheHit(name));
         return existing;
       }
 
-      final var fileName =
-        name + ".mpx";
+      this.events.publish(new CacheMiss(name));
 
-      for (final var directory : this.directories) {
-        final var path = directory.resolve(fileName);
-        if (!Files.isRegularFile(path)) {
-          continue;
-        }
+      try (var ignored =
+             MiTimings.start(PACKAGE_RESOLUTION, name.toString())) {
+        return this.openPackageUncached(name);
+      }
+    } finally {
+      this.packageStack.removeLast();
+    }
+  }
+
+  private MiPackageType openPackageUncached(
+    final MiPackageName name)
+    throws MiException
+  {
+    final var pathOpt = locate(this.directories, name);
+    if (pathOpt.isPresent()) {
+      final var path = pathOpt.get();
+      final var compiler =
+        this.compilers.create(this);
+
+      final MiCompilerResultType<MiPackageType> compiled;
+      try {
+        compiled = compiler.compileFile(path);
+      } catch (final IOException e) {
+        throw this.errorIO(name, e);
+      }
 
-        final var compiler =
-          this.compilers.create(this);
+      return switch (compiled) {
+        case final Failed<MiPackageType> failed -> {
+          final var errors =
+            new ArrayList<>(failed.errors());
+          final var error =
+            errors.removeFirst();
 
-        final MiCompilerResultType<MiPackageType> compiled;
-        try {
-          compiled = compiler.compileFile(path);
-        } catch (final IOException e) {
-          throw this.errorIO(name, e);
+          throw new MiException(
+            error.message(),
+            error.errorCode(),
+            error.attributes(),
+            error.remediatingAction(),
+            errors
+          );
         }
+        case final Succeeded<MiPackageType> succeeded -> {
+          this.packageCache.put(name, succeeded.result());
+          this.events.publish(new PackageResolved(name, path.toUri()));
+          yield succeeded.result();
+        }
+      };
+    }
 
-        return switch (compiled) {
-          case final Failed<MiPackageType> failed -> {
-            final var errors =
-              new ArrayList<>(failed.errors());
-            final var error =
-              errors.removeFirst();
-
-            throw new MiException(
-              error.message(),
-              error.errorCode(),
-              error.attributes(),
-              error.remediatingAction(),
-              errors
-            );
-          }
-          case final Succeeded<MiPackageType> succeeded -> {
-            this.packageCache.put(name, succeeded.result());
-            yield succeeded.result();
-          }
-        };
-      }
+    throw this.errorNoSuchPackage(name);
+  }
 
-      throw this.errorNoSuchPackage(name);
-    } finally {
-      this.packageStack.removeLast();
+  /**
+   * Find the file that would contain the package with the given name.
+   *
+   * @param directories The directories to search, in order
+   * @param name        The package name
+   *
+   * @return The file, if one exists
+   */
+
+  public static Optional<Path> locate(
+    final List<Path> directories,
+    final MiPackageName name)
+  {
+    Objects.requireNonNull(directories, "directories");
+    Objects.requireNonNull(name, "name");
+
+    final var fileName =
+      name + ".mpx";
+
+    for (final var directory : directories) {
+      final var path = directory.resolve(fileName);
+      if (Files.isRegularFile(path)) {
+        return Optional.of(path);
+      }
     }
+    return Optional.empty();
   }
 
   @Override
@@ -158,6 +229,29 @@ public final class MiDirectoryLoader implements MiLoaderType
       .collect(Collectors.toList());
   }
 
+  @Override
+  public void addListener(
+    final MiCompilationListenerType listener)
+  {
+    this.events.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(
+    final MiCompilationListenerType listener)
+  {
+    this.events.removeListener(listener);
+  }
+
+  /**
+   * @return The events published by this loader
+   */
+
+  public MiCompilationEvents events()
+  {
+    return this.events;
+  }
+
   private MiException errorNoSuchPackage(
     final MiPackageName name)
   {
@@ -0,0 +1,406 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.abstand.core.IntervalB;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiBitRangeType;
+import com.io7m.mirasol.core.MiFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageReference;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarKindCustom;
+import com.io7m.mirasol.core.MiScalarKindStandard;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeBits;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An estimator of the heap retained by a compiled package.
+ *
+ * <p>The estimate walks the package model and sums the sizes that the
+ * objects would have on a 64-bit JVM with compressed references: 12 octet
+ * object headers, 4 octet references, and 8 octet alignment. Strings are
+ * assumed to use the compact (one octet per character) representation
+ * where possible. Objects reachable more than once are counted once, and
+ * the types of imported packages are not counted at all.</p>
+ */
+
+public final class MiHeapEstimator
+{
+  private static final long HEADER = 12L;
+  private static final long ARRAY_HEADER = 16L;
+  private static final long REFERENCE = 4L;
+
+  private final MiPackageName packageName;
+  private final Set<Object> seen;
+
+  private MiHeapEstimator(
+    final MiPackageName inPackageName)
+  {
+    this.packageName =
+      Objects.requireNonNull(inPackageName, "packageName");
+    this.seen =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  /**
+   * Estimate the heap retained by the given package.
+   *
+   * @param pack The package
+   *
+   * @return The estimated size in octets
+   */
+
+  public static long estimate(
+    final MiPackageType pack)
+  {
+    Objects.requireNonNull(pack, "pack");
+    return new MiHeapEstimator(pack.name()).packageSize(pack);
+  }
+
+  private static long align(
+    final long size)
+  {
+    return (size + 7L) & ~7L;
+  }
+
+  private static long object(
+    final int references,
+    final long primitives)
+  {
+    return align(HEADER + (references * REFERENCE) + primitives);
+  }
+
+  private static long referenceArray(
+    final int length)
+  {
+    return align(ARRAY_HEADER + (length * REFERENCE));
+  }
+
+  private boolean first(
+    final Object value)
+  {
+    return value != null && this.seen.add(value);
+  }
+
+  private long packageSize(
+    final MiPackageType pack)
+  {
+    final var types = pack.types();
+    final var maps = pack.maps();
+    final var imports = pack.imports();
+
+    var size = object(6, 0L);
+    size += this.packageName(pack.name());
+    size += this.uri(pack.source());
+    size += this.string(pack.documentation());
+    size += hashMap(types.size());
+    size += hashMap(maps.size());
+    size += arrayList(imports.size());
+
+    for (final var reference : imports) {
+      size += this.packageReference(reference);
+    }
+    for (final var type : types) {
+      size += this.type(type);
+    }
+    for (final var map : maps) {
+      size += this.map(map);
+    }
+    return size;
+  }
+
+  private static long hashMap(
+    final int count)
+  {
+    final var capacity =
+      Integer.highestOneBit(Math.max(1, (int) Math.ceil(count / 0.75)) * 2);
+
+    return object(6, 16L) + referenceArray(capacity) + (count * object(3, 4L));
+  }
+
+  private static long arrayList(
+    final int count)
+  {
+    return object(1, 8L) + referenceArray(count);
+  }
+
+  private static long immutableList(
+    final int count)
+  {
+    return object(1, 0L) + referenceArray(count);
+  }
+
+  private long packageReference(
+    final MiPackageReference reference)
+  {
+    if (!this.first(reference)) {
+      return 0L;
+    }
+    return object(2, 0L)
+           + this.packageName(reference.packageName())
+           + this.simpleName(reference.alias());
+  }
+
+  private long type(
+    final MiTypeType type)
+  {
+    if (!this.first(type)) {
+      return 0L;
+    }
+
+    return switch (type) {
+      case final MiScalarType scalar -> this.scalar(scalar);
+      case final MiStructureType structure -> this.structure(structure);
+    };
+  }
+
+  private long scalar(
+    final MiScalarType scalar)
+  {
+    var size = object(4, 0L);
+    size += this.simpleName(scalar.name());
+    size += this.sizeOctets(scalar.size());
+    size += this.sizeBits(scalar.sizeBits());
+    size += switch (scalar.kind()) {
+      case final MiScalarKindStandard ignored -> 0L;
+      case final MiScalarKindCustom custom -> {
+        if (this.first(custom)) {
+          yield object(1, 0L) + this.simpleName(custom.name());
+        }
+        yield 0L;
+      }
+    };
+    return size;
+  }
+
+  private long structure(
+    final MiStructureType structure)
+  {
+    final var fields = structure.fields();
+
+    var size = object(3, 0L);
+    size += this.simpleName(structure.name());
+    size += this.sizeOctets(structure.size());
+    size += immutableList(fields.size());
+    for (final var field : fields) {
+      size += this.field(field);
+    }
+    return size;
+  }
+
+  private long field(
+    final MiFieldType field)
+  {
+    if (!this.first(field)) {
+      return 0L;
+    }
+
+    return switch (field) {
+      case final MiBitFieldType bitField -> {
+        final var ranges = bitField.ranges();
+        var size = object(6, 0L);
+        size += this.simpleName(bitField.name());
+        size += this.bigInteger(bitField.offset());
+        size += this.sizeOctets(bitField.size());
+        size += this.optional(bitField.reset());
+        size += immutableList(ranges.size());
+        for (final var range : ranges) {
+          size += this.bitRange(range);
+        }
+        yield size;
+      }
+      case final MiTypedFieldType typedField -> {
+        var size = object(5, 0L);
+        size += this.simpleName(typedField.name());
+        size += this.bigInteger(typedField.offset());
+        size += this.typeReference(typedField.type());
+        size += this.optional(typedField.reset());
+        yield size;
+      }
+    };
+  }
+
+  private long bitRange(
+    final MiBitRangeType range)
+  {
+    if (!this.first(range)) {
+      return 0L;
+    }
+
+    var size = object(4, 0L);
+    size += this.simpleName(range.name());
+    size += this.interval(range.range());
+    size += this.optional(range.reset());
+    return size;
+  }
+
+  private long map(
+    final MiMapType map)
+  {
+    if (!this.first(map)) {
+      return 0L;
+    }
+
+    var size = object(4, 0L);
+    size += this.simpleName(map.name());
+    size += this.typeReference(map.type());
+    size += this.bigInteger(map.offset());
+    return size;
+  }
+
+  /*
+   * Types in other packages are retained by those packages.
+   */
+
+  private long typeReference(
+    final MiTypeReference reference)
+  {
+    if (!this.first(reference)) {
+      return 0L;
+    }
+
+    var size = object(2, 0L);
+    size += this.packageName(reference.packageName());
+    if (Objects.equals(reference.packageName(), this.packageName)) {
+      size += this.type(reference.type());
+    }
+    return size;
+  }
+
+  private long interval(
+    final IntervalB interval)
+  {
+    if (!this.first(interval)) {
+      return 0L;
+    }
+    return object(2, 0L)
+           + this.bigInteger(interval.lower())
+           + this.bigInteger(interval.upper());
+  }
+
+  private long optional(
+    final Optional<BigInteger> value)
+  {
+    if (value.isEmpty() || !this.first(value)) {
+      return 0L;
+    }
+    return object(1, 0L) + this.bigInteger(value.get());
+  }
+
+  private long sizeOctets(
+    final MiSizeOctets size)
+  {
+    if (!this.first(size)) {
+      return 0L;
+    }
+    return object(1, 0L) + this.bigInteger(size.value());
+  }
+
+  private long sizeBits(
+    final MiSizeBits size)
+  {
+    if (!this.first(size)) {
+      return 0L;
+    }
+    return object(1, 0L) + this.bigInteger(size.value());
+  }
+
+  private long simpleName(
+    final MiSimpleName name)
+  {
+    if (!this.first(name)) {
+      return 0L;
+    }
+    return object(1, 0L) + this.string(name.value());
+  }
+
+  private long packageName(
+    final MiPackageName name)
+  {
+    if (!this.first(name)) {
+      return 0L;
+    }
+    return object(1, 0L) + object(1, 0L) + this.string(name.toString());
+  }
+
+  private long uri(
+    final URI uri)
+  {
+    if (!this.first(uri)) {
+      return 0L;
+    }
+
+    /*
+     * A URI retains its full string along with the strings of its parsed
+     * components, which together are approximately the same length again.
+     */
+
+    final var text = uri.toString();
+    return object(10, 8L) + (2L * stringOf(text.length(), isLatin1(text)));
+  }
+
+  private long bigInteger(
+    final BigInteger value)
+  {
+    if (!this.first(value)) {
+      return 0L;
+    }
+
+    final var words = (value.abs().bitLength() + 31) / 32;
+    return object(1, 20L) + align(ARRAY_HEADER + (words * 4L));
+  }
+
+  private long string(
+    final String text)
+  {
+    if (!this.first(text)) {
+      return 0L;
+    }
+    return stringOf(text.length(), isLatin1(text));
+  }
+
+  private static long stringOf(
+    final int length,
+    final boolean latin1)
+  {
+    final var octets = latin1 ? length : length * 2L;
+    return object(1, 6L) + align(ARRAY_HEADER + octets);
+  }
+
+  private static boolean isLatin1(
+    final String text)
+  {
+    return text.chars().allMatch(c -> c <= 0xff);
+  }
+}
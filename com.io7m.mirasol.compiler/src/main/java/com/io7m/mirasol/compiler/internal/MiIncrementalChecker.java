@@ -0,0 +1,571 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.anethum.api.ParsingException;
+import com.io7m.mirasol.compiler.api.MiIncrementalCheckerType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.loader.api.MiLoaderType;
+import com.io7m.mirasol.parser.api.MiLexical;
+import com.io7m.mirasol.parser.api.MiParserFactoryType;
+import com.io7m.mirasol.parser.api.ast.MiASTField;
+import com.io7m.mirasol.parser.api.ast.MiASTImportDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTMap;
+import com.io7m.mirasol.parser.api.ast.MiASTPackageDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTPackageElementType;
+import com.io7m.mirasol.parser.api.ast.MiASTScalarTypeDeclaration;
+import com.io7m.mirasol.parser.api.ast.MiASTStructure;
+import com.io7m.mirasol.parser.api.ast.MiASTTypeReference;
+import com.io7m.mirasol.strings.MiStrings;
+import com.io7m.seltzer.api.SStructuredError;
+import com.io7m.seltzer.api.SStructuredErrorType;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.io7m.mirasol.strings.MiStringConstants.LINE;
+
+/**
+ * The default incremental checker.
+ *
+ * <p>The checker remembers, for each named element of the previous version
+ * of the source, the element itself, the binding and size errors that were
+ * attributed to it, and its size. An element of the new version is
+ * <i>clean</i> if it is equal to the element of the same name in the
+ * previous version after accounting for lines inserted or removed above it.
+ * Every other element, along with every element that refers (directly or
+ * transitively) to a changed or removed name, is <i>dirty</i>. The binding
+ * and size passes are then run with only the dirty elements in focus, and
+ * the results for clean elements are carried over.</p>
+ *
+ * <p>As with {@link MiChecker}, size errors are only reported if there are
+ * no binding errors. A change to the package name or to the set of imports
+ * causes everything to be checked again.</p>
+ */
+
+public final class MiIncrementalChecker implements MiIncrementalCheckerType
+{
+  private final MiStrings strings;
+  private final MiLoaderType loader;
+  private final MiParserFactoryType parsers;
+  private final URI source;
+  private final HashMap<MiSimpleName, ElementState> elements;
+  private MiPackageName packageName;
+  private Set<ImportKey> imports;
+  private List<MiSimpleName> order;
+  private boolean checkEverything;
+  private int elementsChecked;
+
+  /**
+   * The default incremental checker.
+   *
+   * @param inStrings The strings
+   * @param inLoader  The loader
+   * @param inParsers The parser factory
+   * @param inSource  The URI of the source
+   */
+
+  public MiIncrementalChecker(
+    final MiStrings inStrings,
+    final MiLoaderType inLoader,
+    final MiParserFactoryType inParsers,
+    final URI inSource)
+  {
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+    this.loader =
+      Objects.requireNonNull(inLoader, "loader");
+    this.parsers =
+      Objects.requireNonNull(inParsers, "parsers");
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+    this.elements =
+      new HashMap<>();
+    this.imports =
+      Set.of();
+    this.order =
+      List.of();
+    this.checkEverything =
+      true;
+  }
+
+  private record ImportKey(
+    MiPackageName packageName,
+    MiSimpleName prefix)
+  {
+
+  }
+
+  private record ElementState(
+    MiASTPackageElementType element,
+    List<SStructuredErrorType<String>> bindingErrors,
+    Optional<List<SStructuredErrorType<String>>> sizeErrors,
+    Optional<MiSizeOctets> size)
+  {
+
+  }
+
+  @Override
+  public int elementsChecked()
+  {
+    return this.elementsChecked;
+  }
+
+  @Override
+  public List<SStructuredErrorType<String>> check(
+    final InputStream stream)
+  {
+    Objects.requireNonNull(stream, "stream");
+
+    final var parseErrors =
+      new ArrayList<SStructuredErrorType<String>>();
+
+    final MiASTPackageDeclaration parsed;
+    try {
+      final var parser =
+        this.parsers.createParserWithContext(
+          MiLexical.PRESERVE_LEXICAL,
+          this.source,
+          stream,
+          parseErrors::add
+        );
+      parsed = parser.execute();
+    } catch (final ParsingException e) {
+      this.elementsChecked = 0;
+      return List.copyOf(parseErrors);
+    }
+
+    final var newName =
+      parsed.name().toPackageName();
+    final var newImports =
+      importsOf(parsed);
+
+    if (!Objects.equals(this.packageName, newName)
+        || !Objects.equals(this.imports, newImports)) {
+      this.elements.clear();
+    }
+    this.packageName = newName;
+    this.imports = newImports;
+
+    final var named = namedElements(parsed);
+    final var counts = new LinkedHashMap<MiSimpleName, Integer>();
+    for (final var entry : named) {
+      counts.merge(entry.getKey(), 1, Integer::sum);
+    }
+
+    /*
+     * Determine which elements are unchanged apart from their position in
+     * the file, and carry over their results.
+     */
+
+    final var carried = new HashMap<MiSimpleName, ElementState>();
+    final var changed = new HashSet<MiSimpleName>();
+    for (final var entry : named) {
+      final var name = entry.getKey();
+      final var element = entry.getValue();
+      final var old = this.elements.get(name);
+      if (!this.checkEverything && old != null && counts.get(name) == 1) {
+        final var lines =
+          element.lexical().line() - old.element().lexical().line();
+        if (MiASTShift.shift(old.element(), lines).equals(element)) {
+          carried.put(name, this.shiftState(old, element, lines));
+          continue;
+        }
+      }
+      changed.add(name);
+    }
+    for (final var name : this.elements.keySet()) {
+      if (!counts.containsKey(name)) {
+        changed.add(name);
+      }
+    }
+
+    /*
+     * A cycle is reported against whichever structure closes it in source
+     * order, so cycles must be checked again if elements were reordered.
+     */
+
+    final var order =
+      List.copyOf(counts.sequencedKeySet());
+    final var previous =
+      Set.copyOf(this.order);
+
+    if (!order.stream().filter(previous::contains).toList()
+      .equals(this.order.stream().filter(counts::containsKey).toList())) {
+      for (final var entry : carried.entrySet()) {
+        final var cyclic =
+          entry.getValue()
+            .bindingErrors()
+            .stream()
+            .anyMatch(e -> Objects.equals(e.errorCode(), "error-type-cyclic"));
+        if (cyclic) {
+          changed.add(entry.getKey());
+        }
+      }
+    }
+    this.order = order;
+
+    /*
+     * Sizes are unknown for elements that were last checked while there
+     * were binding errors. They need to be checked now, unless there are
+     * still binding errors that will prevent the size pass from running.
+     */
+
+    final var dirty = dependentsClosure(named, changed);
+    final var bindingErrorsRemain =
+      carried.entrySet()
+        .stream()
+        .anyMatch(e -> {
+          return !dirty.contains(e.getKey())
+                 && !e.getValue().bindingErrors().isEmpty();
+        });
+
+    if (!bindingErrorsRemain) {
+      for (final var entry : carried.entrySet()) {
+        if (entry.getValue().sizeErrors().isEmpty()) {
+          dirty.add(entry.getKey());
+        }
+      }
+    }
+    for (final var name : dirty) {
+      carried.remove(name);
+    }
+
+    this.elementsChecked = 0;
+    for (final var entry : named) {
+      if (dirty.contains(entry.getKey())) {
+        ++this.elementsChecked;
+      }
+    }
+
+    final var context =
+      new MiCheckerContext(
+        this.strings,
+        this.loader,
+        this.source,
+        parsed,
+        e -> nameOf(e).map(dirty::contains).orElse(Boolean.FALSE)
+      );
+
+    for (final var entry : carried.entrySet()) {
+      final var size = entry.getValue().size();
+      size.ifPresent(s -> context.sizeSave(entry.getKey(), s));
+    }
+
+    try {
+      new MiCheckerPassImports().execute(context);
+    } catch (final MiCheckerException e) {
+      this.elements.clear();
+      this.checkEverything = true;
+      return context.errors();
+    }
+
+    try {
+      new MiCheckerPassBindings().execute(context);
+    } catch (final MiCheckerException e) {
+      // Errors are collected below
+    }
+
+    final var bindingErrors =
+      context.errors();
+    final var bindingsFailed =
+      !bindingErrors.isEmpty()
+      || carried.values()
+        .stream()
+        .anyMatch(s -> !s.bindingErrors().isEmpty());
+
+    List<SStructuredErrorType<String>> sizeErrors = List.of();
+    if (!bindingsFailed) {
+      try {
+        new MiCheckerPassSizes().execute(context);
+      } catch (final MiCheckerException e) {
+        // Errors are collected below
+      }
+      final var all = context.errors();
+      sizeErrors = all.subList(bindingErrors.size(), all.size());
+    }
+
+    /*
+     * Attribute the fresh errors to the elements that contain them.
+     */
+
+    final var lines = new TreeMap<Integer, MiSimpleName>();
+    for (final var entry : named) {
+      lines.put(entry.getValue().lexical().line(), entry.getKey());
+    }
+
+    final var unattributed =
+      new ArrayList<SStructuredErrorType<String>>();
+    final var freshBindings =
+      this.attribute(lines, bindingErrors, unattributed);
+    final var freshSizes =
+      this.attribute(lines, sizeErrors, unattributed);
+
+    this.elements.clear();
+    for (final var entry : named) {
+      final var name = entry.getKey();
+      if (counts.get(name) != 1) {
+        continue;
+      }
+
+      final var old = carried.get(name);
+      final var fresh = freshSizes.get(name);
+      final Optional<List<SStructuredErrorType<String>>> sizeState;
+      if (bindingsFailed) {
+        sizeState = old != null ? old.sizeErrors() : Optional.empty();
+      } else if (fresh != null || old == null) {
+        sizeState = Optional.of(fresh != null ? fresh : List.of());
+      } else {
+        sizeState = old.sizeErrors();
+      }
+
+      this.elements.put(name, new ElementState(
+        entry.getValue(),
+        old != null
+          ? old.bindingErrors()
+          : freshBindings.getOrDefault(name, List.of()),
+        sizeState,
+        bindingsFailed && old == null ? Optional.empty() : context.sizeOf(name)
+      ));
+    }
+
+    this.checkEverything = !unattributed.isEmpty();
+
+    final var results = new ArrayList<SStructuredErrorType<String>>();
+    for (final var name : counts.sequencedKeySet()) {
+      final var state = this.elements.get(name);
+      if (bindingsFailed) {
+        results.addAll(
+          state != null
+            ? state.bindingErrors()
+            : freshBindings.getOrDefault(name, List.of())
+        );
+      } else {
+        results.addAll(
+          state != null
+            ? state.sizeErrors().orElse(List.of())
+            : freshSizes.getOrDefault(name, List.of())
+        );
+      }
+    }
+    results.addAll(unattributed);
+    return List.copyOf(results);
+  }
+
+  private Map<MiSimpleName, List<SStructuredErrorType<String>>> attribute(
+    final TreeMap<Integer, MiSimpleName> lines,
+    final List<SStructuredErrorType<String>> errors,
+    final List<SStructuredErrorType<String>> unattributed)
+  {
+    final var results =
+      new HashMap<MiSimpleName, List<SStructuredErrorType<String>>>();
+
+    for (final var error : errors) {
+      final var line =
+        this.lineOf(error);
+      final var owner =
+        line.flatMap(x -> Optional.ofNullable(lines.floorEntry(x)));
+
+      if (owner.isPresent()) {
+        results.computeIfAbsent(owner.get().getValue(), k -> new ArrayList<>())
+          .add(error);
+      } else {
+        unattributed.add(error);
+      }
+    }
+    return results;
+  }
+
+  private Optional<Integer> lineOf(
+    final SStructuredErrorType<String> error)
+  {
+    final var text = error.attributes().get(this.strings.format(LINE));
+    if (text == null) {
+      return Optional.empty();
+    }
+
+    try {
+      final var line = Integer.parseUnsignedInt(text);
+      return line == 0 ? Optional.empty() : Optional.of(line);
+    } catch (final NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  private ElementState shiftState(
+    final ElementState state,
+    final MiASTPackageElementType element,
+    final int lines)
+  {
+    if (lines == 0) {
+      return state;
+    }
+
+    return new ElementState(
+      element,
+      state.bindingErrors()
+        .stream()
+        .map(e -> this.shiftError(e, lines))
+        .toList(),
+      state.sizeErrors()
+        .map(es -> es.stream().map(e -> this.shiftError(e, lines)).toList()),
+      state.size()
+    );
+  }
+
+  private SStructuredErrorType<String> shiftError(
+    final SStructuredErrorType<String> error,
+    final int lines)
+  {
+    final var line = this.lineOf(error);
+    if (line.isEmpty()) {
+      return error;
+    }
+
+    final var attributes = new TreeMap<>(error.attributes());
+    attributes.put(
+      this.strings.format(LINE),
+      Integer.toUnsignedString(line.get() + lines)
+    );
+
+    return new SStructuredError<>(
+      error.errorCode(),
+      error.message(),
+      attributes,
+      error.remediatingAction(),
+      error.exception()
+    );
+  }
+
+  private static Set<ImportKey> importsOf(
+    final MiASTPackageDeclaration parsed)
+  {
+    final var results = new HashSet<ImportKey>();
+    for (final var element : parsed.elements()) {
+      if (element instanceof final MiASTImportDeclaration i) {
+        results.add(new ImportKey(
+          new MiPackageName(i.packageName().value()),
+          i.prefix().toSimpleName()
+        ));
+      }
+    }
+    return Set.copyOf(results);
+  }
+
+  private static List<Map.Entry<MiSimpleName, MiASTPackageElementType>>
+  namedElements(
+    final MiASTPackageDeclaration parsed)
+  {
+    final var results =
+      new ArrayList<Map.Entry<MiSimpleName, MiASTPackageElementType>>();
+
+    for (final var element : parsed.elements()) {
+      nameOf(element).ifPresent(n -> results.add(Map.entry(n, element)));
+    }
+    return results;
+  }
+
+  private static Optional<MiSimpleName> nameOf(
+    final MiASTPackageElementType element)
+  {
+    return switch (element) {
+      case final MiASTImportDeclaration ignored -> Optional.empty();
+      case final MiASTMap map -> Optional.of(map.name().toSimpleName());
+      case final MiASTScalarTypeDeclaration scalar ->
+        Optional.of(scalar.name().toSimpleName());
+      case final MiASTStructure structure ->
+        Optional.of(structure.name().toSimpleName());
+    };
+  }
+
+  /**
+   * Find the given names, and every element that refers to them either
+   * directly or transitively through local type references.
+   */
+
+  private static HashSet<MiSimpleName> dependentsClosure(
+    final List<Map.Entry<MiSimpleName, MiASTPackageElementType>> named,
+    final Set<MiSimpleName> changed)
+  {
+    final var dependents = new HashMap<MiSimpleName, Set<MiSimpleName>>();
+    for (final var entry : named) {
+      for (final var target : referencesOf(entry.getValue())) {
+        dependents.computeIfAbsent(target, k -> new HashSet<>())
+          .add(entry.getKey());
+      }
+    }
+
+    final var results = new HashSet<>(changed);
+    final var pending = new ArrayList<>(changed);
+    while (!pending.isEmpty()) {
+      final var name = pending.removeLast();
+      for (final var dependent : dependents.getOrDefault(name, Set.of())) {
+        if (results.add(dependent)) {
+          pending.add(dependent);
+        }
+      }
+    }
+    return results;
+  }
+
+  private static List<MiSimpleName> referencesOf(
+    final MiASTPackageElementType element)
+  {
+    final var results = new ArrayList<MiSimpleName>();
+    switch (element) {
+      case final MiASTImportDeclaration ignored -> {
+        // Nothing
+      }
+      case final MiASTScalarTypeDeclaration ignored -> {
+        // Nothing
+      }
+      case final MiASTMap map -> {
+        addLocalReference(results, map.type());
+      }
+      case final MiASTStructure structure -> {
+        for (final var field : structure.fields()) {
+          if (field instanceof final MiASTField plainField) {
+            addLocalReference(results, plainField.type());
+          }
+        }
+      }
+    }
+    return results;
+  }
+
+  private static void addLocalReference(
+    final List<MiSimpleName> results,
+    final MiASTTypeReference type)
+  {
+    if (type.prefix().isEmpty()) {
+      results.add(type.name().toSimpleName());
+    }
+  }
+}
@@ -32,6 +32,7 @@ import com.io7m.mirasol.core.MiTypedFieldType;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 import org.jgrapht.traverse.TopologicalOrderIterator;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -51,15 +52,18 @@ import java.util.stream.Stream;
 final class MiPackage implements MiPackageType
 {
   private final MiPackageName name;
+  private final URI source;
   private final HashMap<MiSimpleName, MiTypeType> types;
   private final HashMap<MiSimpleName, MiMapType> maps;
   private final ArrayList<MiPackageReference> imports;
   private String documentation;
 
   MiPackage(
-    final MiPackageName inName)
+    final MiPackageName inName,
+    final URI inSource)
   {
     this.name = Objects.requireNonNull(inName, "name");
+    this.source = Objects.requireNonNull(inSource, "source");
     this.types = new HashMap<>();
     this.maps = new HashMap<>();
     this.imports = new ArrayList<>();
@@ -90,6 +94,12 @@ final class MiPackage implements MiPackageType
     return this.name;
   }
 
+  @Override
+  public URI source()
+  {
+    return this.source;
+  }
+
   @Override
   public List<MiPackageReference> imports()
   {
@@ -0,0 +1,349 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.abstand.core.IntervalB;
+import com.io7m.lanark.core.RDottedName;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitRangeType;
+import com.io7m.mirasol.core.MiFieldType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageReference;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarKindCustom;
+import com.io7m.mirasol.core.MiScalarKindStandard;
+import com.io7m.mirasol.core.MiScalarKindType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeBits;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.MAGIC;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_FIELD_BIT;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_FIELD_TYPED;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_KIND_CUSTOM;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_KIND_STANDARD;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_SCALAR;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.TAG_STRUCTURE;
+import static com.io7m.mirasol.compiler.internal.MiPackageSerializer.VERSION;
+
+/**
+ * A deserializer for compiled packages.
+ *
+ * @see MiPackageSerializer
+ */
+
+public final class MiPackageDeserializer
+{
+  private static final int MAXIMUM_LENGTH = 16 * 1024 * 1024;
+
+  private final URI source;
+  private final DataInputStream input;
+  private final Map<MiPackageName, MiPackageType> imports;
+  private final HashMap<MiSimpleName, MiTypeType> types;
+  private MiPackageName name;
+
+  private MiPackageDeserializer(
+    final URI inSource,
+    final byte[] data,
+    final Map<MiPackageName, MiPackageType> inImports)
+  {
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+    this.input =
+      new DataInputStream(new ByteArrayInputStream(data));
+    this.imports =
+      Objects.requireNonNull(inImports, "imports");
+    this.types =
+      new HashMap<>();
+  }
+
+  /**
+   * Deserialize a package. Type references to other packages are resolved
+   * against the given imported packages, which must include every package
+   * that the serialized package imports.
+   *
+   * @param source  The source URI of the resulting package
+   * @param data    The serialized package
+   * @param imports The imported packages
+   *
+   * @return The package
+   *
+   * @throws IOException If the data is malformed, or refers to types that
+   *                     do not exist in the imported packages
+   */
+
+  public static MiPackageType deserialize(
+    final URI source,
+    final byte[] data,
+    final Map<MiPackageName, MiPackageType> imports)
+    throws IOException
+  {
+    Objects.requireNonNull(data, "data");
+
+    try {
+      return new MiPackageDeserializer(source, data, imports).execute();
+    } catch (final IllegalArgumentException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private MiPackageType execute()
+    throws IOException
+  {
+    if (this.input.readInt() != MAGIC) {
+      throw new IOException("Unrecognized package format.");
+    }
+    final var version = this.input.readInt();
+    if (version != VERSION) {
+      throw new IOException(
+        "Unsupported package format version %d.".formatted(version)
+      );
+    }
+
+    this.name = this.readPackageName();
+
+    final var pack = new MiPackage(this.name, this.source);
+    pack.setDocumentation(this.readString());
+
+    final var importCount = this.readCount();
+    for (int index = 0; index < importCount; ++index) {
+      final var packageName = this.readPackageName();
+      if (!this.imports.containsKey(packageName)) {
+        throw new IOException(
+          "Imported package %s is not available.".formatted(packageName)
+        );
+      }
+      pack.addImport(
+        new MiPackageReference(packageName, this.readSimpleName())
+      );
+    }
+
+    final var typeCount = this.readCount();
+    for (int index = 0; index < typeCount; ++index) {
+      final var type = this.readType();
+      this.types.put(type.name(), type);
+      pack.addType(type);
+    }
+
+    final var mapCount = this.readCount();
+    for (int index = 0; index < mapCount; ++index) {
+      final var mapName = this.readSimpleName();
+      final var type = this.readTypeReference();
+      final var offset = this.readInteger();
+      pack.addMap(new MiMap(mapName, type, offset, type.type().size()));
+    }
+
+    if (this.input.available() != 0) {
+      throw new IOException("Trailing data after package.");
+    }
+    return pack;
+  }
+
+  private MiTypeType readType()
+    throws IOException
+  {
+    final var tag = this.input.readByte();
+    return switch (tag) {
+      case TAG_SCALAR -> {
+        final var typeName = this.readSimpleName();
+        final var kind = this.readScalarKind();
+        final var size = new MiSizeOctets(this.readInteger());
+        final var sizeBits = new MiSizeBits(this.readInteger());
+        yield new MiScalar(typeName, kind, size, sizeBits);
+      }
+      case TAG_STRUCTURE -> {
+        final var typeName = this.readSimpleName();
+        final var size = new MiSizeOctets(this.readInteger());
+        final var fieldCount = this.readCount();
+        final var fields = new ArrayList<MiFieldType>(fieldCount);
+        for (int index = 0; index < fieldCount; ++index) {
+          fields.add(this.readField());
+        }
+        yield new MiStructure(typeName, size, fields);
+      }
+      default -> throw new IOException(
+        "Unrecognized type tag %d.".formatted(tag)
+      );
+    };
+  }
+
+  private MiScalarKindType readScalarKind()
+    throws IOException
+  {
+    final var tag = this.input.readByte();
+    return switch (tag) {
+      case TAG_KIND_STANDARD -> MiScalarKindStandard.valueOf(this.readString());
+      case TAG_KIND_CUSTOM -> new MiScalarKindCustom(this.readSimpleName());
+      default -> throw new IOException(
+        "Unrecognized scalar kind tag %d.".formatted(tag)
+      );
+    };
+  }
+
+  private MiFieldType readField()
+    throws IOException
+  {
+    final var tag = this.input.readByte();
+    return switch (tag) {
+      case TAG_FIELD_TYPED -> {
+        final var fieldName = this.readSimpleName();
+        final var offset = this.readInteger();
+        final var type = this.readTypeReference();
+        final var access = MiAccess.valueOf(this.readString());
+        final var reset = this.readReset();
+        yield new MiTypedField(fieldName, offset, type, access, reset);
+      }
+      case TAG_FIELD_BIT -> {
+        final var fieldName = this.readSimpleName();
+        final var offset = this.readInteger();
+        final var size = new MiSizeOctets(this.readInteger());
+        final var access = MiAccess.valueOf(this.readString());
+        final var reset = this.readReset();
+        final var rangeCount = this.readCount();
+        final var ranges = new ArrayList<MiBitRangeType>(rangeCount);
+        for (int index = 0; index < rangeCount; ++index) {
+          ranges.add(this.readRange());
+        }
+        yield new MiBitField(
+          fieldName,
+          offset,
+          size,
+          ranges,
+          access,
+          reset
+        );
+      }
+      default -> throw new IOException(
+        "Unrecognized field tag %d.".formatted(tag)
+      );
+    };
+  }
+
+  private MiBitRangeType readRange()
+    throws IOException
+  {
+    final var rangeName = this.readSimpleName();
+    final var lower = this.readInteger();
+    final var upper = this.readInteger();
+    final var access = MiAccess.valueOf(this.readString());
+    final var reset = this.readReset();
+    return new MiBitRange(
+      rangeName,
+      new IntervalB(lower, upper),
+      access,
+      reset
+    );
+  }
+
+  private MiTypeReference readTypeReference()
+    throws IOException
+  {
+    final var packageName = this.readPackageName();
+    final var typeName = this.readSimpleName();
+
+    if (Objects.equals(packageName, this.name)) {
+      final var type = this.types.get(typeName);
+      if (type == null) {
+        throw new IOException(
+          "Reference to undefined type %s.".formatted(typeName)
+        );
+      }
+      return new MiTypeReference(packageName, type);
+    }
+
+    final var imported = this.imports.get(packageName);
+    if (imported == null) {
+      throw new IOException(
+        "Reference to package %s that is not imported."
+          .formatted(packageName)
+      );
+    }
+
+    return imported.type(typeName)
+      .orElseThrow(() -> {
+        return new IOException(
+          "Reference to nonexistent type %s:%s."
+            .formatted(packageName, typeName)
+        );
+      });
+  }
+
+  private Optional<BigInteger> readReset()
+    throws IOException
+  {
+    if (this.input.readBoolean()) {
+      return Optional.of(this.readInteger());
+    }
+    return Optional.empty();
+  }
+
+  private MiPackageName readPackageName()
+    throws IOException
+  {
+    return new MiPackageName(new RDottedName(this.readString()));
+  }
+
+  private MiSimpleName readSimpleName()
+    throws IOException
+  {
+    return new MiSimpleName(this.readString());
+  }
+
+  private BigInteger readInteger()
+    throws IOException
+  {
+    return new BigInteger(this.readBytes());
+  }
+
+  private String readString()
+    throws IOException
+  {
+    return new String(this.readBytes(), StandardCharsets.UTF_8);
+  }
+
+  private byte[] readBytes()
+    throws IOException
+  {
+    final var data = new byte[this.readCount()];
+    this.input.readFully(data);
+    return data;
+  }
+
+  private int readCount()
+    throws IOException
+  {
+    final var count = this.input.readInt();
+    if (count < 0 || count > MAXIMUM_LENGTH) {
+      throw new IOException("Invalid length %d.".formatted(count));
+    }
+    return count;
+  }
+}
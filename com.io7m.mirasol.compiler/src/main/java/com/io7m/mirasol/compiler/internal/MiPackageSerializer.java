@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiBitRangeType;
+import com.io7m.mirasol.core.MiFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarKindCustom;
+import com.io7m.mirasol.core.MiScalarKindStandard;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A serializer for compiled packages.
+ *
+ * <p>The serialized form is deterministic: types and maps are written in
+ * name order (with the types that a structure refers to written before the
+ * structure), and the source URI of the package is omitted. Two machines
+ * compiling the same package from the same sources therefore produce the
+ * same bytes, regardless of where the sources are located.</p>
+ *
+ * @see MiPackageDeserializer
+ */
+
+public final class MiPackageSerializer
+{
+  static final int MAGIC = 0x4D495047;
+  static final int VERSION = 1;
+
+  static final int TAG_SCALAR = 0;
+  static final int TAG_STRUCTURE = 1;
+  static final int TAG_FIELD_TYPED = 0;
+  static final int TAG_FIELD_BIT = 1;
+  static final int TAG_KIND_STANDARD = 0;
+  static final int TAG_KIND_CUSTOM = 1;
+
+  private MiPackageSerializer()
+  {
+
+  }
+
+  /**
+   * Serialize the given package.
+   *
+   * @param pack The package
+   *
+   * @return The serialized package
+   */
+
+  public static byte[] serialize(
+    final MiPackageType pack)
+  {
+    Objects.requireNonNull(pack, "pack");
+
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(bytes)) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      writeString(output, pack.name().toString());
+      writeString(output, pack.documentation());
+
+      final var imports = pack.imports();
+      output.writeInt(imports.size());
+      for (final var reference : imports) {
+        writeString(output, reference.packageName().toString());
+        writeString(output, reference.alias().value());
+      }
+
+      final var types = typesOrdered(pack);
+      output.writeInt(types.size());
+      for (final var type : types) {
+        writeType(output, type);
+      }
+
+      final var maps =
+        pack.maps()
+          .stream()
+          .sorted(Comparator.comparing(MiMapType::name))
+          .toList();
+
+      output.writeInt(maps.size());
+      for (final var map : maps) {
+        writeString(output, map.name().value());
+        writeTypeReference(output, map.type());
+        writeInteger(output, map.offset());
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param pack The package
+   *
+   * @return The fingerprint (the content hash of the serialized form) of the
+   * given package
+   */
+
+  public static String fingerprint(
+    final MiPackageType pack)
+  {
+    return MiContentHashes.sha256(serialize(pack));
+  }
+
+  private static List<MiTypeType> typesOrdered(
+    final MiPackageType pack)
+  {
+    final var sorted =
+      pack.types()
+        .stream()
+        .sorted(Comparator.comparing(MiTypeType::name))
+        .toList();
+
+    final var visited = new HashSet<MiSimpleName>();
+    final var output = new ArrayList<MiTypeType>(sorted.size());
+    for (final var type : sorted) {
+      visit(pack, type, visited, output);
+    }
+    return output;
+  }
+
+  private static void visit(
+    final MiPackageType pack,
+    final MiTypeType type,
+    final HashSet<MiSimpleName> visited,
+    final ArrayList<MiTypeType> output)
+  {
+    if (!visited.add(type.name())) {
+      return;
+    }
+
+    if (type instanceof final MiStructureType structure) {
+      for (final var field : structure.fields()) {
+        if (field instanceof final MiTypedFieldType typed) {
+          final var reference = typed.type();
+          if (Objects.equals(reference.packageName(), pack.name())) {
+            visit(pack, reference.type(), visited, output);
+          }
+        }
+      }
+    }
+    output.add(type);
+  }
+
+  private static void writeType(
+    final DataOutputStream output,
+    final MiTypeType type)
+    throws IOException
+  {
+    switch (type) {
+      case final MiScalarType scalar -> {
+        output.writeByte(TAG_SCALAR);
+        writeString(output, scalar.name().value());
+        switch (scalar.kind()) {
+          case final MiScalarKindStandard standard -> {
+            output.writeByte(TAG_KIND_STANDARD);
+            writeString(output, standard.name());
+          }
+          case final MiScalarKindCustom custom -> {
+            output.writeByte(TAG_KIND_CUSTOM);
+            writeString(output, custom.name().value());
+          }
+        }
+        writeInteger(output, scalar.size().value());
+        writeInteger(output, scalar.sizeBits().value());
+      }
+      case final MiStructureType structure -> {
+        output.writeByte(TAG_STRUCTURE);
+        writeString(output, structure.name().value());
+        writeInteger(output, structure.size().value());
+
+        final var fields = structure.fields();
+        output.writeInt(fields.size());
+        for (final var field : fields) {
+          writeField(output, field);
+        }
+      }
+    }
+  }
+
+  private static void writeField(
+    final DataOutputStream output,
+    final MiFieldType field)
+    throws IOException
+  {
+    switch (field) {
+      case final MiTypedFieldType typed -> {
+        output.writeByte(TAG_FIELD_TYPED);
+        writeString(output, typed.name().value());
+        writeInteger(output, typed.offset());
+        writeTypeReference(output, typed.type());
+        writeString(output, typed.access().name());
+        writeReset(output, typed.reset());
+      }
+      case final MiBitFieldType bitField -> {
+        output.writeByte(TAG_FIELD_BIT);
+        writeString(output, bitField.name().value());
+        writeInteger(output, bitField.offset());
+        writeInteger(output, bitField.size().value());
+        writeString(output, bitField.access().name());
+        writeReset(output, bitField.reset());
+
+        final var ranges = bitField.ranges();
+        output.writeInt(ranges.size());
+        for (final var range : ranges) {
+          writeRange(output, range);
+        }
+      }
+    }
+  }
+
+  private static void writeRange(
+    final DataOutputStream output,
+    final MiBitRangeType range)
+    throws IOException
+  {
+    writeString(output, range.name().value());
+    writeInteger(output, range.range().lower());
+    writeInteger(output, range.range().upper());
+    writeString(output, range.access().name());
+    writeReset(output, range.reset());
+  }
+
+  private static void writeTypeReference(
+    final DataOutputStream output,
+    final MiTypeReference reference)
+    throws IOException
+  {
+    writeString(output, reference.packageName().toString());
+    writeString(output, reference.type().name().value());
+  }
+
+  private static void writeReset(
+    final DataOutputStream output,
+    final Optional<BigInteger> reset)
+    throws IOException
+  {
+    output.writeBoolean(reset.isPresent());
+    if (reset.isPresent()) {
+      writeInteger(output, reset.get());
+    }
+  }
+
+  private static void writeInteger(
+    final DataOutputStream output,
+    final BigInteger value)
+    throws IOException
+  {
+    final var data = value.toByteArray();
+    output.writeInt(data.length);
+    output.write(data);
+  }
+
+  private static void writeString(
+    final DataOutputStream output,
+    final String value)
+    throws IOException
+  {
+    final var data = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(data.length);
+    output.write(data);
+  }
+}
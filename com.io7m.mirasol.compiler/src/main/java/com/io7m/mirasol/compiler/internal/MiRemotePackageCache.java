@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.compiler.internal;
+
+import com.io7m.lanark.core.RDottedName;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.core.MiException;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.loader.api.MiLoaderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A tier of compiled packages held in a remote cache.
+ *
+ * <p>Entries are keyed by the hash of the package source text and the
+ * version and build of the compiler. As the same source can produce
+ * different packages when compiled against different versions of the
+ * packages it imports, each entry also records the fingerprint of every
+ * imported package that it was compiled against. An
+ * entry is only used if the imported packages available locally have the
+ * same fingerprints; otherwise, the package is compiled locally and the
+ * entry is replaced.</p>
+ *
+ * <p>Failures to reach the cache, and malformed entries, are logged and
+ * treated as cache misses.</p>
+ */
+
+public final class MiRemotePackageCache
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiRemotePackageCache.class);
+
+  private static final byte[] KEY_PREFIX =
+    "com.io7m.mirasol.package".getBytes(StandardCharsets.UTF_8);
+
+  private final MiRemoteCacheType cache;
+  private final byte[] compilerVersion;
+
+  /**
+   * A tier of compiled packages held in a remote cache.
+   *
+   * @param inCache           The remote cache
+   * @param inCompilerVersion The version and build of the compiler
+   */
+
+  public MiRemotePackageCache(
+    final MiRemoteCacheType inCache,
+    final String inCompilerVersion)
+  {
+    this.cache =
+      Objects.requireNonNull(inCache, "cache");
+    this.compilerVersion =
+      Objects.requireNonNull(inCompilerVersion, "compilerVersion")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Different builds of the compiler may produce different packages from
+   * the same source, and so must not share cache entries.
+   *
+   * @param source The package source text
+   *
+   * @return The cache key for the given package source text
+   */
+
+  public String keyOf(
+    final byte[] source)
+  {
+    return MiContentHashes.sha256(
+      KEY_PREFIX,
+      this.compilerVersion,
+      Integer.toString(MiPackageSerializer.VERSION)
+        .getBytes(StandardCharsets.UTF_8),
+      source
+    );
+  }
+
+  /**
+   * Fetch a compiled package from the cache.
+   *
+   * @param loader The loader used to open imported packages
+   * @param source The source URI of the resulting package
+   * @param key    The cache key
+   *
+   * @return The package, if the cache holds a usable entry
+   */
+
+  public Optional<MiPackageType> fetch(
+    final MiLoaderType loader,
+    final URI source,
+    final String key)
+  {
+    Objects.requireNonNull(loader, "loader");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(key, "key");
+
+    final Optional<byte[]> entryOpt;
+    try {
+      entryOpt = this.cache.get(key);
+    } catch (final IOException e) {
+      LOG.warn("Remote cache: Failed to fetch {}: {}", key, e.toString());
+      return Optional.empty();
+    }
+
+    if (entryOpt.isEmpty()) {
+      return Optional.empty();
+    }
+
+    try {
+      return decode(loader, source, key, entryOpt.get());
+    } catch (final IOException e) {
+      LOG.warn("Remote cache: Malformed entry {}: {}", key, e.toString());
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<MiPackageType> decode(
+    final MiLoaderType loader,
+    final URI source,
+    final String key,
+    final byte[] entry)
+    throws IOException
+  {
+    final var input =
+      new DataInputStream(new ByteArrayInputStream(entry));
+    final var imports =
+      new HashMap<MiPackageName, MiPackageType>();
+
+    final var importCount = input.readInt();
+    for (int index = 0; index < importCount; ++index) {
+      final var name = input.readUTF();
+      final var fingerprint = input.readUTF();
+
+      final MiPackageType imported;
+      try {
+        imported = loader.openPackage(
+          new MiPackageName(new RDottedName(name))
+        );
+      } catch (final MiException | IllegalArgumentException e) {
+        LOG.debug(
+          "Remote cache: Entry {} import {}: {}", key, name, e.getMessage());
+        return Optional.empty();
+      }
+
+      if (!Objects.equals(MiPackageSerializer.fingerprint(imported),
+                          fingerprint)) {
+        LOG.debug("Remote cache: Entry {} import {} is stale", key, name);
+        return Optional.empty();
+      }
+      imports.put(imported.name(), imported);
+    }
+
+    return Optional.of(
+      MiPackageDeserializer.deserialize(source, input.readAllBytes(), imports)
+    );
+  }
+
+  /**
+   * Store a compiled package in the cache.
+   *
+   * @param loader The loader from which the package's imports were opened
+   * @param key    The cache key
+   * @param pack   The package
+   */
+
+  public void store(
+    final MiLoaderType loader,
+    final String key,
+    final MiPackageType pack)
+  {
+    Objects.requireNonNull(loader, "loader");
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(pack, "pack");
+
+    final var bytes = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(bytes)) {
+      final var imports = pack.imports();
+      output.writeInt(imports.size());
+      for (final var reference : imports) {
+        final var imported = loader.openPackage(reference.packageName());
+        output.writeUTF(imported.name().toString());
+        output.writeUTF(MiPackageSerializer.fingerprint(imported));
+      }
+      output.write(MiPackageSerializer.serialize(pack));
+    } catch (final MiException e) {
+      LOG.debug("Remote cache: Not storing {}: {}", key, e.toString());
+      return;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    try {
+      this.cache.put(key, bytes.toByteArray());
+    } catch (final IOException e) {
+      LOG.warn("Remote cache: Failed to store {}: {}", key, e.toString());
+    }
+  }
+}
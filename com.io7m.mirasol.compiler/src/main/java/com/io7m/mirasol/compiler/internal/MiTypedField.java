@@ -17,6 +17,7 @@
 
 package com.io7m.mirasol.compiler.internal;
 
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiSimpleName;
 import com.io7m.mirasol.core.MiSizeOctets;
 import com.io7m.mirasol.core.MiTypeReference;
@@ -24,11 +25,14 @@ import com.io7m.mirasol.core.MiTypedFieldType;
 
 import java.math.BigInteger;
 import java.util.Objects;
+import java.util.Optional;
 
 record MiTypedField(
   MiSimpleName name,
   BigInteger offset,
-  MiTypeReference type)
+  MiTypeReference type,
+  MiAccess access,
+  Optional<BigInteger> reset)
   implements MiTypedFieldType
 {
   MiTypedField
@@ -36,6 +40,8 @@ record MiTypedField(
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(offset, "offset");
     Objects.requireNonNull(type, "type");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
   }
 
   @Override
@@ -29,8 +29,10 @@ module com.io7m.mirasol.compiler
   requires com.io7m.abstand.core;
   requires com.io7m.anethum.api;
   requires com.io7m.jdeferthrow.core;
+  requires com.io7m.lanark.core;
   requires org.jgrapht.core;
   requires org.slf4j;
+  requires java.net.http;
 
   uses com.io7m.mirasol.parser.api.MiParserFactoryType;
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.util.Objects;
+
+/**
+ * The access semantics of a field or bit range.
+ */
+
+public enum MiAccess
+{
+  /**
+   * The value can be read and written, and reads have no side effects.
+   */
+
+  READ_WRITE("ReadWrite"),
+
+  /**
+   * The value can be read, and writes are ignored.
+   */
+
+  READ_ONLY("ReadOnly"),
+
+  /**
+   * The value can be written, and reads are illegal or return meaningless
+   * values.
+   */
+
+  WRITE_ONLY("WriteOnly"),
+
+  /**
+   * The value can be read, writing a 1 bit clears the corresponding bit,
+   * and writing a 0 bit has no effect.
+   */
+
+  WRITE_ONE_TO_CLEAR("WriteOneToClear"),
+
+  /**
+   * The value can be read, and reading the value clears it. Writes are
+   * ignored.
+   */
+
+  READ_TO_CLEAR("ReadToClear");
+
+  private final String humanName;
+
+  MiAccess(
+    final String inName)
+  {
+    this.humanName =
+      Objects.requireNonNull(inName, "inName");
+  }
+
+  /**
+   * Parse an access value.
+   *
+   * @param name The access name
+   *
+   * @return The resulting access value
+   *
+   * @throws IllegalArgumentException On unrecognized names
+   */
+
+  public static MiAccess of(
+    final String name)
+  {
+    for (final var value : values()) {
+      if (Objects.equals(name, value.show())) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException(
+      "Unrecognized access value: %s".formatted(name)
+    );
+  }
+
+  /**
+   * @return The humanly-readable name of the access value
+   */
+
+  public String show()
+  {
+    return this.humanName;
+  }
+
+  /**
+   * @return {@code true} if the value can be meaningfully read
+   */
+
+  public boolean isReadable()
+  {
+    return this != WRITE_ONLY;
+  }
+
+  /**
+   * @return {@code true} if reading the value changes the state of the
+   * hardware
+   */
+
+  public boolean hasReadSideEffects()
+  {
+    return this == READ_TO_CLEAR;
+  }
+
+  /**
+   * @return {@code true} if writes to the value have an effect
+   */
+
+  public boolean isWritable()
+  {
+    return switch (this) {
+      case READ_WRITE, WRITE_ONLY, WRITE_ONE_TO_CLEAR -> true;
+      case READ_ONLY, READ_TO_CLEAR -> false;
+    };
+  }
+
+  /**
+   * @return {@code true} if writing back a value that was read preserves the
+   * value; only such values need to be read during a read-modify-write
+   */
+
+  public boolean isPreservedByWriteBack()
+  {
+    return this == READ_WRITE;
+  }
+}
@@ -19,6 +19,9 @@ package com.io7m.mirasol.core;
 
 import com.io7m.abstand.core.IntervalB;
 
+import java.math.BigInteger;
+import java.util.Optional;
+
 /**
  * A bit range.
  */
@@ -36,4 +39,18 @@ public interface MiBitRangeType
    */
 
   IntervalB range();
+
+  /**
+   * @return The access semantics of the range (the access semantics of the
+   * enclosing bit field, unless specified otherwise)
+   */
+
+  MiAccess access();
+
+  /**
+   * @return The value of the range after a reset, if known (the value is
+   * not shifted into position within the bit field)
+   */
+
+  Optional<BigInteger> reset();
 }
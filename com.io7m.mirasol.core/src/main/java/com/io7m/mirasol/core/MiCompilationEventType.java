@@ -0,0 +1,256 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import com.io7m.seltzer.api.SStructuredErrorType;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * The type of events published during compilation.
+ *
+ * @see MiCompilationListenerType
+ */
+
+public sealed interface MiCompilationEventType
+{
+  /**
+   * A loader was asked for a package that it had already loaded.
+   *
+   * @param name The package name
+   */
+
+  record CacheHit(
+    MiPackageName name)
+    implements MiCompilationEventType
+  {
+    /**
+     * A loader was asked for a package that it had already loaded.
+     */
+
+    public CacheHit
+    {
+      Objects.requireNonNull(name, "name");
+    }
+  }
+
+  /**
+   * A loader was asked for a package that it had not yet loaded.
+   *
+   * @param name The package name
+   */
+
+  record CacheMiss(
+    MiPackageName name)
+    implements MiCompilationEventType
+  {
+    /**
+     * A loader was asked for a package that it had not yet loaded.
+     */
+
+    public CacheMiss
+    {
+      Objects.requireNonNull(name, "name");
+    }
+  }
+
+  /**
+   * A loader located and successfully compiled a package.
+   *
+   * @param name   The package name
+   * @param source The source of the package
+   */
+
+  record PackageResolved(
+    MiPackageName name,
+    URI source)
+    implements MiCompilationEventType
+  {
+    /**
+     * A loader located and successfully compiled a package.
+     */
+
+    public PackageResolved
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(source, "source");
+    }
+  }
+
+  /**
+   * Parsing of a source started.
+   *
+   * @param source The source
+   */
+
+  record ParseStarted(
+    URI source)
+    implements MiCompilationEventType
+  {
+    /**
+     * Parsing of a source started.
+     */
+
+    public ParseStarted
+    {
+      Objects.requireNonNull(source, "source");
+    }
+  }
+
+  /**
+   * Parsing of a source finished.
+   *
+   * @param source    The source
+   * @param succeeded {@code true} if parsing succeeded
+   */
+
+  record ParseFinished(
+    URI source,
+    boolean succeeded)
+    implements MiCompilationEventType
+  {
+    /**
+     * Parsing of a source finished.
+     */
+
+    public ParseFinished
+    {
+      Objects.requireNonNull(source, "source");
+    }
+  }
+
+  /**
+   * A checker pass started.
+   *
+   * @param source The source
+   * @param phase  The pass
+   */
+
+  record PassStarted(
+    URI source,
+    MiTimingPhase phase)
+    implements MiCompilationEventType
+  {
+    /**
+     * A checker pass started.
+     */
+
+    public PassStarted
+    {
+      Objects.requireNonNull(source, "source");
+      Objects.requireNonNull(phase, "phase");
+    }
+  }
+
+  /**
+   * A checker pass finished.
+   *
+   * @param source    The source
+   * @param phase     The pass
+   * @param succeeded {@code true} if the pass succeeded
+   */
+
+  record PassFinished(
+    URI source,
+    MiTimingPhase phase,
+    boolean succeeded)
+    implements MiCompilationEventType
+  {
+    /**
+     * A checker pass finished.
+     */
+
+    public PassFinished
+    {
+      Objects.requireNonNull(source, "source");
+      Objects.requireNonNull(phase, "phase");
+    }
+  }
+
+  /**
+   * An error was produced.
+   *
+   * @param source The source
+   * @param error  The error
+   */
+
+  record ErrorEmitted(
+    URI source,
+    SStructuredErrorType<String> error)
+    implements MiCompilationEventType
+  {
+    /**
+     * An error was produced.
+     */
+
+    public ErrorEmitted
+    {
+      Objects.requireNonNull(source, "source");
+      Objects.requireNonNull(error, "error");
+    }
+  }
+
+  /**
+   * A compiled package was fetched from a remote cache, and the source was
+   * not compiled locally.
+   *
+   * @param source The source
+   * @param key    The cache key
+   */
+
+  record RemoteCacheHit(
+    URI source,
+    String key)
+    implements MiCompilationEventType
+  {
+    /**
+     * A compiled package was fetched from a remote cache.
+     */
+
+    public RemoteCacheHit
+    {
+      Objects.requireNonNull(source, "source");
+      Objects.requireNonNull(key, "key");
+    }
+  }
+
+  /**
+   * A remote cache did not contain a usable compiled package, and the
+   * source was compiled locally.
+   *
+   * @param source The source
+   * @param key    The cache key
+   */
+
+  record RemoteCacheMiss(
+    URI source,
+    String key)
+    implements MiCompilationEventType
+  {
+    /**
+     * A remote cache did not contain a usable compiled package.
+     */
+
+    public RemoteCacheMiss
+    {
+      Objects.requireNonNull(source, "source");
+      Objects.requireNonNull(key, "key");
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+/**
+ * A listener that receives compilation events.
+ *
+ * <p>Events are delivered asynchronously on a thread that is not used for
+ * compilation, in the order in which they were published by any single
+ * compiler or loader. Listeners should not assume that events have been
+ * delivered by the time that a compilation returns.</p>
+ */
+
+@FunctionalInterface
+public interface MiCompilationListenerType
+{
+  /**
+   * An event was published.
+   *
+   * @param event The event
+   */
+
+  void onEvent(MiCompilationEventType event);
+}
@@ -20,6 +20,7 @@ package com.io7m.mirasol.core;
 import com.io7m.abstand.core.IntervalB;
 
 import java.math.BigInteger;
+import java.util.Optional;
 
 /**
  * A field within a structure.
@@ -46,6 +47,18 @@ public sealed interface MiFieldType
 
   MiSizeOctets size();
 
+  /**
+   * @return The access semantics of the field
+   */
+
+  MiAccess access();
+
+  /**
+   * @return The value of the field after a reset, if known
+   */
+
+  Optional<BigInteger> reset();
+
   /**
    * @return The inclusive octet range covered by this field
    */
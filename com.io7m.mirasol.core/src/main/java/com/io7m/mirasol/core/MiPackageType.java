@@ -17,6 +17,7 @@
 
 package com.io7m.mirasol.core;
 
+import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -34,6 +35,12 @@ public interface MiPackageType
 
   MiPackageName name();
 
+  /**
+   * @return The URI of the source from which the package was compiled
+   */
+
+  URI source();
+
   /**
    * @return The list of imported packages
    */
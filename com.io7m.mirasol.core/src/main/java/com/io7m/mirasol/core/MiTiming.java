@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A running timing. The timing is completed by closing it.
+ *
+ * @see MiTimings#start(MiTimingPhase, String)
+ */
+
+public final class MiTiming implements AutoCloseable
+{
+  private final MiTimingPhase phase;
+  private final MiTimingEvent event;
+  private final long timeStart;
+  private String packageName;
+  private boolean closed;
+
+  MiTiming(
+    final MiTimingPhase inPhase,
+    final String inPackageName)
+  {
+    this.phase =
+      Objects.requireNonNull(inPhase, "phase");
+    this.packageName =
+      Objects.requireNonNull(inPackageName, "packageName");
+    this.event =
+      new MiTimingEvent();
+    this.event.begin();
+    this.timeStart =
+      System.nanoTime();
+  }
+
+  /**
+   * Set the name of the package being processed. This is useful for phases
+   * such as parsing, where the name of the package is not known until the
+   * phase has completed.
+   *
+   * @param name The package name
+   */
+
+  public void setPackageName(
+    final String name)
+  {
+    this.packageName = Objects.requireNonNull(name, "name");
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+
+    final var timeEnd = System.nanoTime();
+    this.event.end();
+    if (this.event.shouldCommit()) {
+      this.event.packageName = this.packageName;
+      this.event.phase = this.phase.humanName();
+      this.event.commit();
+    }
+
+    if (MiTimings.isRecording()) {
+      final var duration =
+        Duration.ofNanos(timeEnd - this.timeStart);
+
+      MiTimings.publish(
+        new MiTimingRecord(this.phase, this.packageName, duration)
+      );
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.util.Objects;
+
+/**
+ * The phases of compilation and code generation that are timed.
+ *
+ * @see MiTimings
+ */
+
+public enum MiTimingPhase
+{
+  /**
+   * Locating and compiling an imported package. This phase includes the
+   * parsing and checking of the package, and of any packages that it
+   * imports in turn.
+   */
+
+  PACKAGE_RESOLUTION("PackageResolution"),
+
+  /**
+   * Parsing a package source file.
+   */
+
+  PARSE("Parse"),
+
+  /**
+   * The checker pass that resolves imports.
+   */
+
+  CHECK_IMPORTS("CheckImports"),
+
+  /**
+   * The checker pass that checks name bindings.
+   */
+
+  CHECK_BINDINGS("CheckBindings"),
+
+  /**
+   * The checker pass that calculates sizes.
+   */
+
+  CHECK_SIZES("CheckSizes"),
+
+  /**
+   * The checker pass that builds the package model.
+   */
+
+  CHECK_BUILD("CheckBuild"),
+
+  /**
+   * Creating the final package from a checked source.
+   */
+
+  CREATE_PACKAGE("CreatePackage"),
+
+  /**
+   * Generating code for a single package.
+   */
+
+  EXTRACT("Extract");
+
+  private final String humanName;
+
+  MiTimingPhase(
+    final String inName)
+  {
+    this.humanName =
+      Objects.requireNonNull(inName, "inName");
+  }
+
+  /**
+   * @return The human-readable name of the phase
+   */
+
+  public String humanName()
+  {
+    return this.humanName;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A single completed timing.
+ *
+ * @param phase       The phase
+ * @param packageName The name of the package being processed
+ * @param duration    The time taken
+ */
+
+public record MiTimingRecord(
+  MiTimingPhase phase,
+  String packageName,
+  Duration duration)
+{
+  /**
+   * A single completed timing.
+   *
+   * @param phase       The phase
+   * @param packageName The name of the package being processed
+   * @param duration    The time taken
+   */
+
+  public MiTimingRecord
+  {
+    Objects.requireNonNull(phase, "phase");
+    Objects.requireNonNull(packageName, "packageName");
+    Objects.requireNonNull(duration, "duration");
+  }
+}
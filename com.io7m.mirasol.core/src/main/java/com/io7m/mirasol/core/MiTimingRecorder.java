@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A recorder that collects all timings completed, on any thread, between
+ * the creation of the recorder and the point at which it is closed.
+ */
+
+public final class MiTimingRecorder implements AutoCloseable
+{
+  private final ConcurrentLinkedQueue<MiTimingRecord> records;
+
+  private MiTimingRecorder()
+  {
+    this.records = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Start recording timings.
+   *
+   * @return A new recorder
+   */
+
+  public static MiTimingRecorder open()
+  {
+    final var recorder = new MiTimingRecorder();
+    MiTimings.register(recorder);
+    return recorder;
+  }
+
+  void add(
+    final MiTimingRecord record)
+  {
+    this.records.add(record);
+  }
+
+  /**
+   * @return The timings recorded so far, in order of completion
+   */
+
+  public List<MiTimingRecord> records()
+  {
+    return List.copyOf(this.records);
+  }
+
+  @Override
+  public void close()
+  {
+    MiTimings.unregister(this);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.core;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Functions to time the phases of compilation and code generation.
+ *
+ * <p>Each timing is emitted as a JDK Flight Recorder event (named
+ * {@code com.io7m.mirasol.Phase}) carrying the package name and phase, and
+ * is delivered to any currently open {@link MiTimingRecorder} instances.
+ * A timing always allocates itself and its flight recorder event, and reads
+ * the clock when it starts and when it completes. The duration and record
+ * delivered to recorders are only allocated if a recorder is open.</p>
+ */
+
+public final class MiTimings
+{
+  private static final CopyOnWriteArrayList<MiTimingRecorder> RECORDERS =
+    new CopyOnWriteArrayList<>();
+
+  private MiTimings()
+  {
+
+  }
+
+  /**
+   * Start timing a phase.
+   *
+   * @param phase       The phase
+   * @param packageName The name of the package being processed
+   *
+   * @return A timing that completes when closed
+   */
+
+  public static MiTiming start(
+    final MiTimingPhase phase,
+    final String packageName)
+  {
+    return new MiTiming(phase, packageName);
+  }
+
+  static void register(
+    final MiTimingRecorder recorder)
+  {
+    RECORDERS.add(Objects.requireNonNull(recorder, "recorder"));
+  }
+
+  static void unregister(
+    final MiTimingRecorder recorder)
+  {
+    RECORDERS.remove(Objects.requireNonNull(recorder, "recorder"));
+  }
+
+  static boolean isRecording()
+  {
+    return !RECORDERS.isEmpty();
+  }
+
+  static void publish(
+    final MiTimingRecord record)
+  {
+    for (final var recorder : RECORDERS) {
+      recorder.add(record);
+    }
+  }
+}
@@ -23,6 +23,7 @@ module com.io7m.mirasol.core
   requires com.io7m.lanark.core;
   requires com.io7m.seltzer.api;
   requires com.io7m.abstand.core;
+  requires jdk.jfr;
 
   exports com.io7m.mirasol.core;
 }
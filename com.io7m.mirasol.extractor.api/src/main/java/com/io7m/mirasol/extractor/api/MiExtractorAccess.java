@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiBitRangeType;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Functions to determine how generated code should access bit fields, given
+ * the access semantics of the bit fields and their ranges.
+ *
+ * <p>A read-modify-write of a bit field only needs to read the bits that
+ * are preserved by being written back (the <i>preserved mask</i>). If no
+ * bits are preserved, the update can be performed with a plain store and no
+ * read at all. Write-one-to-clear, read-only, and read-to-clear bits are
+ * written back as zero so that pending flags are not accidentally cleared.
+ * Bit fields containing write-only bits cannot be read back as a whole, and
+ * are instead updated through a shadow copy held in RAM; the write-only
+ * bits are carried over from the shadow copy, but the other bits that are
+ * not preserved by being written back are still written as zero.</p>
+ */
+
+public final class MiExtractorAccess
+{
+  private MiExtractorAccess()
+  {
+
+  }
+
+  /**
+   * @param bitField The bit field
+   *
+   * @return A mask covering all bits of the bit field
+   */
+
+  public static BigInteger widthMaskOf(
+    final MiBitFieldType bitField)
+  {
+    Objects.requireNonNull(bitField, "bitField");
+
+    return BigInteger.ONE
+      .shiftLeft(bitField.size().value().intValueExact() * 8)
+      .subtract(BigInteger.ONE);
+  }
+
+  /**
+   * @param range The bit range
+   *
+   * @return A mask covering the bits of the range, in position
+   */
+
+  public static BigInteger fieldMaskOf(
+    final MiBitRangeType range)
+  {
+    Objects.requireNonNull(range, "range");
+
+    final var lower =
+      range.range().lower();
+    final var count =
+      range.range().upper().subtract(lower).add(BigInteger.ONE);
+
+    return BigInteger.ONE
+      .shiftLeft(count.intValueExact())
+      .subtract(BigInteger.ONE)
+      .shiftLeft(lower.intValueExact());
+  }
+
+  /**
+   * Determine the bits of a bit field that must be read and written back
+   * unchanged when updating other bits. Bits not covered by any range take
+   * the access semantics of the bit field itself.
+   *
+   * @param bitField The bit field
+   *
+   * @return The preserved mask
+   */
+
+  public static BigInteger preservedMaskOf(
+    final MiBitFieldType bitField)
+  {
+    Objects.requireNonNull(bitField, "bitField");
+
+    return maskOf(bitField, MiAccess::isPreservedByWriteBack);
+  }
+
+  /**
+   * Determine the bits of a shadowed bit field that must be carried over
+   * from the shadow copy when updating other bits. This is the preserved
+   * mask extended with the write-only bits; write-one-to-clear, read-only,
+   * and read-to-clear bits are still written as zero.
+   *
+   * @param bitField The bit field
+   *
+   * @return The shadow preserved mask
+   *
+   * @see #preservedMaskOf(MiBitFieldType)
+   */
+
+  public static BigInteger shadowPreservedMaskOf(
+    final MiBitFieldType bitField)
+  {
+    Objects.requireNonNull(bitField, "bitField");
+
+    return maskOf(bitField, access -> {
+      return access.isPreservedByWriteBack() || access == MiAccess.WRITE_ONLY;
+    });
+  }
+
+  private static BigInteger maskOf(
+    final MiBitFieldType bitField,
+    final Predicate<MiAccess> preserved)
+  {
+    var mask = BigInteger.ZERO;
+    if (preserved.test(bitField.access())) {
+      mask = widthMaskOf(bitField);
+    }
+
+    for (final var range : bitField.ranges()) {
+      final var rangeMask = fieldMaskOf(range);
+      if (preserved.test(range.access())) {
+        mask = mask.or(rangeMask);
+      } else {
+        mask = mask.andNot(rangeMask);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * @param bitField The bit field
+   *
+   * @return {@code true} if the bit field contains write-only bits, and so
+   * must be accessed through a shadow copy
+   */
+
+  public static boolean isShadowed(
+    final MiBitFieldType bitField)
+  {
+    Objects.requireNonNull(bitField, "bitField");
+
+    return bitField.access() == MiAccess.WRITE_ONLY
+           || bitField.ranges()
+             .stream()
+             .anyMatch(r -> r.access() == MiAccess.WRITE_ONLY);
+  }
+
+  /**
+   * @param bitField The bit field
+   *
+   * @return {@code true} if writes to any part of the bit field have an effect
+   */
+
+  public static boolean isWritable(
+    final MiBitFieldType bitField)
+  {
+    Objects.requireNonNull(bitField, "bitField");
+
+    return bitField.access().isWritable()
+           || bitField.ranges()
+             .stream()
+             .anyMatch(r -> r.access().isWritable());
+  }
+}
@@ -20,6 +20,7 @@ package com.io7m.mirasol.extractor.api;
 import com.io7m.mirasol.core.MiPackageType;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -27,23 +28,66 @@ import java.util.Objects;
  * The extractor configuration.
  *
  * @param packageList     The packages to be extracted
+ * @param dependencyList  The packages that are not to be extracted, but that
+ *                        may be imported by the extracted packages
  * @param outputDirectory The output directory
+ * @param options         The extractor options
  */
 
 public record MiExtractorConfiguration(
   List<MiPackageType> packageList,
-  Path outputDirectory)
+  List<MiPackageType> dependencyList,
+  Path outputDirectory,
+  MiExtractorOptions options)
 {
   /**
    * The extractor configuration.
    *
    * @param packageList     The packages to be extracted
+   * @param dependencyList  The packages that are not to be extracted, but that
+   *                        may be imported by the extracted packages
    * @param outputDirectory The output directory
+   * @param options         The extractor options
    */
 
   public MiExtractorConfiguration
   {
-    Objects.requireNonNull(packageList, "packageList");
+    packageList = List.copyOf(packageList);
+    dependencyList = List.copyOf(dependencyList);
     Objects.requireNonNull(outputDirectory, "outputDirectory");
+    Objects.requireNonNull(options, "options");
+  }
+
+  /**
+   * The extractor configuration.
+   *
+   * @param packageList     The packages to be extracted
+   * @param outputDirectory The output directory
+   */
+
+  public MiExtractorConfiguration(
+    final List<MiPackageType> packageList,
+    final Path outputDirectory)
+  {
+    this(
+      packageList,
+      List.of(),
+      outputDirectory,
+      MiExtractorOptions.defaultOptions()
+    );
+  }
+
+  /**
+   * @return The extracted packages followed by the dependency packages
+   */
+
+  public List<MiPackageType> packagesAll()
+  {
+    final var results = new ArrayList<MiPackageType>(
+      this.packageList.size() + this.dependencyList.size()
+    );
+    results.addAll(this.packageList);
+    results.addAll(this.dependencyList);
+    return results;
   }
 }
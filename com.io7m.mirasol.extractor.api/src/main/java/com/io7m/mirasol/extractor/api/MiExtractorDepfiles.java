@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Functions to produce make-style dependency files ("depfiles") for
+ * extractor outputs. The format is the subset of make syntax understood by
+ * both make and ninja.
+ */
+
+public final class MiExtractorDepfiles
+{
+  private static final OpenOption[] OPEN_OPTIONS = {
+    StandardOpenOption.CREATE,
+    StandardOpenOption.WRITE,
+    StandardOpenOption.TRUNCATE_EXISTING,
+  };
+
+  private MiExtractorDepfiles()
+  {
+
+  }
+
+  /**
+   * Determine the set of source files from which the given package was
+   * derived. This is the source file of the package itself, and the
+   * source files of all of the packages it imports, transitively. Imported
+   * packages are resolved by name against the given collection of packages;
+   * packages that were not compiled from files (such as those loaded from
+   * class path resources) cannot be tracked by a build system and are
+   * therefore omitted.
+   *
+   * @param pack     The package
+   * @param packages The available packages
+   *
+   * @return The source files, in sorted order
+   */
+
+  public static SortedSet<Path> sourcesOf(
+    final MiPackageType pack,
+    final Collection<MiPackageType> packages)
+  {
+    Objects.requireNonNull(pack, "pack");
+    Objects.requireNonNull(packages, "packages");
+
+    final var byName = new HashMap<MiPackageName, MiPackageType>();
+    for (final var p : packages) {
+      byName.put(p.name(), p);
+    }
+
+    final var results = new TreeSet<Path>();
+    final var visited = new HashSet<MiPackageName>();
+    final var pending = new ArrayList<MiPackageType>();
+    pending.add(pack);
+
+    while (!pending.isEmpty()) {
+      final var current = pending.removeLast();
+      if (!visited.add(current.name())) {
+        continue;
+      }
+
+      final var source = current.source();
+      if (Objects.equals(source.getScheme(), "file")) {
+        results.add(Path.of(source).toAbsolutePath().normalize());
+      }
+
+      for (final var reference : current.imports()) {
+        final var imported = byName.get(reference.packageName());
+        if (imported != null) {
+          pending.add(imported);
+        }
+      }
+    }
+
+    return results;
+  }
+
+  /**
+   * @param output The output file
+   *
+   * @return The path of the depfile for the given output file
+   */
+
+  public static Path depfileFor(
+    final Path output)
+  {
+    return output.resolveSibling(output.getFileName().toString() + ".d");
+  }
+
+  /**
+   * Write a depfile stating that {@code output} depends on
+   * {@code sources}. The depfile is written to {@link #depfileFor(Path)}.
+   *
+   * @param output  The output file
+   * @param sources The source files
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void writeDepfile(
+    final Path output,
+    final Collection<Path> sources)
+    throws IOException
+  {
+    Objects.requireNonNull(output, "output");
+    Objects.requireNonNull(sources, "sources");
+
+    final var path = depfileFor(output);
+    try (var writer = Files.newBufferedWriter(path, OPEN_OPTIONS)) {
+      writer.append(escape(output.toAbsolutePath().normalize()));
+      writer.append(':');
+      for (final var source : sources) {
+        writer.append(" \\\n  ");
+        writer.append(escape(source));
+      }
+      writer.append('\n');
+    }
+  }
+
+  /**
+   * Write a depfile for the given output file produced from the given package.
+   *
+   * @param output   The output file
+   * @param pack     The package
+   * @param packages The available packages
+   *
+   * @throws IOException On I/O errors
+   *
+   * @see #sourcesOf(MiPackageType, Collection)
+   * @see #writeDepfile(Path, Collection)
+   */
+
+  public static void writeDepfileForPackage(
+    final Path output,
+    final MiPackageType pack,
+    final Collection<MiPackageType> packages)
+    throws IOException
+  {
+    writeDepfile(output, sourcesOf(pack, packages));
+  }
+
+  /**
+   * Escape a path for use as a target or prerequisite. Spaces, comment
+   * characters, rule separators, and backslashes are preceded by a
+   * backslash, and variable references are escaped by doubling them.
+   */
+
+  private static String escape(
+    final Path path)
+  {
+    final var text = path.toString();
+    final var builder = new StringBuilder(text.length() + 8);
+    for (int index = 0; index < text.length(); ++index) {
+      final var c = text.charAt(index);
+      switch (c) {
+        case ' ', '#', ':', '\\' -> {
+          builder.append('\\');
+          builder.append(c);
+        }
+        case '$' -> {
+          builder.append("$$");
+        }
+        default -> {
+          builder.append(c);
+        }
+      }
+    }
+    return builder.toString();
+  }
+}
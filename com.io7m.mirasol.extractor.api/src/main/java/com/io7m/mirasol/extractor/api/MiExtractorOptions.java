@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+/**
+ * Extractor options. Extractors ignore options that do not apply to the
+ * language they produce.
+ *
+ * @param writeDepfiles {@code true} if a make-style dependency file should
+ *                      be written alongside each output file
+ * @param splitOutput   {@code true} if each map and type should be written
+ *                      to a separate file, with a single umbrella file that
+ *                      includes all of them
+ * @param baseAddresses {@code true} if a single base address should be
+ *                      produced for each map, along with offset constants
+ *                      relative to the start of each structure, instead of
+ *                      an absolute address for every path through every map
+ * @param accessors     {@code true} if inline accessor functions should be
+ *                      produced for bit fields and bit ranges
+ * @param snapshots     {@code true} if functions should be produced that
+ *                      take a snapshot of every readable register in a
+ *                      structure
+ */
+
+public record MiExtractorOptions(
+  boolean writeDepfiles,
+  boolean splitOutput,
+  boolean baseAddresses,
+  boolean accessors,
+  boolean snapshots)
+{
+  private static final MiExtractorOptions DEFAULT_OPTIONS =
+    new MiExtractorOptions(false, false, false, false, false);
+
+  /**
+   * @return The default options
+   */
+
+  public static MiExtractorOptions defaultOptions()
+  {
+    return DEFAULT_OPTIONS;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to produce reset images for structures.
+ *
+ * <p>A reset image contains the value of every writable register in a
+ * structure that has a known reset value. Registers are restored with a
+ * single store at the full width of each register, never with stores to
+ * individual bit ranges. Contiguous registers of the same size are grouped
+ * into runs so that they can be restored from a constant array in a tight
+ * loop. Registers are never combined into stores wider than the registers
+ * themselves, as memory-mapped peripherals are not generally required to
+ * accept them.</p>
+ *
+ * <p>Read-only and read-to-clear bits are restored with their reset values
+ * (writes to them have no effect), and write-one-to-clear bits are written
+ * as zero so that pending flags are not cleared.</p>
+ */
+
+public final class MiExtractorResetImages
+{
+  private MiExtractorResetImages()
+  {
+
+  }
+
+  /**
+   * Determine the registers that can be restored within a structure,
+   * recursing into structure-typed fields.
+   *
+   * @param structure The structure
+   *
+   * @return The registers in offset order
+   */
+
+  public static List<MiExtractorResetRegister> registersOf(
+    final MiStructureType structure)
+  {
+    Objects.requireNonNull(structure, "structure");
+
+    final var output = new ArrayList<MiExtractorResetRegister>();
+    collect(output, List.of(), BigInteger.ZERO, structure);
+    output.sort(Comparator.comparing(MiExtractorResetRegister::offset));
+    return List.copyOf(output);
+  }
+
+  /**
+   * Group registers into runs of contiguous registers of the same size.
+   *
+   * @param registers The registers in offset order
+   *
+   * @return The runs in offset order
+   */
+
+  public static List<MiExtractorResetRun> runsOf(
+    final List<MiExtractorResetRegister> registers)
+  {
+    Objects.requireNonNull(registers, "registers");
+
+    final var runs = new ArrayList<MiExtractorResetRun>();
+    var values = new ArrayList<BigInteger>();
+    MiExtractorResetRegister first = null;
+    BigInteger next = null;
+
+    for (final var register : registers) {
+      final var continues =
+        first != null
+        && Objects.equals(first.size(), register.size())
+        && Objects.equals(next, register.offset());
+
+      if (!continues) {
+        if (first != null) {
+          runs.add(new MiExtractorResetRun(first.offset(), first.size(), values));
+        }
+        first = register;
+        values = new ArrayList<>();
+      }
+
+      values.add(register.value());
+      next = register.offset().add(register.size().value());
+    }
+
+    if (first != null) {
+      runs.add(new MiExtractorResetRun(first.offset(), first.size(), values));
+    }
+    return List.copyOf(runs);
+  }
+
+  private static void collect(
+    final List<MiExtractorResetRegister> output,
+    final List<MiSimpleName> path,
+    final BigInteger base,
+    final MiStructureType structure)
+  {
+    for (final var field : structure.fields()) {
+      final var fieldPath = new ArrayList<>(path);
+      fieldPath.add(field.name());
+      final var offset = base.add(field.offset());
+
+      switch (field) {
+        case final MiBitFieldType bitField -> {
+          if (bitField.reset().isPresent()
+              && MiExtractorAccess.isWritable(bitField)) {
+            output.add(
+              new MiExtractorResetRegister(
+                fieldPath,
+                offset,
+                bitField.size(),
+                bitField.reset().get().andNot(clearMaskOf(bitField)),
+                MiExtractorAccess.isShadowed(bitField)
+              )
+            );
+          }
+        }
+        case final MiTypedFieldType typedField -> {
+          switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              final var access = typedField.access();
+              if (typedField.reset().isPresent()
+                  && (access == MiAccess.READ_WRITE
+                      || access == MiAccess.WRITE_ONLY)) {
+                output.add(
+                  new MiExtractorResetRegister(
+                    fieldPath,
+                    offset,
+                    typedField.size(),
+                    typedField.reset().get(),
+                    access == MiAccess.WRITE_ONLY
+                  )
+                );
+              }
+            }
+            case final MiStructureType fieldStructure -> {
+              collect(output, fieldPath, offset, fieldStructure);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static BigInteger clearMaskOf(
+    final MiBitFieldType bitField)
+  {
+    var mask = BigInteger.ZERO;
+    if (bitField.access() == MiAccess.WRITE_ONE_TO_CLEAR) {
+      mask = MiExtractorAccess.widthMaskOf(bitField);
+    }
+
+    for (final var range : bitField.ranges()) {
+      final var rangeMask = MiExtractorAccess.fieldMaskOf(range);
+      if (range.access() == MiAccess.WRITE_ONE_TO_CLEAR) {
+        mask = mask.or(rangeMask);
+      } else {
+        mask = mask.andNot(rangeMask);
+      }
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeOctets;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A register that can be restored to its reset value.
+ *
+ * @param path     The names of the fields leading to the register, starting
+ *                 from the outermost structure
+ * @param offset   The offset of the register relative to the start of the
+ *                 outermost structure
+ * @param size     The size of the register
+ * @param value    The value to be written to the register to restore it
+ * @param shadowed {@code true} if the register is accessed through a shadow
+ *                 copy
+ */
+
+public record MiExtractorResetRegister(
+  List<MiSimpleName> path,
+  BigInteger offset,
+  MiSizeOctets size,
+  BigInteger value,
+  boolean shadowed)
+{
+  /**
+   * A register that can be restored to its reset value.
+   *
+   * @param path     The names of the fields leading to the register, starting
+   *                 from the outermost structure
+   * @param offset   The offset of the register relative to the start of the
+   *                 outermost structure
+   * @param size     The size of the register
+   * @param value    The value to be written to the register to restore it
+   * @param shadowed {@code true} if the register is accessed through a shadow
+   *                 copy
+   */
+
+  public MiExtractorResetRegister
+  {
+    path = List.copyOf(path);
+    Objects.requireNonNull(offset, "offset");
+    Objects.requireNonNull(size, "size");
+    Objects.requireNonNull(value, "value");
+  }
+}
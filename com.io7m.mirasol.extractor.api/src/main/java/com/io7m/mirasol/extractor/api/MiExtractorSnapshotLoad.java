@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiSizeOctets;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A single load performed when taking a snapshot. A load covers one or more
+ * whole, adjacent registers.
+ *
+ * @param offset    The offset of the load relative to the start of the
+ *                  outermost structure
+ * @param size      The size of the load
+ * @param registers The registers covered by the load, in offset order
+ */
+
+public record MiExtractorSnapshotLoad(
+  BigInteger offset,
+  MiSizeOctets size,
+  List<MiExtractorSnapshotRegister> registers)
+{
+  /**
+   * A single load performed when taking a snapshot. A load covers one or more
+   * whole, adjacent registers.
+   *
+   * @param offset    The offset of the load relative to the start of the
+   *                  outermost structure
+   * @param size      The size of the load
+   * @param registers The registers covered by the load, in offset order
+   */
+
+  public MiExtractorSnapshotLoad
+  {
+    Objects.requireNonNull(offset, "offset");
+    Objects.requireNonNull(size, "size");
+    registers = List.copyOf(registers);
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.api;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to plan the loads used to take snapshots of structures.
+ *
+ * <p>A snapshot contains the value of every register in a structure that
+ * can be read without side effects. Write-only registers, read-to-clear
+ * registers, and bit fields containing any write-only or read-to-clear bits
+ * are skipped. As reading the remaining registers has no effect on the
+ * hardware, adjacent registers are merged into the widest naturally aligned
+ * load that covers only whole registers. Loads never span gaps between
+ * registers, as the gaps may not be mapped at all. Loads covering more than
+ * one register are never wider than four octets; wider registers are always
+ * read whole by a load of their own.</p>
+ *
+ * <p>Loads are emitted at absolute addresses, and so alignment must be
+ * decided against the absolute address of each load. If the address of the
+ * structure is known, loads are aligned against it. Otherwise, the structure
+ * is only assumed to be aligned to the size of its widest register, and
+ * registers are never merged into loads wider than that register.</p>
+ */
+
+public final class MiExtractorSnapshots
+{
+  private static final int[] WIDTHS = {4, 2, 1};
+  private static final int WIDTH_MERGED_MAX = 4;
+
+  private MiExtractorSnapshots()
+  {
+
+  }
+
+  /**
+   * Determine the registers that can be included in a snapshot of a
+   * structure, recursing into structure-typed fields.
+   *
+   * @param structure The structure
+   *
+   * @return The registers in offset order
+   */
+
+  public static List<MiExtractorSnapshotRegister> registersOf(
+    final MiStructureType structure)
+  {
+    Objects.requireNonNull(structure, "structure");
+
+    final var output = new ArrayList<MiExtractorSnapshotRegister>();
+    collect(output, List.of(), BigInteger.ZERO, structure);
+    output.sort(Comparator.comparing(MiExtractorSnapshotRegister::offset));
+    return List.copyOf(output);
+  }
+
+  /**
+   * Plan the loads required to read the given registers of a structure at an
+   * unknown address, such as one reached through a pointer or a base address
+   * parameter. Registers are never merged into loads wider than the widest
+   * register.
+   *
+   * @param registers The registers in offset order
+   *
+   * @return The loads in offset order
+   */
+
+  public static List<MiExtractorSnapshotLoad> loadsOf(
+    final List<MiExtractorSnapshotRegister> registers)
+  {
+    Objects.requireNonNull(registers, "registers");
+
+    return plan(
+      registers,
+      BigInteger.ZERO,
+      Math.min(WIDTH_MERGED_MAX, widestOf(registers))
+    );
+  }
+
+  /**
+   * Plan the loads required to read the given registers of a structure at
+   * the given absolute address.
+   *
+   * @param registers The registers in offset order
+   * @param address   The absolute address of the structure
+   *
+   * @return The loads in offset order
+   */
+
+  public static List<MiExtractorSnapshotLoad> loadsOf(
+    final List<MiExtractorSnapshotRegister> registers,
+    final BigInteger address)
+  {
+    Objects.requireNonNull(registers, "registers");
+    Objects.requireNonNull(address, "address");
+
+    return plan(registers, address, WIDTH_MERGED_MAX);
+  }
+
+  private static int widestOf(
+    final List<MiExtractorSnapshotRegister> registers)
+  {
+    var widest = 1;
+    for (final var register : registers) {
+      widest = Math.max(widest, register.size().value().intValueExact());
+    }
+    return widest;
+  }
+
+  private static List<MiExtractorSnapshotLoad> plan(
+    final List<MiExtractorSnapshotRegister> registers,
+    final BigInteger address,
+    final int widthMax)
+  {
+    final var loads = new ArrayList<MiExtractorSnapshotLoad>();
+    var index = 0;
+    while (index < registers.size()) {
+      final var first = registers.get(index);
+      var next = index + 1;
+      var size = first.size();
+
+      for (final var width : WIDTHS) {
+        if (width > widthMax) {
+          continue;
+        }
+
+        final var widthValue = BigInteger.valueOf(width);
+        if (address.add(first.offset()).mod(widthValue).signum() != 0) {
+          continue;
+        }
+
+        final var end = first.offset().add(widthValue);
+        var position = first.offset();
+        var covered = index;
+        while (covered < registers.size()) {
+          final var register = registers.get(covered);
+          if (!register.offset().equals(position)
+              || register.end().compareTo(end) > 0) {
+            break;
+          }
+          position = register.end();
+          ++covered;
+        }
+
+        if (position.equals(end)) {
+          next = covered;
+          size = MiSizeOctets.of(width);
+          break;
+        }
+      }
+
+      loads.add(
+        new MiExtractorSnapshotLoad(
+          first.offset(),
+          size,
+          registers.subList(index, next)
+        )
+      );
+      index = next;
+    }
+    return List.copyOf(loads);
+  }
+
+  private static void collect(
+    final List<MiExtractorSnapshotRegister> output,
+    final List<MiSimpleName> path,
+    final BigInteger base,
+    final MiStructureType structure)
+  {
+    for (final var field : structure.fields()) {
+      final var fieldPath = new ArrayList<>(path);
+      fieldPath.add(field.name());
+      final var offset = base.add(field.offset());
+
+      switch (field) {
+        case final MiBitFieldType bitField -> {
+          if (isSnapshotSafe(bitField.access())
+              && bitField.ranges()
+                .stream()
+                .allMatch(r -> isSnapshotSafe(r.access()))) {
+            output.add(
+              new MiExtractorSnapshotRegister(
+                fieldPath,
+                offset,
+                bitField.size()
+              )
+            );
+          }
+        }
+        case final MiTypedFieldType typedField -> {
+          switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              if (isSnapshotSafe(typedField.access())) {
+                output.add(
+                  new MiExtractorSnapshotRegister(
+                    fieldPath,
+                    offset,
+                    typedField.size()
+                  )
+                );
+              }
+            }
+            case final MiStructureType fieldStructure -> {
+              collect(output, fieldPath, offset, fieldStructure);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isSnapshotSafe(
+    final MiAccess access)
+  {
+    return access.isReadable() && !access.hasReadSideEffects();
+  }
+}
@@ -19,19 +19,29 @@ package com.io7m.mirasol.extractor.cflat.internal;
 
 import com.io7m.jdeferthrow.core.ExceptionTracker;
 import com.io7m.junreachable.UnimplementedCodeException;
+import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.mirasol.core.MiBitFieldType;
 import com.io7m.mirasol.core.MiBitRangeType;
 import com.io7m.mirasol.core.MiFieldType;
 import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageName;
 import com.io7m.mirasol.core.MiPackageType;
 import com.io7m.mirasol.core.MiScalarType;
 import com.io7m.mirasol.core.MiSimpleName;
 import com.io7m.mirasol.core.MiSizeOctets;
 import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.core.MiTypeType;
 import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
 import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
 import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorResetImages;
+import com.io7m.mirasol.extractor.api.MiExtractorResetRegister;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshotLoad;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshotRegister;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshots;
 import com.io7m.mirasol.extractor.api.MiExtractorType;
 import com.io7m.mirasol.strings.MiStrings;
 
@@ -51,11 +61,15 @@ import java.util.stream.Collectors;
 
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_SIGNED;
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_UNSIGNED;
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_REGISTER_SIZE;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
 import static com.io7m.mirasol.strings.MiStringConstants.FIELD;
 import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.PATH;
+import static com.io7m.mirasol.strings.MiStringConstants.SIZE_OCTETS_ACTUAL;
 import static com.io7m.mirasol.strings.MiStringConstants.TYPE;
 
 /**
@@ -74,6 +88,7 @@ public final class MiExtractorCFlat
   private final MiExtractorConfiguration configuration;
   private final MiStrings strings;
   private final ArrayList<MiDefineType> defines;
+  private final ArrayList<MiAccessor> accessors;
   private BigInteger paddingIndex;
 
   /**
@@ -93,6 +108,8 @@ public final class MiExtractorCFlat
       MiStrings.create(Locale.getDefault());
     this.defines =
       new ArrayList<MiDefineType>();
+    this.accessors =
+      new ArrayList<MiAccessor>();
   }
 
   @Override
@@ -103,7 +120,7 @@ public final class MiExtractorCFlat
       new ExceptionTracker<MiExtractorException>();
 
     for (final var pack : this.configuration.packageList()) {
-      try {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
         this.executePackage(pack);
       } catch (final MiExtractorException e) {
         exceptionTracker.addException(e);
@@ -118,22 +135,164 @@ public final class MiExtractorCFlat
     throws MiExtractorException
   {
     try {
-      final var fileName =
-        fileNameOf(pack);
-      final var outputDirectory =
-        this.configuration.outputDirectory();
-      final var path =
-        outputDirectory.resolve(fileName);
-
-      Files.createDirectories(outputDirectory);
-      try (var writer = Files.newBufferedWriter(path, OPEN_OPTIONS)) {
-        this.executePackageFile(pack, writer);
+      if (this.configuration.options().splitOutput()) {
+        this.executePackageSplit(pack);
+      } else {
+        this.writeFile(pack, fileNameOf(pack), writer -> {
+          this.executePackageFile(pack, writer);
+        });
       }
     } catch (final IOException e) {
       throw this.errorIO(pack, e);
     }
   }
 
+  private void executePackageSplit(
+    final MiPackageType pack)
+    throws IOException, MiExtractorException
+  {
+    final var parts = new ArrayList<String>();
+
+    for (final var unit : this.unitsOf(pack)) {
+      final var fileName = partFileNameOf(pack, unit.name());
+      final var guardName = partGuardNameOf(pack, unit.name());
+      parts.add(fileName);
+
+      this.writeFile(pack, fileName, writer -> {
+        this.writeHeaderStart(writer, guardName);
+        if (!unit.includes().isEmpty()) {
+          for (final var include : unit.includes()) {
+            writer.append("#include \"%s\"\n".formatted(include));
+          }
+          writer.append('\n');
+        }
+        unit.procedure().execute(writer);
+        writer.append('\n');
+        writeHeaderEnd(writer, guardName);
+      });
+    }
+
+    this.writeFile(pack, fileNameOf(pack), writer -> {
+      final var guardName = guardNameOf(pack);
+      this.writeHeaderStart(writer, guardName);
+      if (!parts.isEmpty()) {
+        for (final var part : parts) {
+          writer.append("#include \"%s\"\n".formatted(part));
+        }
+        writer.append('\n');
+      }
+      writeHeaderEnd(writer, guardName);
+    });
+  }
+
+  /**
+   * A unit of output: the definitions for a single map or structure.
+   *
+   * @param name      The map or structure name
+   * @param includes  The headers that must be included when the unit is
+   *                  written to a file of its own
+   * @param procedure The procedure that writes the definitions
+   */
+
+  private record MiUnit(
+    MiSimpleName name,
+    List<String> includes,
+    MiWriterProcedureType procedure)
+  {
+
+  }
+
+  private List<MiUnit> unitsOf(
+    final MiPackageType pack)
+  {
+    final var pathStart = startPath(pack);
+    final var units = new ArrayList<MiUnit>();
+
+    if (this.configuration.options().baseAddresses()) {
+      for (final var type : pack.types()) {
+        if (type instanceof final MiStructureType structure) {
+          units.add(new MiUnit(structure.name(), List.of(), writer -> {
+            this.executePackageFileStructureOffsets(
+              pack,
+              writer,
+              pathStart.with(new MiNamedOffset(
+                structure.name(),
+                BigInteger.ZERO
+              )),
+              structure
+            );
+          }));
+        }
+      }
+
+      for (final var map : pack.maps()) {
+        final var typeRef = map.type();
+        final List<String> includes;
+        if (typeRef.type() instanceof MiStructureType) {
+          if (Objects.equals(typeRef.packageName(), pack.name())) {
+            includes = List.of(partFileNameOf(pack, typeRef.type().name()));
+          } else {
+            includes = List.of(headerNameOf(typeRef.packageName()));
+          }
+        } else {
+          includes = List.of();
+        }
+
+        units.add(new MiUnit(map.name(), includes, writer -> {
+          this.executePackageFileMapBase(
+            pack,
+            writer,
+            pathStart.with(new MiNamedOffset(map.name(), map.offset())),
+            map
+          );
+        }));
+      }
+    } else {
+      for (final var map : pack.maps()) {
+        units.add(new MiUnit(map.name(), List.of(), writer -> {
+          this.executePackageFileMap(
+            pack,
+            writer,
+            pathStart.with(new MiNamedOffset(map.name(), map.offset())),
+            map
+          );
+        }));
+      }
+    }
+    return units;
+  }
+
+  private interface MiWriterProcedureType
+  {
+    void execute(BufferedWriter writer)
+      throws IOException, MiExtractorException;
+  }
+
+  private void writeFile(
+    final MiPackageType pack,
+    final String fileName,
+    final MiWriterProcedureType procedure)
+    throws IOException, MiExtractorException
+  {
+    final var outputDirectory =
+      this.configuration.outputDirectory();
+    final var path =
+      outputDirectory.resolve(fileName);
+
+    Files.createDirectories(outputDirectory);
+    try (var writer = Files.newBufferedWriter(path, OPEN_OPTIONS)) {
+      procedure.execute(writer);
+    }
+
+    if (this.configuration.options().writeDepfiles()) {
+      MiExtractorDepfiles.writeDepfileForPackage(
+        path,
+        pack,
+        this.configuration.packagesAll()
+      );
+    }
+  }
+
   private MiExtractorException errorIO(
     final MiPackageType pack,
     final IOException e)
@@ -160,6 +319,39 @@ public final class MiExtractorCFlat
     throws IOException, MiExtractorException
   {
     final var guardName = guardNameOf(pack);
+    this.writeHeaderStart(writer, guardName);
+
+    final var units = this.unitsOf(pack);
+    if (this.configuration.options().baseAddresses()) {
+      if (!pack.imports().isEmpty()) {
+        for (final var importE : pack.imports()) {
+          writer.append(
+            "#include \"%s\"\n"
+              .formatted(headerNameOf(importE.packageName()))
+          );
+        }
+        writer.append('\n');
+      }
+
+      for (final var unit : units) {
+        unit.procedure().execute(writer);
+        writer.append('\n');
+      }
+    } else if (!units.isEmpty()) {
+      for (final var unit : units) {
+        unit.procedure().execute(writer);
+      }
+      writer.append('\n');
+    }
+
+    writeHeaderEnd(writer, guardName);
+  }
+
+  private void writeHeaderStart(
+    final BufferedWriter writer,
+    final String guardName)
+    throws IOException
+  {
     writer.append("#ifndef ");
     writer.append(guardName);
     writer.append('\n');
@@ -175,35 +367,23 @@ public final class MiExtractorCFlat
 
     writer.append("#include <stdint.h>\n");
     writer.append("#include <assert.h>\n");
+    if (this.configuration.options().snapshots()) {
+      writer.append("#include <stddef.h>\n");
+      writer.append("#include <string.h>\n");
+    }
     writer.append('\n');
+  }
 
-    this.executePackageFileMaps(pack, writer);
-
+  private static void writeHeaderEnd(
+    final BufferedWriter writer,
+    final String guardName)
+    throws IOException
+  {
     writer.append("#endif // ");
     writer.append(guardName);
     writer.append('\n');
   }
 
-  private void executePackageFileMaps(
-    final MiPackageType pack,
-    final BufferedWriter writer)
-    throws IOException, MiExtractorException
-  {
-    if (!pack.maps().isEmpty()) {
-      final var pathStart = startPath(pack);
-
-      for (final var map : pack.maps()) {
-        this.executePackageFileMap(
-          pack,
-          writer,
-          pathStart.with(new MiNamedOffset(map.name(), map.offset())),
-          map
-        );
-      }
-      writer.append('\n');
-    }
-  }
-
   private static MiNamedOffsetPath startPath(
     final MiPackageType pack)
   {
@@ -226,14 +406,311 @@ public final class MiExtractorCFlat
     throws IOException, MiExtractorException
   {
     this.defines.clear();
+    this.accessors.clear();
     this.defines.add(new MiDefineAddress(path.toCName(), "void", BigInteger.ZERO));
 
     final var type = map.type().type();
     this.executePackageFileType(pack, path, type);
 
+    this.writeDefines(writer);
+    this.writeAccessors(writer);
+
+    if (type instanceof final MiStructureType structure) {
+      this.checkRegisterSizes(pack, path, structure);
+
+      final var registers =
+        MiExtractorResetImages.registersOf(structure);
+      final var shadows =
+        new ArrayList<String>();
+
+      if (this.configuration.options().accessors()) {
+        for (final var register : registers) {
+          if (register.shadowed()) {
+            shadows.add(
+              "%s__SHADOW = %s;".formatted(
+                pathOfRegister(path, register.path()).toCName(),
+                cIntegerOf(register.size(), register.value())
+              )
+            );
+          }
+        }
+      }
+
+      writeReset(
+        writer,
+        path.toCName(),
+        "void",
+        "(uintptr_t) 0x" + map.offset().toString(16),
+        registers,
+        shadows
+      );
+
+      if (this.configuration.options().snapshots()) {
+        final var snapshotRegisters =
+          MiExtractorSnapshots.registersOf(structure);
+
+        writeSnapshot(
+          writer,
+          path.toCName(),
+          "",
+          "(uintptr_t) 0x" + map.offset().toString(16),
+          snapshotRegisters,
+          MiExtractorSnapshots.loadsOf(snapshotRegisters, map.offset())
+        );
+      }
+    }
+  }
+
+  private static MiNamedOffsetPath pathOfRegister(
+    final MiNamedOffsetPath path,
+    final List<MiSimpleName> registerPath)
+  {
+    var result = path;
+    for (final var name : registerPath) {
+      result = result.with(new MiNamedOffset(name, BigInteger.ZERO));
+    }
+    return result;
+  }
+
+  /**
+   * Write a reset image and a function that restores every register in the
+   * image. Each run of contiguous registers of the same size is restored
+   * from a constant array with stores at the full width of the registers.
+   */
+
+  private static void writeReset(
+    final BufferedWriter writer,
+    final String name,
+    final String params,
+    final String address,
+    final List<MiExtractorResetRegister> registers,
+    final List<String> shadows)
+    throws IOException
+  {
+    if (registers.isEmpty()) {
+      return;
+    }
+
+    final var runs = MiExtractorResetImages.runsOf(registers);
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      writer.append('\n');
+      writer.append(
+        "static const %s %s__RESET_IMAGE_%d[%d] = {\n".formatted(
+          cUnsignedTypeOf(run.size()),
+          name,
+          Integer.valueOf(index),
+          Integer.valueOf(run.values().size())
+        )
+      );
+      writer.append(
+        run.values()
+          .stream()
+          .map(v -> "  " + cIntegerOf(run.size(), v))
+          .collect(Collectors.joining(",\n"))
+      );
+      writer.append("\n};\n");
+    }
+
+    writer.append('\n');
+    writer.append("static inline void %s__reset(%s)\n".formatted(name, params));
+    writer.append("{\n");
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      writer.append(
+        """
+          for (unsigned int i = 0; i < %3$d; ++i) {
+            ((volatile %1$s *) (%4$s + 0x%5$s))[i] = %2$s__RESET_IMAGE_%6$d[i];
+          }
+        """.formatted(
+          cUnsignedTypeOf(run.size()),
+          name,
+          Integer.valueOf(run.values().size()),
+          address,
+          run.offset().toString(16),
+          Integer.valueOf(index)
+        )
+      );
+    }
+    for (final var shadow : shadows) {
+      writer.append("  ");
+      writer.append(shadow);
+      writer.append('\n');
+    }
+    writer.append("}\n");
+  }
+
+  /**
+   * Write a snapshot type and a function that copies every register that can
+   * be read without side effects into a value of that type. The snapshot
+   * type has the same layout as the registers it contains, so that the
+   * adjacent registers read together by a single wide load can be copied
+   * into it directly.
+   */
+
+  private static void writeSnapshot(
+    final BufferedWriter writer,
+    final String name,
+    final String params,
+    final String address,
+    final List<MiExtractorSnapshotRegister> registers,
+    final List<MiExtractorSnapshotLoad> loads)
+    throws IOException
+  {
+    if (registers.isEmpty()) {
+      return;
+    }
+
+    writer.append('\n');
+    writer.append("typedef struct {\n");
+
+    var offsetPrevious = BigInteger.ZERO;
+    var padding = 0;
+    for (final var register : registers) {
+      final var gap = register.offset().subtract(offsetPrevious);
+      if (gap.signum() > 0) {
+        writer.append(
+          "  uint8_t PADDING_%d[%s];\n"
+            .formatted(Integer.valueOf(padding), gap)
+        );
+        ++padding;
+      }
+      writer.append(
+        "  %s %s;\n".formatted(
+          cUnsignedTypeOf(register.size()),
+          memberNameOf(register)
+        )
+      );
+      offsetPrevious = register.end();
+    }
+
+    writer.append("} %s__SNAPSHOT;\n".formatted(name));
+    writer.append('\n');
+
+    for (final var register : registers) {
+      writer.append(
+        "static_assert(offsetof(%s__SNAPSHOT, %s) == 0x%s, \"%s\");\n"
+          .formatted(
+            name,
+            memberNameOf(register),
+            register.offset().toString(16),
+            memberNameOf(register)
+          )
+      );
+    }
+
+    writer.append('\n');
+    writer.append(
+      "static inline void %1$s__snapshot(%2$s%1$s__SNAPSHOT * const out)\n"
+        .formatted(name, params)
+    );
+    writer.append("{\n");
+    writer.append("  memset(out, 0, sizeof(%s__SNAPSHOT));\n".formatted(name));
+    for (final var load : loads) {
+      writer.append(
+        """
+          { // %4$s
+            const %1$s v = *((const volatile %1$s *) (%2$s + 0x%3$s));
+            memcpy((uint8_t *) out + 0x%3$s, &v, sizeof(v));
+          }
+        """.formatted(
+          cUnsignedTypeOf(load.size()),
+          address,
+          load.offset().toString(16),
+          load.registers()
+            .stream()
+            .map(MiExtractorCFlat::memberNameOf)
+            .collect(Collectors.joining(", "))
+        )
+      );
+    }
+    writer.append("}\n");
+  }
+
+  private static String memberNameOf(
+    final MiExtractorSnapshotRegister register)
+  {
+    return register.path()
+      .stream()
+      .map(x -> x.value().toUpperCase(Locale.ROOT))
+      .collect(Collectors.joining("_"));
+  }
+
+  /**
+   * Check that every register in the reset image and snapshot of the given
+   * structure has a size for which C has an exact-width unsigned type.
+   */
+
+  private void checkRegisterSizes(
+    final MiPackageType pack,
+    final MiNamedOffsetPath path,
+    final MiStructureType structure)
+    throws MiExtractorException
+  {
+    for (final var register : MiExtractorResetImages.registersOf(structure)) {
+      this.checkRegisterSize(pack, path, register.path(), register.size());
+    }
+    for (final var register : MiExtractorSnapshots.registersOf(structure)) {
+      this.checkRegisterSize(pack, path, register.path(), register.size());
+    }
+  }
+
+  private void checkRegisterSize(
+    final MiPackageType pack,
+    final MiNamedOffsetPath path,
+    final List<MiSimpleName> registerPath,
+    final MiSizeOctets size)
+    throws MiExtractorException
+  {
+    switch (size.value().intValueExact()) {
+      case 1, 2, 4, 8 -> {
+        // Supported
+      }
+      default -> {
+        throw this.errorUnsupportedRegisterSize(
+          pack,
+          pathOfRegister(path, registerPath),
+          size
+        );
+      }
+    }
+  }
+
+  private static int cBitsOf(
+    final MiSizeOctets size)
+  {
+    return switch (size.value().intValueExact()) {
+      case 1 -> 8;
+      case 2 -> 16;
+      case 4 -> 32;
+      case 8 -> 64;
+      default -> throw new UnreachableCodeException();
+    };
+  }
+
+  private static String cUnsignedTypeOf(
+    final MiSizeOctets size)
+  {
+    return "uint%d_t".formatted(Integer.valueOf(cBitsOf(size)));
+  }
+
+  private static String cIntegerOf(
+    final MiSizeOctets size,
+    final BigInteger value)
+  {
+    return "UINT%d_C(0x%s)".formatted(
+      Integer.valueOf(cBitsOf(size)),
+      value.toString(16)
+    );
+  }
+
+  private void writeDefines(
+    final BufferedWriter writer)
+    throws IOException
+  {
     var defineMax = 0;
     for (final var define : this.defines) {
-      defineMax = Math.max(define.name().length() + 2, defineMax);
+      defineMax = Math.max(define.head().length() + 2, defineMax);
     }
 
     for (final var define : this.defines) {
@@ -241,6 +718,332 @@ public final class MiExtractorCFlat
     }
   }
 
+  private void writeAccessors(
+    final BufferedWriter writer)
+    throws IOException
+  {
+    for (final var accessor : this.accessors) {
+      writer.append('\n');
+      writeAccessor(writer, accessor);
+    }
+  }
+
+  /**
+   * Write accessor functions for a bit field and its ranges. Every function
+   * performs at most one volatile load and one volatile store of the bit
+   * field, at the exact width of the bit field. Multiple ranges can be
+   * updated together using {@code __update} with the OR of the
+   * {@code __FIELD_MASK} constants and the OR of the {@code __bits} values.
+   *
+   * <p>Updates read only the bits that are preserved by being written back;
+   * if there are none, updates are plain stores. Bit fields containing
+   * write-only bits are never read, and are instead accessed through a shadow
+   * copy: a generated {@code __SHADOW} variable (defined in the translation
+   * unit that defines {@code MIRASOL_DEFINE_SHADOWS}) for absolute addresses,
+   * or a caller-provided shadow for relative addresses. Updates of shadowed
+   * bit fields carry over only the read-write and write-only bits of the
+   * shadow.</p>
+   */
+
+  private static void writeAccessor(
+    final BufferedWriter writer,
+    final MiAccessor accessor)
+    throws IOException
+  {
+    final var t = accessor.type();
+    final var f = accessor.name();
+    final String params;
+    final String paramsPrefix;
+    final String args;
+    final String argsPrefix;
+    final String address;
+
+    if (accessor.relative()) {
+      params = "const uintptr_t base";
+      paramsPrefix = "const uintptr_t base, ";
+      args = "base";
+      argsPrefix = "base, ";
+      address = "%s(base)".formatted(f);
+    } else {
+      params = "void";
+      paramsPrefix = "";
+      args = "";
+      argsPrefix = "";
+      address = f;
+    }
+
+    final String readParams;
+    final String readArgs;
+    final String readValue;
+    final String writeParamsPrefix;
+    final String writeArgsPrefix;
+    final String shadow;
+
+    if (accessor.shadowed()) {
+      if (accessor.relative()) {
+        readParams = "const %s * const shadow".formatted(t);
+        readArgs = "shadow";
+        writeParamsPrefix = "%s%s * const shadow, ".formatted(paramsPrefix, t);
+        writeArgsPrefix = argsPrefix + "shadow, ";
+        shadow = "*shadow";
+      } else {
+        writer.append(
+          """
+          extern %1$s %2$s__SHADOW;
+          #ifdef MIRASOL_DEFINE_SHADOWS
+          %1$s %2$s__SHADOW;
+          #endif
+
+          """.formatted(t, f)
+        );
+        readParams = "void";
+        readArgs = "";
+        writeParamsPrefix = paramsPrefix;
+        writeArgsPrefix = argsPrefix;
+        shadow = "%s__SHADOW".formatted(f);
+      }
+      readValue = shadow;
+    } else {
+      readParams = params;
+      readArgs = args;
+      readValue = "*((volatile %s *) %s)".formatted(t, address);
+      writeParamsPrefix = paramsPrefix;
+      writeArgsPrefix = argsPrefix;
+      shadow = null;
+    }
+
+    writer.append(
+      """
+      static inline %1$s %2$s__read(%3$s)
+      {
+        return %4$s;
+      }
+      """.formatted(t, f, readParams, readValue)
+    );
+
+    if (accessor.writable()) {
+      final String write;
+      final String update;
+
+      if (shadow != null) {
+        write = """
+            %3$s = value;
+            *((volatile %1$s *) %2$s) = value;
+          """.formatted(t, address, shadow);
+        update = """
+            %3$s = (%1$s) ((%3$s & (%1$s) (%4$s & ~mask)) | (bits & mask));
+            *((volatile %1$s *) %2$s) = %3$s;
+          """.formatted(
+          t,
+          address,
+          shadow,
+          "0x" + accessor.preserved().toString(16)
+        );
+      } else {
+        write = """
+            *((volatile %1$s *) %2$s) = value;
+          """.formatted(t, address);
+
+        if (accessor.preserved().signum() == 0) {
+          update = """
+              *((volatile %1$s *) %2$s) = (%1$s) (bits & mask);
+            """.formatted(t, address);
+        } else if (accessor.preserved().equals(accessor.width())) {
+          update = """
+              volatile %1$s * const r = (volatile %1$s *) %2$s;
+              *r = (%1$s) ((*r & (%1$s) ~mask) | (bits & mask));
+            """.formatted(t, address);
+        } else {
+          update = """
+              volatile %1$s * const r = (volatile %1$s *) %2$s;
+              *r = (%1$s) ((*r & (%1$s) (%3$s & ~mask)) | (bits & mask));
+            """.formatted(t, address, "0x" + accessor.preserved().toString(16));
+        }
+      }
+
+      writer.append(
+        """
+
+        static inline void %2$s__write(%3$sconst %1$s value)
+        {
+        %4$s}
+
+        static inline void %2$s__update(%3$sconst %1$s mask, const %1$s bits)
+        {
+        %5$s}
+        """.formatted(t, f, writeParamsPrefix, write, update)
+      );
+    }
+
+    for (final var range : accessor.ranges()) {
+      final var r = range.name();
+
+      writer.append('\n');
+      writer.append(
+        """
+        static inline %1$s %2$s__extract(const %1$s r)
+        {
+          return (%1$s) ((r >> %2$s__OFFSET) & %2$s__MASK);
+        }
+
+        static inline %1$s %2$s__get(%3$s)
+        {
+          return %2$s__extract(%4$s__read(%5$s));
+        }
+        """.formatted(t, r, readParams, f, readArgs)
+      );
+
+      if (range.writable()) {
+        writer.append(
+          """
+
+          static inline %1$s %2$s__bits(const %1$s value)
+          {
+            return (%1$s) ((value & %2$s__MASK) << %2$s__OFFSET);
+          }
+
+          static inline %1$s %2$s__modify(const %1$s r, const %1$s value)
+          {
+            return (%1$s) ((r & (%1$s) ~%2$s__FIELD_MASK) | %2$s__bits(value));
+          }
+
+          static inline void %2$s__set(%3$sconst %1$s value)
+          {
+            %4$s__update(%5$s%2$s__FIELD_MASK, %2$s__bits(value));
+          }
+          """.formatted(t, r, writeParamsPrefix, f, writeArgsPrefix)
+        );
+      }
+    }
+  }
+
+  private void executePackageFileMapBase(
+    final MiPackageType pack,
+    final BufferedWriter writer,
+    final MiNamedOffsetPath path,
+    final MiMapType map)
+    throws IOException, MiExtractorException
+  {
+    this.defines.clear();
+    this.accessors.clear();
+
+    switch (map.type().type()) {
+      case final MiScalarType scalar -> {
+        this.defines.add(
+          new MiDefineAddress(
+            path.toCName(),
+            this.cTypeOf(pack, scalar),
+            map.offset()
+          )
+        );
+      }
+      case final MiStructureType structure -> {
+        this.defines.add(new MiDefineBase(path.toCName(), map.offset()));
+      }
+    }
+
+    this.writeDefines(writer);
+    this.writeAccessors(writer);
+  }
+
+  private void executePackageFileStructureOffsets(
+    final MiPackageType pack,
+    final BufferedWriter writer,
+    final MiNamedOffsetPath path,
+    final MiStructureType structure)
+    throws IOException, MiExtractorException
+  {
+    this.defines.clear();
+    this.accessors.clear();
+    this.defines.add(
+      new MiDefineInteger(
+        path.toCName() + "__SIZE",
+        structure.size().value(),
+        10
+      )
+    );
+
+    for (final var field : structure.fields()) {
+      final var fieldPath =
+        path.with(new MiNamedOffset(field.name(), field.offset()));
+      final var offsetName =
+        fieldPath.toCName() + "__BYTE_OFFSET";
+
+      this.defines.add(
+        new MiDefineInteger(offsetName, field.offset(), 16)
+      );
+
+      switch (field) {
+        case final MiBitFieldType bitField -> {
+          this.defines.add(
+            new MiDefineRelative(
+              fieldPath.toCName(),
+              Optional.of(this.cTypeOfBitField(pack, structure, bitField)),
+              offsetName
+            )
+          );
+
+          for (final var range : bitField.ranges()) {
+            this.executePackageFileTypeStructureFieldBitRange(
+              pack,
+              fieldPath.with(new MiNamedOffset(range.name(), BigInteger.ZERO)),
+              range
+            );
+          }
+
+          this.addAccessor(
+            fieldPath,
+            this.cTypeOfBitField(pack, structure, bitField),
+            true,
+            bitField
+          );
+        }
+        case final MiTypedFieldType typedField -> {
+          final Optional<String> cType =
+            switch (typedField.type().type()) {
+              case final MiScalarType scalar -> {
+                yield Optional.of(this.cTypeOf(pack, scalar));
+              }
+              case final MiStructureType ignored -> {
+                yield Optional.empty();
+              }
+            };
+
+          this.defines.add(
+            new MiDefineRelative(fieldPath.toCName(), cType, offsetName)
+          );
+        }
+      }
+    }
+
+    this.writeDefines(writer);
+    this.writeAccessors(writer);
+    this.checkRegisterSizes(pack, path, structure);
+
+    writeReset(
+      writer,
+      path.toCName(),
+      "const uintptr_t base",
+      "base",
+      MiExtractorResetImages.registersOf(structure),
+      List.of()
+    );
+
+    if (this.configuration.options().snapshots()) {
+      final var snapshotRegisters =
+        MiExtractorSnapshots.registersOf(structure);
+
+      writeSnapshot(
+        writer,
+        path.toCName(),
+        "const uintptr_t base, ",
+        "base",
+        snapshotRegisters,
+        MiExtractorSnapshots.loadsOf(snapshotRegisters)
+      );
+    }
+  }
+
   private static void writeDefine(
     final BufferedWriter writer,
     final int defineMax,
@@ -250,7 +1053,7 @@ public final class MiExtractorCFlat
     switch (define) {
       case final MiDefineAddress address -> {
         final var pad =
-          defineMax - (define.name().length());
+          defineMax - (define.head().length());
 
         writer.append(
           "#define %s%s((%s * const) 0x%s)\n".formatted(
@@ -264,7 +1067,7 @@ public final class MiExtractorCFlat
 
       case final MiDefineInteger integer -> {
         final var pad =
-          defineMax - (define.name().length());
+          defineMax - (define.head().length());
 
         writer.append(
           "#define %s%s %s\n".formatted(
@@ -279,6 +1082,43 @@ public final class MiExtractorCFlat
           )
         );
       }
+
+      case final MiDefineBase base -> {
+        final var pad =
+          defineMax - (define.head().length());
+
+        writer.append(
+          "#define %s%s((uintptr_t) 0x%s)\n".formatted(
+            base.name(),
+            " ".repeat(pad),
+            base.offset().toString(16)
+          )
+        );
+      }
+
+      case final MiDefineRelative relative -> {
+        final var pad =
+          defineMax - (define.head().length());
+
+        if (relative.type().isPresent()) {
+          writer.append(
+            "#define %s%s((%s * const) ((base) + %s))\n".formatted(
+              relative.head(),
+              " ".repeat(pad),
+              relative.type().get(),
+              relative.offsetName()
+            )
+          );
+        } else {
+          writer.append(
+            "#define %s%s((base) + %s)\n".formatted(
+              relative.head(),
+              " ".repeat(pad),
+              relative.offsetName()
+            )
+          );
+        }
+      }
     }
   }
 
@@ -420,20 +1260,8 @@ public final class MiExtractorCFlat
     final MiBitFieldType bitField)
     throws MiExtractorException
   {
-    final var size = bitField.size();
-
-    final String cType;
-    if (Objects.equals(size, MiSizeOctets.of(1L))) {
-      cType = "uint8_t";
-    } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
-      cType = "uint16_t";
-    } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
-      cType = "uint32_t";
-    } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
-      cType = "uint64_t";
-    } else {
-      throw this.errorUnsupportedBitFieldType(pack, structure, bitField);
-    }
+    final var cType =
+      this.cTypeOfBitField(pack, structure, bitField);
 
     final var offsetSum =
       path.values()
@@ -459,6 +1287,63 @@ public final class MiExtractorCFlat
         range
       );
     }
+
+    this.addAccessor(path, cType, false, bitField);
+  }
+
+  private void addAccessor(
+    final MiNamedOffsetPath path,
+    final String cType,
+    final boolean relative,
+    final MiBitFieldType bitField)
+  {
+    if (!this.configuration.options().accessors()) {
+      return;
+    }
+
+    this.accessors.add(
+      new MiAccessor(
+        path.toCName(),
+        cType,
+        relative,
+        MiExtractorAccess.isShadowed(bitField),
+        MiExtractorAccess.isWritable(bitField),
+        MiExtractorAccess.isShadowed(bitField)
+          ? MiExtractorAccess.shadowPreservedMaskOf(bitField)
+          : MiExtractorAccess.preservedMaskOf(bitField),
+        MiExtractorAccess.widthMaskOf(bitField),
+        bitField.ranges()
+          .stream()
+          .map(r -> {
+            return new MiAccessorRange(
+              path.with(new MiNamedOffset(r.name(), BigInteger.ZERO))
+                .toCName(),
+              r.access().isWritable()
+            );
+          })
+          .toList()
+      )
+    );
+  }
+
+  private String cTypeOfBitField(
+    final MiPackageType pack,
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws MiExtractorException
+  {
+    final var size = bitField.size();
+    if (Objects.equals(size, MiSizeOctets.of(1L))) {
+      return "uint8_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
+      return "uint16_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
+      return "uint32_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
+      return "uint64_t";
+    } else {
+      throw this.errorUnsupportedBitFieldType(pack, structure, bitField);
+    }
   }
 
   private void executePackageFileTypeStructureFieldBitRange(
@@ -492,6 +1377,16 @@ public final class MiExtractorCFlat
         2
       )
     );
+
+    if (this.configuration.options().accessors()) {
+      this.defines.add(
+        new MiDefineInteger(
+          path.toCName() + "__FIELD_MASK",
+          mask.shiftLeft(range.range().lower().intValueExact()),
+          2
+        )
+      );
+    }
   }
 
   private void executePackageFileTypeStructureFieldTyped(
@@ -519,6 +1414,14 @@ public final class MiExtractorCFlat
     );
   }
 
+  private static String headerNameOf(
+    final MiPackageName packageName)
+  {
+    return "%s.h".formatted(
+      packageName.toString().replace('.', '_')
+    );
+  }
+
   private static String fileNameOf(
     final MiPackageType pack)
   {
@@ -527,6 +1430,31 @@ public final class MiExtractorCFlat
     );
   }
 
+  private static String partGuardNameOf(
+    final MiPackageType pack,
+    final MiSimpleName name)
+  {
+    return "%s__%s_H".formatted(
+      pack.name()
+        .toString()
+        .replace('.', '_')
+        .toUpperCase(Locale.ROOT),
+      name.value()
+        .replace('-', '_')
+        .toUpperCase(Locale.ROOT)
+    );
+  }
+
+  private static String partFileNameOf(
+    final MiPackageType pack,
+    final MiSimpleName name)
+  {
+    return "%s__%s.h".formatted(
+      pack.name().toString().replace('.', '_'),
+      name.value()
+    );
+  }
+
   private MiExtractorException errorUnsupportedScalarType(
     final MiPackageType pack,
     final MiScalarType scalar)
@@ -551,7 +1479,6 @@ public final class MiExtractorCFlat
     );
   }
 
-
   private MiExtractorException errorUnsupportedBitFieldType(
     final MiPackageType pack,
     final MiStructureType structure,
@@ -581,8 +1508,42 @@ public final class MiExtractorCFlat
     );
   }
 
+  private MiExtractorException errorUnsupportedRegisterSize(
+    final MiPackageType pack,
+    final MiNamedOffsetPath path,
+    final MiSizeOctets size)
+  {
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      this.strings.format(PACKAGE),
+      pack.name().toString()
+    );
+    attributes.put(
+      this.strings.format(PATH),
+      path.toString()
+    );
+    attributes.put(
+      this.strings.format(SIZE_OCTETS_ACTUAL),
+      size.value().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_UNSUPPORTED_REGISTER_SIZE),
+      "error-unsupported-register-size",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
   private sealed interface MiDefineType {
     String name();
+
+    default String head()
+    {
+      return this.name();
+    }
   }
 
   private record MiDefineAddress(
@@ -602,4 +1563,45 @@ public final class MiExtractorCFlat
   {
 
   }
+
+  private record MiDefineBase(
+    String name,
+    BigInteger offset)
+    implements MiDefineType
+  {
+
+  }
+
+  private record MiDefineRelative(
+    String name,
+    Optional<String> type,
+    String offsetName)
+    implements MiDefineType
+  {
+    @Override
+    public String head()
+    {
+      return this.name + "(base)";
+    }
+  }
+
+  private record MiAccessor(
+    String name,
+    String type,
+    boolean relative,
+    boolean shadowed,
+    boolean writable,
+    BigInteger preserved,
+    BigInteger width,
+    List<MiAccessorRange> ranges)
+  {
+
+  }
+
+  private record MiAccessorRange(
+    String name,
+    boolean writable)
+  {
+
+  }
 }
@@ -29,11 +29,16 @@ import com.io7m.mirasol.core.MiScalarType;
 import com.io7m.mirasol.core.MiSimpleName;
 import com.io7m.mirasol.core.MiSizeOctets;
 import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.core.MiTypeReference;
 import com.io7m.mirasol.core.MiTypeType;
 import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
 import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
 import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorResetImages;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshots;
 import com.io7m.mirasol.extractor.api.MiExtractorType;
 import com.io7m.mirasol.strings.MiStrings;
 
@@ -43,15 +48,18 @@ import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_SIGNED;
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_UNSIGNED;
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
 import static com.io7m.mirasol.strings.MiStringConstants.CPP_OFFSET_OF;
 import static com.io7m.mirasol.strings.MiStringConstants.CPP_SIZE_OF;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
@@ -105,8 +113,9 @@ public final class MiExtractorCPP
       new ExceptionTracker<MiExtractorException>();
 
     for (final var pack : this.configuration.packageList()) {
-      try {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
         this.packageNow = pack;
+        this.paddingIndex = BigInteger.ZERO;
         this.executePackage();
       } catch (final MiExtractorException e) {
         exceptionTracker.addException(e);
@@ -120,23 +129,74 @@ public final class MiExtractorCPP
     throws MiExtractorException
   {
     try {
-      final var fileName =
-        fileNameOf(this.packageNow);
-      final var outputDirectory =
-        this.configuration.outputDirectory();
-      final var path =
-        outputDirectory.resolve(fileName);
-
-      Files.createDirectories(outputDirectory);
-      this.writer = Files.newBufferedWriter(path, OPEN_OPTIONS);
-      try (var w = this.writer) {
-        this.writePackage();
+      if (this.configuration.options().splitOutput()) {
+        this.executePackageSplit();
+      } else {
+        this.writeFile(fileNameOf(this.packageNow), this::writePackage);
       }
     } catch (final IOException e) {
       throw this.errorIO(this.packageNow, e);
     }
   }
 
+  private void executePackageSplit()
+    throws IOException, MiExtractorException
+  {
+    final var pathStart = this.startPath();
+    final var parts = new ArrayList<String>();
+
+    for (final var type : this.packageNow.typesTopological()) {
+      final var fileName = partFileNameOf(this.packageNow, type.name());
+      parts.add(fileName);
+      this.writeFile(fileName, () -> {
+        this.writePartType(pathStart, type);
+      });
+    }
+
+    for (final var map : this.packageNow.maps()) {
+      final var fileName = partFileNameOf(this.packageNow, map.name());
+      parts.add(fileName);
+      this.writeFile(fileName, () -> {
+        this.writePartMap(pathStart, map);
+      });
+    }
+
+    this.writeFile(fileNameOf(this.packageNow), () -> {
+      this.writeUmbrella(parts);
+    });
+  }
+
+  private interface MiWriterProcedureType
+  {
+    void execute()
+      throws IOException, MiExtractorException;
+  }
+
+  private void writeFile(
+    final String fileName,
+    final MiWriterProcedureType procedure)
+    throws IOException, MiExtractorException
+  {
+    final var outputDirectory =
+      this.configuration.outputDirectory();
+    final var path =
+      outputDirectory.resolve(fileName);
+
+    Files.createDirectories(outputDirectory);
+    this.writer = Files.newBufferedWriter(path, OPEN_OPTIONS);
+    try (var w = this.writer) {
+      procedure.execute();
+    }
+
+    if (this.configuration.options().writeDepfiles()) {
+      MiExtractorDepfiles.writeDepfileForPackage(
+        path,
+        this.packageNow,
+        this.configuration.packagesAll()
+      );
+    }
+  }
+
   private MiExtractorException errorIO(
     final MiPackageType pack,
     final IOException e)
@@ -161,6 +221,105 @@ public final class MiExtractorCPP
     throws IOException, MiExtractorException
   {
     final var guardName = guardNameOf(this.packageNow);
+    this.writeHeaderStart(guardName);
+
+    final var pathStart = this.startPath();
+    this.writePackageImports();
+    this.writePackageTypes(pathStart);
+    this.writePackageMaps(pathStart);
+
+    this.writeHeaderEnd(guardName);
+  }
+
+  private void writeUmbrella(
+    final List<String> parts)
+    throws IOException
+  {
+    final var guardName = guardNameOf(this.packageNow);
+    this.writeHeaderStart(guardName);
+
+    if (!parts.isEmpty()) {
+      for (final var part : parts) {
+        this.writer.append("#include \"%s\"\n".formatted(part));
+      }
+      this.writer.append('\n');
+    }
+
+    this.writeHeaderEnd(guardName);
+  }
+
+  private void writePartType(
+    final MiNamedOffsetPath pathStart,
+    final MiTypeType type)
+    throws IOException, MiExtractorException
+  {
+    final var guardName = partGuardNameOf(this.packageNow, type.name());
+    this.writeHeaderStart(guardName);
+
+    /*
+     * Include only the headers that declare the types referenced by this
+     * type: the part header for types in this package, and the umbrella
+     * header for types in other packages.
+     */
+
+    final var includes = new TreeSet<String>();
+    if (type instanceof final MiStructureType structure) {
+      for (final var field : structure.fields()) {
+        if (field instanceof final MiTypedFieldType typed) {
+          includes.add(this.headerNameOfType(typed.type()));
+        }
+      }
+    }
+
+    if (!includes.isEmpty()) {
+      for (final var include : includes) {
+        this.writer.append("#include \"%s\"\n".formatted(include));
+      }
+      this.writer.append('\n');
+    }
+
+    this.writeType(
+      pathStart.with(new MiNamedOffset(type.name(), BigInteger.ZERO)),
+      type
+    );
+    this.writer.append('\n');
+    this.writeHeaderEnd(guardName);
+  }
+
+  private void writePartMap(
+    final MiNamedOffsetPath pathStart,
+    final MiMapType map)
+    throws IOException
+  {
+    final var guardName = partGuardNameOf(this.packageNow, map.name());
+    this.writeHeaderStart(guardName);
+
+    this.writer.append(
+      "#include \"%s\"\n".formatted(this.headerNameOfType(map.type()))
+    );
+    this.writer.append('\n');
+
+    this.writeMap(
+      pathStart.with(new MiNamedOffset(map.name(), map.offset())),
+      map
+    );
+    this.writer.append('\n');
+    this.writeHeaderEnd(guardName);
+  }
+
+  private String headerNameOfType(
+    final MiTypeReference type)
+  {
+    if (Objects.equals(type.packageName(), this.packageNow.name())) {
+      return partFileNameOf(this.packageNow, type.type().name());
+    }
+    return headerNameOf(type.packageName());
+  }
+
+  private void writeHeaderStart(
+    final String guardName)
+    throws IOException
+  {
     this.writer.append("#ifndef ");
     this.writer.append(guardName);
     this.writer.append('\n');
@@ -180,13 +339,16 @@ public final class MiExtractorCPP
     this.writer.append("#include <stdint.h>\n");
     this.writer.append("#include <stddef.h>\n");
     this.writer.append("#include <assert.h>\n");
+    if (this.configuration.options().snapshots()) {
+      this.writer.append("#include <string.h>\n");
+    }
     this.writer.append('\n');
+  }
 
-    final var pathStart = this.startPath();
-    this.writePackageImports();
-    this.writePackageTypes(pathStart);
-    this.writePackageMaps(pathStart);
-
+  private void writeHeaderEnd(
+    final String guardName)
+    throws IOException
+  {
     this.writer.append("#endif // ");
     this.writer.append(guardName);
     this.writer.append('\n');
@@ -353,6 +515,354 @@ public final class MiExtractorCPP
     }
 
     this.writer.append("\n");
+
+    if (this.configuration.options().accessors() && bitFieldCount > 0L) {
+      this.writer.append("// Bit field accessors.\n");
+      for (final var field : structure.fields()) {
+        switch (field) {
+          case final MiBitFieldType bitField -> {
+            this.writeStructureBitFieldAccessors(
+              path.with(new MiNamedOffset(field.name(), field.offset())),
+              typeName,
+              structure,
+              bitField
+            );
+          }
+          case final MiTypedFieldType ignored -> {
+
+          }
+        }
+      }
+    }
+
+    this.writeStructureReset(typeName, structure);
+
+    if (this.configuration.options().snapshots()) {
+      this.writeStructureSnapshot(typeName, structure);
+    }
+  }
+
+  /**
+   * Write a reset image for a structure, and a function that restores every
+   * register in the image. Each run of contiguous registers of the same size
+   * is restored from a constant array with stores at the full width of the
+   * registers. Shadow copies of write-only registers belong to the caller,
+   * and are not updated.
+   */
+
+  private void writeStructureReset(
+    final String typeName,
+    final MiStructureType structure)
+    throws IOException
+  {
+    final var registers = MiExtractorResetImages.registersOf(structure);
+    if (registers.isEmpty()) {
+      return;
+    }
+
+    final var runs = MiExtractorResetImages.runsOf(registers);
+    this.writer.append("// Reset image.\n");
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      this.writer.append(
+        "static const %s %s__RESET_IMAGE_%d[%d] = {\n".formatted(
+          cUnsignedTypeOf(run.size()),
+          typeName,
+          Integer.valueOf(index),
+          Integer.valueOf(run.values().size())
+        )
+      );
+      this.writer.append(
+        run.values()
+          .stream()
+          .map(v -> "  " + cIntegerOf(run.size(), v))
+          .collect(Collectors.joining(",\n"))
+      );
+      this.writer.append("\n};\n\n");
+    }
+
+    this.writer.append(
+      "static inline void %1$s__reset(volatile %1$s * const s)\n"
+        .formatted(typeName)
+    );
+    this.writer.append("{\n");
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      this.writer.append(
+        """
+          for (unsigned int i = 0; i < %3$d; ++i) {
+            ((volatile %1$s *) ((volatile uint8_t *) s + 0x%4$s))[i] = %2$s__RESET_IMAGE_%5$d[i];
+          }
+        """.formatted(
+          cUnsignedTypeOf(run.size()),
+          typeName,
+          Integer.valueOf(run.values().size()),
+          run.offset().toString(16),
+          Integer.valueOf(index)
+        )
+      );
+    }
+    this.writer.append("}\n\n");
+  }
+
+  /**
+   * Write a function that copies every register in a structure that can be
+   * read without side effects into a non-volatile copy of the structure.
+   * Adjacent registers are read together with the widest aligned loads that
+   * the snapshot plan allows. Registers that are skipped are zero in the
+   * copy.
+   */
+
+  private void writeStructureSnapshot(
+    final String typeName,
+    final MiStructureType structure)
+    throws IOException
+  {
+    final var loads =
+      MiExtractorSnapshots.loadsOf(MiExtractorSnapshots.registersOf(structure));
+
+    this.writer.append("// Snapshot.\n");
+    this.writer.append(
+      "static inline void %1$s__snapshot(const volatile %1$s * const s, %1$s * const out)\n"
+        .formatted(typeName)
+    );
+    this.writer.append("{\n");
+    this.writer.append("  memset(out, 0, sizeof(%s));\n".formatted(typeName));
+    for (final var load : loads) {
+      this.writer.append(
+        """
+          { // %3$s
+            const %1$s v = *((const volatile %1$s *) ((const volatile uint8_t *) s + 0x%2$s));
+            memcpy((uint8_t *) out + 0x%2$s, &v, sizeof(v));
+          }
+        """.formatted(
+          cUnsignedTypeOf(load.size()),
+          load.offset().toString(16),
+          load.registers()
+            .stream()
+            .map(r -> r.path()
+              .stream()
+              .map(MiSimpleName::value)
+              .collect(Collectors.joining(".")))
+            .collect(Collectors.joining(", "))
+        )
+      );
+    }
+    this.writer.append("}\n\n");
+  }
+
+  private static String cUnsignedTypeOf(
+    final MiSizeOctets size)
+  {
+    return "uint%d_t".formatted(
+      Integer.valueOf(size.value().intValueExact() * 8)
+    );
+  }
+
+  private static String cIntegerOf(
+    final MiSizeOctets size,
+    final BigInteger value)
+  {
+    return "UINT%d_C(0x%s)".formatted(
+      Integer.valueOf(size.value().intValueExact() * 8),
+      value.toString(16)
+    );
+  }
+
+  /**
+   * Write accessor functions for a bit field and its ranges. Every function
+   * performs at most one volatile load and one volatile store of the bit
+   * field, at the exact width of the bit field. Multiple ranges can be
+   * updated together using {@code __update} with the OR of the
+   * {@code __FIELD_MASK} constants and the OR of the {@code __bits} values.
+   *
+   * <p>Updates read only the bits that are preserved by being written back;
+   * if there are none, updates are plain stores. Bit fields containing
+   * write-only bits are never read, and are instead accessed through a
+   * caller-provided shadow copy; updates carry over only the read-write and
+   * write-only bits of the shadow. Write functions are omitted for bit fields
+   * and ranges that cannot be written.</p>
+   */
+
+  private void writeStructureBitFieldAccessors(
+    final MiNamedOffsetPath path,
+    final String typeName,
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws IOException, MiExtractorException
+  {
+    final var t = this.cTypeOfBitField(structure, bitField);
+    final var f = path.toCName();
+    final var member = bitField.name().value();
+    final var shadowed = MiExtractorAccess.isShadowed(bitField);
+    final var preserved =
+      shadowed
+        ? MiExtractorAccess.shadowPreservedMaskOf(bitField)
+        : MiExtractorAccess.preservedMaskOf(bitField);
+
+    if (shadowed) {
+      this.writer.append(
+        """
+        static inline %1$s %2$s__read(const %1$s * const shadow)
+        {
+          return *shadow;
+        }
+
+        """.formatted(t, f)
+      );
+    } else {
+      this.writer.append(
+        """
+        static inline %1$s %2$s__read(const volatile %3$s * const s)
+        {
+          return s->%4$s;
+        }
+
+        """.formatted(t, f, typeName, member)
+      );
+    }
+
+    if (MiExtractorAccess.isWritable(bitField)) {
+      if (shadowed) {
+        this.writer.append(
+          """
+          static inline void %2$s__write(volatile %3$s * const s, %1$s * const shadow, const %1$s value)
+          {
+            *shadow = value;
+            s->%4$s = value;
+          }
+
+          static inline void %2$s__update(volatile %3$s * const s, %1$s * const shadow, const %1$s mask, const %1$s bits)
+          {
+            *shadow = (%1$s) ((*shadow & (%1$s) (%5$s & ~mask)) | (bits & mask));
+            s->%4$s = *shadow;
+          }
+
+          """.formatted(t, f, typeName, member, "0x" + preserved.toString(16))
+        );
+      } else {
+        this.writer.append(
+          """
+          static inline void %2$s__write(volatile %3$s * const s, const %1$s value)
+          {
+            s->%4$s = value;
+          }
+
+          """.formatted(t, f, typeName, member)
+        );
+
+        if (preserved.signum() == 0) {
+          this.writer.append(
+            """
+            static inline void %2$s__update(volatile %3$s * const s, const %1$s mask, const %1$s bits)
+            {
+              s->%4$s = (%1$s) (bits & mask);
+            }
+
+            """.formatted(t, f, typeName, member)
+          );
+        } else if (preserved.equals(MiExtractorAccess.widthMaskOf(bitField))) {
+          this.writer.append(
+            """
+            static inline void %2$s__update(volatile %3$s * const s, const %1$s mask, const %1$s bits)
+            {
+              const %1$s r = s->%4$s;
+              s->%4$s = (%1$s) ((r & (%1$s) ~mask) | (bits & mask));
+            }
+
+            """.formatted(t, f, typeName, member)
+          );
+        } else {
+          this.writer.append(
+            """
+            static inline void %2$s__update(volatile %3$s * const s, const %1$s mask, const %1$s bits)
+            {
+              const %1$s r = s->%4$s;
+              s->%4$s = (%1$s) ((r & (%1$s) (%5$s & ~mask)) | (bits & mask));
+            }
+
+            """.formatted(t, f, typeName, member, "0x" + preserved.toString(16))
+          );
+        }
+      }
+    }
+
+    for (final var range : bitField.ranges()) {
+      final var r =
+        path.with(new MiNamedOffset(range.name(), BigInteger.ZERO))
+          .toCName();
+
+      this.writer.append(
+        """
+        static inline %1$s %2$s__extract(const %1$s r)
+        {
+          return (%1$s) ((r >> %2$s__SHIFT) & %2$s__MASK);
+        }
+
+        """.formatted(t, r)
+      );
+
+      if (shadowed) {
+        this.writer.append(
+          """
+          static inline %1$s %2$s__get(const %1$s * const shadow)
+          {
+            return %2$s__extract(%3$s__read(shadow));
+          }
+
+          """.formatted(t, r, f)
+        );
+      } else {
+        this.writer.append(
+          """
+          static inline %1$s %2$s__get(const volatile %3$s * const s)
+          {
+            return %2$s__extract(%4$s__read(s));
+          }
+
+          """.formatted(t, r, typeName, f)
+        );
+      }
+
+      if (range.access().isWritable()) {
+        this.writer.append(
+          """
+          static inline %1$s %2$s__bits(const %1$s value)
+          {
+            return (%1$s) ((value & %2$s__MASK) << %2$s__SHIFT);
+          }
+
+          static inline %1$s %2$s__modify(const %1$s r, const %1$s value)
+          {
+            return (%1$s) ((r & (%1$s) ~%2$s__FIELD_MASK) | %2$s__bits(value));
+          }
+
+          """.formatted(t, r)
+        );
+
+        if (shadowed) {
+          this.writer.append(
+            """
+            static inline void %2$s__set(volatile %3$s * const s, %1$s * const shadow, const %1$s value)
+            {
+              %4$s__update(s, shadow, %2$s__FIELD_MASK, %2$s__bits(value));
+            }
+
+            """.formatted(t, r, typeName, f)
+          );
+        } else {
+          this.writer.append(
+            """
+            static inline void %2$s__set(volatile %3$s * const s, const %1$s value)
+            {
+              %4$s__update(s, %2$s__FIELD_MASK, %2$s__bits(value));
+            }
+
+            """.formatted(t, r, typeName, f)
+          );
+        }
+      }
+    }
   }
 
   private void writeStructureBitFieldConstants(
@@ -397,6 +907,16 @@ public final class MiExtractorCPP
         "0b" + mask.toString(2)
       )
     );
+
+    if (this.configuration.options().accessors()) {
+      this.writer.append(
+        "#define %s %s\n".formatted(
+          path.toCName() + "__FIELD_MASK",
+          "0b" + mask.shiftLeft(range.range().lower().intValueExact())
+            .toString(2)
+        )
+      );
+    }
   }
 
   private void writeStructureField(
@@ -449,23 +969,29 @@ public final class MiExtractorCPP
     throws IOException, MiExtractorException
   {
     this.writer.append("  ");
+    this.writer.append(this.cTypeOfBitField(structure, bitField));
+    this.writer.append(" ");
+    this.writer.append(bitField.name().value());
+    this.writer.append(";\n");
+  }
 
+  private String cTypeOfBitField(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws MiExtractorException
+  {
     final var size = bitField.size();
     if (Objects.equals(size, MiSizeOctets.of(1L))) {
-      this.writer.append("uint8_t");
+      return "uint8_t";
     } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
-      this.writer.append("uint16_t");
+      return "uint16_t";
     } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
-      this.writer.append("uint32_t");
+      return "uint32_t";
     } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
-      this.writer.append("uint64_t");
+      return "uint64_t";
     } else {
       throw this.errorUnsupportedBitFieldType(structure, bitField);
     }
-
-    this.writer.append(" ");
-    this.writer.append(bitField.name().value());
-    this.writer.append(";\n");
   }
 
   private static String typeNameOf(
@@ -559,6 +1085,31 @@ public final class MiExtractorCPP
     );
   }
 
+  private static String partGuardNameOf(
+    final MiPackageType pack,
+    final MiSimpleName name)
+  {
+    return "%s__%s_H".formatted(
+      pack.name()
+        .toString()
+        .replace('.', '_')
+        .toUpperCase(Locale.ROOT),
+      name.value()
+        .replace('-', '_')
+        .toUpperCase(Locale.ROOT)
+    );
+  }
+
+  private static String partFileNameOf(
+    final MiPackageType pack,
+    final MiSimpleName name)
+  {
+    return "%s__%s.h".formatted(
+      pack.name().toString().replace('.', '_'),
+      name.value()
+    );
+  }
+
   private MiExtractorException errorUnsupportedScalarType(
     final MiScalarType scalar)
   {
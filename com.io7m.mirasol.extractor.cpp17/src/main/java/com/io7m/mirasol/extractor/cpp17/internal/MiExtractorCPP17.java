@@ -0,0 +1,730 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.cpp17.internal;
+
+import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
+import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
+import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorResetImages;
+import com.io7m.mirasol.extractor.api.MiExtractorType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_SIGNED;
+import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_UNSIGNED;
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.FIELD;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.TYPE;
+
+/**
+ * An extractor for C++17.
+ *
+ * <p>Each package produces a header containing a {@code types} namespace
+ * that holds a layout for each type, and a {@code maps} namespace that holds
+ * a register for each bit field and scalar field of each map. Registers and
+ * fields are described entirely by types and {@code constexpr} values using
+ * the templates in the shared support header, so that multiple field writes
+ * fold into a single volatile store, and field values are checked against
+ * the widths of their bit ranges at compile time.</p>
+ */
+
+public final class MiExtractorCPP17
+  implements MiExtractorType
+{
+  private static final OpenOption[] OPEN_OPTIONS = {
+    StandardOpenOption.CREATE,
+    StandardOpenOption.WRITE,
+    StandardOpenOption.TRUNCATE_EXISTING,
+  };
+
+  private static final String SUPPORT_HEADER =
+    "mirasol_cpp17.hpp";
+
+  private final MiExtractorConfiguration configuration;
+  private final MiStrings strings;
+  private BufferedWriter writer;
+  private MiPackageType packageNow;
+
+  /**
+   * An extractor for C++17.
+   *
+   * @param inConfiguration The configuration
+   */
+
+  public MiExtractorCPP17(
+    final MiExtractorConfiguration inConfiguration)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.strings =
+      MiStrings.create(Locale.getDefault());
+  }
+
+  @Override
+  public void execute()
+    throws MiExtractorException
+  {
+    final var exceptionTracker =
+      new ExceptionTracker<MiExtractorException>();
+
+    for (final var pack : this.configuration.packageList()) {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
+        this.packageNow = pack;
+        this.executePackage();
+      } catch (final MiExtractorException e) {
+        exceptionTracker.addException(e);
+      }
+    }
+
+    exceptionTracker.throwIfNecessary();
+  }
+
+  private void executePackage()
+    throws MiExtractorException
+  {
+    final var outputDirectory =
+      this.configuration.outputDirectory();
+    final var path =
+      outputDirectory.resolve(fileNameOf(this.packageNow.name()));
+
+    try {
+      Files.createDirectories(outputDirectory);
+      this.writeSupportHeader();
+
+      this.writer = Files.newBufferedWriter(path, OPEN_OPTIONS);
+      try (var w = this.writer) {
+        this.writePackage();
+      }
+
+      if (this.configuration.options().writeDepfiles()) {
+        MiExtractorDepfiles.writeDepfileForPackage(
+          path,
+          this.packageNow,
+          this.configuration.packagesAll()
+        );
+      }
+    } catch (final IOException e) {
+      throw this.errorIO(this.packageNow, e);
+    }
+  }
+
+  /**
+   * Write the support header shared by all packages. The header is identical
+   * for every package, so every package simply (re)writes it.
+   */
+
+  private void writeSupportHeader()
+    throws IOException
+  {
+    final var path =
+      this.configuration.outputDirectory()
+        .resolve(SUPPORT_HEADER);
+
+    try (var stream =
+           MiExtractorCPP17.class.getResourceAsStream(
+             "/com/io7m/mirasol/extractor/cpp17/internal/" + SUPPORT_HEADER)) {
+      if (stream == null) {
+        throw new IOException("Missing resource: " + SUPPORT_HEADER);
+      }
+      Files.copy(stream, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private MiExtractorException errorIO(
+    final MiPackageType pack,
+    final IOException e)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(PACKAGE),
+      pack.name().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_IO),
+      e,
+      "error-io",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private void writePackage()
+    throws IOException, MiExtractorException
+  {
+    final var guardName = guardNameOf(this.packageNow);
+
+    this.writer.append("#ifndef ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+    this.writer.append("#define ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+    this.writer.append('\n');
+
+    this.writer.append("// Automatically generated. DO NOT EDIT.\n");
+    this.writer.append("// Extractor: com.io7m.mirasol.extractor.cpp17\n");
+    this.writer.append("// Package: ");
+    this.writer.append(this.packageNow.name().toString());
+    this.writer.append('\n');
+    this.writer.append('\n');
+
+    this.writer.append("#include \"%s\"\n".formatted(SUPPORT_HEADER));
+    for (final var importE : this.packageNow.imports()) {
+      this.writer.append(
+        "#include \"%s\"\n".formatted(fileNameOf(importE.packageName()))
+      );
+    }
+    this.writer.append('\n');
+
+    this.writePackageTypes();
+    this.writePackageMaps();
+
+    this.writer.append("#endif // ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+  }
+
+  private void writePackageTypes()
+    throws IOException, MiExtractorException
+  {
+    this.writer.append(
+      "namespace %s::types {\n\n"
+        .formatted(namespaceOf(this.packageNow.name()))
+    );
+
+    for (final var type : this.packageNow.typesTopological()) {
+      switch (type) {
+        case final MiScalarType scalar -> {
+          this.writeScalar(scalar);
+        }
+        case final MiStructureType structure -> {
+          this.writeStructure(structure);
+        }
+      }
+    }
+
+    this.writer.append(
+      "} // namespace %s::types\n\n"
+        .formatted(namespaceOf(this.packageNow.name()))
+    );
+  }
+
+  private void writePackageMaps()
+    throws IOException
+  {
+    this.writer.append(
+      "namespace %s::maps {\n\n"
+        .formatted(namespaceOf(this.packageNow.name()))
+    );
+
+    for (final var map : this.packageNow.maps()) {
+      this.writeMap(map);
+    }
+
+    this.writer.append(
+      "} // namespace %s::maps\n\n"
+        .formatted(namespaceOf(this.packageNow.name()))
+    );
+  }
+
+  private void writeScalar(
+    final MiScalarType scalar)
+    throws IOException, MiExtractorException
+  {
+    this.writer.append(
+      "using %s = %s;\n\n".formatted(
+        scalar.name().value(),
+        this.cppTypeOfScalar(scalar)
+      )
+    );
+  }
+
+  /**
+   * Write the layout of a structure. Bit fields and scalar fields become
+   * register layouts; bit ranges become field descriptors within them.
+   * Structure-typed fields inherit the layout of their type.
+   */
+
+  private void writeStructure(
+    final MiStructureType structure)
+    throws IOException, MiExtractorException
+  {
+    this.writer.append("struct ");
+    this.writer.append(structure.name().value());
+    this.writer.append("\n{\n");
+
+    for (final var field : structure.fields()) {
+      final var name = field.name().value();
+
+      switch (field) {
+        case final MiBitFieldType bitField -> {
+          this.writer.append(
+            """
+              struct %s
+              {
+                using value_type = %s;
+                static constexpr std::size_t offset = %s;
+                static constexpr ::mirasol::access access_mode = %s;
+                static constexpr value_type preserve_mask = %s;
+                static constexpr bool shadowed = %s;
+            """.formatted(
+              name,
+              this.cppTypeOfBitField(structure, bitField),
+              hexOf(field.offset()),
+              accessOf(bitField.access()),
+              hexOf(
+                MiExtractorAccess.isShadowed(bitField)
+                  ? MiExtractorAccess.shadowPreservedMaskOf(bitField)
+                  : MiExtractorAccess.preservedMaskOf(bitField)
+              ),
+              MiExtractorAccess.isShadowed(bitField)
+            )
+          );
+
+          for (final var range : bitField.ranges()) {
+            final var lower =
+              range.range().lower();
+            final var width =
+              range.range().upper().subtract(lower).add(BigInteger.ONE);
+
+            this.writer.append(
+              "    using %s = ::mirasol::field<%s, %s, %s, %s>;\n".formatted(
+                range.name().value(),
+                name,
+                lower,
+                width,
+                accessOf(range.access())
+              )
+            );
+          }
+          this.writer.append("  };\n");
+        }
+
+        case final MiTypedFieldType typedField -> {
+          switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              final var access = typedField.access();
+              this.writer.append(
+                """
+                  struct %s
+                  {
+                    using value_type = %s;
+                    static constexpr std::size_t offset = %s;
+                    static constexpr ::mirasol::access access_mode = %s;
+                    static constexpr value_type preserve_mask = %s;
+                    static constexpr bool shadowed = %s;
+                  };
+                """.formatted(
+                  name,
+                  typeNameOf(typedField.type()),
+                  hexOf(field.offset()),
+                  accessOf(access),
+                  access.isPreservedByWriteBack()
+                  || access == MiAccess.WRITE_ONLY
+                    ? "static_cast<value_type>(~value_type(0))"
+                    : "0x0",
+                  access == MiAccess.WRITE_ONLY
+                )
+              );
+            }
+            case final MiStructureType ignored -> {
+              this.writer.append(
+                """
+                  struct %s : %s
+                  {
+                    static constexpr std::size_t offset = %s;
+                  };
+                """.formatted(
+                  name,
+                  typeNameOf(typedField.type()),
+                  hexOf(field.offset())
+                )
+              );
+            }
+          }
+        }
+      }
+    }
+
+    this.writer.append("};\n\n");
+  }
+
+  private void writeMap(
+    final MiMapType map)
+    throws IOException
+  {
+    final var type = map.type();
+    final var name = map.name().value();
+
+    switch (type.type()) {
+      case final MiScalarType ignored -> {
+        this.writer.append(
+          "using %s = ::mirasol::reg<::mirasol::scalar<%s>, %s>;\n\n"
+            .formatted(name, typeNameOf(type), hexOf(map.offset()))
+        );
+      }
+      case final MiStructureType structure -> {
+        this.writeMapStructure(
+          1,
+          name,
+          typeNameOf(type),
+          structure,
+          map.offset()
+        );
+        this.writer.append('\n');
+      }
+    }
+  }
+
+  /**
+   * Write registers for every bit field and scalar field of the given
+   * structure located at the given address, recursing into structure-typed
+   * fields.
+   */
+
+  private void writeMapStructure(
+    final int depth,
+    final String name,
+    final String layoutName,
+    final MiStructureType structure,
+    final BigInteger address)
+    throws IOException
+  {
+    final var outer = "  ".repeat(depth - 1);
+    final var inner = "  ".repeat(depth);
+
+    this.writer.append(outer);
+    this.writer.append("struct ");
+    this.writer.append(name);
+    this.writer.append('\n');
+    this.writer.append(outer);
+    this.writer.append("{\n");
+
+    this.writer.append(inner);
+    this.writer.append(
+      "static constexpr std::uintptr_t address = %s;\n"
+        .formatted(hexOf(address))
+    );
+
+    for (final var field : structure.fields()) {
+      final var fieldName = field.name().value();
+      final var fieldAddress = address.add(field.offset());
+      final var reg =
+        "using %s = ::mirasol::reg<%s::%s, %s>;\n".formatted(
+          fieldName,
+          layoutName,
+          fieldName,
+          hexOf(fieldAddress)
+        );
+
+      switch (field) {
+        case final MiBitFieldType ignored -> {
+          this.writer.append(inner);
+          this.writer.append(reg);
+        }
+        case final MiTypedFieldType typedField -> {
+          switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              this.writer.append(inner);
+              this.writer.append(reg);
+            }
+            case final MiStructureType fieldStructure -> {
+              this.writeMapStructure(
+                depth + 1,
+                fieldName,
+                typeNameOf(typedField.type()),
+                fieldStructure,
+                fieldAddress
+              );
+            }
+          }
+        }
+      }
+    }
+
+    if (depth == 1) {
+      this.writeMapReset(inner, structure);
+    }
+
+    this.writer.append(outer);
+    this.writer.append("};\n");
+  }
+
+  /**
+   * Write a reset image and a function that restores every register in the
+   * image. Each run of contiguous registers of the same size is restored
+   * from a constant array with stores at the full width of the registers.
+   * Shadowed registers are restored individually so that their shadow
+   * copies are updated.
+   */
+
+  private void writeMapReset(
+    final String indent,
+    final MiStructureType structure)
+    throws IOException
+  {
+    final var registers =
+      MiExtractorResetImages.registersOf(structure);
+
+    if (registers.isEmpty()) {
+      return;
+    }
+
+    final var runs =
+      MiExtractorResetImages.runsOf(
+        registers.stream()
+          .filter(r -> !r.shadowed())
+          .toList()
+      );
+
+    this.writer.append('\n');
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      this.writer.append(indent);
+      this.writer.append(
+        "static constexpr %s reset_image_%d[%d] = {%s};\n".formatted(
+          cppUnsignedTypeOf(run.size()),
+          Integer.valueOf(index),
+          Integer.valueOf(run.values().size()),
+          run.values()
+            .stream()
+            .map(MiExtractorCPP17::hexOf)
+            .collect(Collectors.joining(", "))
+        )
+      );
+    }
+
+    this.writer.append(indent);
+    this.writer.append("static void reset() noexcept\n");
+    this.writer.append(indent);
+    this.writer.append("{\n");
+
+    for (int index = 0; index < runs.size(); ++index) {
+      final var run = runs.get(index);
+      this.writer.append(indent);
+      this.writer.append(
+        "  ::mirasol::restore<%s, address + %s>(reset_image_%d);\n".formatted(
+          cppUnsignedTypeOf(run.size()),
+          hexOf(run.offset()),
+          Integer.valueOf(index)
+        )
+      );
+    }
+
+    for (final var register : registers) {
+      if (register.shadowed()) {
+        this.writer.append(indent);
+        this.writer.append(
+          "  %s::write_raw(%s);\n".formatted(
+            register.path()
+              .stream()
+              .map(MiSimpleName::value)
+              .collect(Collectors.joining("::")),
+            hexOf(register.value())
+          )
+        );
+      }
+    }
+
+    this.writer.append(indent);
+    this.writer.append("}\n");
+  }
+
+  private static String cppUnsignedTypeOf(
+    final MiSizeOctets size)
+  {
+    return "std::uint%d_t".formatted(
+      Integer.valueOf(size.value().intValueExact() * 8)
+    );
+  }
+
+  private String cppTypeOfScalar(
+    final MiScalarType scalar)
+    throws MiExtractorException
+  {
+    final var size = scalar.size();
+    final String prefix;
+    switch (scalar.kind()) {
+      case INTEGER_SIGNED -> prefix = "std::int";
+      case INTEGER_UNSIGNED -> prefix = "std::uint";
+      default -> throw this.errorUnsupportedScalarType(scalar);
+    }
+
+    if (Objects.equals(size, MiSizeOctets.of(1L))) {
+      return prefix + "8_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
+      return prefix + "16_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
+      return prefix + "32_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
+      return prefix + "64_t";
+    } else {
+      throw this.errorUnsupportedScalarType(scalar);
+    }
+  }
+
+  private String cppTypeOfBitField(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws MiExtractorException
+  {
+    final var size = bitField.size();
+    if (Objects.equals(size, MiSizeOctets.of(1L))) {
+      return "std::uint8_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
+      return "std::uint16_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
+      return "std::uint32_t";
+    } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
+      return "std::uint64_t";
+    } else {
+      throw this.errorUnsupportedBitFieldType(structure, bitField);
+    }
+  }
+
+  private static String hexOf(
+    final BigInteger value)
+  {
+    return "0x" + value.toString(16).toUpperCase(Locale.ROOT);
+  }
+
+  private static String accessOf(
+    final MiAccess access)
+  {
+    return "::mirasol::access::%s"
+      .formatted(access.name().toLowerCase(Locale.ROOT));
+  }
+
+  private static String namespaceOf(
+    final MiPackageName packageName)
+  {
+    return packageName.toString().replace(".", "::");
+  }
+
+  private static String typeNameOf(
+    final MiTypeReference type)
+  {
+    return "::%s::types::%s".formatted(
+      namespaceOf(type.packageName()),
+      type.type().name().value()
+    );
+  }
+
+  private static String guardNameOf(
+    final MiPackageType pack)
+  {
+    return "%s_HPP".formatted(
+      pack.name()
+        .toString()
+        .replace('.', '_')
+        .toUpperCase(Locale.ROOT)
+    );
+  }
+
+  private static String fileNameOf(
+    final MiPackageName packageName)
+  {
+    return "%s.hpp".formatted(
+      packageName.toString().replace('.', '_')
+    );
+  }
+
+  private MiExtractorException errorUnsupportedScalarType(
+    final MiScalarType scalar)
+  {
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageNow.name().toString()
+    );
+    attributes.put(
+      this.strings.format(TYPE),
+      scalar.name().value()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_UNSUPPORTED_SCALAR_TYPE),
+      "error-unsupported-scalar-type",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private MiExtractorException errorUnsupportedBitFieldType(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+  {
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageNow.name().toString()
+    );
+    attributes.put(
+      this.strings.format(TYPE),
+      structure.name().value()
+    );
+    attributes.put(
+      this.strings.format(FIELD),
+      bitField.name().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_UNSUPPORTED_BIT_FIELD_TYPE),
+      "error-unsupported-bit-field-type",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
@@ -0,0 +1,264 @@
+#ifndef MIRASOL_CPP17_HPP
+#define MIRASOL_CPP17_HPP
+
+// Automatically generated. DO NOT EDIT.
+// Extractor: com.io7m.mirasol.extractor.cpp17
+//
+// Support templates shared by all headers produced by the C++17 extractor.
+// Registers and fields are described entirely by types and constexpr values,
+// so that with optimization enabled every operation compiles to the same
+// load, mask, shift, and store instructions as hand-written code.
+
+#include <cstddef>
+#include <cstdint>
+#include <type_traits>
+
+namespace mirasol {
+
+// The access semantics of a register or field.
+enum class access
+{
+  read_write,
+  read_only,
+  write_only,
+  write_one_to_clear,
+  read_to_clear
+};
+
+constexpr bool readable(const access a) noexcept
+{
+  return a != access::write_only;
+}
+
+constexpr bool writable(const access a) noexcept
+{
+  return a == access::read_write
+    || a == access::write_only
+    || a == access::write_one_to_clear;
+}
+
+// A layout for a register that holds a single value of type T.
+template <typename T>
+struct scalar
+{
+  using value_type = T;
+  static constexpr std::size_t offset = 0;
+  static constexpr access access_mode = access::read_write;
+  static constexpr value_type preserve_mask = static_cast<value_type>(~T(0));
+  static constexpr bool shadowed = false;
+};
+
+namespace detail {
+
+// Deliberately not constexpr: calling this during constant evaluation
+// is a compile-time error.
+inline void field_value_out_of_range() noexcept {}
+
+template <typename T, T... Masks>
+constexpr bool masks_disjoint() noexcept
+{
+  T seen = 0;
+  bool ok = true;
+  ((ok = ok && ((seen & Masks) == 0), seen = static_cast<T>(seen | Masks)), ...);
+  return ok;
+}
+
+} // namespace detail
+
+template <typename Field>
+struct field_value
+{
+  using field_type = Field;
+  using layout_type = typename Field::layout_type;
+  using value_type = typename Field::value_type;
+  static constexpr value_type mask = Field::mask;
+
+  // The value, already shifted into position within the register.
+  value_type bits;
+};
+
+// A range of Width bits starting at bit Lsb within the register described by
+// Layout, with the given access semantics.
+template <
+  typename Layout,
+  unsigned Lsb,
+  unsigned Width,
+  access Access = access::read_write>
+struct field
+{
+  using layout_type = Layout;
+  using value_type = typename Layout::value_type;
+
+  static_assert(std::is_unsigned_v<value_type>,
+    "Fields must be declared within unsigned registers.");
+  static_assert(Width > 0,
+    "Fields must be at least one bit wide.");
+  static_assert(Lsb + Width <= sizeof(value_type) * 8,
+    "Fields must lie within their register.");
+
+  static constexpr access access_mode = Access;
+  static constexpr unsigned lsb = Lsb;
+  static constexpr unsigned width = Width;
+  static constexpr value_type max =
+    (Width == sizeof(value_type) * 8)
+      ? static_cast<value_type>(~value_type(0))
+      : static_cast<value_type>((value_type(1) << Width) - 1u);
+  static constexpr value_type mask =
+    static_cast<value_type>(max << Lsb);
+
+  // A field value checked against the width of the field at compile time.
+  template <value_type V>
+  static constexpr field_value<field> value() noexcept
+  {
+    static_assert(V <= max, "Value does not fit in the field.");
+    return {static_cast<value_type>(V << Lsb)};
+  }
+
+  // A field value. Out of range values are a compile-time error in constant
+  // expressions, and are truncated to the width of the field otherwise.
+  static constexpr field_value<field> of(const value_type v) noexcept
+  {
+    if (v > max) {
+      detail::field_value_out_of_range();
+    }
+    return {static_cast<value_type>((v & max) << Lsb)};
+  }
+
+  // Extract the value of this field from a register value.
+  static constexpr value_type extract(const value_type r) noexcept
+  {
+    return static_cast<value_type>((r >> Lsb) & max);
+  }
+};
+
+// A register described by Layout located at Address. The register inherits
+// the field declarations of its layout.
+//
+// Registers containing write-only bits are never read by modify(); the most
+// recently written value is kept in a shadow copy in RAM instead, and get()
+// reads write-only fields from the shadow copy (readable fields of such
+// registers are still read from the register). Bits that are not preserved
+// by being written back (write-one-to-clear, read-only, and read-to-clear
+// bits) are written as zero by modify(), and if no bits are preserved at
+// all, modify() does not read the register. For shadowed registers,
+// preserve_mask gives the bits carried over from the shadow copy.
+template <typename Layout, std::uintptr_t Address>
+struct reg : Layout
+{
+  using layout_type = Layout;
+  using value_type = typename Layout::value_type;
+  static constexpr std::uintptr_t address = Address;
+
+  static volatile value_type& ref() noexcept
+  {
+    return *reinterpret_cast<volatile value_type*>(Address);
+  }
+
+  // Read the whole register with a single volatile load.
+  static value_type read() noexcept
+  {
+    static_assert(readable(Layout::access_mode),
+      "The register is not readable.");
+    return ref();
+  }
+
+  // Write the whole register with a single volatile store.
+  static void write_raw(const value_type v) noexcept
+  {
+    static_assert(writable(Layout::access_mode),
+      "The register is not writable.");
+    store(v);
+  }
+
+  // Read a single field with a single volatile load. Write-only fields are
+  // read from the shadow copy.
+  template <typename Field>
+  static value_type get() noexcept
+  {
+    static_assert(std::is_same_v<typename Field::layout_type, Layout>,
+      "The field does not belong to this register.");
+    if constexpr (readable(Field::access_mode)) {
+      return Field::extract(ref());
+    } else {
+      return Field::extract(shadow);
+    }
+  }
+
+  // Write the given field values with a single volatile store. Bits not
+  // covered by any of the given fields are written as zero.
+  template <typename... Values>
+  static void write(const Values... values) noexcept
+  {
+    check<Values...>();
+    store(static_cast<value_type>((value_type(0) | ... | values.bits)));
+  }
+
+  // Update the given field values with at most a single volatile load and a
+  // single volatile store. Bits not covered by any of the given fields are
+  // preserved if their access semantics allow it.
+  template <typename... Values>
+  static void modify(const Values... values) noexcept
+  {
+    check<Values...>();
+    constexpr value_type mask =
+      static_cast<value_type>((value_type(0) | ... | Values::mask));
+    constexpr value_type keep =
+      static_cast<value_type>(Layout::preserve_mask & ~mask);
+    const value_type bits =
+      static_cast<value_type>((value_type(0) | ... | values.bits));
+
+    if constexpr (Layout::shadowed) {
+      store(static_cast<value_type>((shadow & keep) | bits));
+    } else if constexpr (keep == 0) {
+      ref() = bits;
+    } else {
+      const value_type r = ref();
+      ref() = static_cast<value_type>((r & keep) | bits);
+    }
+  }
+
+  // Update a single field.
+  template <typename Field>
+  static void set(const value_type v) noexcept
+  {
+    modify(Field::of(v));
+  }
+
+private:
+  static inline value_type shadow = 0;
+
+  static void store(const value_type v) noexcept
+  {
+    if constexpr (Layout::shadowed) {
+      shadow = v;
+    }
+    ref() = v;
+  }
+
+  template <typename... Values>
+  static constexpr void check() noexcept
+  {
+    static_assert(sizeof...(Values) > 0,
+      "At least one field value is required.");
+    static_assert((std::is_same_v<typename Values::layout_type, Layout> && ...),
+      "A field does not belong to this register.");
+    static_assert((writable(Values::field_type::access_mode) && ...),
+      "A field is not writable.");
+    static_assert(detail::masks_disjoint<value_type, Values::mask...>(),
+      "Fields overlap.");
+  }
+};
+
+// Restore Count contiguous registers of type T starting at Address from a
+// constant image, with one volatile store per register.
+template <typename T, std::uintptr_t Address, std::size_t Count>
+inline void restore(const T (&image)[Count]) noexcept
+{
+  for (std::size_t i = 0; i < Count; ++i) {
+    reinterpret_cast<volatile T*>(Address)[i] = image[i];
+  }
+}
+
+} // namespace mirasol
+
+#endif // MIRASOL_CPP17_HPP
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.java;
+
+import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorType;
+import com.io7m.mirasol.extractor.java.internal.MiExtractorJava;
+
+/**
+ * An extractor for Java.
+ */
+
+public final class MiExtractorsJava
+  implements MiExtractorFactoryType
+{
+  /**
+   * An extractor for Java.
+   */
+
+  public MiExtractorsJava()
+  {
+
+  }
+
+  @Override
+  public String name()
+  {
+    return "com.io7m.mirasol.extractor.java";
+  }
+
+  @Override
+  public String description()
+  {
+    return "An extractor that produces Java sources using the foreign memory API";
+  }
+
+  @Override
+  public String language()
+  {
+    return "Java 22";
+  }
+
+  @Override
+  public MiExtractorType create(
+    final MiExtractorConfiguration configuration)
+  {
+    return new MiExtractorJava(configuration);
+  }
+}
@@ -0,0 +1,1019 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.java.internal;
+
+import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
+import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
+import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_SIGNED;
+import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_UNSIGNED;
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.FIELD;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.TYPE;
+
+/**
+ * An extractor for Java.
+ *
+ * <p>Each structure and each map produces a Java class in a package named
+ * after the package that declares it. Structure classes contain a
+ * {@code StructLayout} constant, a {@code VarHandle} constant for each bit
+ * field and scalar field, and static accessor methods. Accessors take a
+ * memory segment and the offset of the structure within that segment, so
+ * that nested structures are accessed by adding offsets rather than by
+ * allocating slices. Registers are accessed in opaque mode, so that every
+ * read and write in the source is performed exactly once, in order, with a
+ * single load or store and no fences. Bit range accessors shift and mask
+ * {@code int} or {@code long} values, and never box or allocate.</p>
+ *
+ * <p>The produced sources use the foreign memory API as finalized in Java
+ * 22.</p>
+ */
+
+public final class MiExtractorJava
+  implements MiExtractorType
+{
+  private static final OpenOption[] OPEN_OPTIONS = {
+    StandardOpenOption.CREATE,
+    StandardOpenOption.WRITE,
+    StandardOpenOption.TRUNCATE_EXISTING,
+  };
+
+  private static final List<String> IMPORTS = List.of(
+    "java.io.IOException",
+    "java.lang.foreign.Arena",
+    "java.lang.foreign.MemoryLayout",
+    "java.lang.foreign.MemorySegment",
+    "java.lang.foreign.StructLayout",
+    "java.lang.foreign.ValueLayout",
+    "java.lang.invoke.VarHandle",
+    "java.nio.channels.FileChannel"
+  );
+
+  private static final MiPrimitive PRIMITIVE_8 =
+    new MiPrimitive(
+      "byte", "JAVA_BYTE", "int", "Byte.toUnsignedInt((byte) %s)", "(byte) (%s)");
+  private static final MiPrimitive PRIMITIVE_16 =
+    new MiPrimitive(
+      "short", "JAVA_SHORT", "int", "Short.toUnsignedInt((short) %s)", "(short) (%s)");
+  private static final MiPrimitive PRIMITIVE_32 =
+    new MiPrimitive(
+      "int", "JAVA_INT", "int", "((int) %s)", "%s");
+  private static final MiPrimitive PRIMITIVE_64 =
+    new MiPrimitive(
+      "long", "JAVA_LONG", "long", "((long) %s)", "%s");
+
+  private final MiExtractorConfiguration configuration;
+  private final MiStrings strings;
+  private StringBuilder text;
+  private MiPackageType packageNow;
+
+  /**
+   * An extractor for Java.
+   *
+   * @param inConfiguration The configuration
+   */
+
+  public MiExtractorJava(
+    final MiExtractorConfiguration inConfiguration)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.strings =
+      MiStrings.create(Locale.getDefault());
+  }
+
+  @Override
+  public void execute()
+    throws MiExtractorException
+  {
+    final var exceptionTracker =
+      new ExceptionTracker<MiExtractorException>();
+
+    for (final var pack : this.configuration.packageList()) {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
+        this.packageNow = pack;
+        this.executePackage();
+      } catch (final MiExtractorException e) {
+        exceptionTracker.addException(e);
+      }
+    }
+
+    exceptionTracker.throwIfNecessary();
+  }
+
+  private void executePackage()
+    throws MiExtractorException
+  {
+    try {
+      for (final var type : this.packageNow.typesTopological()) {
+        if (type instanceof final MiStructureType structure) {
+          this.text = new StringBuilder();
+          this.writeStructure(structure);
+          this.writeClass(structure.name().value());
+        }
+      }
+
+      for (final var map : this.packageNow.maps()) {
+        this.text = new StringBuilder();
+        this.writeMap(map);
+        this.writeClass(map.name().value());
+      }
+    } catch (final IOException e) {
+      throw this.errorIO(this.packageNow, e);
+    }
+  }
+
+  /**
+   * Write the class held in the text buffer to a file, preceded by a header
+   * that imports exactly the classes that the text uses.
+   */
+
+  private void writeClass(
+    final String name)
+    throws IOException
+  {
+    final var packageName =
+      javaPackageOf(this.packageNow.name());
+    final var directory =
+      this.configuration.outputDirectory()
+        .resolve(packageName.replace('.', '/'));
+    final var path =
+      directory.resolve(identifierOf(name) + ".java");
+
+    Files.createDirectories(directory);
+    try (var writer = Files.newBufferedWriter(path, OPEN_OPTIONS)) {
+      writer.append("// Automatically generated. DO NOT EDIT.\n");
+      writer.append("// Extractor: com.io7m.mirasol.extractor.java\n");
+      writer.append("// Package: ");
+      writer.append(this.packageNow.name().toString());
+      writer.append('\n');
+      writer.append('\n');
+      writer.append("package ");
+      writer.append(packageName);
+      writer.append(";\n\n");
+
+      for (final var importName : IMPORTS) {
+        final var simpleName =
+          importName.substring(importName.lastIndexOf('.') + 1);
+        if (this.text.indexOf(simpleName) >= 0) {
+          writer.append("import %s;\n".formatted(importName));
+        }
+      }
+      writer.append('\n');
+      writer.append(this.text);
+    }
+
+    this.writeDepfile(path);
+  }
+
+  private void writeDepfile(
+    final Path path)
+    throws IOException
+  {
+    if (this.configuration.options().writeDepfiles()) {
+      MiExtractorDepfiles.writeDepfileForPackage(
+        path,
+        this.packageNow,
+        this.configuration.packagesAll()
+      );
+    }
+  }
+
+  private MiExtractorException errorIO(
+    final MiPackageType pack,
+    final IOException e)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(PACKAGE),
+      pack.name().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_IO),
+      e,
+      "error-io",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  /**
+   * Write the class for a structure.
+   */
+
+  private void writeStructure(
+    final MiStructureType structure)
+    throws MiExtractorException
+  {
+    final var className =
+      identifierOf(structure.name().value());
+    final var fields =
+      structure.fields()
+        .stream()
+        .sorted(Comparator.comparing(MiFieldType::offset))
+        .toList();
+
+    this.text.append(
+      """
+        /**
+         * The structure {@code %1$s}. Accessors take a segment and the offset
+         * of the structure within the segment.
+         */
+
+        public final class %2$s
+        {
+          /**
+           * The layout of the structure.
+           */
+
+          public static final StructLayout LAYOUT =
+            MemoryLayout.structLayout(
+        """.formatted(structure.name().value(), className)
+    );
+
+    var first = true;
+    for (final var member : this.layoutMembersOf(structure, false)) {
+      this.appendMember(first, member);
+      first = false;
+    }
+
+    this.text.append(
+      """
+
+            ).withName("%s");
+
+        """.formatted(structure.name().value())
+    );
+
+    for (final var field : fields) {
+      this.writeField(structure, field);
+    }
+
+    this.text.append(
+      """
+          private %s()
+          {
+
+          }
+        }
+        """.formatted(className)
+    );
+  }
+
+  private void appendMember(
+    final boolean first,
+    final String member)
+  {
+    if (!first) {
+      this.text.append(",\n");
+    }
+    this.text.append("      ");
+    this.text.append(member.replace("\n", "\n      "));
+  }
+
+  /**
+   * The member layouts of a structure, including padding. If
+   * {@code unaligned} is {@code true}, every member is given a byte
+   * alignment.
+   */
+
+  private List<String> layoutMembersOf(
+    final MiStructureType structure,
+    final boolean unaligned)
+    throws MiExtractorException
+  {
+    final var fields =
+      structure.fields()
+        .stream()
+        .sorted(Comparator.comparing(MiFieldType::offset))
+        .toList();
+
+    final var members = new ArrayList<String>();
+    var offsetPrevious = BigInteger.ZERO;
+    for (final var field : fields) {
+      final var gap = field.offset().subtract(offsetPrevious);
+      if (gap.signum() > 0) {
+        members.add("MemoryLayout.paddingLayout(%sL)".formatted(gap));
+      }
+      members.add(this.layoutOfField(structure, field, unaligned));
+      offsetPrevious = field.offset().add(field.size().value());
+    }
+
+    final var gap = structure.size().value().subtract(offsetPrevious);
+    if (gap.signum() > 0) {
+      members.add("MemoryLayout.paddingLayout(%sL)".formatted(gap));
+    }
+    return members;
+  }
+
+  private String layoutOfField(
+    final MiStructureType structure,
+    final MiFieldType field,
+    final boolean unaligned)
+    throws MiExtractorException
+  {
+    final var name = field.name().value();
+
+    return switch (field) {
+      case final MiBitFieldType bitField -> {
+        final var primitive = this.primitiveOfBitField(structure, bitField);
+        yield layoutOfPrimitive(primitive, field, unaligned)
+              + ".withName(\"%s\")".formatted(name);
+      }
+      case final MiTypedFieldType typedField -> {
+        yield switch (typedField.type().type()) {
+          case final MiScalarType scalar -> {
+            final var primitive = this.primitiveOfScalar(scalar);
+            yield layoutOfPrimitive(primitive, field, unaligned)
+                  + ".withName(\"%s\")".formatted(name);
+          }
+          case final MiStructureType nested -> {
+            if (!unaligned && isAligned(field, nested)) {
+              yield "%s.LAYOUT.withName(\"%s\")".formatted(
+                this.classNameOf(typedField.type()),
+                name
+              );
+            }
+            yield this.layoutOfStructureUnaligned(nested, name);
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * The alignment of a group layout cannot be relaxed below the alignment
+   * of its members, and so a structure that is not naturally aligned within
+   * its enclosing structure is given an inline layout in which every member
+   * is given a byte alignment. Registers within such a structure can only
+   * be accessed in plain mode.
+   */
+
+  private String layoutOfStructureUnaligned(
+    final MiStructureType structure,
+    final String name)
+    throws MiExtractorException
+  {
+    final var members =
+      this.layoutMembersOf(structure, true);
+
+    final var text = new StringBuilder();
+    text.append("MemoryLayout.structLayout(\n");
+    for (int index = 0; index < members.size(); ++index) {
+      text.append("  ");
+      text.append(members.get(index).replace("\n", "\n  "));
+      if (index + 1 < members.size()) {
+        text.append(',');
+      }
+      text.append('\n');
+    }
+    text.append(").withName(\"%s\")".formatted(name));
+    return text.toString();
+  }
+
+  /**
+   * Registers that are not naturally aligned are given a byte alignment, as
+   * the layout would otherwise be rejected. Such registers can only be
+   * accessed in plain mode.
+   */
+
+  private static String layoutOfPrimitive(
+    final MiPrimitive primitive,
+    final MiFieldType field,
+    final boolean unaligned)
+  {
+    if (!unaligned && isAligned(field)) {
+      return "ValueLayout." + primitive.layout();
+    }
+    return "ValueLayout.%s.withByteAlignment(1L)".formatted(primitive.layout());
+  }
+
+  private static boolean isAligned(
+    final MiFieldType field)
+  {
+    return field.offset().mod(field.size().value()).signum() == 0;
+  }
+
+  private static boolean isAligned(
+    final MiFieldType field,
+    final MiStructureType structure)
+  {
+    return field.offset().mod(alignmentOf(structure)).signum() == 0;
+  }
+
+  /**
+   * @return The alignment of the layout generated for the given structure
+   */
+
+  private static BigInteger alignmentOf(
+    final MiStructureType structure)
+  {
+    var alignment = BigInteger.ONE;
+    for (final var field : structure.fields()) {
+      final var fieldAlignment = switch (field) {
+        case final MiBitFieldType ignored -> {
+          yield isAligned(field) ? field.size().value() : BigInteger.ONE;
+        }
+        case final MiTypedFieldType typedField -> {
+          yield switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              yield isAligned(field) ? field.size().value() : BigInteger.ONE;
+            }
+            case final MiStructureType nested -> {
+              yield isAligned(field, nested)
+                ? alignmentOf(nested)
+                : BigInteger.ONE;
+            }
+          };
+        }
+      };
+      alignment = alignment.max(fieldAlignment);
+    }
+    return alignment;
+  }
+
+  private void writeField(
+    final MiStructureType structure,
+    final MiFieldType field)
+    throws MiExtractorException
+  {
+    final var name = identifierOf(field.name().value());
+
+    this.text.append(
+      """
+          /**
+           * The offset of {@code %1$s} within the structure.
+           */
+
+          public static final long %2$s_OFFSET = 0x%3$sL;
+
+        """.formatted(
+        field.name().value(),
+        name,
+        field.offset().toString(16)
+      )
+    );
+
+    switch (field) {
+      case final MiBitFieldType bitField -> {
+        this.writeRegister(
+          field,
+          this.primitiveOfBitField(structure, bitField),
+          bitField.access().isReadable()
+          || bitField.ranges().stream().anyMatch(r -> r.access().isReadable()),
+          MiExtractorAccess.isWritable(bitField)
+        );
+        this.writeBitRanges(
+          bitField,
+          this.primitiveOfBitField(structure, bitField)
+        );
+      }
+      case final MiTypedFieldType typedField -> {
+        switch (typedField.type().type()) {
+          case final MiScalarType scalar -> {
+            final var access = typedField.access();
+            this.writeRegister(
+              field,
+              this.primitiveOfScalar(scalar),
+              access.isReadable(),
+              access.isWritable()
+            );
+          }
+          case final MiStructureType ignored -> {
+
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the handle and the accessors for a register.
+   */
+
+  private void writeRegister(
+    final MiFieldType field,
+    final MiPrimitive primitive,
+    final boolean readable,
+    final boolean writable)
+  {
+    final var fieldName = field.name().value();
+    final var name = identifierOf(fieldName);
+    final var mode = isAligned(field) ? "Opaque" : "";
+
+    this.text.append(
+      """
+          /**
+           * The handle for {@code %1$s}. The coordinates are the segment and
+           * the offset of the structure within the segment.
+           */
+
+          public static final VarHandle %2$s =
+            LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("%1$s"));
+
+        """.formatted(fieldName, name)
+    );
+
+    if (readable) {
+      this.text.append(
+        """
+            /**
+             * Read {@code %1$s}.
+             *
+             * @param segment The segment
+             * @param base    The offset of the structure within the segment
+             *
+             * @return The value
+             */
+
+            public static %3$s %2$s_get(
+              final MemorySegment segment,
+              final long base)
+            {
+              return (%3$s) %2$s.get%4$s(segment, base);
+            }
+
+          """.formatted(fieldName, name, primitive.type(), mode)
+      );
+    }
+
+    if (writable) {
+      this.text.append(
+        """
+            /**
+             * Write {@code %1$s}.
+             *
+             * @param segment The segment
+             * @param base    The offset of the structure within the segment
+             * @param value   The value
+             */
+
+            public static void %2$s_set(
+              final MemorySegment segment,
+              final long base,
+              final %3$s value)
+            {
+              %2$s.set%4$s(segment, base, value);
+            }
+
+          """.formatted(fieldName, name, primitive.type(), mode)
+      );
+    }
+  }
+
+  /**
+   * Write constants and accessors for the ranges of a bit field. Range reads
+   * perform a single load; range writes perform a single load of the bits
+   * that are preserved by being written back (if any) and a single store.
+   * Bit fields containing write-only bits cannot be read back, and so only
+   * the {@code _bits} functions are produced for their ranges; the caller
+   * combines the bits and writes the whole register.
+   */
+
+  private void writeBitRanges(
+    final MiBitFieldType bitField,
+    final MiPrimitive primitive)
+  {
+    final var fieldName = identifierOf(bitField.name().value());
+    final var mode = isAligned(bitField) ? "Opaque" : "";
+    final var shadowed = MiExtractorAccess.isShadowed(bitField);
+    final var preserved = MiExtractorAccess.preservedMaskOf(bitField);
+    final var load =
+      primitive.load().formatted("%s.get%s(segment, base)".formatted(fieldName, mode));
+
+    for (final var range : bitField.ranges()) {
+      final var name =
+        "%s_%s".formatted(fieldName, identifierOf(range.name().value()));
+      final var lower =
+        range.range().lower();
+      final var fieldMask =
+        MiExtractorAccess.fieldMaskOf(range);
+      final var mask =
+        fieldMask.shiftRight(lower.intValueExact());
+      final var rangeType =
+        primitive.rangeType();
+
+      this.text.append(
+        """
+            /**
+             * The shift of {@code %1$s.%2$s}.
+             */
+
+            public static final int %3$s_SHIFT = %4$s;
+
+            /**
+             * The mask of {@code %1$s.%2$s}, before shifting.
+             */
+
+            public static final %5$s %3$s_MASK = %6$s;
+
+            /**
+             * The mask of {@code %1$s.%2$s}, in position.
+             */
+
+            public static final %5$s %3$s_FIELD_MASK = %7$s;
+
+          """.formatted(
+          bitField.name().value(),
+          range.name().value(),
+          name,
+          lower,
+          rangeType,
+          primitive.literal(mask),
+          primitive.literal(fieldMask)
+        )
+      );
+
+      if (range.access().isReadable()) {
+        this.text.append(
+          """
+              /**
+               * Read {@code %1$s.%2$s}.
+               *
+               * @param segment The segment
+               * @param base    The offset of the structure within the segment
+               *
+               * @return The value of the range
+               */
+
+              public static %4$s %3$s_get(
+                final MemorySegment segment,
+                final long base)
+              {
+                return (%5$s >>> %3$s_SHIFT) & %3$s_MASK;
+              }
+
+            """.formatted(
+            bitField.name().value(),
+            range.name().value(),
+            name,
+            rangeType,
+            load
+          )
+        );
+      }
+
+      if (!range.access().isWritable()) {
+        continue;
+      }
+
+      this.text.append(
+        """
+            /**
+             * @param value The value of {@code %1$s.%2$s}
+             *
+             * @return The value shifted and masked into position
+             */
+
+            public static %4$s %3$s_bits(
+              final %4$s value)
+            {
+              return (value & %3$s_MASK) << %3$s_SHIFT;
+            }
+
+          """.formatted(
+          bitField.name().value(),
+          range.name().value(),
+          name,
+          rangeType
+        )
+      );
+
+      if (shadowed) {
+        continue;
+      }
+
+      final var keep = preserved.andNot(fieldMask);
+      final String value;
+      if (keep.signum() == 0) {
+        value = "%s_bits(value)".formatted(name);
+      } else {
+        value = "(%s & %s) | %s_bits(value)".formatted(
+          load,
+          primitive.literal(keep),
+          name
+        );
+      }
+
+      this.text.append(
+        """
+            /**
+             * Write {@code %1$s.%2$s}.
+             *
+             * @param segment The segment
+             * @param base    The offset of the structure within the segment
+             * @param value   The value of the range
+             */
+
+            public static void %3$s_set(
+              final MemorySegment segment,
+              final long base,
+              final %4$s value)
+            {
+              %5$s.set%6$s(segment, base, %7$s);
+            }
+
+          """.formatted(
+          bitField.name().value(),
+          range.name().value(),
+          name,
+          rangeType,
+          fieldName,
+          mode,
+          primitive.store().formatted(value)
+        )
+      );
+    }
+  }
+
+  /**
+   * Write the class for a map.
+   */
+
+  private void writeMap(
+    final MiMapType map)
+    throws MiExtractorException
+  {
+    final var type = map.type();
+    final String layout;
+    final String layoutType;
+    final String description;
+
+    switch (type.type()) {
+      case final MiScalarType scalar -> {
+        layout = "ValueLayout." + this.primitiveOfScalar(scalar).layout();
+        layoutType = "MemoryLayout";
+        description = "a value";
+      }
+      case final MiStructureType ignored -> {
+        layout = this.classNameOf(type) + ".LAYOUT";
+        layoutType = "StructLayout";
+        description = "an instance of {@code %s}".formatted(
+          this.classNameOf(type)
+        );
+      }
+    }
+
+    this.text.append(
+      """
+        /**
+         * The map {@code %1$s}, containing %2$s.
+         */
+
+        public final class %3$s
+        {
+          /**
+           * The address of the map.
+           */
+
+          public static final long ADDRESS = 0x%4$sL;
+
+          /**
+           * The layout of the map.
+           */
+
+          public static final %5$s LAYOUT =
+            %6$s;
+
+          private %3$s()
+          {
+
+          }
+
+          /**
+           * Map the memory of the map from a file such as {@code /dev/mem}
+           * (at position {@link #ADDRESS}) or a UIO device (usually at
+           * position {@code 0}).
+           *
+           * @param channel  The file channel
+           * @param position The position of the map within the file
+           * @param arena    The arena that controls the lifetime of the mapping
+           *
+           * @return The mapped segment
+           *
+           * @throws IOException On I/O errors
+           */
+
+          public static MemorySegment map(
+            final FileChannel channel,
+            final long position,
+            final Arena arena)
+            throws IOException
+          {
+            return channel.map(
+              FileChannel.MapMode.READ_WRITE,
+              position,
+              LAYOUT.byteSize(),
+              arena
+            );
+          }
+        }
+        """.formatted(
+        map.name().value(),
+        description,
+        identifierOf(map.name().value()),
+        map.offset().toString(16),
+        layoutType,
+        layout
+      )
+    );
+  }
+
+  /**
+   * A Java primitive type used to access a register.
+   *
+   * @param type      The primitive type of the register
+   * @param layout    The name of the value layout constant
+   * @param rangeType The type used for the values of bit ranges
+   * @param load      A format string that widens a loaded value to the range
+   *                  type, without sign extension
+   * @param store     A format string that narrows a range type value to the
+   *                  primitive type
+   */
+
+  private record MiPrimitive(
+    String type,
+    String layout,
+    String rangeType,
+    String load,
+    String store)
+  {
+    String literal(
+      final BigInteger value)
+    {
+      if (Objects.equals(this.rangeType, "long")) {
+        return "0x%sL".formatted(value.toString(16));
+      }
+      return "0x%s".formatted(value.toString(16));
+    }
+  }
+
+  private static Optional<MiPrimitive> primitiveOfSize(
+    final MiSizeOctets size)
+  {
+    if (Objects.equals(size, MiSizeOctets.of(1L))) {
+      return Optional.of(PRIMITIVE_8);
+    } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
+      return Optional.of(PRIMITIVE_16);
+    } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
+      return Optional.of(PRIMITIVE_32);
+    } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
+      return Optional.of(PRIMITIVE_64);
+    } else {
+      return Optional.empty();
+    }
+  }
+
+  private MiPrimitive primitiveOfScalar(
+    final MiScalarType scalar)
+    throws MiExtractorException
+  {
+    if (scalar.kind() != INTEGER_SIGNED && scalar.kind() != INTEGER_UNSIGNED) {
+      throw this.errorUnsupportedScalarType(scalar);
+    }
+
+    final var primitive = primitiveOfSize(scalar.size());
+    if (primitive.isEmpty()) {
+      throw this.errorUnsupportedScalarType(scalar);
+    }
+    return primitive.get();
+  }
+
+  private MiPrimitive primitiveOfBitField(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws MiExtractorException
+  {
+    final var primitive = primitiveOfSize(bitField.size());
+    if (primitive.isEmpty()) {
+      throw this.errorUnsupportedBitFieldType(structure, bitField);
+    }
+    return primitive.get();
+  }
+
+  private static String identifierOf(
+    final String name)
+  {
+    return name.replace('-', '_');
+  }
+
+  private static String javaPackageOf(
+    final MiPackageName packageName)
+  {
+    return identifierOf(packageName.toString());
+  }
+
+  private String classNameOf(
+    final MiTypeReference type)
+  {
+    if (Objects.equals(type.packageName(), this.packageNow.name())) {
+      return identifierOf(type.type().name().value());
+    }
+    return "%s.%s".formatted(
+      javaPackageOf(type.packageName()),
+      identifierOf(type.type().name().value())
+    );
+  }
+
+  private MiExtractorException errorUnsupportedScalarType(
+    final MiScalarType scalar)
+  {
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageNow.name().toString()
+    );
+    attributes.put(
+      this.strings.format(TYPE),
+      scalar.name().value()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_UNSUPPORTED_SCALAR_TYPE),
+      "error-unsupported-scalar-type",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private MiExtractorException errorUnsupportedBitFieldType(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+  {
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageNow.name().toString()
+    );
+    attributes.put(
+      this.strings.format(TYPE),
+      structure.name().value()
+    );
+    attributes.put(
+      this.strings.format(FIELD),
+      bitField.name().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_UNSUPPORTED_BIT_FIELD_TYPE),
+      "error-unsupported-bit-field-type",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.java.MiExtractorsJava;
+
+/**
+ * Machine-readable memory map documentation (Extractor Java)
+ */
+
+module com.io7m.mirasol.extractor.java
+{
+  requires com.io7m.mirasol.core;
+  requires com.io7m.mirasol.extractor.api;
+  requires com.io7m.mirasol.strings;
+
+  requires com.io7m.abstand.core;
+  requires com.io7m.jdeferthrow.core;
+  requires com.io7m.lanark.core;
+
+  provides MiExtractorFactoryType
+    with MiExtractorsJava;
+
+  exports com.io7m.mirasol.extractor.java;
+}
@@ -28,11 +28,15 @@ import com.io7m.mirasol.core.MiScalarType;
 import com.io7m.mirasol.core.MiSimpleName;
 import com.io7m.mirasol.core.MiSizeOctets;
 import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.core.MiTypeReference;
 import com.io7m.mirasol.core.MiTypeType;
 import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
 import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
 import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorResetImages;
 import com.io7m.mirasol.extractor.api.MiExtractorType;
 import com.io7m.mirasol.strings.MiStrings;
 
@@ -51,6 +55,7 @@ import java.util.stream.Collectors;
 
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_SIGNED;
 import static com.io7m.mirasol.core.MiScalarKindStandard.INTEGER_UNSIGNED;
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
 import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
@@ -102,8 +107,9 @@ public final class MiExtractorPascal
       new ExceptionTracker<MiExtractorException>();
 
     for (final var pack : this.configuration.packageList()) {
-      try {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
         this.packageNow = pack;
+        this.paddingIndex = BigInteger.ZERO;
         this.executePackage();
       } catch (final MiExtractorException e) {
         exceptionTracker.addException(e);
@@ -129,6 +135,14 @@ public final class MiExtractorPascal
       try (var w = this.writer) {
         this.writePackage();
       }
+
+      if (this.configuration.options().writeDepfiles()) {
+        MiExtractorDepfiles.writeDepfileForPackage(
+          path,
+          this.packageNow,
+          this.configuration.packagesAll()
+        );
+      }
     } catch (final IOException e) {
       throw this.errorIO(this.packageNow, e);
     }
@@ -170,23 +184,384 @@ public final class MiExtractorPascal
     this.writer.append('\n');
     this.writer.append('\n');
 
+    final var accessors =
+      this.configuration.options().accessors() && this.hasBitFields();
+
+    if (accessors) {
+      this.writer.append("{$inline on}\n");
+      this.writer.append('\n');
+    }
+
     this.writer.append("interface\n");
     this.writer.append("\n");
     this.writePackageImports();
     this.writePackageTypes(pathStart);
 
-    if (this.hasMaps() || this.hasBitFields()) {
+    if (this.hasMaps() || this.hasBitFields() || this.hasResetImages()) {
       this.writer.append("const\n");
     }
 
     this.writePackageMaps(pathStart);
     this.writeBitFieldConstants();
+    this.writeResetImages();
+
+    if (accessors) {
+      this.writeBitFieldAccessors(false);
+    }
+    this.writeResetRoutines(false);
 
     this.writer.append("implementation\n");
     this.writer.append("\n");
+
+    if (accessors) {
+      this.writeBitFieldAccessors(true);
+    }
+    this.writeResetRoutines(true);
+
     this.writer.append("end.\n");
   }
 
+  /**
+   * Write accessor routines for every bit field and bit range in the
+   * package. The routines are declared {@code inline} in the interface
+   * section and defined in the implementation section. Every routine
+   * performs at most one load and one store of the bit field, at the exact
+   * width of the bit field. Multiple ranges can be updated together using
+   * {@code __update} with the OR of the {@code __field_mask} constants and
+   * the OR of the {@code __bits} values.
+   *
+   * <p>Updates read only the bits that are preserved by being written back;
+   * if there are none, updates are plain stores. Bit fields containing
+   * write-only bits are never read, and are instead accessed through a
+   * caller-provided shadow copy; updates carry over only the read-write and
+   * write-only bits of the shadow. Write routines are omitted for bit fields
+   * and ranges that cannot be written.</p>
+   */
+
+  private void writeBitFieldAccessors(
+    final boolean implementation)
+    throws IOException, MiExtractorException
+  {
+    for (final var type : this.packageNow.types()) {
+      if (type instanceof final MiStructureType structure) {
+        final var path =
+          new MiNamedOffsetPath(List.of(
+            new MiNamedOffset(structure.name(), BigInteger.ZERO)
+          ));
+
+        for (final var field : structure.fields()) {
+          if (field instanceof final MiBitFieldType bitField) {
+            this.writeBitFieldAccessorsForField(
+              path.with(new MiNamedOffset(bitField.name(), bitField.offset())),
+              structure,
+              bitField,
+              implementation
+            );
+          }
+        }
+      }
+    }
+
+    if (!implementation) {
+      this.writer.append('\n');
+    }
+  }
+
+  private void writeBitFieldAccessorsForField(
+    final MiNamedOffsetPath path,
+    final MiStructureType structure,
+    final MiBitFieldType bitField,
+    final boolean implementation)
+    throws IOException, MiExtractorException
+  {
+    final var t = this.pascalTypeOfBitField(structure, bitField);
+    final var f = path.toCName();
+    final var s = safePascalName(structure.name());
+    final var member = safePascalName(bitField.name());
+    final var shadowed = MiExtractorAccess.isShadowed(bitField);
+    final var preserved =
+      shadowed
+        ? MiExtractorAccess.shadowPreservedMaskOf(bitField)
+        : MiExtractorAccess.preservedMaskOf(bitField);
+
+    final String readParams;
+    final String readArgs;
+    final String writeParams;
+    final String writeArgs;
+
+    if (shadowed) {
+      readParams = "var shadow : %s".formatted(t);
+      readArgs = "shadow";
+      writeParams = "var target : %s; var shadow : %s".formatted(s, t);
+      writeArgs = "target, shadow";
+
+      this.writeRoutine(
+        implementation,
+        "function %s__read(%s) : %s"
+          .formatted(f, readParams, t),
+        """
+          %s__read := shadow;
+        """.formatted(f)
+      );
+    } else {
+      readParams = "var target : %s".formatted(s);
+      readArgs = "target";
+      writeParams = readParams;
+      writeArgs = readArgs;
+
+      this.writeRoutine(
+        implementation,
+        "function %s__read(%s) : %s"
+          .formatted(f, readParams, t),
+        """
+          %s__read := target.%s;
+        """.formatted(f, member)
+      );
+    }
+
+    if (MiExtractorAccess.isWritable(bitField)) {
+      final String write;
+      final String update;
+
+      if (shadowed) {
+        write = """
+            shadow := value;
+            target.%s := value;
+          """.formatted(member);
+        update = """
+            shadow := %1$s((shadow and (%3$s and not fieldMask)) or (fieldBits and fieldMask));
+            target.%2$s := shadow;
+          """.formatted(t, member, "$" + preserved.toString(16));
+      } else {
+        write = """
+            target.%s := value;
+          """.formatted(member);
+
+        if (preserved.signum() == 0) {
+          update = """
+              target.%2$s := %1$s(fieldBits and fieldMask);
+            """.formatted(t, member);
+        } else if (preserved.equals(MiExtractorAccess.widthMaskOf(bitField))) {
+          update = """
+              target.%2$s := %1$s((target.%2$s and not fieldMask) or (fieldBits and fieldMask));
+            """.formatted(t, member);
+        } else {
+          update = """
+              target.%2$s := %1$s((target.%2$s and (%3$s and not fieldMask)) or (fieldBits and fieldMask));
+            """.formatted(t, member, "$" + preserved.toString(16));
+        }
+      }
+
+      this.writeRoutine(
+        implementation,
+        "procedure %s__write(%s; value : %s)"
+          .formatted(f, writeParams, t),
+        write
+      );
+
+      this.writeRoutine(
+        implementation,
+        "procedure %1$s__update(%2$s; fieldMask : %3$s; fieldBits : %3$s)"
+          .formatted(f, writeParams, t),
+        update
+      );
+    }
+
+    for (final var range : bitField.ranges()) {
+      final var r =
+        path.with(new MiNamedOffset(range.name(), BigInteger.ZERO))
+          .toCName();
+
+      this.writeRoutine(
+        implementation,
+        "function %1$s__extract(current : %2$s) : %2$s"
+          .formatted(r, t),
+        """
+          %1$s__extract := %2$s((current shr %1$s__shift) and %1$s__mask);
+        """.formatted(r, t)
+      );
+
+      this.writeRoutine(
+        implementation,
+        "function %s__get(%s) : %s"
+          .formatted(r, readParams, t),
+        """
+          %1$s__get := %1$s__extract(%2$s__read(%3$s));
+        """.formatted(r, f, readArgs)
+      );
+
+      if (range.access().isWritable()) {
+        this.writeRoutine(
+          implementation,
+          "function %1$s__bits(value : %2$s) : %2$s"
+            .formatted(r, t),
+          """
+            %1$s__bits := %2$s((value and %1$s__mask) shl %1$s__shift);
+          """.formatted(r, t)
+        );
+
+        this.writeRoutine(
+          implementation,
+          "function %1$s__modify(current : %2$s; value : %2$s) : %2$s"
+            .formatted(r, t),
+          """
+            %1$s__modify := %2$s((current and not %2$s(%1$s__field_mask)) or %1$s__bits(value));
+          """.formatted(r, t)
+        );
+
+        this.writeRoutine(
+          implementation,
+          "procedure %s__set(%s; value : %s)"
+            .formatted(r, writeParams, t),
+          """
+            %2$s__update(%3$s, %1$s__field_mask, %1$s__bits(value));
+          """.formatted(r, f, writeArgs)
+        );
+      }
+    }
+  }
+
+  private boolean hasResetImages()
+  {
+    return this.packageNow.types()
+      .stream()
+      .anyMatch(t -> switch (t) {
+        case final MiScalarType ignored -> false;
+        case final MiStructureType structure -> {
+          yield !MiExtractorResetImages.registersOf(structure).isEmpty();
+        }
+      });
+  }
+
+  /**
+   * Write a reset image for every structure that has registers with known
+   * reset values. Each run of contiguous registers of the same size becomes
+   * a typed constant array.
+   */
+
+  private void writeResetImages()
+    throws IOException
+  {
+    if (!this.hasResetImages()) {
+      return;
+    }
+
+    this.writer.append('\n');
+    for (final var type : this.packageNow.types()) {
+      if (type instanceof final MiStructureType structure) {
+        final var runs =
+          MiExtractorResetImages.runsOf(
+            MiExtractorResetImages.registersOf(structure)
+          );
+
+        for (int index = 0; index < runs.size(); ++index) {
+          final var run = runs.get(index);
+          this.writer.append(
+            "  %s__reset_image_%d : array[0..%d] of %s = (%s);\n".formatted(
+              structure.name().value(),
+              Integer.valueOf(index),
+              Integer.valueOf(run.values().size() - 1),
+              pascalUnsignedTypeOf(run.size()),
+              run.values()
+                .stream()
+                .map(v -> "$" + v.toString(16))
+                .collect(Collectors.joining(", "))
+            )
+          );
+        }
+      }
+    }
+    this.writer.append('\n');
+  }
+
+  /**
+   * Write a routine for every structure with a reset image that restores
+   * every register in the image. Each run of contiguous registers of the
+   * same size is restored from its constant array with stores at the full
+   * width of the registers. Shadow copies of write-only registers belong to
+   * the caller, and are not updated.
+   */
+
+  private void writeResetRoutines(
+    final boolean implementation)
+    throws IOException
+  {
+    if (!this.hasResetImages()) {
+      return;
+    }
+
+    for (final var type : this.packageNow.types()) {
+      if (type instanceof final MiStructureType structure) {
+        final var runs =
+          MiExtractorResetImages.runsOf(
+            MiExtractorResetImages.registersOf(structure)
+          );
+
+        if (runs.isEmpty()) {
+          continue;
+        }
+
+        final var s = structure.name().value();
+        this.writer.append(
+          "procedure %1$s__reset(var target : %1$s);\n".formatted(s)
+        );
+
+        if (implementation) {
+          this.writer.append("var\n");
+          this.writer.append("  i : integer;\n");
+          this.writer.append("begin\n");
+          for (int index = 0; index < runs.size(); ++index) {
+            final var run = runs.get(index);
+            this.writer.append(
+              """
+                for i := 0 to %3$d do
+                  (PUInt%1$d(PByte(@target) + $%4$s) + i)^ := %2$s__reset_image_%5$d[i];
+              """.formatted(
+                Integer.valueOf(run.size().value().intValueExact() * 8),
+                s,
+                Integer.valueOf(run.values().size() - 1),
+                run.offset().toString(16),
+                Integer.valueOf(index)
+              )
+            );
+          }
+          this.writer.append("end;\n");
+          this.writer.append('\n');
+        }
+      }
+    }
+
+    if (!implementation) {
+      this.writer.append('\n');
+    }
+  }
+
+  private static String pascalUnsignedTypeOf(
+    final MiSizeOctets size)
+  {
+    return "uint%d".formatted(
+      Integer.valueOf(size.value().intValueExact() * 8)
+    );
+  }
+
+  private void writeRoutine(
+    final boolean implementation,
+    final String header,
+    final String body)
+    throws IOException
+  {
+    this.writer.append(header);
+    if (implementation) {
+      this.writer.append(";\n");
+      this.writer.append("begin\n");
+      this.writer.append(body);
+      this.writer.append("end;\n");
+      this.writer.append('\n');
+    } else {
+      this.writer.append("; inline;\n");
+    }
+  }
+
   private void writeBitFieldConstants()
     throws IOException
   {
@@ -401,6 +776,16 @@ public final class MiExtractorPascal
         "%" + mask.toString(2)
       )
     );
+
+    if (this.configuration.options().accessors()) {
+      this.writer.append(
+        "  %s = %s;\n".formatted(
+          path.toCName() + "__field_mask",
+          "%" + mask.shiftLeft(range.range().lower().intValueExact())
+            .toString(2)
+        )
+      );
+    }
   }
 
   private void writeStructureField(
@@ -455,20 +840,27 @@ public final class MiExtractorPascal
     this.writer.append("    ");
     this.writer.append(safePascalName(bitField.name()));
     this.writer.append(" : ");
+    this.writer.append(this.pascalTypeOfBitField(structure, bitField));
+    this.writer.append(";\n");
+  }
 
+  private String pascalTypeOfBitField(
+    final MiStructureType structure,
+    final MiBitFieldType bitField)
+    throws MiExtractorException
+  {
     final var size = bitField.size();
     if (Objects.equals(size, MiSizeOctets.of(1L))) {
-      this.writer.append("uint8");
+      return "uint8";
     } else if (Objects.equals(size, MiSizeOctets.of(2L))) {
-      this.writer.append("uint16");
+      return "uint16";
     } else if (Objects.equals(size, MiSizeOctets.of(4L))) {
-      this.writer.append("uint32");
+      return "uint32";
     } else if (Objects.equals(size, MiSizeOctets.of(8L))) {
-      this.writer.append("uint64");
+      return "uint64";
     } else {
       throw this.errorUnsupportedBitFieldType(structure, bitField);
     }
-    this.writer.append(";\n");
   }
 
   private static String safePascalName(
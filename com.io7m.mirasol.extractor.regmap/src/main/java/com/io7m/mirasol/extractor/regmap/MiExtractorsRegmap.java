@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.regmap;
+
+import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorFactoryType;
+import com.io7m.mirasol.extractor.api.MiExtractorType;
+import com.io7m.mirasol.extractor.regmap.internal.MiExtractorRegmap;
+
+/**
+ * An extractor for Linux regmap configurations.
+ */
+
+public final class MiExtractorsRegmap
+  implements MiExtractorFactoryType
+{
+  /**
+   * An extractor for Linux regmap configurations.
+   */
+
+  public MiExtractorsRegmap()
+  {
+
+  }
+
+  @Override
+  public String name()
+  {
+    return "com.io7m.mirasol.extractor.regmap";
+  }
+
+  @Override
+  public String description()
+  {
+    return "An extractor that produces Linux kernel regmap configurations";
+  }
+
+  @Override
+  public String language()
+  {
+    return "Linux kernel C";
+  }
+
+  @Override
+  public MiExtractorType create(
+    final MiExtractorConfiguration configuration)
+  {
+    return new MiExtractorRegmap(configuration);
+  }
+}
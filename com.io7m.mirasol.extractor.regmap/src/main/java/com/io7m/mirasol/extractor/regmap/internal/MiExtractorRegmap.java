@@ -0,0 +1,568 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.extractor.regmap.internal;
+
+import com.io7m.jdeferthrow.core.ExceptionTracker;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageName;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimings;
+import com.io7m.mirasol.core.MiTypeReference;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
+import com.io7m.mirasol.extractor.api.MiExtractorConfiguration;
+import com.io7m.mirasol.extractor.api.MiExtractorDepfiles;
+import com.io7m.mirasol.extractor.api.MiExtractorException;
+import com.io7m.mirasol.extractor.api.MiExtractorType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static com.io7m.mirasol.core.MiTimingPhase.EXTRACT;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_IO;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+
+/**
+ * An extractor for Linux kernel regmap configurations.
+ *
+ * <p>Each package produces a header containing, for each structure, a table
+ * of register defaults, sorted readable, writeable, volatile, and precious
+ * range tables, and a macro containing the {@code regmap_config} fields
+ * that describe them. Register addresses are octet offsets relative to the
+ * start of the structure, and fields of structure types are flattened into
+ * the registers of the enclosing structure. A regmap has a single value
+ * width, and so structures containing registers of different sizes are
+ * skipped.</p>
+ *
+ * <p>Read-only, read-to-clear, and write-one-to-clear registers are marked
+ * as volatile as their values can be changed by the hardware. Read-to-clear
+ * registers are also marked as precious so that they are never read unless
+ * the driver explicitly asks for them. Defaults are only produced for
+ * registers that are not volatile.</p>
+ */
+
+public final class MiExtractorRegmap
+  implements MiExtractorType
+{
+  private static final OpenOption[] OPEN_OPTIONS = {
+    StandardOpenOption.CREATE,
+    StandardOpenOption.WRITE,
+    StandardOpenOption.TRUNCATE_EXISTING,
+  };
+
+  private final MiExtractorConfiguration configuration;
+  private final MiStrings strings;
+  private BufferedWriter writer;
+  private MiPackageType packageNow;
+
+  /**
+   * An extractor for Linux kernel regmap configurations.
+   *
+   * @param inConfiguration The configuration
+   */
+
+  public MiExtractorRegmap(
+    final MiExtractorConfiguration inConfiguration)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.strings =
+      MiStrings.create(Locale.getDefault());
+  }
+
+  @Override
+  public void execute()
+    throws MiExtractorException
+  {
+    final var exceptionTracker =
+      new ExceptionTracker<MiExtractorException>();
+
+    for (final var pack : this.configuration.packageList()) {
+      try (var ignored = MiTimings.start(EXTRACT, pack.name().toString())) {
+        this.packageNow = pack;
+        this.executePackage();
+      } catch (final MiExtractorException e) {
+        exceptionTracker.addException(e);
+      }
+    }
+
+    exceptionTracker.throwIfNecessary();
+  }
+
+  private void executePackage()
+    throws MiExtractorException
+  {
+    final var outputDirectory =
+      this.configuration.outputDirectory();
+    final var path =
+      outputDirectory.resolve(fileNameOf(this.packageNow.name()));
+
+    try {
+      Files.createDirectories(outputDirectory);
+
+      this.writer = Files.newBufferedWriter(path, OPEN_OPTIONS);
+      try (var w = this.writer) {
+        this.writePackage();
+      }
+
+      if (this.configuration.options().writeDepfiles()) {
+        MiExtractorDepfiles.writeDepfileForPackage(
+          path,
+          this.packageNow,
+          this.configuration.packagesAll()
+        );
+      }
+    } catch (final IOException e) {
+      throw this.errorIO(this.packageNow, e);
+    }
+  }
+
+  private MiExtractorException errorIO(
+    final MiPackageType pack,
+    final IOException e)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(PACKAGE),
+      pack.name().toString()
+    );
+
+    return new MiExtractorException(
+      this.strings.format(ERROR_IO),
+      e,
+      "error-io",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private void writePackage()
+    throws IOException
+  {
+    final var guardName = guardNameOf(this.packageNow);
+
+    this.writer.append("#ifndef ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+    this.writer.append("#define ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+    this.writer.append('\n');
+
+    this.writer.append("// Automatically generated. DO NOT EDIT.\n");
+    this.writer.append("// Extractor: com.io7m.mirasol.extractor.regmap\n");
+    this.writer.append("// Package: ");
+    this.writer.append(this.packageNow.name().toString());
+    this.writer.append('\n');
+    this.writer.append('\n');
+
+    this.writer.append("#include <linux/regmap.h>\n");
+    for (final var importE : this.packageNow.imports()) {
+      this.writer.append(
+        "#include \"%s\"\n".formatted(fileNameOf(importE.packageName()))
+      );
+    }
+    this.writer.append('\n');
+
+    for (final var type : this.packageNow.typesTopological()) {
+      if (type instanceof final MiStructureType structure) {
+        this.writeStructure(structure);
+      }
+    }
+
+    for (final var map : this.packageNow.maps()) {
+      this.writeMap(map);
+    }
+
+    this.writer.append("#endif // ");
+    this.writer.append(guardName);
+    this.writer.append('\n');
+  }
+
+  /**
+   * Write the tables and the configuration macro for a structure.
+   */
+
+  private void writeStructure(
+    final MiStructureType structure)
+    throws IOException
+  {
+    final var name =
+      nameOf(this.packageNow.name(), structure.name().value());
+    final var registers =
+      registersOf(structure);
+
+    if (registers.isEmpty()) {
+      return;
+    }
+
+    if (!hasUniformSize(registers)) {
+      this.writer.append(
+        "// %s: Registers of different sizes cannot be described by a regmap.\n\n"
+          .formatted(structure.name().value())
+      );
+      return;
+    }
+
+    final var size =
+      registers.getFirst().size().value();
+    final var aligned =
+      registers.stream()
+        .allMatch(r -> r.offset().mod(size).signum() == 0);
+    final var stride =
+      aligned ? size : BigInteger.ONE;
+
+    final var fields = new ArrayList<String>();
+    fields.add(".val_bits = %s".formatted(size.multiply(BigInteger.valueOf(8L))));
+    fields.add(".reg_stride = %s".formatted(stride));
+    fields.add(".max_register = %s".formatted(hexOf(registers.getLast().offset())));
+
+    final var defaults =
+      registers.stream()
+        .filter(r -> r.reset().isPresent() && !r.isVolatile())
+        .toList();
+
+    if (!defaults.isEmpty()) {
+      this.writer.append(
+        "static const struct reg_default %s__reg_defaults[] __maybe_unused = {\n"
+          .formatted(name)
+      );
+      for (final var register : defaults) {
+        this.writer.append(
+          "  { .reg = %s, .def = %s },\n".formatted(
+            hexOf(register.offset()),
+            hexOf(register.reset().get())
+          )
+        );
+      }
+      this.writer.append("};\n\n");
+      fields.add(".reg_defaults = %s__reg_defaults".formatted(name));
+      fields.add(".num_reg_defaults = ARRAY_SIZE(%s__reg_defaults)".formatted(name));
+    }
+
+    /*
+     * A missing readable or writeable table allows access to every register,
+     * so those tables are always produced. A missing volatile or precious
+     * table marks no registers, so those tables are omitted when empty.
+     */
+
+    this.writeTable(fields, name, "rd", registers, MiRegister::isReadable, true);
+    this.writeTable(fields, name, "wr", registers, MiRegister::isWriteable, true);
+    this.writeTable(fields, name, "volatile", registers, MiRegister::isVolatile, false);
+    this.writeTable(fields, name, "precious", registers, MiRegister::isPrecious, false);
+
+    this.writer.append("#define %s__REGMAP_CONFIG \\\n  ".formatted(name));
+    this.writer.append(String.join(", \\\n  ", fields));
+    this.writer.append("\n\n");
+  }
+
+  private void writeTable(
+    final List<String> fields,
+    final String name,
+    final String tableName,
+    final List<MiRegister> registers,
+    final Predicate<MiRegister> predicate,
+    final boolean required)
+    throws IOException
+  {
+    final var ranges =
+      rangesOf(registers, predicate);
+
+    if (ranges.isEmpty() && !required) {
+      return;
+    }
+
+    if (!ranges.isEmpty()) {
+      this.writer.append(
+        "static const struct regmap_range %s__%s_ranges[] __maybe_unused = {\n"
+          .formatted(name, tableName)
+      );
+      for (final var range : ranges) {
+        this.writer.append(
+          "  regmap_reg_range(%s, %s),\n".formatted(
+            hexOf(range.first().offset()),
+            hexOf(range.last().offset())
+          )
+        );
+      }
+      this.writer.append("};\n\n");
+    }
+
+    this.writer.append(
+      "static const struct regmap_access_table %s__%s_table __maybe_unused = {\n"
+        .formatted(name, tableName)
+    );
+    if (!ranges.isEmpty()) {
+      this.writer.append(
+        """
+          .yes_ranges = %1$s__%2$s_ranges,
+          .n_yes_ranges = ARRAY_SIZE(%1$s__%2$s_ranges),
+        """.formatted(name, tableName)
+      );
+    }
+    this.writer.append("};\n\n");
+
+    fields.add(".%2$s_table = &%1$s__%2$s_table".formatted(name, tableName));
+  }
+
+  private void writeMap(
+    final MiMapType map)
+    throws IOException
+  {
+    final var type = map.type();
+    if (type.type() instanceof final MiStructureType structure) {
+      final var registers = registersOf(structure);
+      if (!registers.isEmpty() && hasUniformSize(registers)) {
+        this.writer.append(
+          "#define %s__REGMAP_CONFIG %s__REGMAP_CONFIG\n\n".formatted(
+            nameOf(this.packageNow.name(), map.name().value()),
+            typeNameOf(type)
+          )
+        );
+      }
+    }
+  }
+
+  /**
+   * A register within a structure.
+   *
+   * @param offset   The offset of the register
+   * @param size     The size of the register
+   * @param accesses The access semantics of the bits of the register
+   * @param reset    The reset value of the register, if any
+   */
+
+  private record MiRegister(
+    BigInteger offset,
+    MiSizeOctets size,
+    Set<MiAccess> accesses,
+    Optional<BigInteger> reset)
+  {
+    boolean isReadable()
+    {
+      return this.accesses.stream().anyMatch(MiAccess::isReadable);
+    }
+
+    boolean isWriteable()
+    {
+      return this.accesses.stream().anyMatch(MiAccess::isWritable);
+    }
+
+    boolean isVolatile()
+    {
+      return this.accesses.stream().anyMatch(a -> {
+        return switch (a) {
+          case READ_ONLY, READ_TO_CLEAR, WRITE_ONE_TO_CLEAR -> true;
+          case READ_WRITE, WRITE_ONLY -> false;
+        };
+      });
+    }
+
+    boolean isPrecious()
+    {
+      return this.accesses.stream().anyMatch(MiAccess::hasReadSideEffects);
+    }
+  }
+
+  /**
+   * An inclusive range of registers.
+   *
+   * @param first The first register
+   * @param last  The last register
+   */
+
+  private record MiRange(
+    MiRegister first,
+    MiRegister last)
+  {
+
+  }
+
+  private static List<MiRange> rangesOf(
+    final List<MiRegister> registers,
+    final Predicate<MiRegister> predicate)
+  {
+    final var ranges = new ArrayList<MiRange>();
+    MiRegister first = null;
+    MiRegister last = null;
+
+    for (final var register : registers) {
+      if (!predicate.test(register)) {
+        continue;
+      }
+
+      final var continues =
+        last != null
+        && last.offset().add(last.size().value()).equals(register.offset());
+
+      if (!continues) {
+        if (first != null) {
+          ranges.add(new MiRange(first, last));
+        }
+        first = register;
+      }
+      last = register;
+    }
+
+    if (first != null) {
+      ranges.add(new MiRange(first, last));
+    }
+    return List.copyOf(ranges);
+  }
+
+  private static boolean hasUniformSize(
+    final List<MiRegister> registers)
+  {
+    return registers.stream()
+      .map(MiRegister::size)
+      .distinct()
+      .count() == 1L;
+  }
+
+  private static List<MiRegister> registersOf(
+    final MiStructureType structure)
+  {
+    final var output = new ArrayList<MiRegister>();
+    collect(output, BigInteger.ZERO, structure);
+    output.sort(Comparator.comparing(MiRegister::offset));
+    return List.copyOf(output);
+  }
+
+  private static void collect(
+    final List<MiRegister> output,
+    final BigInteger base,
+    final MiStructureType structure)
+  {
+    for (final var field : structure.fields()) {
+      final var offset = base.add(field.offset());
+
+      switch (field) {
+        case final MiBitFieldType bitField -> {
+          output.add(
+            new MiRegister(
+              offset,
+              bitField.size(),
+              accessesOf(bitField),
+              bitField.reset()
+            )
+          );
+        }
+        case final MiTypedFieldType typedField -> {
+          switch (typedField.type().type()) {
+            case final MiScalarType ignored -> {
+              output.add(
+                new MiRegister(
+                  offset,
+                  typedField.size(),
+                  EnumSet.of(typedField.access()),
+                  typedField.reset()
+                )
+              );
+            }
+            case final MiStructureType fieldStructure -> {
+              collect(output, offset, fieldStructure);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Determine the access semantics of all the bits of a bit field. The access
+   * semantics of the bit field itself only apply if there are bits that are
+   * not covered by any range.
+   */
+
+  private static Set<MiAccess> accessesOf(
+    final MiBitFieldType bitField)
+  {
+    final var accesses = EnumSet.noneOf(MiAccess.class);
+    var uncovered = MiExtractorAccess.widthMaskOf(bitField);
+    for (final var range : bitField.ranges()) {
+      accesses.add(range.access());
+      uncovered = uncovered.andNot(MiExtractorAccess.fieldMaskOf(range));
+    }
+    if (uncovered.signum() != 0) {
+      accesses.add(bitField.access());
+    }
+    return accesses;
+  }
+
+  private static String hexOf(
+    final BigInteger value)
+  {
+    return "0x" + value.toString(16);
+  }
+
+  private static String nameOf(
+    final MiPackageName packageName,
+    final String name)
+  {
+    return "%s_%s".formatted(
+      packageName.toString().replace('.', '_'),
+      name
+    );
+  }
+
+  private static String typeNameOf(
+    final MiTypeReference type)
+  {
+    return nameOf(type.packageName(), type.type().name().value());
+  }
+
+  private static String guardNameOf(
+    final MiPackageType pack)
+  {
+    return "%s_REGMAP_H".formatted(
+      pack.name()
+        .toString()
+        .replace('.', '_')
+        .toUpperCase(Locale.ROOT)
+    );
+  }
+
+  private static String fileNameOf(
+    final MiPackageName packageName)
+  {
+    return "%s_regmap.h".formatted(
+      packageName.toString().replace('.', '_')
+    );
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.io7m.mirasol.loader.api;
 
+import com.io7m.mirasol.core.MiCompilationListenerType;
 import com.io7m.mirasol.core.MiException;
 import com.io7m.mirasol.core.MiPackageName;
 import com.io7m.mirasol.core.MiPackageType;
@@ -47,4 +48,23 @@ public interface MiLoaderType
    */
 
   Collection<MiPackageType> loadedPackages();
+
+  /**
+   * Add a listener that will receive events for cache hits and misses,
+   * resolved packages, and the compilation of any packages that this
+   * loader compiles on demand.
+   *
+   * @param listener The listener
+   */
+
+  void addListener(MiCompilationListenerType listener);
+
+  /**
+   * Remove a listener added with
+   * {@link #addListener(MiCompilationListenerType)}.
+   *
+   * @param listener The listener
+   */
+
+  void removeListener(MiCompilationListenerType listener);
 }
@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.lsp;
+
+import com.io7m.mirasol.compiler.api.MiCompilerFactoryType;
+import com.io7m.mirasol.compiler.api.MiIncrementalCheckerType;
+import com.io7m.mirasol.loader.api.MiLoaderType;
+import com.io7m.mirasol.lsp.internal.MiJSON;
+import com.io7m.mirasol.lsp.internal.MiJSONException;
+import com.io7m.mirasol.lsp.internal.MiLanguageServerConnection;
+import com.io7m.mirasol.lsp.internal.MiLanguageServerDiagnostics;
+import com.io7m.mirasol.strings.MiStrings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A language server that publishes the errors for open documents as
+ * diagnostics. Documents are synchronized in full, and each document is
+ * checked incrementally: only the package elements affected by an edit
+ * are checked again.
+ */
+
+public final class MiLanguageServer
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(MiLanguageServer.class);
+
+  private static final int ERROR_PARSE = -32700;
+  private static final int ERROR_INVALID_REQUEST = -32600;
+  private static final int ERROR_METHOD_NOT_FOUND = -32601;
+  private static final int ERROR_INVALID_PARAMS = -32602;
+
+  private static final int TEXT_DOCUMENT_SYNC_FULL = 1;
+
+  private final MiCompilerFactoryType compilers;
+  private final MiLoaderType loader;
+  private final MiLanguageServerConnection connection;
+  private final MiLanguageServerDiagnostics diagnostics;
+  private final HashMap<String, MiIncrementalCheckerType> documents;
+  private boolean shutdown;
+
+  /**
+   * A language server.
+   *
+   * @param inCompilers The compiler factory
+   * @param inLoader    The loader used to resolve imports
+   * @param inInput     The stream from which to read client messages
+   * @param inOutput    The stream to which to write server messages
+   */
+
+  public MiLanguageServer(
+    final MiCompilerFactoryType inCompilers,
+    final MiLoaderType inLoader,
+    final InputStream inInput,
+    final OutputStream inOutput)
+  {
+    this.compilers =
+      Objects.requireNonNull(inCompilers, "compilers");
+    this.loader =
+      Objects.requireNonNull(inLoader, "loader");
+    this.connection =
+      new MiLanguageServerConnection(inInput, inOutput);
+    this.diagnostics =
+      new MiLanguageServerDiagnostics(MiStrings.create(Locale.getDefault()));
+    this.documents =
+      new HashMap<>();
+  }
+
+  /**
+   * Serve requests until the client sends an {@code exit} notification or
+   * closes the input stream.
+   *
+   * @return The exit code: {@code 0} if the client requested a shutdown
+   * before exiting, and {@code 1} otherwise
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public int run()
+    throws IOException
+  {
+    while (true) {
+      final var messageOpt = this.connection.read();
+      if (messageOpt.isEmpty()) {
+        return this.shutdown ? 0 : 1;
+      }
+
+      final Map<String, Object> message;
+      try {
+        message = object(MiJSON.parse(messageOpt.get()));
+      } catch (final MiJSONException e) {
+        LOG.debug("Malformed message: ", e);
+        this.sendError(null, ERROR_PARSE, e.getMessage());
+        continue;
+      }
+
+      final var method = message.get("method");
+      if (Objects.equals(method, "exit")) {
+        return this.shutdown ? 0 : 1;
+      }
+
+      final var id = message.get("id");
+      if (!(method instanceof final String methodName)) {
+        if (id != null) {
+          this.sendError(id, ERROR_INVALID_REQUEST, "Missing method.");
+        }
+        continue;
+      }
+
+      try {
+        this.handle(id, methodName, message.get("params"));
+      } catch (final MiJSONException e) {
+        LOG.debug("Invalid parameters for {}: ", methodName, e);
+        if (id != null) {
+          this.sendError(id, ERROR_INVALID_PARAMS, e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void handle(
+    final Object id,
+    final String method,
+    final Object params)
+    throws IOException, MiJSONException
+  {
+    if (this.shutdown && id != null) {
+      this.sendError(id, ERROR_INVALID_REQUEST, "Server is shutting down.");
+      return;
+    }
+
+    switch (method) {
+      case "initialize" -> {
+        final var sync = new LinkedHashMap<String, Object>();
+        sync.put("openClose", Boolean.TRUE);
+        sync.put("change", Integer.valueOf(TEXT_DOCUMENT_SYNC_FULL));
+
+        final var capabilities = new LinkedHashMap<String, Object>();
+        capabilities.put("textDocumentSync", sync);
+
+        final var serverInfo = new LinkedHashMap<String, Object>();
+        serverInfo.put("name", "mirasol");
+
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", serverInfo);
+        this.sendResult(id, result);
+      }
+      case "shutdown" -> {
+        this.shutdown = true;
+        this.documents.clear();
+        this.sendResult(id, null);
+      }
+      case "textDocument/didOpen" -> {
+        final var document =
+          object(object(params).get("textDocument"));
+        final var uri =
+          string(document, "uri");
+
+        final MiIncrementalCheckerType checker;
+        try {
+          checker = this.compilers.createIncremental(
+            this.loader,
+            new URI(uri)
+          );
+        } catch (final URISyntaxException e) {
+          throw new MiJSONException("Unusable document URI: " + uri);
+        }
+
+        this.documents.put(uri, checker);
+        this.check(
+          uri,
+          checker,
+          document.get("version"),
+          string(document, "text")
+        );
+      }
+      case "textDocument/didChange" -> {
+        final var parameters =
+          object(params);
+        final var document =
+          object(parameters.get("textDocument"));
+        final var uri =
+          string(document, "uri");
+        final var checker =
+          this.documents.get(uri);
+
+        if (checker == null) {
+          LOG.debug("Change to unopened document {}", uri);
+          return;
+        }
+
+        final var changes = list(parameters.get("contentChanges"));
+        if (changes.isEmpty()) {
+          return;
+        }
+
+        final var text = string(object(changes.getLast()), "text");
+        this.check(uri, checker, document.get("version"), text);
+      }
+      case "textDocument/didClose" -> {
+        final var uri =
+          string(object(object(params).get("textDocument")), "uri");
+
+        this.documents.remove(uri);
+        this.publish(uri, null, List.of());
+      }
+      default -> {
+        if (id != null) {
+          this.sendError(id, ERROR_METHOD_NOT_FOUND, "Unsupported: " + method);
+        } else {
+          LOG.debug("Ignoring notification {}", method);
+        }
+      }
+    }
+  }
+
+  private void check(
+    final String uri,
+    final MiIncrementalCheckerType checker,
+    final Object version,
+    final String text)
+    throws IOException
+  {
+    final var timeThen = System.nanoTime();
+    final var errors =
+      checker.check(
+        new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))
+      );
+    final var timeNow = System.nanoTime();
+
+    LOG.debug(
+      "Checked {} ({} elements, {} errors) in {}us",
+      uri,
+      Integer.valueOf(checker.elementsChecked()),
+      Integer.valueOf(errors.size()),
+      Long.valueOf((timeNow - timeThen) / 1000L)
+    );
+
+    this.publish(
+      uri,
+      version,
+      errors.stream()
+        .map(this.diagnostics::diagnostic)
+        .toList()
+    );
+  }
+
+  private void publish(
+    final String uri,
+    final Object version,
+    final List<Map<String, Object>> items)
+    throws IOException
+  {
+    final var params = new LinkedHashMap<String, Object>();
+    params.put("uri", uri);
+    if (version != null) {
+      params.put("version", version);
+    }
+    params.put("diagnostics", items);
+
+    final var message = new LinkedHashMap<String, Object>();
+    message.put("jsonrpc", "2.0");
+    message.put("method", "textDocument/publishDiagnostics");
+    message.put("params", params);
+    this.connection.write(MiJSON.serialize(message));
+  }
+
+  private void sendResult(
+    final Object id,
+    final Object result)
+    throws IOException
+  {
+    final var message = new LinkedHashMap<String, Object>();
+    message.put("jsonrpc", "2.0");
+    message.put("id", id);
+    message.put("result", result);
+    this.connection.write(MiJSON.serialize(message));
+  }
+
+  private void sendError(
+    final Object id,
+    final int code,
+    final String text)
+    throws IOException
+  {
+    final var error = new LinkedHashMap<String, Object>();
+    error.put("code", Integer.valueOf(code));
+    error.put("message", text);
+
+    final var message = new LinkedHashMap<String, Object>();
+    message.put("jsonrpc", "2.0");
+    message.put("id", id);
+    message.put("error", error);
+    this.connection.write(MiJSON.serialize(message));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> object(
+    final Object value)
+    throws MiJSONException
+  {
+    if (value instanceof final Map<?, ?> map) {
+      return (Map<String, Object>) map;
+    }
+    throw new MiJSONException("Expected an object.");
+  }
+
+  private static List<?> list(
+    final Object value)
+    throws MiJSONException
+  {
+    if (value instanceof final List<?> xs) {
+      return xs;
+    }
+    throw new MiJSONException("Expected an array.");
+  }
+
+  private static String string(
+    final Map<String, Object> object,
+    final String name)
+    throws MiJSONException
+  {
+    if (object.get(name) instanceof final String s) {
+      return s;
+    }
+    throw new MiJSONException("Expected a string field '%s'.".formatted(name));
+  }
+}
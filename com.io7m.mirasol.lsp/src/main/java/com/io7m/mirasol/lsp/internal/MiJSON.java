@@ -0,0 +1,343 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.lsp.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A minimal JSON reader and writer, sufficient for the language server
+ * protocol. Objects are read as {@link Map} values, arrays as {@link List}
+ * values, numbers as {@link BigDecimal} values, and {@code null} as
+ * {@code null}.
+ */
+
+public final class MiJSON
+{
+  private final String text;
+  private int position;
+
+  private MiJSON(
+    final String inText)
+  {
+    this.text = Objects.requireNonNull(inText, "text");
+    this.position = 0;
+  }
+
+  /**
+   * Parse a JSON document.
+   *
+   * @param text The text
+   *
+   * @return The parsed value
+   *
+   * @throws MiJSONException On malformed input
+   */
+
+  public static Object parse(
+    final String text)
+    throws MiJSONException
+  {
+    final var parser = new MiJSON(text);
+    parser.skipWhitespace();
+    final var value = parser.parseValue();
+    parser.skipWhitespace();
+    if (parser.position != text.length()) {
+      throw parser.error("Trailing garbage");
+    }
+    return value;
+  }
+
+  /**
+   * Serialize a value as JSON.
+   *
+   * @param value The value
+   *
+   * @return The JSON text
+   */
+
+  public static String serialize(
+    final Object value)
+  {
+    final var builder = new StringBuilder(256);
+    serializeValue(builder, value);
+    return builder.toString();
+  }
+
+  private static void serializeValue(
+    final StringBuilder builder,
+    final Object value)
+  {
+    switch (value) {
+      case null -> builder.append("null");
+      case final String s -> serializeString(builder, s);
+      case final Boolean b -> builder.append(b.booleanValue());
+      case final Integer x -> builder.append(x.intValue());
+      case final Long x -> builder.append(x.longValue());
+      case final BigDecimal x -> builder.append(x.toPlainString());
+      case final Map<?, ?> m -> {
+        builder.append('{');
+        var first = true;
+        for (final var entry : m.entrySet()) {
+          if (!first) {
+            builder.append(',');
+          }
+          first = false;
+          serializeString(builder, (String) entry.getKey());
+          builder.append(':');
+          serializeValue(builder, entry.getValue());
+        }
+        builder.append('}');
+      }
+      case final List<?> xs -> {
+        builder.append('[');
+        var first = true;
+        for (final var x : xs) {
+          if (!first) {
+            builder.append(',');
+          }
+          first = false;
+          serializeValue(builder, x);
+        }
+        builder.append(']');
+      }
+      default -> throw new IllegalArgumentException(
+        "Cannot serialize a value of type %s".formatted(value.getClass())
+      );
+    }
+  }
+
+  private static void serializeString(
+    final StringBuilder builder,
+    final String s)
+  {
+    builder.append('"');
+    for (int index = 0; index < s.length(); ++index) {
+      final var c = s.charAt(index);
+      switch (c) {
+        case '"' -> builder.append("\\\"");
+        case '\\' -> builder.append("\\\\");
+        case '\n' -> builder.append("\\n");
+        case '\r' -> builder.append("\\r");
+        case '\t' -> builder.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            builder.append("\\u%04x".formatted((int) c));
+          } else {
+            builder.append(c);
+          }
+        }
+      }
+    }
+    builder.append('"');
+  }
+
+  private MiJSONException error(
+    final String message)
+  {
+    return new MiJSONException(
+      "%s at offset %d".formatted(message, Integer.valueOf(this.position))
+    );
+  }
+
+  private void skipWhitespace()
+  {
+    while (this.position < this.text.length()) {
+      switch (this.text.charAt(this.position)) {
+        case ' ', '\t', '\r', '\n' -> ++this.position;
+        default -> {
+          return;
+        }
+      }
+    }
+  }
+
+  private char peek()
+    throws MiJSONException
+  {
+    if (this.position >= this.text.length()) {
+      throw this.error("Unexpected end of input");
+    }
+    return this.text.charAt(this.position);
+  }
+
+  private void expect(
+    final char c)
+    throws MiJSONException
+  {
+    if (this.peek() != c) {
+      throw this.error("Expected '%c'".formatted(Character.valueOf(c)));
+    }
+    ++this.position;
+  }
+
+  private void expectWord(
+    final String word)
+    throws MiJSONException
+  {
+    if (!this.text.startsWith(word, this.position)) {
+      throw this.error("Expected '%s'".formatted(word));
+    }
+    this.position += word.length();
+  }
+
+  private Object parseValue()
+    throws MiJSONException
+  {
+    return switch (this.peek()) {
+      case '{' -> this.parseObject();
+      case '[' -> this.parseArray();
+      case '"' -> this.parseString();
+      case 't' -> {
+        this.expectWord("true");
+        yield Boolean.TRUE;
+      }
+      case 'f' -> {
+        this.expectWord("false");
+        yield Boolean.FALSE;
+      }
+      case 'n' -> {
+        this.expectWord("null");
+        yield null;
+      }
+      default -> this.parseNumber();
+    };
+  }
+
+  private Map<String, Object> parseObject()
+    throws MiJSONException
+  {
+    final var results = new LinkedHashMap<String, Object>();
+    this.expect('{');
+    this.skipWhitespace();
+    if (this.peek() == '}') {
+      ++this.position;
+      return results;
+    }
+
+    while (true) {
+      this.skipWhitespace();
+      final var key = this.parseString();
+      this.skipWhitespace();
+      this.expect(':');
+      this.skipWhitespace();
+      results.put(key, this.parseValue());
+      this.skipWhitespace();
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect('}');
+      return results;
+    }
+  }
+
+  private List<Object> parseArray()
+    throws MiJSONException
+  {
+    final var results = new ArrayList<Object>();
+    this.expect('[');
+    this.skipWhitespace();
+    if (this.peek() == ']') {
+      ++this.position;
+      return results;
+    }
+
+    while (true) {
+      this.skipWhitespace();
+      results.add(this.parseValue());
+      this.skipWhitespace();
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect(']');
+      return results;
+    }
+  }
+
+  private String parseString()
+    throws MiJSONException
+  {
+    this.expect('"');
+    final var builder = new StringBuilder();
+    while (true) {
+      final var c = this.peek();
+      ++this.position;
+      switch (c) {
+        case '"' -> {
+          return builder.toString();
+        }
+        case '\\' -> {
+          final var e = this.peek();
+          ++this.position;
+          switch (e) {
+            case '"', '\\', '/' -> builder.append(e);
+            case 'b' -> builder.append('\b');
+            case 'f' -> builder.append('\f');
+            case 'n' -> builder.append('\n');
+            case 'r' -> builder.append('\r');
+            case 't' -> builder.append('\t');
+            case 'u' -> {
+              if (this.position + 4 > this.text.length()) {
+                throw this.error("Truncated escape");
+              }
+              try {
+                builder.append((char) Integer.parseInt(
+                  this.text.substring(this.position, this.position + 4),
+                  16
+                ));
+              } catch (final NumberFormatException ex) {
+                throw this.error("Malformed escape");
+              }
+              this.position += 4;
+            }
+            default -> throw this.error("Malformed escape");
+          }
+        }
+        default -> builder.append(c);
+      }
+    }
+  }
+
+  private BigDecimal parseNumber()
+    throws MiJSONException
+  {
+    final var start = this.position;
+    while (this.position < this.text.length()) {
+      final var c = this.text.charAt(this.position);
+      if ((c >= '0' && c <= '9')
+          || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+        ++this.position;
+      } else {
+        break;
+      }
+    }
+
+    try {
+      return new BigDecimal(this.text.substring(start, this.position));
+    } catch (final NumberFormatException e) {
+      this.position = start;
+      throw this.error("Malformed value");
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.lsp.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The base protocol of the language server protocol: messages preceded by
+ * a header containing a {@code Content-Length} field.
+ */
+
+public final class MiLanguageServerConnection
+{
+  private static final int MAXIMUM_MESSAGE_SIZE = 64 * 1024 * 1024;
+  private static final int MAXIMUM_HEADER_SIZE = 8192;
+
+  private final InputStream input;
+  private final OutputStream output;
+
+  /**
+   * The base protocol of the language server protocol.
+   *
+   * @param inInput  The input stream
+   * @param inOutput The output stream
+   */
+
+  public MiLanguageServerConnection(
+    final InputStream inInput,
+    final OutputStream inOutput)
+  {
+    this.input =
+      Objects.requireNonNull(inInput, "input");
+    this.output =
+      Objects.requireNonNull(inOutput, "output");
+  }
+
+  /**
+   * Read a message.
+   *
+   * @return The message content, or nothing if the input is closed
+   *
+   * @throws IOException On I/O errors or malformed headers
+   */
+
+  public Optional<String> read()
+    throws IOException
+  {
+    var contentLength = -1;
+
+    while (true) {
+      final var lineOpt = this.readHeaderLine();
+      if (lineOpt.isEmpty()) {
+        return Optional.empty();
+      }
+
+      final var line = lineOpt.get();
+      if (line.isEmpty()) {
+        break;
+      }
+
+      final var colon = line.indexOf(':');
+      if (colon < 0) {
+        throw new IOException("Malformed header: " + line);
+      }
+
+      final var name =
+        line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      final var value =
+        line.substring(colon + 1).trim();
+
+      if (Objects.equals(name, "content-length")) {
+        try {
+          contentLength = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+          throw new IOException("Malformed content length: " + value);
+        }
+      }
+    }
+
+    if (contentLength < 0 || contentLength > MAXIMUM_MESSAGE_SIZE) {
+      throw new IOException("Missing or unusable content length");
+    }
+
+    final var data = this.input.readNBytes(contentLength);
+    if (data.length != contentLength) {
+      return Optional.empty();
+    }
+    return Optional.of(new String(data, StandardCharsets.UTF_8));
+  }
+
+  private Optional<String> readHeaderLine()
+    throws IOException
+  {
+    final var buffer = new ByteArrayOutputStream();
+    while (true) {
+      final var c = this.input.read();
+      if (c == -1) {
+        return Optional.empty();
+      }
+      if (c == '\n') {
+        break;
+      }
+      if (c != '\r') {
+        buffer.write(c);
+      }
+      if (buffer.size() > MAXIMUM_HEADER_SIZE) {
+        throw new IOException("Header line too long");
+      }
+    }
+    return Optional.of(buffer.toString(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Write a message.
+   *
+   * @param content The message content
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final String content)
+    throws IOException
+  {
+    final var data =
+      content.getBytes(StandardCharsets.UTF_8);
+    final var header =
+      "Content-Length: %d\r\n\r\n".formatted(Integer.valueOf(data.length));
+
+    synchronized (this.output) {
+      this.output.write(header.getBytes(StandardCharsets.US_ASCII));
+      this.output.write(data);
+      this.output.flush();
+    }
+  }
+}
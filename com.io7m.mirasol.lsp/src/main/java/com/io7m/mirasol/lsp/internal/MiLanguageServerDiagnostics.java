@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.lsp.internal;
+
+import com.io7m.anethum.api.ParseSeverity;
+import com.io7m.anethum.api.ParseStatus;
+import com.io7m.mirasol.strings.MiStrings;
+import com.io7m.seltzer.api.SStructuredErrorType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.io7m.mirasol.strings.MiStringConstants.COLUMN;
+import static com.io7m.mirasol.strings.MiStringConstants.FILE;
+import static com.io7m.mirasol.strings.MiStringConstants.LINE;
+
+/**
+ * Functions to convert structured errors to language server diagnostics.
+ */
+
+public final class MiLanguageServerDiagnostics
+{
+  private static final int SEVERITY_ERROR = 1;
+  private static final int SEVERITY_WARNING = 2;
+  private static final int SEVERITY_INFORMATION = 3;
+
+  private final String lineName;
+  private final String columnName;
+  private final Set<String> positionNames;
+
+  /**
+   * Functions to convert structured errors to language server diagnostics.
+   *
+   * @param strings The strings used to name error attributes
+   */
+
+  public MiLanguageServerDiagnostics(
+    final MiStrings strings)
+  {
+    Objects.requireNonNull(strings, "strings");
+
+    this.lineName =
+      strings.format(LINE);
+    this.columnName =
+      strings.format(COLUMN);
+    this.positionNames =
+      Set.of(this.lineName, this.columnName, strings.format(FILE));
+  }
+
+  /**
+   * Convert an error to a diagnostic. The error code becomes the diagnostic
+   * code, and the attributes that do not describe the position of the error
+   * are included in the message and in the diagnostic data.
+   *
+   * @param error The error
+   *
+   * @return A diagnostic
+   */
+
+  public Map<String, Object> diagnostic(
+    final SStructuredErrorType<String> error)
+  {
+    Objects.requireNonNull(error, "error");
+
+    final int line;
+    final int column;
+    final int severity;
+    if (error instanceof final ParseStatus status) {
+      line = status.lexical().line();
+      column = status.lexical().column();
+      severity = severityOf(status.severity());
+    } else {
+      line = this.attributeInt(error, this.lineName);
+      column = this.attributeInt(error, this.columnName);
+      severity = SEVERITY_ERROR;
+    }
+
+    final var attributes = new TreeMap<String, String>();
+    for (final var entry : error.attributes().entrySet()) {
+      if (!this.positionNames.contains(entry.getKey())) {
+        attributes.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    final var message = new StringBuilder(128);
+    message.append(error.message());
+    for (final var entry : attributes.entrySet()) {
+      message.append('\n');
+      message.append(entry.getKey());
+      message.append(": ");
+      message.append(entry.getValue());
+    }
+    error.remediatingAction().ifPresent(action -> {
+      message.append("\nAction: ");
+      message.append(action);
+    });
+
+    /*
+     * Lines and columns are numbered from one in errors, and from zero in
+     * the protocol. The range extends to the end of the line.
+     */
+
+    final var startLine = Math.max(line - 1, 0);
+    final var start = new LinkedHashMap<String, Object>();
+    start.put("line", Integer.valueOf(startLine));
+    start.put("character", Integer.valueOf(Math.max(column - 1, 0)));
+
+    final var end = new LinkedHashMap<String, Object>();
+    end.put("line", Integer.valueOf(startLine + 1));
+    end.put("character", Integer.valueOf(0));
+
+    final var range = new LinkedHashMap<String, Object>();
+    range.put("start", start);
+    range.put("end", end);
+
+    final var result = new LinkedHashMap<String, Object>();
+    result.put("range", range);
+    result.put("severity", Integer.valueOf(severity));
+    result.put("code", error.errorCode());
+    result.put("source", "mirasol");
+    result.put("message", message.toString());
+    result.put("data", new LinkedHashMap<String, Object>(error.attributes()));
+    return result;
+  }
+
+  private int attributeInt(
+    final SStructuredErrorType<String> error,
+    final String name)
+  {
+    final var text = error.attributes().get(name);
+    if (text == null) {
+      return 0;
+    }
+
+    try {
+      return Integer.parseUnsignedInt(text);
+    } catch (final NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static int severityOf(
+    final ParseSeverity severity)
+  {
+    return switch (severity) {
+      case PARSE_ERROR -> SEVERITY_ERROR;
+      case PARSE_WARNING -> SEVERITY_WARNING;
+      case PARSE_INFO -> SEVERITY_INFORMATION;
+    };
+  }
+}
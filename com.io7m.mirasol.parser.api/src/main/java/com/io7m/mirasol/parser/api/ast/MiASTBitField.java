@@ -18,11 +18,14 @@
 package com.io7m.mirasol.parser.api.ast;
 
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiSizeOctets;
 
+import java.math.BigInteger;
 import java.net.URI;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A field declaration.
@@ -33,6 +36,8 @@ import java.util.Objects;
  * @param offset        The field offset
  * @param ranges        The field ranges
  * @param sizeOctets    The size in octets
+ * @param access        The access semantics, if specified
+ * @param reset         The value after a reset, if specified
  */
 
 public record MiASTBitField(
@@ -41,7 +46,9 @@ public record MiASTBitField(
   MiASTSimpleName name,
   MiASTOffset offset,
   List<MiASTBitRange> ranges,
-  MiSizeOctets sizeOctets)
+  MiSizeOctets sizeOctets,
+  Optional<MiAccess> access,
+  Optional<BigInteger> reset)
   implements MiASTDocumentedType, MiASTFieldType
 {
   /**
@@ -53,6 +60,8 @@ public record MiASTBitField(
    * @param offset        The field offset
    * @param ranges        The field ranges
    * @param sizeOctets    The size in octets
+   * @param access        The access semantics, if specified
+   * @param reset         The value after a reset, if specified
    */
 
   public MiASTBitField
@@ -61,6 +70,8 @@ public record MiASTBitField(
     Objects.requireNonNull(documentation, "documentation");
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(offset, "offset");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
 
     ranges = List.copyOf(ranges);
   }
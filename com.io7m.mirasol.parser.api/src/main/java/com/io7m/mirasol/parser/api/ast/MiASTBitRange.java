@@ -19,9 +19,12 @@ package com.io7m.mirasol.parser.api.ast;
 
 import com.io7m.abstand.core.IntervalB;
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 
+import java.math.BigInteger;
 import java.net.URI;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A named bit range.
@@ -30,13 +33,17 @@ import java.util.Objects;
  * @param documentation The documentation annotation
  * @param name          The name
  * @param range         The range
+ * @param access        The access semantics, if specified
+ * @param reset         The value after a reset, if specified
  */
 
 public record MiASTBitRange(
   LexicalPosition<URI> lexical,
   MiASTDocumentation documentation,
   MiASTSimpleName name,
-  IntervalB range)
+  IntervalB range,
+  Optional<MiAccess> access,
+  Optional<BigInteger> reset)
   implements MiASTDocumentedType
 {
   /**
@@ -46,6 +53,8 @@ public record MiASTBitRange(
    * @param documentation The documentation annotation
    * @param name          The name
    * @param range         The range
+   * @param access        The access semantics, if specified
+   * @param reset         The value after a reset, if specified
    */
 
   public MiASTBitRange
@@ -54,5 +63,7 @@ public record MiASTBitRange(
     Objects.requireNonNull(documentation, "documentation");
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(range, "range");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
   }
 }
@@ -18,9 +18,12 @@
 package com.io7m.mirasol.parser.api.ast;
 
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 
+import java.math.BigInteger;
 import java.net.URI;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A field declaration.
@@ -30,6 +33,8 @@ import java.util.Objects;
  * @param name          The field name
  * @param offset        The field offset
  * @param type          The field type
+ * @param access        The access semantics, if specified
+ * @param reset         The value after a reset, if specified
  */
 
 public record MiASTField(
@@ -37,7 +42,9 @@ public record MiASTField(
   MiASTDocumentation documentation,
   MiASTSimpleName name,
   MiASTOffset offset,
-  MiASTTypeReference type)
+  MiASTTypeReference type,
+  Optional<MiAccess> access,
+  Optional<BigInteger> reset)
   implements MiASTDocumentedType, MiASTFieldType, MiASTTypeElementType
 {
   /**
@@ -48,6 +55,8 @@ public record MiASTField(
    * @param name          The field name
    * @param offset        The field offset
    * @param type          The field type
+   * @param access        The access semantics, if specified
+   * @param reset         The value after a reset, if specified
    */
 
   public MiASTField
@@ -57,5 +66,7 @@ public record MiASTField(
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(offset, "offset");
     Objects.requireNonNull(type, "type");
+    Objects.requireNonNull(access, "access");
+    Objects.requireNonNull(reset, "reset");
   }
 }
@@ -19,9 +19,12 @@ package com.io7m.mirasol.parser.internal;
 
 import com.io7m.blackthorne.core.BTQualifiedName;
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.schema.MiSchemas;
+import org.xml.sax.Attributes;
 import org.xml.sax.Locator;
 
+import java.math.BigInteger;
 import java.net.URI;
 import java.util.Optional;
 
@@ -72,4 +75,43 @@ public final class Mi1
     );
   }
 
+  /**
+   * The access semantics specified in the given attributes, if any.
+   *
+   * @param attributes The attributes
+   *
+   * @return The access semantics
+   */
+
+  public static Optional<MiAccess> access(
+    final Attributes attributes)
+  {
+    return Optional.ofNullable(attributes.getValue("Access"))
+      .map(MiAccess::of);
+  }
+
+  /**
+   * The reset value specified in the given attributes, if any. The value may
+   * be given in decimal, or in hexadecimal with a {@code 0x} prefix.
+   *
+   * @param attributes The attributes
+   *
+   * @return The reset value
+   */
+
+  public static Optional<BigInteger> reset(
+    final Attributes attributes)
+  {
+    return Optional.ofNullable(attributes.getValue("Reset"))
+      .map(Mi1::parseNumber);
+  }
+
+  private static BigInteger parseNumber(
+    final String text)
+  {
+    if (text.startsWith("0x")) {
+      return new BigInteger(text.substring(2), 16);
+    }
+    return new BigInteger(text);
+  }
 }
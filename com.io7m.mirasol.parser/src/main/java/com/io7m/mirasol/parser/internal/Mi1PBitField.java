@@ -22,6 +22,7 @@ import com.io7m.blackthorne.core.BTElementHandlerType;
 import com.io7m.blackthorne.core.BTElementParsingContextType;
 import com.io7m.blackthorne.core.BTQualifiedName;
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiSizeOctets;
 import com.io7m.mirasol.parser.api.ast.MiASTBitField;
 import com.io7m.mirasol.parser.api.ast.MiASTBitRange;
@@ -34,6 +35,7 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.io7m.mirasol.parser.internal.Mi1.element;
 import static com.io7m.mirasol.parser.internal.Mi1.position;
@@ -51,6 +53,8 @@ public final class Mi1PBitField
   private MiSizeOctets size;
   private MiASTSimpleName name;
   private MiASTOffset offset;
+  private Optional<MiAccess> access;
+  private Optional<BigInteger> reset;
 
   /**
    * Element handler.
@@ -126,6 +130,10 @@ public final class Mi1PBitField
       new MiSizeOctets(new BigInteger(attributes.getValue("SizeOctets")));
     this.name =
       new MiASTSimpleName(this.lexical, attributes.getValue("Name"));
+    this.access =
+      Mi1.access(attributes);
+    this.reset =
+      Mi1.reset(attributes);
   }
 
   @Override
@@ -138,7 +146,9 @@ public final class Mi1PBitField
       this.name,
       this.offset,
       this.ranges,
-      this.size
+      this.size,
+      this.access,
+      this.reset
     );
   }
 }
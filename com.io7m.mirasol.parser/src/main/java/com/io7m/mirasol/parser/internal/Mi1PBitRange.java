@@ -23,6 +23,7 @@ import com.io7m.blackthorne.core.BTElementHandlerType;
 import com.io7m.blackthorne.core.BTElementParsingContextType;
 import com.io7m.blackthorne.core.BTQualifiedName;
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.parser.api.ast.MiASTBitRange;
 import com.io7m.mirasol.parser.api.ast.MiASTDocumentation;
 import com.io7m.mirasol.parser.api.ast.MiASTSimpleName;
@@ -31,6 +32,7 @@ import org.xml.sax.Attributes;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.io7m.mirasol.parser.internal.Mi1.element;
 import static com.io7m.mirasol.parser.internal.Mi1.position;
@@ -47,6 +49,8 @@ public final class Mi1PBitRange
   private MiASTSimpleName name;
   private BigInteger lower;
   private BigInteger upper;
+  private Optional<MiAccess> access;
+  private Optional<BigInteger> reset;
 
   /**
    * Element handler.
@@ -104,6 +108,10 @@ public final class Mi1PBitRange
       new BigInteger(attributes.getValue("LowerInclusive"));
     this.upper =
       new BigInteger(attributes.getValue("UpperInclusive"));
+    this.access =
+      Mi1.access(attributes);
+    this.reset =
+      Mi1.reset(attributes);
   }
 
   @Override
@@ -114,7 +122,9 @@ public final class Mi1PBitRange
       this.lexical,
       this.documentation,
       this.name,
-      new IntervalB(this.lower, this.upper)
+      new IntervalB(this.lower, this.upper),
+      this.access,
+      this.reset
     );
   }
 }
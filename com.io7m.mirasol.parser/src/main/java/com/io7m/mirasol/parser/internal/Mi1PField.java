@@ -22,6 +22,7 @@ import com.io7m.blackthorne.core.BTElementHandlerType;
 import com.io7m.blackthorne.core.BTElementParsingContextType;
 import com.io7m.blackthorne.core.BTQualifiedName;
 import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.jlexing.core.LexicalPositions;
 import com.io7m.mirasol.parser.api.ast.MiASTDocumentation;
 import com.io7m.mirasol.parser.api.ast.MiASTField;
@@ -33,6 +34,7 @@ import org.xml.sax.Attributes;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.io7m.mirasol.parser.internal.Mi1.position;
 
@@ -48,6 +50,8 @@ public final class Mi1PField
   private LexicalPosition<URI> lexical;
   private MiASTDocumentation documentation;
   private MiASTTypeReference type;
+  private Optional<MiAccess> access;
+  private Optional<BigInteger> reset;
 
   /**
    * Element handler.
@@ -98,6 +102,10 @@ public final class Mi1PField
       position(context.documentLocator());
     this.name =
       new MiASTSimpleName(this.lexical, attributes.getValue("Name"));
+    this.access =
+      Mi1.access(attributes);
+    this.reset =
+      Mi1.reset(attributes);
   }
 
   @Override
@@ -132,7 +140,9 @@ public final class Mi1PField
       this.documentation,
       this.name,
       this.offset,
-      this.type
+      this.type,
+      this.access,
+      this.reset
     );
   }
 }
@@ -24,6 +24,7 @@ import com.io7m.blackthorne.core.BTException;
 import com.io7m.blackthorne.core.BTParseError;
 import com.io7m.blackthorne.core.BTPreserveLexical;
 import com.io7m.blackthorne.jxe.BlackthorneJXE;
+import com.io7m.mirasol.core.MiTimings;
 import com.io7m.mirasol.parser.api.MiLexical;
 import com.io7m.mirasol.parser.api.MiParserType;
 import com.io7m.mirasol.parser.api.ast.MiASTPackageDeclaration;
@@ -37,6 +38,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import static com.io7m.mirasol.core.MiTimingPhase.PARSE;
+
 /**
  * A parser of configurations.
  */
@@ -107,19 +110,23 @@ public final class MiParser implements MiParserType
   public MiASTPackageDeclaration execute()
     throws ParsingException
   {
-    try {
-      return BlackthorneJXE.parse(
-        this.source,
-        this.stream,
-        Map.ofEntries(
-          Map.entry(
-            Mi1.element("Package"),
-            Mi1PPackage::new
-          )
-        ),
-        MiSchemas.schemas(),
-        this.preserveLexical
-      );
+    try (var timing = MiTimings.start(PARSE, this.source.toString())) {
+      final MiASTPackageDeclaration result =
+        BlackthorneJXE.parse(
+          this.source,
+          this.stream,
+          Map.ofEntries(
+            Map.entry(
+              Mi1.element("Package"),
+              Mi1PPackage::new
+            )
+          ),
+          MiSchemas.schemas(),
+          this.preserveLexical
+        );
+
+      timing.setPackageName(result.name().toPackageName().toString());
+      return result;
     } catch (final BTException e) {
       final var statuses =
         e.errors()
@@ -18,6 +18,7 @@
 package com.io7m.mirasol.parser.internal;
 
 import com.io7m.anethum.api.SerializationException;
+import com.io7m.mirasol.core.MiAccess;
 import com.io7m.mirasol.core.MiBitFieldType;
 import com.io7m.mirasol.core.MiBitRangeType;
 import com.io7m.mirasol.core.MiFieldType;
@@ -49,6 +50,7 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The default package serializer.
@@ -232,6 +234,8 @@ public final class MiSerializer
   {
     this.output.writeStartElement("Field");
     this.output.writeAttribute("Name", typedField.name().value());
+    this.serializeAccess(typedField.access(), MiAccess.READ_WRITE);
+    this.serializeReset(typedField.reset());
     this.serializeOffset(typedField.offset());
     this.serializeTypeReference(pack, typedField.type());
     this.output.writeEndElement();
@@ -284,6 +288,8 @@ public final class MiSerializer
     this.output.writeStartElement("BitField");
     this.output.writeAttribute("Name", bitField.name().value());
     this.output.writeAttribute("SizeOctets", bitField.size().value().toString());
+    this.serializeAccess(bitField.access(), MiAccess.READ_WRITE);
+    this.serializeReset(bitField.reset());
 
     this.serializeOffset(bitField.offset());
 
@@ -305,9 +311,40 @@ public final class MiSerializer
     final var range = bitRange.range();
     this.output.writeAttribute("LowerInclusive", range.lower().toString());
     this.output.writeAttribute("UpperInclusive", range.upper().toString());
+    this.serializeAccess(bitRange.access(), bitField.access());
     this.output.writeEndElement();
   }
 
+  /**
+   * Write an access attribute, unless the access is the same as the access
+   * that would be inferred in the absence of the attribute.
+   */
+
+  private void serializeAccess(
+    final MiAccess access,
+    final MiAccess inferred)
+    throws XMLStreamException
+  {
+    if (access != inferred) {
+      this.output.writeAttribute("Access", access.show());
+    }
+  }
+
+  /**
+   * Write a reset attribute, if a reset value is known. The reset values of
+   * bit ranges are derived from the reset value of their bit field, and so
+   * are not written.
+   */
+
+  private void serializeReset(
+    final Optional<BigInteger> reset)
+    throws XMLStreamException
+  {
+    if (reset.isPresent()) {
+      this.output.writeAttribute("Reset", "0x" + reset.get().toString(16));
+    }
+  }
+
   private void serializePackageElementScalar(
     final MiScalarType scalar)
     throws XMLStreamException
@@ -0,0 +1,496 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.io7m.mirasol.strings.MiStringConstants.ADDRESS;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_ADDRESS_OVERLAP;
+import static com.io7m.mirasol.strings.MiStringConstants.PATH_INDEXED;
+
+/**
+ * An immutable index from absolute addresses to the registers (and bit
+ * ranges) of every map in a set of packages.
+ *
+ * <p>Registers are identified by an integer index. The start addresses of
+ * the registers are held in a single array in Eytzinger (breadth-first)
+ * order, and are searched with a branch-free binary search, so that the
+ * first few levels of every search share the same cache lines. Lookups do
+ * not allocate. Addresses are treated as unsigned 64-bit values.</p>
+ */
+
+public final class MiAddressIndex
+{
+  private final long[] keys;
+  private final int[] keyEntries;
+  private final long[] starts;
+  private final int[] sizes;
+  private final String[] paths;
+  private final MiAccess[] accesses;
+  private final int[] rangeFirst;
+  private final int[] rangeLower;
+  private final int[] rangeUpper;
+  private final String[] rangePaths;
+  private final String[] rangeNames;
+
+  private record MiRange(
+    String path,
+    String name,
+    int lower,
+    int upper)
+  {
+
+  }
+
+  private record MiEntry(
+    String path,
+    BigInteger start,
+    int size,
+    MiAccess access,
+    List<MiRange> ranges)
+  {
+
+  }
+
+  private MiAddressIndex(
+    final List<MiEntry> entries)
+  {
+    final var count = entries.size();
+
+    this.starts = new long[count];
+    this.sizes = new int[count];
+    this.paths = new String[count];
+    this.accesses = new MiAccess[count];
+    this.rangeFirst = new int[count + 1];
+
+    var rangeCount = 0;
+    for (final var entry : entries) {
+      rangeCount += entry.ranges.size();
+    }
+
+    this.rangeLower = new int[rangeCount];
+    this.rangeUpper = new int[rangeCount];
+    this.rangePaths = new String[rangeCount];
+    this.rangeNames = new String[rangeCount];
+
+    var range = 0;
+    for (int index = 0; index < count; ++index) {
+      final var entry = entries.get(index);
+      this.starts[index] = entry.start.longValue();
+      this.sizes[index] = entry.size;
+      this.paths[index] = entry.path;
+      this.accesses[index] = entry.access;
+      this.rangeFirst[index] = range;
+      for (final var r : entry.ranges) {
+        this.rangeLower[range] = r.lower;
+        this.rangeUpper[range] = r.upper;
+        this.rangePaths[range] = r.path;
+        this.rangeNames[range] = r.name;
+        ++range;
+      }
+    }
+    this.rangeFirst[count] = range;
+
+    this.keys = new long[count + 1];
+    this.keyEntries = new int[count + 1];
+    this.keys[0] = Long.MIN_VALUE;
+    this.keyEntries[0] = count;
+    eytzinger(this.starts, this.keys, this.keyEntries, 0, 1);
+  }
+
+  /*
+   * Lay out the sorted array in breadth-first order. Keys are stored with
+   * the sign bit flipped so that signed comparisons order them as unsigned
+   * values.
+   */
+
+  private static int eytzinger(
+    final long[] sorted,
+    final long[] keys,
+    final int[] keyEntries,
+    final int index,
+    final int node)
+  {
+    var next = index;
+    if (node < keys.length) {
+      next = eytzinger(sorted, keys, keyEntries, next, 2 * node);
+      keys[node] = sorted[next] ^ Long.MIN_VALUE;
+      keyEntries[node] = next;
+      ++next;
+      next = eytzinger(sorted, keys, keyEntries, next, (2 * node) + 1);
+    }
+    return next;
+  }
+
+  /**
+   * Build an index of every map in the given packages.
+   *
+   * @param packages The packages
+   *
+   * @return The index
+   *
+   * @throws MiRuntimeException If the addresses of any two registers overlap
+   */
+
+  public static MiAddressIndex create(
+    final Collection<MiPackageType> packages)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(packages, "packages");
+
+    final var entries = new ArrayList<MiEntry>();
+    for (final var pack : packages) {
+      for (final var map : pack.maps()) {
+        collect(
+          map.type().type(),
+          "%s.%s".formatted(pack.name(), map.name().value()),
+          map.offset(),
+          MiAccess.READ_WRITE,
+          entries
+        );
+      }
+    }
+
+    entries.sort(Comparator.comparing(MiEntry::start));
+
+    for (int index = 1; index < entries.size(); ++index) {
+      final var previous = entries.get(index - 1);
+      final var current = entries.get(index);
+      final var previousEnd =
+        previous.start.add(BigInteger.valueOf(previous.size));
+
+      if (previousEnd.compareTo(current.start) > 0) {
+        throw errorOverlap(previous, current);
+      }
+    }
+
+    return new MiAddressIndex(entries);
+  }
+
+  private static void collect(
+    final MiTypeType type,
+    final String path,
+    final BigInteger address,
+    final MiAccess access,
+    final List<MiEntry> entries)
+  {
+    switch (type) {
+      case final MiScalarType scalar -> {
+        entries.add(new MiEntry(
+          path,
+          address,
+          scalar.size().value().intValueExact(),
+          access,
+          List.of()
+        ));
+      }
+      case final MiStructureType structure -> {
+        for (final var field : structure.fields()) {
+          final var fieldPath =
+            "%s.%s".formatted(path, field.name().value());
+          final var fieldAddress =
+            address.add(field.offset());
+
+          switch (field) {
+            case final MiBitFieldType bitField -> {
+              final var ranges = new ArrayList<MiRange>();
+              for (final var range : bitField.ranges()) {
+                ranges.add(new MiRange(
+                  "%s.%s".formatted(fieldPath, range.name().value()),
+                  range.name().value(),
+                  range.range().lower().intValueExact(),
+                  range.range().upper().intValueExact()
+                ));
+              }
+              entries.add(new MiEntry(
+                fieldPath,
+                fieldAddress,
+                bitField.size().value().intValueExact(),
+                bitField.access(),
+                List.copyOf(ranges)
+              ));
+            }
+            case final MiTypedFieldType typedField -> {
+              collect(
+                typedField.type().type(),
+                fieldPath,
+                fieldAddress,
+                typedField.access(),
+                entries
+              );
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The number of registers in the index
+   */
+
+  public int size()
+  {
+    return this.starts.length;
+  }
+
+  /**
+   * Find the register containing the given address.
+   *
+   * @param address The address
+   *
+   * @return The index of the register, or {@code -1} if no register
+   * contains the address
+   */
+
+  public int find(
+    final long address)
+  {
+    final var key = address ^ Long.MIN_VALUE;
+    final var keyArray = this.keys;
+    final var n = keyArray.length - 1;
+
+    /*
+     * Find the first key strictly greater than the address. The register
+     * that contains the address (if any) is the one immediately before it.
+     */
+
+    var k = 1;
+    while (k <= n) {
+      k = (2 * k) + (keyArray[k] <= key ? 1 : 0);
+    }
+    k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+
+    final var entry = this.keyEntries[k] - 1;
+    if (entry < 0) {
+      return -1;
+    }
+
+    final var offset = address - this.starts[entry];
+    if (Long.compareUnsigned(offset, this.sizes[entry]) < 0) {
+      return entry;
+    }
+    return -1;
+  }
+
+  /**
+   * Find the bit range containing the given bit.
+   *
+   * @param entry   The index of the register, as returned by
+   *                {@link #find(long)}
+   * @param address The address
+   * @param bit     The bit within the octet at the given address
+   *
+   * @return The index of the bit range, or {@code -1} if no bit range
+   * contains the bit
+   */
+
+  public int findRange(
+    final int entry,
+    final long address,
+    final int bit)
+  {
+    final var position =
+      ((address - this.starts[entry]) * 8L) + bit;
+
+    final var last = this.rangeFirst[entry + 1];
+    for (int range = this.rangeFirst[entry]; range < last; ++range) {
+      if (this.rangeLower[range] <= position
+          && position <= this.rangeUpper[range]) {
+        return range;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The fully qualified path of the register
+   */
+
+  public String path(
+    final int entry)
+  {
+    return this.paths[entry];
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The address of the register
+   */
+
+  public long address(
+    final int entry)
+  {
+    return this.starts[entry];
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The size of the register in octets
+   */
+
+  public int sizeOctets(
+    final int entry)
+  {
+    return this.sizes[entry];
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The access semantics of the register
+   */
+
+  public MiAccess access(
+    final int entry)
+  {
+    return this.accesses[entry];
+  }
+
+  /**
+   * @return The number of bit ranges in the index
+   */
+
+  public int rangeCount()
+  {
+    return this.rangePaths.length;
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The index of the first bit range of the register
+   */
+
+  public int rangesStart(
+    final int entry)
+  {
+    return this.rangeFirst[entry];
+  }
+
+  /**
+   * @param entry The index of the register
+   *
+   * @return The index one past the last bit range of the register
+   */
+
+  public int rangesEnd(
+    final int entry)
+  {
+    return this.rangeFirst[entry + 1];
+  }
+
+  /**
+   * @param range The index of the bit range
+   *
+   * @return The lowest bit of the bit range, relative to the register
+   */
+
+  public int rangeLower(
+    final int range)
+  {
+    return this.rangeLower[range];
+  }
+
+  /**
+   * @param range The index of the bit range
+   *
+   * @return The highest bit of the bit range, relative to the register
+   */
+
+  public int rangeUpper(
+    final int range)
+  {
+    return this.rangeUpper[range];
+  }
+
+  /**
+   * @param range The index of the bit range
+   *
+   * @return The name of the bit range
+   */
+
+  public String rangeName(
+    final int range)
+  {
+    return this.rangeNames[range];
+  }
+
+  /**
+   * @param range The index of the bit range
+   *
+   * @return The fully qualified path of the bit range
+   */
+
+  public String rangePath(
+    final int range)
+  {
+    return this.rangePaths[range];
+  }
+
+  private static MiRuntimeException errorOverlap(
+    final MiEntry previous,
+    final MiEntry current)
+  {
+    final var strings =
+      MiStrings.create(Locale.getDefault());
+    final var attributes = new TreeMap<String, String>();
+
+    attributes.put(
+      strings.format(PATH_INDEXED, Integer.valueOf(0)),
+      previous.path
+    );
+    attributes.put(
+      strings.format(PATH_INDEXED, Integer.valueOf(1)),
+      current.path
+    );
+    attributes.put(
+      strings.format(ADDRESS),
+      "0x%s".formatted(current.start.toString(16))
+    );
+
+    return new MiRuntimeException(
+      strings.format(ERROR_RUNTIME_ADDRESS_OVERLAP),
+      "error-address-overlap",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
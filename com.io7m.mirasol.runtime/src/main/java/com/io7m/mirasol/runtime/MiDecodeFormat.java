@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import java.util.Objects;
+
+/**
+ * The output formats produced when decoding dumps.
+ */
+
+public enum MiDecodeFormat
+{
+  /**
+   * One JSON object per line.
+   */
+
+  JSON_LINES("jsonl"),
+
+  /**
+   * Comma-separated values, with a header row.
+   */
+
+  CSV("csv");
+
+  private final String humanName;
+
+  MiDecodeFormat(
+    final String inName)
+  {
+    this.humanName =
+      Objects.requireNonNull(inName, "inName");
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The format with the given name
+   *
+   * @throws IllegalArgumentException On unrecognized names
+   */
+
+  public static MiDecodeFormat of(
+    final String name)
+  {
+    for (final var value : values()) {
+      if (Objects.equals(name, value.show())) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException(
+      "Unrecognized decode format: %s".formatted(name)
+    );
+  }
+
+  /**
+   * @return The name of the format
+   */
+
+  public String show()
+  {
+    return this.humanName;
+  }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.strings.MiStringConstantType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_DUMP_TOO_SMALL;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_MAP_OUTSIDE_DUMP;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_NO_SUCH_ELEMENT;
+import static com.io7m.mirasol.strings.MiStringConstants.FILE;
+import static com.io7m.mirasol.strings.MiStringConstants.MAP;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+
+/**
+ * A decoder that turns raw memory dumps into named register values.
+ *
+ * <p>Every readable register and bit range of the selected maps is
+ * resolved once when the decoder is created. Dumps are memory-mapped and
+ * decoded in chunks of records; chunks are decoded in parallel, and the
+ * output of each chunk is written in order as soon as it is complete. The
+ * number of chunks in flight is bounded, so memory use does not depend on
+ * the size of the dumps.</p>
+ */
+
+public final class MiDecoder
+{
+  private static final long CHUNK_OCTETS = 1L << 20;
+  private static final long CHUNK_ROWS = 1L << 14;
+  private static final long MAP_ALIGNMENT = 8L;
+
+  private final MiPackageType packageV;
+  private final MiDecoderConfiguration configuration;
+  private final List<MiDecodeEntry> entries;
+  private final long windowLower;
+  private final long windowUpper;
+  private final MiStrings strings;
+
+  private record MiDecodeEntry(
+    MiRegisterHandleType handle,
+    long position,
+    String text)
+  {
+
+  }
+
+  private MiDecoder(
+    final MiPackageType inPackage,
+    final MiDecoderConfiguration inConfiguration,
+    final List<MiDecodeEntry> inEntries,
+    final long inWindowLower,
+    final long inWindowUpper,
+    final MiStrings inStrings)
+  {
+    this.packageV =
+      Objects.requireNonNull(inPackage, "package");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.entries =
+      Objects.requireNonNull(inEntries, "entries");
+    this.windowLower =
+      inWindowLower;
+    this.windowUpper =
+      inWindowUpper;
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+  }
+
+  /**
+   * Create a decoder.
+   *
+   * @param pack          The package
+   * @param configuration The configuration
+   *
+   * @return A decoder
+   *
+   * @throws MiRuntimeException If the selected maps do not exist, or do not
+   *                            lie within the dumped region
+   */
+
+  public static MiDecoder create(
+    final MiPackageType pack,
+    final MiDecoderConfiguration configuration)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(pack, "pack");
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var strings =
+      MiStrings.create(Locale.getDefault());
+    final var registers =
+      MiRegisterMap.create(pack, configuration.order());
+
+    final var maps = new ArrayList<MiMapType>();
+    if (configuration.maps().isEmpty()) {
+      maps.addAll(pack.maps());
+    } else {
+      for (final var name : configuration.maps()) {
+        if (pack.object(name).orElse(null) instanceof final MiMapType map) {
+          maps.add(map);
+        } else {
+          throw error(
+            strings,
+            pack,
+            name.value(),
+            ERROR_RUNTIME_NO_SUCH_ELEMENT,
+            "error-no-such-element"
+          );
+        }
+      }
+    }
+
+    final var dumpBase =
+      configuration.dumpBase()
+        .orElseGet(() -> {
+          return maps.stream()
+            .map(MiMapType::offset)
+            .min(BigInteger::compareTo)
+            .orElse(BigInteger.ZERO);
+        });
+
+    var windowLower = Long.MAX_VALUE;
+    var windowUpper = 0L;
+    final var entries = new ArrayList<MiDecodeEntry>();
+
+    for (final var map : maps) {
+      final var position =
+        map.offset().subtract(dumpBase);
+      final var size =
+        map.type().type().size().value();
+      final var end =
+        position.add(size);
+      final var recordSize =
+        configuration.recordSize();
+
+      if (position.signum() < 0
+          || end.bitLength() >= 63
+          || recordSize.isPresent()
+             && end.longValue() > recordSize.getAsLong()) {
+        throw error(
+          strings,
+          pack,
+          map.name().value(),
+          ERROR_RUNTIME_MAP_OUTSIDE_DUMP,
+          "error-map-outside-dump"
+        );
+      }
+
+      windowLower = Math.min(windowLower, position.longValue());
+      windowUpper = Math.max(windowUpper, end.longValue());
+
+      final var paths = new ArrayList<String>();
+      collectPaths(map.type().type(), map.name().value(), paths);
+
+      for (final var path : paths) {
+        final var handle =
+          registers.resolve(path);
+        final var address =
+          map.offset().add(BigInteger.valueOf(handle.offset()));
+
+        entries.add(new MiDecodeEntry(
+          handle,
+          position.longValue(),
+          switch (configuration.format()) {
+            case JSON_LINES -> {
+              yield ",\"address\":\"0x%s\",\"path\":\"%s\",\"value\":"
+                .formatted(address.toString(16), path);
+            }
+            case CSV -> {
+              yield ",0x%s,%s,".formatted(address.toString(16), path);
+            }
+          }
+        ));
+      }
+    }
+
+    if (entries.isEmpty()) {
+      windowLower = 0L;
+    }
+
+    return new MiDecoder(
+      pack,
+      configuration,
+      List.copyOf(entries),
+      windowLower,
+      windowUpper,
+      strings
+    );
+  }
+
+  private static void collectPaths(
+    final MiTypeType type,
+    final String path,
+    final List<String> paths)
+  {
+    switch (type) {
+      case final MiScalarType scalar -> {
+        paths.add(path);
+      }
+      case final MiStructureType structure -> {
+        for (final var field : structure.fields()) {
+          final var fieldPath =
+            "%s.%s".formatted(path, field.name().value());
+
+          switch (field) {
+            case final MiBitFieldType bitField -> {
+              if (bitField.access().isReadable()) {
+                paths.add(fieldPath);
+              }
+              for (final var range : bitField.ranges()) {
+                if (range.access().isReadable()) {
+                  paths.add("%s.%s".formatted(fieldPath, range.name().value()));
+                }
+              }
+            }
+            case final MiTypedFieldType typedField -> {
+              final var fieldType = typedField.type().type();
+              if (fieldType instanceof MiStructureType
+                  || typedField.access().isReadable()) {
+                collectPaths(fieldType, fieldPath, paths);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Decode the given dumps, in order, writing the results to the given
+   * output.
+   *
+   * @param files  The dump files
+   * @param output The output
+   *
+   * @throws IOException        On I/O errors
+   * @throws MiRuntimeException If a dump is too small to contain the
+   *                            selected maps
+   */
+
+  public void decode(
+    final List<Path> files,
+    final Writer output)
+    throws IOException, MiRuntimeException
+  {
+    Objects.requireNonNull(files, "files");
+    Objects.requireNonNull(output, "output");
+
+    if (this.configuration.format() == MiDecodeFormat.CSV) {
+      output.write("file,record,address,path,value\n");
+    }
+
+    final var threads = this.configuration.threads();
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      for (final var file : files) {
+        this.decodeFile(executor, threads * 2, file, output);
+      }
+    }
+    output.flush();
+  }
+
+  private void decodeFile(
+    final ExecutorService executor,
+    final int maximumPending,
+    final Path file,
+    final Writer output)
+    throws IOException, MiRuntimeException
+  {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size =
+        channel.size();
+      final var recordSize =
+        this.configuration.recordSize().orElse(Math.max(size, 1L));
+
+      if (this.entries.isEmpty()) {
+        return;
+      }
+      if (size < this.windowUpper) {
+        throw this.errorDumpTooSmall(file);
+      }
+
+      final var records =
+        ((size - this.windowUpper) / recordSize) + 1L;
+      final var recordsPerChunk =
+        Math.max(
+          1L,
+          Math.min(
+            CHUNK_OCTETS / recordSize,
+            CHUNK_ROWS / this.entries.size()
+          )
+        );
+      final var prefix =
+        this.prefixOf(file);
+
+      final var pending = new ArrayDeque<Future<String>>();
+      for (long first = 0L; first < records; first += recordsPerChunk) {
+        final var chunkFirst = first;
+        final var chunkLast = Math.min(records, first + recordsPerChunk);
+
+        pending.add(executor.submit(() -> {
+          return this.decodeChunk(
+            channel,
+            prefix,
+            recordSize,
+            chunkFirst,
+            chunkLast
+          );
+        }));
+
+        if (pending.size() >= maximumPending) {
+          output.write(await(pending.remove()));
+        }
+      }
+
+      while (!pending.isEmpty()) {
+        output.write(await(pending.remove()));
+      }
+    }
+  }
+
+  private String decodeChunk(
+    final FileChannel channel,
+    final String prefix,
+    final long recordSize,
+    final long first,
+    final long last)
+    throws IOException
+  {
+    /*
+     * The span is mapped from an aligned file position so that the
+     * alignment of each register within the buffer matches its alignment
+     * within the file, regardless of the dump base and record size.
+     */
+
+    final var spanStart =
+      (first * recordSize) + this.windowLower;
+    final var mapStart =
+      spanStart & ~(MAP_ALIGNMENT - 1L);
+    final var spanEnd =
+      ((last - 1L) * recordSize) + this.windowUpper;
+    final var buffer =
+      channel.map(FileChannel.MapMode.READ_ONLY, mapStart, spanEnd - mapStart);
+
+    final var suffix =
+      this.configuration.format() == MiDecodeFormat.JSON_LINES ? "}\n" : "\n";
+    final var text = new StringBuilder();
+
+    for (long record = first; record < last; ++record) {
+      final var recordBase =
+        (record - first) * recordSize - this.windowLower
+        + (spanStart - mapStart);
+
+      for (final var entry : this.entries) {
+        final var base =
+          Math.toIntExact(recordBase + entry.position());
+        final var value =
+          entry.handle().get(buffer, base);
+
+        text.append(prefix);
+        text.append(record);
+        text.append(entry.text());
+        text.append(Long.toUnsignedString(value));
+        text.append(suffix);
+      }
+    }
+    return text.toString();
+  }
+
+  private String prefixOf(
+    final Path file)
+  {
+    final var name = file.toString();
+    return switch (this.configuration.format()) {
+      case JSON_LINES -> "{\"file\":\"%s\",\"record\":".formatted(escapeJSON(name));
+      case CSV -> "%s,".formatted(escapeCSV(name));
+    };
+  }
+
+  private static String escapeJSON(
+    final String text)
+  {
+    final var result = new StringBuilder(text.length());
+    for (int index = 0; index < text.length(); ++index) {
+      final var c = text.charAt(index);
+      switch (c) {
+        case '"' -> result.append("\\\"");
+        case '\\' -> result.append("\\\\");
+        default -> {
+          if (c < 0x20) {
+            result.append("\\u%04x".formatted(Integer.valueOf(c)));
+          } else {
+            result.append(c);
+          }
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  private static String escapeCSV(
+    final String text)
+  {
+    if (text.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+      return "\"%s\"".formatted(text.replace("\"", "\"\""));
+    }
+    return text;
+  }
+
+  private static String await(
+    final Future<String> future)
+    throws IOException
+  {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof final IOException ioe) {
+        throw ioe;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static MiRuntimeException error(
+    final MiStrings strings,
+    final MiPackageType pack,
+    final String map,
+    final MiStringConstantType message,
+    final String errorCode)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      strings.format(PACKAGE),
+      pack.name().toString()
+    );
+    attributes.put(
+      strings.format(MAP),
+      map
+    );
+
+    return new MiRuntimeException(
+      strings.format(message),
+      errorCode,
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private MiRuntimeException errorDumpTooSmall(
+    final Path file)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageV.name().toString()
+    );
+    attributes.put(
+      this.strings.format(FILE),
+      file.toString()
+    );
+
+    return new MiRuntimeException(
+      this.strings.format(ERROR_RUNTIME_DUMP_TOO_SMALL),
+      "error-dump-too-small",
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.core.MiSimpleName;
+
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Options for decoding dumps.
+ *
+ * @param maps       The maps to decode; all maps in the package are decoded
+ *                   if the list is empty
+ * @param dumpBase   The address of the first octet of each dump; defaults
+ *                   to the lowest address of the selected maps
+ * @param recordSize The size of each record, if a dump consists of
+ *                   consecutive captures of the same region; defaults to
+ *                   the size of the dump (a single record)
+ * @param order      The byte order of the registers
+ * @param format     The output format
+ * @param threads    The number of threads used to decode large dumps
+ */
+
+public record MiDecoderConfiguration(
+  List<MiSimpleName> maps,
+  Optional<BigInteger> dumpBase,
+  OptionalLong recordSize,
+  ByteOrder order,
+  MiDecodeFormat format,
+  int threads)
+{
+  /**
+   * Options for decoding dumps.
+   *
+   * @param maps       The maps to decode; all maps in the package are
+   *                   decoded if the list is empty
+   * @param dumpBase   The address of the first octet of each dump; defaults
+   *                   to the lowest address of the selected maps
+   * @param recordSize The size of each record, if a dump consists of
+   *                   consecutive captures of the same region; defaults to
+   *                   the size of the dump (a single record)
+   * @param order      The byte order of the registers
+   * @param format     The output format
+   * @param threads    The number of threads used to decode large dumps
+   */
+
+  public MiDecoderConfiguration
+  {
+    maps = List.copyOf(maps);
+    Objects.requireNonNull(dumpBase, "dumpBase");
+    Objects.requireNonNull(recordSize, "recordSize");
+    Objects.requireNonNull(order, "order");
+    Objects.requireNonNull(format, "format");
+
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "Thread count must be positive (received %d)".formatted(
+          Integer.valueOf(threads))
+      );
+    }
+    if (recordSize.isPresent() && recordSize.getAsLong() < 1L) {
+      throw new IllegalArgumentException(
+        "Record size must be positive (received %d)".formatted(
+          Long.valueOf(recordSize.getAsLong()))
+      );
+    }
+  }
+}
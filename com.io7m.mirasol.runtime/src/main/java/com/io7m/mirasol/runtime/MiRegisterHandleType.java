@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiSizeOctets;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A handle to a register, or to a bit range within a register, resolved
+ * from a path.
+ *
+ * <p>Handles are immutable and can be shared between threads. Operations
+ * take a buffer and the index within the buffer of the start of the map or
+ * structure at the root of the path. Operations never allocate. Values are
+ * zero-extended to {@code long}.</p>
+ *
+ * <p>Registers wider than one octet are accessed with a single opaque load
+ * or store at the width of the register, as long as the register is
+ * naturally aligned in memory at the time of the access. Registers that are
+ * not aligned (for example, because the map itself does not begin at an
+ * aligned address) are accessed with a plain load or store. Single octet
+ * registers are accessed with a plain load followed by an acquire fence, or
+ * a release fence followed by a plain store, so that accesses are neither
+ * removed nor reordered.</p>
+ */
+
+public interface MiRegisterHandleType
+{
+  /**
+   * @return The path used to resolve the handle
+   */
+
+  String path();
+
+  /**
+   * @return The offset in octets of the register relative to the root of
+   * the path
+   */
+
+  int offset();
+
+  /**
+   * @return The size of the register
+   */
+
+  MiSizeOctets size();
+
+  /**
+   * @return The access semantics of the register or bit range
+   */
+
+  MiAccess access();
+
+  /**
+   * Read the value of the register or bit range.
+   *
+   * @param buffer The buffer
+   * @param base   The index of the root of the path within the buffer
+   *
+   * @return The value
+   */
+
+  long get(
+    ByteBuffer buffer,
+    int base);
+
+  /**
+   * Write the value of the register or bit range. Writing a bit range reads
+   * the register first if (and only if) the register contains other bits
+   * that are preserved by being written back.
+   *
+   * @param buffer The buffer
+   * @param base   The index of the root of the path within the buffer
+   * @param value  The value
+   */
+
+  void set(
+    ByteBuffer buffer,
+    int base,
+    long value);
+
+  /**
+   * Replace the bits selected by {@code mask} with the corresponding bits
+   * of {@code bits}, using a single load (if required) and a single store.
+   * Bits that are not selected are preserved if their access semantics
+   * allow it, and are otherwise written as zero so that, for example,
+   * write-one-to-clear flags are not accidentally cleared.
+   *
+   * @param buffer The buffer
+   * @param base   The index of the root of the path within the buffer
+   * @param mask   The bits to replace
+   * @param bits   The new values of the bits
+   */
+
+  void modify(
+    ByteBuffer buffer,
+    int base,
+    long mask,
+    long bits);
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiBitRangeType;
+import com.io7m.mirasol.core.MiFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageElementType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.runtime.internal.MiBitRange;
+import com.io7m.mirasol.runtime.internal.MiRegister;
+import com.io7m.mirasol.runtime.internal.MiRegister16;
+import com.io7m.mirasol.runtime.internal.MiRegister32;
+import com.io7m.mirasol.runtime.internal.MiRegister64;
+import com.io7m.mirasol.runtime.internal.MiRegister8;
+import com.io7m.mirasol.strings.MiStringConstantType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.io7m.mirasol.extractor.api.MiExtractorAccess.preservedMaskOf;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_NOT_REGISTER;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_NO_SUCH_ELEMENT;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.PATH;
+
+/**
+ * Register access for a compiled package.
+ *
+ * <p>Paths such as {@code GPIO.GPIOR0} or {@code GPIO.CTRL.MODE} name a map
+ * or type in the package, followed by zero or more fields, optionally
+ * followed by a bit range. Resolving a path walks the package once, and the
+ * resulting handle is cached; subsequent operations on the handle are
+ * plain loads and stores with no lookups. The buffers passed to handles
+ * may be heap buffers, direct buffers, or buffers returned by
+ * {@link java.nio.channels.FileChannel#map}, such as a mapping of
+ * {@code /dev/mem} or a UIO device on Linux.</p>
+ */
+
+public final class MiRegisterMap
+{
+  private final MiPackageType packageV;
+  private final ByteOrder order;
+  private final MiStrings strings;
+  private final ConcurrentHashMap<String, MiRegisterHandleType> handles;
+
+  private MiRegisterMap(
+    final MiPackageType inPackage,
+    final ByteOrder inOrder)
+  {
+    this.packageV =
+      Objects.requireNonNull(inPackage, "package");
+    this.order =
+      Objects.requireNonNull(inOrder, "order");
+    this.strings =
+      MiStrings.create(Locale.getDefault());
+    this.handles =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Create register access for a package, using the native byte order.
+   *
+   * @param pack The package
+   *
+   * @return The register map
+   */
+
+  public static MiRegisterMap create(
+    final MiPackageType pack)
+  {
+    return create(pack, ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Create register access for a package.
+   *
+   * @param pack  The package
+   * @param order The byte order of the registers
+   *
+   * @return The register map
+   */
+
+  public static MiRegisterMap create(
+    final MiPackageType pack,
+    final ByteOrder order)
+  {
+    return new MiRegisterMap(pack, order);
+  }
+
+  /**
+   * @return The package
+   */
+
+  public MiPackageType packageValue()
+  {
+    return this.packageV;
+  }
+
+  /**
+   * @return The byte order of the registers
+   */
+
+  public ByteOrder order()
+  {
+    return this.order;
+  }
+
+  /**
+   * Resolve a path to a register or bit range.
+   *
+   * @param path The path
+   *
+   * @return A handle to the register or bit range
+   *
+   * @throws MiRuntimeException If the path does not name a register or a
+   *                            bit range
+   */
+
+  public MiRegisterHandleType resolve(
+    final String path)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(path, "path");
+
+    final var existing = this.handles.get(path);
+    if (existing != null) {
+      return existing;
+    }
+
+    final var handle = this.resolveUncached(path);
+    final var previous = this.handles.putIfAbsent(path, handle);
+    if (previous != null) {
+      return previous;
+    }
+    return handle;
+  }
+
+  private MiRegisterHandleType resolveUncached(
+    final String path)
+    throws MiRuntimeException
+  {
+    final var segments =
+      List.of(path.split("\\.", -1));
+
+    var type =
+      switch (this.findObject(path, segments.get(0))) {
+        case final MiMapType map -> map.type().type();
+        case final MiTypeType t -> t;
+      };
+
+    var access = MiAccess.READ_WRITE;
+    var offset = 0;
+    var index = 1;
+
+    while (true) {
+      switch (type) {
+        case final MiScalarType scalar -> {
+          if (index != segments.size()) {
+            throw this.errorNoSuchElement(path);
+          }
+          return this.registerOfScalar(path, scalar, offset, access);
+        }
+
+        case final MiStructureType structure -> {
+          if (index == segments.size()) {
+            throw this.errorNotRegister(path);
+          }
+
+          final var field =
+            findField(structure, segments.get(index))
+              .orElseThrow(() -> this.errorNoSuchElement(path));
+
+          ++index;
+          switch (field) {
+            case final MiBitFieldType bitField -> {
+              final var register =
+                this.registerOfBitField(
+                  path,
+                  bitField,
+                  offset + bitField.offset().intValueExact()
+                );
+
+              if (index == segments.size()) {
+                return register;
+              }
+              if (index + 1 != segments.size()) {
+                throw this.errorNoSuchElement(path);
+              }
+
+              final var range =
+                findRange(bitField, segments.get(index))
+                  .orElseThrow(() -> this.errorNoSuchElement(path));
+
+              final var lower =
+                range.range().lower().intValueExact();
+              final var upper =
+                range.range().upper().intValueExact();
+
+              return new MiBitRange(
+                register,
+                path,
+                lower,
+                (upper - lower) + 1,
+                range.access()
+              );
+            }
+
+            case final MiTypedFieldType typedField -> {
+              offset += typedField.offset().intValueExact();
+              type = typedField.type().type();
+              access = typedField.access();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private MiPackageElementType findObject(
+    final String path,
+    final String name)
+    throws MiRuntimeException
+  {
+    final MiSimpleName simpleName;
+    try {
+      simpleName = new MiSimpleName(name);
+    } catch (final IllegalArgumentException e) {
+      throw this.errorNoSuchElement(path);
+    }
+
+    return this.packageV.object(simpleName)
+      .orElseThrow(() -> this.errorNoSuchElement(path));
+  }
+
+  private static Optional<MiFieldType> findField(
+    final MiStructureType structure,
+    final String name)
+  {
+    return structure.fields()
+      .stream()
+      .filter(f -> Objects.equals(f.name().value(), name))
+      .findFirst();
+  }
+
+  private static Optional<MiBitRangeType> findRange(
+    final MiBitFieldType bitField,
+    final String name)
+  {
+    return bitField.ranges()
+      .stream()
+      .filter(r -> Objects.equals(r.name().value(), name))
+      .findFirst();
+  }
+
+  private MiRegister registerOfScalar(
+    final String path,
+    final MiScalarType scalar,
+    final int offset,
+    final MiAccess access)
+    throws MiRuntimeException
+  {
+    final var octets =
+      scalar.size().value().intValueExact();
+    final var preserved =
+      access.isPreservedByWriteBack() ? -1L : 0L;
+
+    final var register =
+      this.registerOf(path, octets, offset, access, preserved);
+    if (register == null) {
+      throw this.errorUnsupported(
+        ERROR_UNSUPPORTED_SCALAR_TYPE,
+        "error-unsupported-scalar-type",
+        path
+      );
+    }
+    return register;
+  }
+
+  private MiRegister registerOfBitField(
+    final String path,
+    final MiBitFieldType bitField,
+    final int offset)
+    throws MiRuntimeException
+  {
+    final var octets =
+      bitField.size().value().intValueExact();
+
+    final var register =
+      this.registerOf(
+        path,
+        octets,
+        offset,
+        bitField.access(),
+        preservedMaskOf(bitField).longValue()
+      );
+
+    if (register == null) {
+      throw this.errorUnsupported(
+        ERROR_UNSUPPORTED_BIT_FIELD_TYPE,
+        "error-unsupported-bit-field-type",
+        path
+      );
+    }
+    return register;
+  }
+
+  private MiRegister registerOf(
+    final String path,
+    final int octets,
+    final int offset,
+    final MiAccess access,
+    final long preserved)
+  {
+    return switch (octets) {
+      case 1 -> new MiRegister8(path, offset, access, preserved);
+      case 2 -> new MiRegister16(path, offset, access, preserved, this.order);
+      case 4 -> new MiRegister32(path, offset, access, preserved, this.order);
+      case 8 -> new MiRegister64(path, offset, access, preserved, this.order);
+      default -> null;
+    };
+  }
+
+  private TreeMap<String, String> attributesOf(
+    final String path)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(PACKAGE),
+      this.packageV.name().toString()
+    );
+    attributes.put(
+      this.strings.format(PATH),
+      path
+    );
+    return attributes;
+  }
+
+  private MiRuntimeException errorNoSuchElement(
+    final String path)
+  {
+    return new MiRuntimeException(
+      this.strings.format(ERROR_RUNTIME_NO_SUCH_ELEMENT),
+      "error-no-such-element",
+      this.attributesOf(path),
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private MiRuntimeException errorNotRegister(
+    final String path)
+  {
+    return new MiRuntimeException(
+      this.strings.format(ERROR_RUNTIME_NOT_REGISTER),
+      "error-not-register",
+      this.attributesOf(path),
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  private MiRuntimeException errorUnsupported(
+    final MiStringConstantType message,
+    final String errorCode,
+    final String path)
+  {
+    return new MiRuntimeException(
+      this.strings.format(message),
+      errorCode,
+      this.attributesOf(path),
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
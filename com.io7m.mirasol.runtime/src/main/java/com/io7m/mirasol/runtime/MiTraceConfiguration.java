@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import java.util.Objects;
+
+/**
+ * Options for decoding bus traces.
+ *
+ * @param format  The input format
+ * @param threads The number of threads used to decode traces
+ */
+
+public record MiTraceConfiguration(
+  MiTraceFormat format,
+  int threads)
+{
+  /**
+   * Options for decoding bus traces.
+   *
+   * @param format  The input format
+   * @param threads The number of threads used to decode traces
+   */
+
+  public MiTraceConfiguration
+  {
+    Objects.requireNonNull(format, "format");
+
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "Thread count must be positive (received %d)".formatted(
+          Integer.valueOf(threads))
+      );
+    }
+  }
+}
@@ -0,0 +1,623 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import com.io7m.mirasol.strings.MiStringConstantType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_TRACE_MALFORMED;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_TRACE_TRUNCATED;
+import static com.io7m.mirasol.strings.MiStringConstants.FILE;
+import static com.io7m.mirasol.strings.MiStringConstants.LINE;
+import static com.io7m.mirasol.strings.MiStringConstants.RECORD;
+
+/**
+ * A decoder that annotates bus traces with the registers and bit ranges
+ * that each access touches.
+ *
+ * <p>Traces are split into batches of events. Batches are decoded in
+ * parallel, and at most two batches per thread are in flight at once. Each
+ * batch produces its annotated records along with a partial summary; the
+ * results are written and merged strictly in trace order, so the output
+ * does not depend on the number of threads. Memory use depends on the
+ * number of registers in the index, and not on the length of the
+ * traces.</p>
+ *
+ * <p>Values are assumed to be little-endian: bit 0 of the value is bit 0
+ * of the octet at the access address.</p>
+ */
+
+public final class MiTraceDecoder
+{
+  /**
+   * The size of a record in the binary format.
+   */
+
+  public static final int BINARY_RECORD_SIZE = 32;
+
+  private static final int BATCH_EVENTS = 1 << 14;
+
+  private final MiAddressIndex index;
+  private final MiTraceConfiguration configuration;
+  private final MiStrings strings;
+
+  private record MiTraceBatch(
+    String text,
+    MiTraceSummary summary)
+  {
+
+  }
+
+  private MiTraceDecoder(
+    final MiAddressIndex inIndex,
+    final MiTraceConfiguration inConfiguration)
+  {
+    this.index =
+      Objects.requireNonNull(inIndex, "index");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.strings =
+      MiStrings.create(Locale.getDefault());
+  }
+
+  /**
+   * Create a trace decoder.
+   *
+   * @param index         The address index
+   * @param configuration The configuration
+   *
+   * @return A trace decoder
+   */
+
+  public static MiTraceDecoder create(
+    final MiAddressIndex index,
+    final MiTraceConfiguration configuration)
+  {
+    return new MiTraceDecoder(index, configuration);
+  }
+
+  /**
+   * Decode the given traces, in order. One annotated record is written to
+   * {@code records} per event, and one summary is written to
+   * {@code summaries} per accessed register once all traces have been
+   * decoded.
+   *
+   * @param files     The trace files
+   * @param records   The output for annotated records
+   * @param summaries The output for register summaries
+   *
+   * @throws IOException        On I/O errors
+   * @throws MiRuntimeException On malformed traces
+   */
+
+  public void decode(
+    final List<Path> files,
+    final Writer records,
+    final Writer summaries)
+    throws IOException, MiRuntimeException
+  {
+    Objects.requireNonNull(files, "files");
+    Objects.requireNonNull(records, "records");
+    Objects.requireNonNull(summaries, "summaries");
+
+    final var total =
+      new MiTraceSummary(this.index);
+    final var threads =
+      this.configuration.threads();
+    final var pending =
+      new ArrayDeque<Future<MiTraceBatch>>();
+
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      for (final var file : files) {
+        switch (this.configuration.format()) {
+          case BINARY -> {
+            this.decodeBinary(executor, pending, file, records, total);
+          }
+          case CSV -> {
+            this.decodeCSV(executor, pending, file, records, total);
+          }
+        }
+      }
+
+      while (!pending.isEmpty()) {
+        complete(pending.remove(), records, total);
+      }
+    } finally {
+      for (final var future : pending) {
+        future.cancel(true);
+      }
+    }
+
+    records.flush();
+    total.write(summaries);
+    summaries.flush();
+  }
+
+  private void submit(
+    final ExecutorService executor,
+    final ArrayDeque<Future<MiTraceBatch>> pending,
+    final Callable<MiTraceBatch> batch,
+    final Writer records,
+    final MiTraceSummary total)
+    throws IOException, MiRuntimeException
+  {
+    pending.add(executor.submit(batch));
+    if (pending.size() >= this.configuration.threads() * 2) {
+      complete(pending.remove(), records, total);
+    }
+  }
+
+  private static void complete(
+    final Future<MiTraceBatch> future,
+    final Writer records,
+    final MiTraceSummary total)
+    throws IOException, MiRuntimeException
+  {
+    final MiTraceBatch batch;
+    try {
+      batch = future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (final ExecutionException e) {
+      switch (e.getCause()) {
+        case final MiRuntimeException x -> throw x;
+        case final IOException x -> throw x;
+        default -> throw new IOException(e.getCause());
+      }
+    }
+
+    records.write(batch.text);
+    total.merge(batch.summary);
+  }
+
+  private void decodeBinary(
+    final ExecutorService executor,
+    final ArrayDeque<Future<MiTraceBatch>> pending,
+    final Path file,
+    final Writer records,
+    final MiTraceSummary total)
+    throws IOException, MiRuntimeException
+  {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      if (size % BINARY_RECORD_SIZE != 0L) {
+        throw this.error(
+          ERROR_RUNTIME_TRACE_TRUNCATED,
+          "error-trace-truncated",
+          file,
+          RECORD,
+          size / BINARY_RECORD_SIZE
+        );
+      }
+
+      final var count = size / BINARY_RECORD_SIZE;
+      for (long first = 0L; first < count; first += BATCH_EVENTS) {
+        final var batchFirst = first;
+        final var batchCount = (int) Math.min(BATCH_EVENTS, count - first);
+
+        this.submit(executor, pending, () -> {
+          return this.decodeBinaryBatch(channel, file, batchFirst, batchCount);
+        }, records, total);
+      }
+
+      while (!pending.isEmpty()) {
+        complete(pending.remove(), records, total);
+      }
+    }
+  }
+
+  private MiTraceBatch decodeBinaryBatch(
+    final FileChannel channel,
+    final Path file,
+    final long first,
+    final int count)
+    throws IOException, MiRuntimeException
+  {
+    final var buffer =
+      channel.map(
+        FileChannel.MapMode.READ_ONLY,
+        first * BINARY_RECORD_SIZE,
+        (long) count * BINARY_RECORD_SIZE
+      ).order(ByteOrder.LITTLE_ENDIAN);
+
+    final var text = new StringBuilder(count * 128);
+    final var summary = new MiTraceSummary(this.index);
+
+    for (int record = 0; record < count; ++record) {
+      final var base = record * BINARY_RECORD_SIZE;
+      final var width = Byte.toUnsignedInt(buffer.get(base + 24));
+      final var direction = buffer.get(base + 25);
+
+      if (width < 1 || width > 8 || direction < 0 || direction > 1) {
+        throw this.error(
+          ERROR_RUNTIME_TRACE_MALFORMED,
+          "error-trace-malformed",
+          file,
+          RECORD,
+          first + record
+        );
+      }
+
+      this.annotate(
+        text,
+        summary,
+        buffer.getLong(base),
+        buffer.getLong(base + 8),
+        width,
+        buffer.getLong(base + 16),
+        direction == 1
+      );
+    }
+    return new MiTraceBatch(text.toString(), summary);
+  }
+
+  private void decodeCSV(
+    final ExecutorService executor,
+    final ArrayDeque<Future<MiTraceBatch>> pending,
+    final Path file,
+    final Writer records,
+    final MiTraceSummary total)
+    throws IOException, MiRuntimeException
+  {
+    try (var reader = Files.newBufferedReader(file)) {
+      var lines = new ArrayList<String>(BATCH_EVENTS);
+      var lineFirst = 1L;
+      var lineNumber = 0L;
+
+      while (true) {
+        final var line = reader.readLine();
+        if (line == null) {
+          break;
+        }
+        ++lineNumber;
+        lines.add(line);
+
+        if (lines.size() == BATCH_EVENTS) {
+          final var batchLines = lines;
+          final var batchFirst = lineFirst;
+          this.submit(executor, pending, () -> {
+            return this.decodeCSVBatch(file, batchFirst, batchLines);
+          }, records, total);
+
+          lines = new ArrayList<>(BATCH_EVENTS);
+          lineFirst = lineNumber + 1L;
+        }
+      }
+
+      if (!lines.isEmpty()) {
+        final var batchLines = lines;
+        final var batchFirst = lineFirst;
+        this.submit(executor, pending, () -> {
+          return this.decodeCSVBatch(file, batchFirst, batchLines);
+        }, records, total);
+      }
+    }
+  }
+
+  private MiTraceBatch decodeCSVBatch(
+    final Path file,
+    final long lineFirst,
+    final List<String> lines)
+    throws MiRuntimeException
+  {
+    final var text = new StringBuilder(lines.size() * 128);
+    final var summary = new MiTraceSummary(this.index);
+
+    for (int index = 0; index < lines.size(); ++index) {
+      final var lineNumber = lineFirst + index;
+      final var line = lines.get(index).trim();
+      if (line.isEmpty() || (lineNumber == 1L && line.startsWith("timestamp"))) {
+        continue;
+      }
+
+      final var fields = line.split(",", -1);
+      try {
+        if (fields.length != 5) {
+          throw new NumberFormatException();
+        }
+
+        final var width =
+          Integer.parseInt(fields[2].trim());
+        if (width < 1 || width > 8) {
+          throw new NumberFormatException();
+        }
+
+        final boolean write =
+          switch (fields[4].trim()) {
+            case "R", "r" -> false;
+            case "W", "w" -> true;
+            default -> throw new NumberFormatException();
+          };
+
+        this.annotate(
+          text,
+          summary,
+          parseNumber(fields[0]),
+          parseNumber(fields[1]),
+          width,
+          parseNumber(fields[3]),
+          write
+        );
+      } catch (final NumberFormatException e) {
+        throw this.error(
+          ERROR_RUNTIME_TRACE_MALFORMED,
+          "error-trace-malformed",
+          file,
+          LINE,
+          lineNumber
+        );
+      }
+    }
+    return new MiTraceBatch(text.toString(), summary);
+  }
+
+  private static long parseNumber(
+    final String text)
+  {
+    final var trimmed = text.trim();
+    if (trimmed.startsWith("0x") || trimmed.startsWith("0X")) {
+      return Long.parseUnsignedLong(trimmed.substring(2), 16);
+    }
+    return Long.parseUnsignedLong(trimmed);
+  }
+
+  private void annotate(
+    final StringBuilder text,
+    final MiTraceSummary summary,
+    final long timestamp,
+    final long address,
+    final int width,
+    final long value,
+    final boolean write)
+  {
+    text.append("{\"timestamp\":");
+    text.append(Long.toUnsignedString(timestamp));
+    if (write) {
+      text.append(",\"direction\":\"write\",\"address\":\"0x");
+    } else {
+      text.append(",\"direction\":\"read\",\"address\":\"0x");
+    }
+    text.append(Long.toHexString(address));
+    text.append("\",\"width\":");
+    text.append(width);
+    text.append(",\"value\":");
+    text.append(Long.toUnsignedString(value));
+    text.append(",\"registers\":[");
+
+    final var bits = width * 8;
+    var previous = -1;
+    for (int octet = 0; octet < width; ++octet) {
+      final var entry = this.index.find(address + octet);
+      if (entry < 0 || entry == previous) {
+        continue;
+      }
+      if (previous >= 0) {
+        text.append(',');
+      }
+      previous = entry;
+      summary.access(entry, write);
+
+      text.append("{\"path\":\"");
+      text.append(this.index.path(entry));
+      text.append("\",\"fields\":{");
+
+      /*
+       * The position of bit 0 of the value relative to bit 0 of the
+       * register. Only ranges that lie entirely within the access are
+       * decoded.
+       */
+
+      final var shift = (address - this.index.address(entry)) * 8L;
+      final var end = this.index.rangesEnd(entry);
+      var firstField = true;
+      for (int range = this.index.rangesStart(entry); range < end; ++range) {
+        final var lower = this.index.rangeLower(range) - shift;
+        final var upper = this.index.rangeUpper(range) - shift;
+        if (lower < 0L || upper >= bits) {
+          continue;
+        }
+
+        final var count = (int) (upper - lower) + 1;
+        final var mask = count >= 64 ? -1L : (1L << count) - 1L;
+        final var fieldValue = (value >>> lower) & mask;
+        summary.observe(range, fieldValue);
+
+        if (!firstField) {
+          text.append(',');
+        }
+        firstField = false;
+        text.append('"');
+        text.append(this.index.rangeName(range));
+        text.append("\":");
+        text.append(Long.toUnsignedString(fieldValue));
+      }
+      text.append("}}");
+    }
+    text.append("]}\n");
+  }
+
+  private MiRuntimeException error(
+    final MiStringConstantType message,
+    final String errorCode,
+    final Path file,
+    final MiStringConstantType positionName,
+    final long position)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      this.strings.format(FILE),
+      file.toString()
+    );
+    attributes.put(
+      this.strings.format(positionName),
+      Long.toUnsignedString(position)
+    );
+
+    return new MiRuntimeException(
+      this.strings.format(message),
+      errorCode,
+      attributes,
+      Optional.empty(),
+      List.of()
+    );
+  }
+
+  /**
+   * Access counts per register and change counts per bit range, for a
+   * contiguous part of a trace. Summaries of consecutive parts can be
+   * merged in order.
+   */
+
+  private static final class MiTraceSummary
+  {
+    private final MiAddressIndex index;
+    private final long[] reads;
+    private final long[] writes;
+    private final boolean[] seen;
+    private final long[] firstValues;
+    private final long[] lastValues;
+    private final long[] changes;
+
+    MiTraceSummary(
+      final MiAddressIndex inIndex)
+    {
+      this.index = inIndex;
+      this.reads = new long[inIndex.size()];
+      this.writes = new long[inIndex.size()];
+      this.seen = new boolean[inIndex.rangeCount()];
+      this.firstValues = new long[inIndex.rangeCount()];
+      this.lastValues = new long[inIndex.rangeCount()];
+      this.changes = new long[inIndex.rangeCount()];
+    }
+
+    void access(
+      final int entry,
+      final boolean write)
+    {
+      if (write) {
+        ++this.writes[entry];
+      } else {
+        ++this.reads[entry];
+      }
+    }
+
+    void observe(
+      final int range,
+      final long value)
+    {
+      if (!this.seen[range]) {
+        this.seen[range] = true;
+        this.firstValues[range] = value;
+      } else if (this.lastValues[range] != value) {
+        ++this.changes[range];
+      }
+      this.lastValues[range] = value;
+    }
+
+    void merge(
+      final MiTraceSummary next)
+    {
+      for (int entry = 0; entry < this.reads.length; ++entry) {
+        this.reads[entry] += next.reads[entry];
+        this.writes[entry] += next.writes[entry];
+      }
+
+      for (int range = 0; range < this.seen.length; ++range) {
+        if (!next.seen[range]) {
+          continue;
+        }
+        if (this.seen[range]) {
+          if (this.lastValues[range] != next.firstValues[range]) {
+            ++this.changes[range];
+          }
+        } else {
+          this.seen[range] = true;
+          this.firstValues[range] = next.firstValues[range];
+        }
+        this.changes[range] += next.changes[range];
+        this.lastValues[range] = next.lastValues[range];
+      }
+    }
+
+    void write(
+      final Writer output)
+      throws IOException
+    {
+      final var text = new StringBuilder();
+      for (int entry = 0; entry < this.reads.length; ++entry) {
+        if (this.reads[entry] == 0L && this.writes[entry] == 0L) {
+          continue;
+        }
+
+        text.setLength(0);
+        text.append("{\"register\":\"");
+        text.append(this.index.path(entry));
+        text.append("\",\"reads\":");
+        text.append(this.reads[entry]);
+        text.append(",\"writes\":");
+        text.append(this.writes[entry]);
+        text.append(",\"fields\":[");
+
+        var first = true;
+        final var end = this.index.rangesEnd(entry);
+        for (int range = this.index.rangesStart(entry); range < end; ++range) {
+          if (!this.seen[range]) {
+            continue;
+          }
+          if (!first) {
+            text.append(',');
+          }
+          first = false;
+          text.append("{\"name\":\"");
+          text.append(this.index.rangeName(range));
+          text.append("\",\"first\":");
+          text.append(Long.toUnsignedString(this.firstValues[range]));
+          text.append(",\"last\":");
+          text.append(Long.toUnsignedString(this.lastValues[range]));
+          text.append(",\"changes\":");
+          text.append(this.changes[range]);
+          text.append('}');
+        }
+        text.append("]}\n");
+        output.write(text.toString());
+      }
+    }
+  }
+}
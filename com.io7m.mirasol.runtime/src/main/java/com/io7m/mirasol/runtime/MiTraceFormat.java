@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime;
+
+import java.util.Objects;
+
+/**
+ * The input formats accepted when decoding bus traces.
+ */
+
+public enum MiTraceFormat
+{
+  /**
+   * Fixed-size little-endian binary records. Each record is
+   * {@value MiTraceDecoder#BINARY_RECORD_SIZE} octets: a 64-bit timestamp,
+   * a 64-bit address, a 64-bit value, an 8-bit access width in octets, an
+   * 8-bit direction (0 for reads, 1 for writes), and six reserved octets.
+   */
+
+  BINARY("binary"),
+
+  /**
+   * Comma-separated values of the form
+   * {@code timestamp,address,width,value,direction}, with an optional
+   * header row. Addresses and values may be decimal or hexadecimal (with a
+   * {@code 0x} prefix), and directions are {@code R} or {@code W}.
+   */
+
+  CSV("csv");
+
+  private final String humanName;
+
+  MiTraceFormat(
+    final String inName)
+  {
+    this.humanName =
+      Objects.requireNonNull(inName, "inName");
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The format with the given name
+   *
+   * @throws IllegalArgumentException On unrecognized names
+   */
+
+  public static MiTraceFormat of(
+    final String name)
+  {
+    for (final var value : values()) {
+      if (Objects.equals(name, value.show())) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException(
+      "Unrecognized trace format: %s".formatted(name)
+    );
+  }
+
+  /**
+   * @return The name of the format
+   */
+
+  public String show()
+  {
+    return this.humanName;
+  }
+}
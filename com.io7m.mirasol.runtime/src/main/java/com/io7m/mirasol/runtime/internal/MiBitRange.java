@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime.internal;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.runtime.MiRegisterHandleType;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A bit range within a register.
+ */
+
+public final class MiBitRange implements MiRegisterHandleType
+{
+  private final MiRegister register;
+  private final String path;
+  private final int shift;
+  private final long mask;
+  private final long fieldMask;
+  private final MiAccess access;
+
+  /**
+   * A bit range within a register.
+   *
+   * @param inRegister The register
+   * @param inPath     The path
+   * @param inShift    The index of the lowest bit of the range
+   * @param inCount    The number of bits in the range
+   * @param inAccess   The access semantics of the range
+   */
+
+  public MiBitRange(
+    final MiRegister inRegister,
+    final String inPath,
+    final int inShift,
+    final int inCount,
+    final MiAccess inAccess)
+  {
+    this.register =
+      Objects.requireNonNull(inRegister, "register");
+    this.path =
+      Objects.requireNonNull(inPath, "path");
+    this.access =
+      Objects.requireNonNull(inAccess, "access");
+    this.shift =
+      inShift;
+    this.mask =
+      inCount >= 64 ? -1L : (1L << inCount) - 1L;
+    this.fieldMask =
+      this.mask << inShift;
+  }
+
+  @Override
+  public String path()
+  {
+    return this.path;
+  }
+
+  @Override
+  public int offset()
+  {
+    return this.register.offset();
+  }
+
+  @Override
+  public MiSizeOctets size()
+  {
+    return this.register.size();
+  }
+
+  @Override
+  public MiAccess access()
+  {
+    return this.access;
+  }
+
+  @Override
+  public long get(
+    final ByteBuffer buffer,
+    final int base)
+  {
+    return (this.register.get(buffer, base) >>> this.shift) & this.mask;
+  }
+
+  @Override
+  public void set(
+    final ByteBuffer buffer,
+    final int base,
+    final long value)
+  {
+    this.register.modify(
+      buffer,
+      base,
+      this.fieldMask,
+      (value & this.mask) << this.shift
+    );
+  }
+
+  @Override
+  public void modify(
+    final ByteBuffer buffer,
+    final int base,
+    final long bitMask,
+    final long bits)
+  {
+    this.register.modify(
+      buffer,
+      base,
+      (bitMask & this.mask) << this.shift,
+      (bits & bitMask & this.mask) << this.shift
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[MiBitRange %s %d:%d]".formatted(
+      this.path,
+      Integer.valueOf(this.shift),
+      Integer.valueOf(Long.bitCount(this.mask))
+    );
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime.internal;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.runtime.MiRegisterHandleType;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A register. Subclasses perform loads and stores at a specific width.
+ */
+
+public abstract sealed class MiRegister
+  implements MiRegisterHandleType
+  permits MiRegister8, MiRegister16, MiRegister32, MiRegister64
+{
+  private final String path;
+  private final int offset;
+  private final MiAccess access;
+  private final long preserved;
+
+  protected MiRegister(
+    final String inPath,
+    final int inOffset,
+    final MiAccess inAccess,
+    final long inPreserved)
+  {
+    this.path =
+      Objects.requireNonNull(inPath, "path");
+    this.offset =
+      inOffset;
+    this.access =
+      Objects.requireNonNull(inAccess, "access");
+    this.preserved =
+      inPreserved;
+  }
+
+  /**
+   * Load the register.
+   *
+   * @param buffer The buffer
+   * @param index  The index of the register
+   *
+   * @return The zero-extended value
+   */
+
+  abstract long load(
+    ByteBuffer buffer,
+    int index);
+
+  /**
+   * Store the register.
+   *
+   * @param buffer The buffer
+   * @param index  The index of the register
+   * @param value  The value, truncated to the width of the register
+   */
+
+  abstract void store(
+    ByteBuffer buffer,
+    int index,
+    long value);
+
+  @Override
+  public final String path()
+  {
+    return this.path;
+  }
+
+  @Override
+  public final int offset()
+  {
+    return this.offset;
+  }
+
+  @Override
+  public final MiAccess access()
+  {
+    return this.access;
+  }
+
+  @Override
+  public final long get(
+    final ByteBuffer buffer,
+    final int base)
+  {
+    return this.load(buffer, base + this.offset);
+  }
+
+  @Override
+  public final void set(
+    final ByteBuffer buffer,
+    final int base,
+    final long value)
+  {
+    this.store(buffer, base + this.offset, value);
+  }
+
+  @Override
+  public final void modify(
+    final ByteBuffer buffer,
+    final int base,
+    final long mask,
+    final long bits)
+  {
+    final var index = base + this.offset;
+    final var keep = this.preserved & ~mask;
+    if (keep == 0L) {
+      this.store(buffer, index, bits & mask);
+    } else {
+      this.store(buffer, index, (this.load(buffer, index) & keep) | (bits & mask));
+    }
+  }
+
+  @Override
+  public final String toString()
+  {
+    return "[MiRegister %s 0x%x %s]".formatted(
+      this.path,
+      Integer.valueOf(this.offset),
+      this.size().value()
+    );
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime.internal;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiSizeOctets;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A 32-bit register.
+ */
+
+public final class MiRegister32 extends MiRegister
+{
+  private static final MiSizeOctets SIZE =
+    MiSizeOctets.of(4L);
+  private static final VarHandle LITTLE_ENDIAN =
+    MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle BIG_ENDIAN =
+    MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  private final boolean bigEndian;
+
+  /**
+   * A 32-bit register.
+   *
+   * @param inPath      The path
+   * @param inOffset    The offset of the register
+   * @param inAccess    The access semantics
+   * @param inPreserved The bits preserved by being written back
+   * @param inOrder     The byte order
+   */
+
+  public MiRegister32(
+    final String inPath,
+    final int inOffset,
+    final MiAccess inAccess,
+    final long inPreserved,
+    final ByteOrder inOrder)
+  {
+    super(inPath, inOffset, inAccess, inPreserved);
+    this.bigEndian =
+      inOrder == ByteOrder.BIG_ENDIAN;
+  }
+
+  @Override
+  public MiSizeOctets size()
+  {
+    return SIZE;
+  }
+
+  @Override
+  long load(
+    final ByteBuffer buffer,
+    final int index)
+  {
+    if (buffer.alignmentOffset(index, 4) == 0) {
+      if (this.bigEndian) {
+        return Integer.toUnsignedLong((int) BIG_ENDIAN.getOpaque(buffer, index));
+      }
+      return Integer.toUnsignedLong((int) LITTLE_ENDIAN.getOpaque(buffer, index));
+    }
+    if (this.bigEndian) {
+      return Integer.toUnsignedLong((int) BIG_ENDIAN.get(buffer, index));
+    }
+    return Integer.toUnsignedLong((int) LITTLE_ENDIAN.get(buffer, index));
+  }
+
+  @Override
+  void store(
+    final ByteBuffer buffer,
+    final int index,
+    final long value)
+  {
+    if (buffer.alignmentOffset(index, 4) == 0) {
+      if (this.bigEndian) {
+        BIG_ENDIAN.setOpaque(buffer, index, (int) value);
+      } else {
+        LITTLE_ENDIAN.setOpaque(buffer, index, (int) value);
+      }
+    } else {
+      if (this.bigEndian) {
+        BIG_ENDIAN.set(buffer, index, (int) value);
+      } else {
+        LITTLE_ENDIAN.set(buffer, index, (int) value);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.runtime.internal;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiSizeOctets;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * An 8-bit register. Byte buffers have no opaque single octet accesses, so
+ * loads are followed by an acquire fence and stores are preceded by a
+ * release fence. On most architectures these fences only constrain the
+ * compiler, and do not produce any instructions.
+ */
+
+public final class MiRegister8 extends MiRegister
+{
+  private static final MiSizeOctets SIZE =
+    MiSizeOctets.of(1L);
+
+  /**
+   * An 8-bit register.
+   *
+   * @param inPath      The path
+   * @param inOffset    The offset of the register
+   * @param inAccess    The access semantics
+   * @param inPreserved The bits preserved by being written back
+   */
+
+  public MiRegister8(
+    final String inPath,
+    final int inOffset,
+    final MiAccess inAccess,
+    final long inPreserved)
+  {
+    super(inPath, inOffset, inAccess, inPreserved);
+  }
+
+  @Override
+  public MiSizeOctets size()
+  {
+    return SIZE;
+  }
+
+  @Override
+  long load(
+    final ByteBuffer buffer,
+    final int index)
+  {
+    final var value = buffer.get(index);
+    VarHandle.acquireFence();
+    return Byte.toUnsignedLong(value);
+  }
+
+  @Override
+  void store(
+    final ByteBuffer buffer,
+    final int index,
+    final long value)
+  {
+    VarHandle.releaseFence();
+    buffer.put(index, (byte) value);
+  }
+}
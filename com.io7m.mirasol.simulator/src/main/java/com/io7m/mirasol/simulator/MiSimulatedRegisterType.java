@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.simulator;
+
+import com.io7m.mirasol.core.MiSizeOctets;
+
+/**
+ * A simulated register.
+ *
+ * <p>{@link #read()} and {@link #write(long)} are the accesses made by the
+ * code under test, and apply the access semantics of each bit of the
+ * register: read-only bits ignore writes, write-one-to-clear bits are
+ * cleared by writing ones, read-to-clear bits are cleared by reads, and
+ * write-only bits read as zero. {@link #peek()}, {@link #poke(long)}, and
+ * {@link #pokeModify(long, long)} are the accesses made by the simulated
+ * device, and ignore access semantics.</p>
+ *
+ * <p>All operations are atomic with respect to each other, and never
+ * block for naturally aligned registers.</p>
+ */
+
+public interface MiSimulatedRegisterType
+{
+  /**
+   * @return The path of the register
+   */
+
+  String path();
+
+  /**
+   * @return The offset in octets of the register relative to the map
+   */
+
+  int offset();
+
+  /**
+   * @return The size of the register
+   */
+
+  MiSizeOctets size();
+
+  /**
+   * Read the register as the code under test.
+   *
+   * @return The value of the readable bits
+   */
+
+  long read();
+
+  /**
+   * Write the register as the code under test.
+   *
+   * @param value The value
+   */
+
+  void write(long value);
+
+  /**
+   * Read the register as the device.
+   *
+   * @return The value of all bits
+   */
+
+  long peek();
+
+  /**
+   * Write the register as the device.
+   *
+   * @param value The value
+   */
+
+  void poke(long value);
+
+  /**
+   * Replace the bits selected by {@code mask} with the corresponding bits
+   * of {@code bits}, as the device.
+   *
+   * @param mask The bits to replace
+   * @param bits The new values of the bits
+   */
+
+  void pokeModify(
+    long mask,
+    long bits);
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.simulator;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiMapType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiScalarType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTypeType;
+import com.io7m.mirasol.core.MiTypedFieldType;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import com.io7m.mirasol.simulator.internal.MiSimulatedBehaviour;
+import com.io7m.mirasol.simulator.internal.MiSimulatedRegister;
+import com.io7m.mirasol.strings.MiStringConstantType;
+import com.io7m.mirasol.strings.MiStrings;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_NOT_REGISTER;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_RUNTIME_NO_SUCH_ELEMENT;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_BIT_FIELD_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.ERROR_UNSUPPORTED_SCALAR_TYPE;
+import static com.io7m.mirasol.strings.MiStringConstants.PACKAGE;
+import static com.io7m.mirasol.strings.MiStringConstants.PATH;
+
+/**
+ * A simulated register file laid out from a map.
+ *
+ * <p>The register file is a direct, little-endian buffer holding every
+ * register of the map at its offset within the map. Each register starts
+ * at its reset value, and each bit of each register takes the access
+ * semantics declared in the package. The access semantics of any register
+ * or bit range can be replaced, and callbacks can be attached to registers
+ * to model the response of the device to writes.</p>
+ *
+ * <p>Registers are looked up once by path (using the same paths as
+ * {@link com.io7m.mirasol.runtime.MiRegisterMap}, such as
+ * {@code Map.GPIO.GPIOR0}), and the resulting handles can then be used from
+ * any number of threads without locking.</p>
+ */
+
+public final class MiSimulator
+{
+  private final MiPackageType packageV;
+  private final MiMapType map;
+  private final ByteBuffer buffer;
+  private final Object lock;
+  private final MiStrings strings;
+  private final Map<String, MiSimulatedRegister> registers;
+  private final Map<String, MiSimulatedRange> ranges;
+  private final List<MiSimulatedReset> resets;
+
+  private record MiSimulatedRange(
+    MiSimulatedRegister register,
+    long mask)
+  {
+
+  }
+
+  private record MiSimulatedReset(
+    MiSimulatedRegister register,
+    long value)
+  {
+
+  }
+
+  private MiSimulator(
+    final MiPackageType inPackage,
+    final MiMapType inMap,
+    final ByteBuffer inBuffer,
+    final MiStrings inStrings)
+  {
+    this.packageV =
+      Objects.requireNonNull(inPackage, "package");
+    this.map =
+      Objects.requireNonNull(inMap, "map");
+    this.buffer =
+      Objects.requireNonNull(inBuffer, "buffer");
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
+    this.lock =
+      new Object();
+    this.registers =
+      new LinkedHashMap<>();
+    this.ranges =
+      new HashMap<>();
+    this.resets =
+      new ArrayList<>();
+  }
+
+  /**
+   * Create a simulator for the given map.
+   *
+   * @param pack    The package
+   * @param mapName The name of the map
+   *
+   * @return A simulator
+   *
+   * @throws MiRuntimeException If the map does not exist, or contains
+   *                            registers of unsupported sizes
+   */
+
+  public static MiSimulator create(
+    final MiPackageType pack,
+    final MiSimpleName mapName)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(pack, "pack");
+    Objects.requireNonNull(mapName, "mapName");
+
+    final var strings =
+      MiStrings.create(Locale.getDefault());
+
+    if (!(pack.object(mapName).orElse(null) instanceof final MiMapType map)) {
+      throw new MiRuntimeException(
+        strings.format(ERROR_RUNTIME_NO_SUCH_ELEMENT),
+        "error-no-such-element",
+        attributesOf(strings, pack, mapName.value()),
+        Optional.empty(),
+        List.of()
+      );
+    }
+
+    final var type =
+      map.type().type();
+    final var octets =
+      type.size().value().intValueExact();
+    final var buffer =
+      ByteBuffer.allocateDirect(((octets + 7) & ~7) + 8)
+        .alignedSlice(8)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    final var simulator = new MiSimulator(pack, map, buffer, strings);
+    simulator.collect(
+      type,
+      map.name().value(),
+      0,
+      MiAccess.READ_WRITE,
+      Optional.empty()
+    );
+    simulator.reset();
+    return simulator;
+  }
+
+  private void collect(
+    final MiTypeType type,
+    final String path,
+    final int offset,
+    final MiAccess access,
+    final Optional<BigInteger> reset)
+    throws MiRuntimeException
+  {
+    switch (type) {
+      case final MiScalarType scalar -> {
+        final var octets = scalar.size().value().intValueExact();
+        if (!isSupportedSize(octets)) {
+          throw this.error(
+            ERROR_UNSUPPORTED_SCALAR_TYPE,
+            "error-unsupported-scalar-type",
+            path
+          );
+        }
+
+        final var mask = maskOf(octets);
+        this.addRegister(
+          path,
+          offset,
+          octets,
+          MiSimulatedBehaviour.readWrite(mask).withAccess(mask, access),
+          reset
+        );
+      }
+
+      case final MiStructureType structure -> {
+        for (final var field : structure.fields()) {
+          final var fieldPath =
+            "%s.%s".formatted(path, field.name().value());
+          final var fieldOffset =
+            offset + field.offset().intValueExact();
+
+          switch (field) {
+            case final MiBitFieldType bitField -> {
+              this.collectBitField(bitField, fieldPath, fieldOffset);
+            }
+            case final MiTypedFieldType typedField -> {
+              this.collect(
+                typedField.type().type(),
+                fieldPath,
+                fieldOffset,
+                typedField.access(),
+                typedField.reset()
+              );
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void collectBitField(
+    final MiBitFieldType bitField,
+    final String path,
+    final int offset)
+    throws MiRuntimeException
+  {
+    final var octets = bitField.size().value().intValueExact();
+    if (!isSupportedSize(octets)) {
+      throw this.error(
+        ERROR_UNSUPPORTED_BIT_FIELD_TYPE,
+        "error-unsupported-bit-field-type",
+        path
+      );
+    }
+
+    final var mask = maskOf(octets);
+    var behaviour =
+      MiSimulatedBehaviour.readWrite(mask)
+        .withAccess(mask, bitField.access());
+
+    final var rangeMasks = new HashMap<String, Long>();
+    for (final var range : bitField.ranges()) {
+      final var lower = range.range().lower().intValueExact();
+      final var upper = range.range().upper().intValueExact();
+      final var rangeMask = maskOf(upper - lower + 1, lower);
+      behaviour = behaviour.withAccess(rangeMask, range.access());
+      rangeMasks.put(
+        "%s.%s".formatted(path, range.name().value()),
+        Long.valueOf(rangeMask)
+      );
+    }
+
+    final var register =
+      this.addRegister(path, offset, octets, behaviour, bitField.reset());
+
+    for (final var entry : rangeMasks.entrySet()) {
+      this.ranges.put(
+        entry.getKey(),
+        new MiSimulatedRange(register, entry.getValue().longValue())
+      );
+    }
+  }
+
+  private MiSimulatedRegister addRegister(
+    final String path,
+    final int offset,
+    final int octets,
+    final MiSimulatedBehaviour behaviour,
+    final Optional<BigInteger> reset)
+  {
+    final var register =
+      new MiSimulatedRegister(
+        path,
+        offset,
+        octets,
+        this.buffer,
+        this.lock,
+        behaviour
+      );
+
+    this.registers.put(path, register);
+    this.resets.add(new MiSimulatedReset(
+      register,
+      reset.map(BigInteger::longValue).orElse(Long.valueOf(0L)).longValue()
+    ));
+    return register;
+  }
+
+  private static boolean isSupportedSize(
+    final int octets)
+  {
+    return octets == 1 || octets == 2 || octets == 4 || octets == 8;
+  }
+
+  private static long maskOf(
+    final int octets)
+  {
+    return maskOf(octets * 8, 0);
+  }
+
+  private static long maskOf(
+    final int bits,
+    final int shift)
+  {
+    final var mask = bits >= 64 ? -1L : (1L << bits) - 1L;
+    return mask << shift;
+  }
+
+  /**
+   * @return The simulated map
+   */
+
+  public MiMapType map()
+  {
+    return this.map;
+  }
+
+  /**
+   * @return A read-only view of the register file
+   */
+
+  public ByteBuffer buffer()
+  {
+    return this.buffer.asReadOnlyBuffer()
+      .order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return All registers in the simulated map, in declaration order
+   */
+
+  public Collection<MiSimulatedRegisterType> registers()
+  {
+    return List.copyOf(this.registers.values());
+  }
+
+  /**
+   * Find a register.
+   *
+   * @param path The path of the register
+   *
+   * @return The register
+   *
+   * @throws MiRuntimeException If the path does not name a register
+   */
+
+  public MiSimulatedRegisterType register(
+    final String path)
+    throws MiRuntimeException
+  {
+    return this.findRegister(path);
+  }
+
+  /**
+   * Replace the access semantics of a register or bit range.
+   *
+   * @param path   The path of the register or bit range
+   * @param access The access semantics
+   *
+   * @throws MiRuntimeException If the path does not name a register or a
+   *                            bit range
+   */
+
+  public void setAccess(
+    final String path,
+    final MiAccess access)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(access, "access");
+
+    final MiSimulatedRegister register;
+    final long mask;
+
+    final var range = this.ranges.get(path);
+    if (range != null) {
+      register = range.register();
+      mask = range.mask();
+    } else {
+      register = this.findRegister(path);
+      mask = -1L;
+    }
+
+    synchronized (this.lock) {
+      register.setBehaviour(register.behaviour().withAccess(mask, access));
+    }
+  }
+
+  /**
+   * Set the callback invoked after a register is written by the code under
+   * test.
+   *
+   * @param path     The path of the register
+   * @param callback The callback
+   *
+   * @throws MiRuntimeException If the path does not name a register
+   */
+
+  public void onWrite(
+    final String path,
+    final MiSimulatorWriteCallbackType callback)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(callback, "callback");
+
+    final var register = this.findRegister(path);
+    synchronized (this.lock) {
+      register.setBehaviour(register.behaviour().withCallback(callback));
+    }
+  }
+
+  /**
+   * Set every register to its reset value (or zero, if the reset value is
+   * unknown). Registers are reset one at a time; accesses made
+   * concurrently with a reset may observe a partially reset register file.
+   */
+
+  public void reset()
+  {
+    for (final var reset : this.resets) {
+      reset.register().poke(reset.value());
+    }
+  }
+
+  private MiSimulatedRegister findRegister(
+    final String path)
+    throws MiRuntimeException
+  {
+    Objects.requireNonNull(path, "path");
+
+    final var register = this.registers.get(path);
+    if (register != null) {
+      return register;
+    }
+    if (this.ranges.containsKey(path)) {
+      throw this.error(ERROR_RUNTIME_NOT_REGISTER, "error-not-register", path);
+    }
+    throw this.error(ERROR_RUNTIME_NO_SUCH_ELEMENT, "error-no-such-element", path);
+  }
+
+  private static TreeMap<String, String> attributesOf(
+    final MiStrings strings,
+    final MiPackageType pack,
+    final String path)
+  {
+    final var attributes = new TreeMap<String, String>();
+    attributes.put(
+      strings.format(PACKAGE),
+      pack.name().toString()
+    );
+    attributes.put(
+      strings.format(PATH),
+      path
+    );
+    return attributes;
+  }
+
+  private MiRuntimeException error(
+    final MiStringConstantType message,
+    final String errorCode,
+    final String path)
+  {
+    return new MiRuntimeException(
+      this.strings.format(message),
+      errorCode,
+      attributesOf(this.strings, this.packageV, path),
+      Optional.empty(),
+      List.of()
+    );
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.simulator;
+
+/**
+ * A callback invoked after a simulated register has been written by the
+ * code under test.
+ */
+
+@FunctionalInterface
+public interface MiSimulatorWriteCallbackType
+{
+  /**
+   * A register was written. The callback is invoked on the writing thread
+   * after the new value has been stored, and may itself access the
+   * simulator (typically with {@link MiSimulatedRegisterType#poke(long)} or
+   * {@link MiSimulatedRegisterType#pokeModify(long, long)} to model the
+   * response of the device).
+   *
+   * @param register The register
+   * @param written  The value written by the code under test
+   * @param oldValue The value of the register before the write
+   * @param newValue The value of the register after the write
+   */
+
+  void onWrite(
+    MiSimulatedRegisterType register,
+    long written,
+    long oldValue,
+    long newValue);
+}
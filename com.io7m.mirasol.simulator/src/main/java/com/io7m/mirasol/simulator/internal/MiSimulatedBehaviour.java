@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.simulator.internal;
+
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.simulator.MiSimulatorWriteCallbackType;
+
+import java.util.Objects;
+
+/**
+ * The behaviour of the bits of a simulated register. Each bit belongs to
+ * exactly one of the access masks.
+ *
+ * @param readWrite       The read-write bits
+ * @param readOnly        The read-only bits
+ * @param writeOnly       The write-only bits
+ * @param writeOneToClear The write-one-to-clear bits
+ * @param readToClear     The read-to-clear bits
+ * @param callback        The write callback
+ */
+
+public record MiSimulatedBehaviour(
+  long readWrite,
+  long readOnly,
+  long writeOnly,
+  long writeOneToClear,
+  long readToClear,
+  MiSimulatorWriteCallbackType callback)
+{
+  /**
+   * A callback that does nothing.
+   */
+
+  public static final MiSimulatorWriteCallbackType NO_CALLBACK =
+    (register, written, oldValue, newValue) -> {
+
+    };
+
+  /**
+   * The behaviour of the bits of a simulated register.
+   *
+   * @param readWrite       The read-write bits
+   * @param readOnly        The read-only bits
+   * @param writeOnly       The write-only bits
+   * @param writeOneToClear The write-one-to-clear bits
+   * @param readToClear     The read-to-clear bits
+   * @param callback        The write callback
+   */
+
+  public MiSimulatedBehaviour
+  {
+    Objects.requireNonNull(callback, "callback");
+  }
+
+  /**
+   * @param mask The bits
+   *
+   * @return A behaviour in which all the given bits are read-write
+   */
+
+  public static MiSimulatedBehaviour readWrite(
+    final long mask)
+  {
+    return new MiSimulatedBehaviour(mask, 0L, 0L, 0L, 0L, NO_CALLBACK);
+  }
+
+  /**
+   * @param mask   The bits
+   * @param access The access semantics
+   *
+   * @return This behaviour with the given bits changed to the given access
+   */
+
+  public MiSimulatedBehaviour withAccess(
+    final long mask,
+    final MiAccess access)
+  {
+    final var keep = ~mask;
+    var rw = this.readWrite & keep;
+    var ro = this.readOnly & keep;
+    var wo = this.writeOnly & keep;
+    var w1c = this.writeOneToClear & keep;
+    var rc = this.readToClear & keep;
+
+    switch (access) {
+      case READ_WRITE -> rw |= mask;
+      case READ_ONLY -> ro |= mask;
+      case WRITE_ONLY -> wo |= mask;
+      case WRITE_ONE_TO_CLEAR -> w1c |= mask;
+      case READ_TO_CLEAR -> rc |= mask;
+    }
+    return new MiSimulatedBehaviour(rw, ro, wo, w1c, rc, this.callback);
+  }
+
+  /**
+   * @param newCallback The callback
+   *
+   * @return This behaviour with the given callback
+   */
+
+  public MiSimulatedBehaviour withCallback(
+    final MiSimulatorWriteCallbackType newCallback)
+  {
+    return new MiSimulatedBehaviour(
+      this.readWrite,
+      this.readOnly,
+      this.writeOnly,
+      this.writeOneToClear,
+      this.readToClear,
+      newCallback
+    );
+  }
+
+  /**
+   * Determine the value of a register after a write.
+   *
+   * @param oldValue The current value
+   * @param written  The value written
+   *
+   * @return The new value
+   */
+
+  public long afterWrite(
+    final long oldValue,
+    final long written)
+  {
+    return (oldValue & (this.readOnly | this.readToClear))
+           | (written & (this.readWrite | this.writeOnly))
+           | (oldValue & this.writeOneToClear & ~written);
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.simulator.internal;
+
+import com.io7m.mirasol.core.MiSizeOctets;
+import com.io7m.mirasol.simulator.MiSimulatedRegisterType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static com.io7m.mirasol.simulator.internal.MiSimulatedBehaviour.NO_CALLBACK;
+
+/**
+ * A simulated register.
+ *
+ * <p>Naturally aligned registers of up to four octets are updated with a
+ * compare-and-set on the aligned 32-bit word that contains them, and
+ * eight octet registers with a compare-and-set on the register itself, so
+ * that accesses from any number of threads never block. Misaligned
+ * registers fall back to a lock.</p>
+ */
+
+public final class MiSimulatedRegister implements MiSimulatedRegisterType
+{
+  private static final VarHandle INT =
+    MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG =
+    MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final String path;
+  private final int offset;
+  private final MiSizeOctets size;
+  private final ByteBuffer buffer;
+  private final int octets;
+  private final long mask;
+  private final boolean wide;
+  private final boolean atomic;
+  private final int wordIndex;
+  private final int shift;
+  private final Object lock;
+  private volatile MiSimulatedBehaviour behaviour;
+
+  /**
+   * A simulated register.
+   *
+   * @param inPath      The path
+   * @param inOffset    The offset of the register within the buffer
+   * @param inOctets    The size of the register (1, 2, 4, or 8)
+   * @param inBuffer    The register file, which must be a direct buffer
+   *                    aligned to eight octets
+   * @param inLock      The lock used for misaligned registers
+   * @param inBehaviour The initial behaviour
+   */
+
+  public MiSimulatedRegister(
+    final String inPath,
+    final int inOffset,
+    final int inOctets,
+    final ByteBuffer inBuffer,
+    final Object inLock,
+    final MiSimulatedBehaviour inBehaviour)
+  {
+    this.path =
+      Objects.requireNonNull(inPath, "path");
+    this.buffer =
+      Objects.requireNonNull(inBuffer, "buffer");
+    this.lock =
+      Objects.requireNonNull(inLock, "lock");
+    this.behaviour =
+      Objects.requireNonNull(inBehaviour, "behaviour");
+    this.offset =
+      inOffset;
+    this.octets =
+      inOctets;
+    this.size =
+      MiSizeOctets.of((long) inOctets);
+    this.wide =
+      inOctets == 8;
+    this.mask =
+      this.wide ? -1L : (1L << (inOctets * 8)) - 1L;
+    this.atomic =
+      inOffset % inOctets == 0;
+
+    if (this.wide) {
+      this.wordIndex = inOffset;
+      this.shift = 0;
+    } else {
+      this.wordIndex = inOffset & ~3;
+      this.shift = (inOffset & 3) * 8;
+    }
+  }
+
+  /**
+   * @return The current behaviour
+   */
+
+  public MiSimulatedBehaviour behaviour()
+  {
+    return this.behaviour;
+  }
+
+  /**
+   * Set the behaviour.
+   *
+   * @param newBehaviour The behaviour
+   */
+
+  public void setBehaviour(
+    final MiSimulatedBehaviour newBehaviour)
+  {
+    this.behaviour = Objects.requireNonNull(newBehaviour, "behaviour");
+  }
+
+  @Override
+  public String path()
+  {
+    return this.path;
+  }
+
+  @Override
+  public int offset()
+  {
+    return this.offset;
+  }
+
+  @Override
+  public MiSizeOctets size()
+  {
+    return this.size;
+  }
+
+  @Override
+  public long read()
+  {
+    final var b = this.behaviour;
+    final var visible = ~b.writeOnly();
+    final var clear = b.readToClear();
+
+    if (!this.atomic) {
+      synchronized (this.lock) {
+        final var value = this.loadPlain();
+        if (clear != 0L) {
+          this.storePlain(value & ~clear);
+        }
+        return value & visible;
+      }
+    }
+
+    if (clear == 0L) {
+      return this.extract(this.loadWord()) & visible;
+    }
+
+    while (true) {
+      final var word = this.loadWord();
+      final var value = this.extract(word);
+      if (this.compareAndSetWord(word, this.insert(word, value & ~clear))) {
+        return value & visible;
+      }
+    }
+  }
+
+  @Override
+  public void write(
+    final long value)
+  {
+    final var b = this.behaviour;
+    final var written = value & this.mask;
+
+    final long oldValue;
+    final long newValue;
+    if (this.atomic) {
+      while (true) {
+        final var word = this.loadWord();
+        final var current = this.extract(word);
+        final var next = b.afterWrite(current, written) & this.mask;
+        if (this.compareAndSetWord(word, this.insert(word, next))) {
+          oldValue = current;
+          newValue = next;
+          break;
+        }
+      }
+    } else {
+      synchronized (this.lock) {
+        oldValue = this.loadPlain();
+        newValue = b.afterWrite(oldValue, written) & this.mask;
+        this.storePlain(newValue);
+      }
+    }
+
+    final var callback = b.callback();
+    if (callback != NO_CALLBACK) {
+      callback.onWrite(this, written, oldValue, newValue);
+    }
+  }
+
+  @Override
+  public long peek()
+  {
+    if (this.atomic) {
+      return this.extract(this.loadWord());
+    }
+    synchronized (this.lock) {
+      return this.loadPlain();
+    }
+  }
+
+  @Override
+  public void poke(
+    final long value)
+  {
+    this.pokeModify(-1L, value);
+  }
+
+  @Override
+  public void pokeModify(
+    final long bitMask,
+    final long bits)
+  {
+    if (!this.atomic) {
+      synchronized (this.lock) {
+        final var current = this.loadPlain();
+        this.storePlain((current & ~bitMask) | (bits & bitMask));
+      }
+      return;
+    }
+
+    while (true) {
+      final var word = this.loadWord();
+      final var current = this.extract(word);
+      final var next = (current & ~bitMask) | (bits & bitMask);
+      if (this.compareAndSetWord(word, this.insert(word, next))) {
+        return;
+      }
+    }
+  }
+
+  private long extract(
+    final long word)
+  {
+    return (word >>> this.shift) & this.mask;
+  }
+
+  private long insert(
+    final long word,
+    final long value)
+  {
+    return (word & ~(this.mask << this.shift))
+           | ((value & this.mask) << this.shift);
+  }
+
+  private long loadWord()
+  {
+    if (this.wide) {
+      return (long) LONG.getVolatile(this.buffer, this.wordIndex);
+    }
+    return Integer.toUnsignedLong(
+      (int) INT.getVolatile(this.buffer, this.wordIndex));
+  }
+
+  private boolean compareAndSetWord(
+    final long expected,
+    final long value)
+  {
+    if (this.wide) {
+      return LONG.compareAndSet(this.buffer, this.wordIndex, expected, value);
+    }
+    return INT.compareAndSet(
+      this.buffer, this.wordIndex, (int) expected, (int) value);
+  }
+
+  private long loadPlain()
+  {
+    var value = 0L;
+    for (int index = 0; index < this.octets; ++index) {
+      final var octet = Byte.toUnsignedLong(this.buffer.get(this.offset + index));
+      value |= octet << (index * 8);
+    }
+    return value;
+  }
+
+  private void storePlain(
+    final long value)
+  {
+    for (int index = 0; index < this.octets; ++index) {
+      this.buffer.put(this.offset + index, (byte) (value >>> (index * 8)));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[MiSimulatedRegister %s 0x%x %s]".formatted(
+      this.path,
+      Integer.valueOf(this.offset),
+      this.size.value()
+    );
+  }
+}
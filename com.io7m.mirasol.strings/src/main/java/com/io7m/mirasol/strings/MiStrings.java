@@ -20,6 +20,7 @@ package com.io7m.mirasol.strings;
 import com.io7m.jxtrand.vanilla.JXTAbstractGenericStrings;
 
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The string resources.
@@ -28,6 +29,9 @@ import java.util.Locale;
 public final class MiStrings
   extends JXTAbstractGenericStrings<MiStringConstantType>
 {
+  private static final ConcurrentHashMap<Locale, MiStrings> STRINGS =
+    new ConcurrentHashMap<>();
+
   /**
    * The string resources.
    *
@@ -57,7 +61,8 @@ public final class MiStrings
   }
 
   /**
-   * Create string resources.
+   * Create string resources. The resources are immutable, and so are only
+   * parsed once per locale; subsequent calls return the same instance.
    *
    * @param locale The locale
    *
@@ -67,7 +72,7 @@ public final class MiStrings
   public static MiStrings create(
     final Locale locale)
   {
-    return new MiStrings(locale);
+    return STRINGS.computeIfAbsent(locale, MiStrings::new);
   }
 
   @Override
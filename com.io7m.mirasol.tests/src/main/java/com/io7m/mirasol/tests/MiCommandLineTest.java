@@ -25,13 +25,36 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import javax.tools.ToolProvider;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public final class MiCommandLineTest
 {
@@ -197,8 +220,11 @@ public final class MiCommandLineTest
     ).flatMap(file -> {
       return Stream.of(
           "com.io7m.mirasol.extractor.cpp",
+          "com.io7m.mirasol.extractor.cpp17",
+          "com.io7m.mirasol.extractor.java",
           "com.io7m.mirasol.extractor.cflat",
-          "com.io7m.mirasol.extractor.pascal")
+          "com.io7m.mirasol.extractor.pascal",
+          "com.io7m.mirasol.extractor.regmap")
         .map(extractor -> {
           return DynamicTest.dynamicTest(
             "testGenerateFailure_%s_%s".formatted(extractor, file),
@@ -217,8 +243,11 @@ public final class MiCommandLineTest
     ).flatMap(file -> {
       return Stream.of(
         "com.io7m.mirasol.extractor.cpp",
+        "com.io7m.mirasol.extractor.cpp17",
+        "com.io7m.mirasol.extractor.java",
         "com.io7m.mirasol.extractor.cflat",
-        "com.io7m.mirasol.extractor.pascal")
+        "com.io7m.mirasol.extractor.pascal",
+        "com.io7m.mirasol.extractor.regmap")
         .map(extractor -> {
           return DynamicTest.dynamicTest(
             "testGenerateSuccess_%s_%s".formatted(extractor, file),
@@ -283,4 +312,1770 @@ public final class MiCommandLineTest
     main.run();
     assertEquals(0, main.exitCode());
   }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateDepfiles()
+  {
+    return Stream.of(
+      "com.io7m.mirasol.extractor.cpp",
+      "com.io7m.mirasol.extractor.cpp17",
+      "com.io7m.mirasol.extractor.cflat",
+      "com.io7m.mirasol.extractor.pascal",
+      "com.io7m.mirasol.extractor.regmap"
+    ).map(extractor -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateDepfiles_%s".formatted(extractor),
+        () -> {
+          this.generateDepfiles(extractor);
+        });
+    });
+  }
+
+  private void generateDepfiles(
+    final String extractor)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    Files.createDirectories(output);
+
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--depfiles",
+      "true"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final List<Path> depfiles;
+    try (var files = Files.list(output)) {
+      depfiles = files.filter(p -> p.toString().endsWith(".d")).toList();
+    }
+
+    assertFalse(depfiles.isEmpty());
+
+    final var sourcePath =
+      path.toAbsolutePath().normalize().toString();
+
+    assertTrue(
+      depfiles.stream()
+        .anyMatch(p -> readString(p).contains(sourcePath))
+    );
+  }
+
+  /**
+   * The depfile of a package lists the sources of the packages it imports,
+   * transitively, with special characters in their paths escaped. The
+   * directory names used here are not valid on Windows.
+   */
+
+  @Test
+  public void testGenerateDepfilesImports()
+    throws IOException
+  {
+    assumeTrue(File.separatorChar == '/');
+
+    final var path = this.directory.resolve("file.xml");
+    try (var stream = resource("watch-a.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var packages = this.directory.resolve("a b#$:c\\d");
+    Files.createDirectories(packages);
+    try (var stream = resource("watch-b-0.xml")) {
+      Files.copy(stream, packages.resolve("com.io7m.watch_b.mpx"));
+    }
+
+    final var output = this.directory.resolve("output");
+    Files.createDirectories(output);
+
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cflat",
+      "--package-directory",
+      packages.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--depfiles",
+      "true"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var base =
+      this.directory.toAbsolutePath().normalize();
+    final var text =
+      readString(output.resolve("com_io7m_watch_a.h.d"));
+
+    assertTrue(text.contains(base.resolve("file.xml").toString()));
+    assertTrue(text.contains(
+      base + "/a\\ b\\#$$\\:c\\\\d/com.io7m.watch_b.mpx"
+    ));
+    assertTrue(text.contains(
+      base.resolve("com.io7m.mirasol.core.mpx").toString()
+    ));
+  }
+
+  private static String readString(
+    final Path path)
+  {
+    try {
+      return Files.readString(path);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateShardsUnion()
+  {
+    return Stream.of(
+      "com.io7m.mirasol.extractor.cpp",
+      "com.io7m.mirasol.extractor.cflat",
+      "com.io7m.mirasol.extractor.pascal"
+    ).map(extractor -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateShardsUnion_%s".formatted(extractor),
+        () -> {
+          this.generateShardsUnion(extractor);
+        });
+    });
+  }
+
+  private void generateShardsUnion(
+    final String extractor)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var outputFull = this.directory.resolve("output-full");
+    final var outputShards = this.directory.resolve("output-shards");
+
+    this.generateShard(extractor, path, outputFull, null);
+    for (int index = 0; index < 3; ++index) {
+      this.generateShard(extractor, path, outputShards, index + "/3");
+    }
+
+    final var filesFull = listFiles(outputFull);
+    final var filesShards = listFiles(outputShards);
+    assertEquals(filesFull, filesShards);
+
+    for (final var file : filesFull) {
+      assertEquals(
+        Files.readString(outputFull.resolve(file)),
+        Files.readString(outputShards.resolve(file))
+      );
+    }
+  }
+
+  private void generateShard(
+    final String extractor,
+    final Path file,
+    final Path output,
+    final String shard)
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("generate");
+    arguments.add("--file");
+    arguments.add(file.toString());
+    arguments.add("--extractor");
+    arguments.add(extractor);
+    arguments.add("--package-directory");
+    arguments.add(this.directory.toString());
+    arguments.add("--output-directory");
+    arguments.add(output.toString());
+    if (shard != null) {
+      arguments.add("--shard");
+      arguments.add(shard);
+    }
+
+    final var main = new MiMain(arguments.toArray(new String[0]));
+    main.run();
+    assertEquals(0, main.exitCode());
+  }
+
+  private static List<String> listFiles(
+    final Path directory)
+    throws IOException
+  {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (var files = Files.list(directory)) {
+      return files.map(p -> p.getFileName().toString())
+        .sorted()
+        .toList();
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateSplit()
+  {
+    return Stream.of(
+      List.of(
+        "com.io7m.mirasol.extractor.cpp",
+        "com_microchip_attiny212",
+        "com_microchip_attiny212__ATTiny212.h",
+        "com_microchip_attiny212__FUSE.h",
+        "com_microchip_attiny212__GPIO.h",
+        "com_microchip_attiny212__Map.h",
+        "com_microchip_attiny212__PINCTRL.h",
+        "com_microchip_attiny212__PORT.h",
+        "com_microchip_attiny212__VREF.h"
+      ),
+      List.of(
+        "com.io7m.mirasol.extractor.cflat",
+        "COM_MICROCHIP_ATTINY212",
+        "com_microchip_attiny212__Map.h"
+      )
+    ).map(arguments -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateSplit_%s".formatted(arguments.get(0)),
+        () -> {
+          this.generateSplit(
+            arguments.get(0),
+            arguments.get(1),
+            arguments.subList(2, arguments.size())
+          );
+        });
+    });
+  }
+
+  private void generateSplit(
+    final String extractor,
+    final String namePrefix,
+    final List<String> expectedParts)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--split-output",
+      "true"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var files = listFiles(output);
+    final var parts =
+      files.stream()
+        .filter(f -> f.contains("__"))
+        .toList();
+
+    assertFalse(parts.isEmpty());
+
+    for (final var part : parts) {
+      final var umbrella = part.substring(0, part.indexOf("__")) + ".h";
+      assertTrue(files.contains(umbrella));
+      assertTrue(
+        Files.readString(output.resolve(umbrella))
+          .contains("#include \"%s\"".formatted(part))
+      );
+    }
+
+    /*
+     * The umbrella header includes every part, and nothing else.
+     */
+
+    final var umbrellaText =
+      Files.readString(output.resolve("com_microchip_attiny212.h"));
+    final var included =
+      Pattern.compile("^#include \"(.+)\"$", Pattern.MULTILINE)
+        .matcher(umbrellaText)
+        .results()
+        .map(r -> r.group(1))
+        .sorted()
+        .toList();
+
+    assertEquals(expectedParts, included);
+    assertEquals(
+      expectedParts,
+      parts.stream()
+        .filter(f -> f.startsWith("com_microchip_attiny212__"))
+        .sorted()
+        .toList()
+    );
+
+    /*
+     * Each part defines names belonging to its own map or structure only.
+     */
+
+    for (final var part : expectedParts) {
+      final var group =
+        part.substring(part.indexOf("__") + 2, part.length() - 2);
+      final var guard =
+        part.substring(0, part.length() - 2).toUpperCase() + "_H";
+
+      // The C extractor upper-cases every name.
+      final var groupName =
+        namePrefix.equals(namePrefix.toUpperCase())
+          ? "%s_%s".formatted(namePrefix, group.toUpperCase())
+          : "%s_%s".formatted(namePrefix, group);
+
+      final var text =
+        Files.readString(output.resolve(part));
+      assertTrue(text.contains(groupName));
+
+      final var names =
+        Pattern.compile("^(?:#define (\\w+)|} (\\w+);)", Pattern.MULTILINE)
+          .matcher(text)
+          .results()
+          .map(r -> r.group(1) != null ? r.group(1) : r.group(2))
+          .filter(n -> !n.equals(guard))
+          .toList();
+
+      for (final var name : names) {
+        assertTrue(
+          name.equals(groupName) || name.startsWith(groupName + "_"),
+          "%s in %s must belong to %s".formatted(name, part, groupName)
+        );
+      }
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateBaseAddresses()
+  {
+    return Stream.of(Boolean.FALSE, Boolean.TRUE)
+      .map(split -> {
+        return DynamicTest.dynamicTest(
+          "testGenerateBaseAddresses_%s".formatted(split),
+          () -> {
+            this.generateBaseAddresses(split.booleanValue());
+          });
+      });
+  }
+
+  private void generateBaseAddresses(
+    final boolean split)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cflat",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--base-addresses",
+      "true",
+      "--split-output",
+      Boolean.toString(split)
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text = new StringBuilder();
+    for (final var file : listFiles(output)) {
+      text.append(Files.readString(output.resolve(file)));
+    }
+
+    assertTrue(text.toString().contains("(uintptr_t)"));
+    assertTrue(text.toString().contains("__BYTE_OFFSET"));
+    assertTrue(text.toString().contains("(base)"));
+
+    /*
+     * Exactly one absolute address is defined for the single map, and the
+     * registers within the map are not expanded into absolute defines of
+     * their own; they are reached through the structure offsets instead.
+     */
+
+    final var baseDefines =
+      Pattern.compile(
+        "^#define \\w+\\s+\\(\\(uintptr_t\\) 0x[0-9a-f]+\\)$",
+        Pattern.MULTILINE
+      ).matcher(text)
+        .results()
+        .map(MatchResult::group)
+        .toList();
+
+    assertEquals(
+      List.of("#define COM_MICROCHIP_ATTINY212_MAP  ((uintptr_t) 0x0)"),
+      baseDefines
+    );
+    assertFalse(text.toString().contains("COM_MICROCHIP_ATTINY212_MAP_"));
+
+    assertTrue(
+      Pattern.compile(
+        "^#define COM_MICROCHIP_ATTINY212_ATTINY212_VREF__BYTE_OFFSET"
+          + "\\s+0xa0$",
+        Pattern.MULTILINE
+      ).matcher(text).find()
+    );
+    assertTrue(
+      Pattern.compile(
+        "^#define COM_MICROCHIP_ATTINY212_VREF_CTRLB__BYTE_OFFSET\\s+0x1$",
+        Pattern.MULTILINE
+      ).matcher(text).find()
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateAccessors()
+  {
+    return Stream.of(
+      List.of("com.io7m.mirasol.extractor.cpp", "false", "__FIELD_MASK"),
+      List.of("com.io7m.mirasol.extractor.cflat", "false", "__FIELD_MASK"),
+      List.of("com.io7m.mirasol.extractor.cflat", "true", "__FIELD_MASK"),
+      List.of("com.io7m.mirasol.extractor.pascal", "false", "__field_mask")
+    ).map(arguments -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateAccessors_%s_%s".formatted(
+          arguments.get(0),
+          arguments.get(1)),
+        () -> {
+          this.generateAccessors(
+            arguments.get(0),
+            arguments.get(1),
+            arguments.get(2)
+          );
+        });
+    });
+  }
+
+  private void generateAccessors(
+    final String extractor,
+    final String baseAddresses,
+    final String fieldMask)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--accessors",
+      "true",
+      "--base-addresses",
+      baseAddresses
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text = new StringBuilder();
+    for (final var file : listFiles(output)) {
+      text.append(Files.readString(output.resolve(file)));
+    }
+
+    assertTrue(text.toString().contains(fieldMask));
+    assertTrue(text.toString().contains("__update("));
+    assertTrue(text.toString().contains("__get("));
+    assertTrue(text.toString().contains("__set("));
+  }
+
+  /**
+   * Each generated update of a register in access-0.xml performs at most one
+   * volatile load and exactly one volatile store at the width of the
+   * register. Write-one-to-clear, read-only, and read-to-clear bits are not
+   * written back, and the write-only register is never read.
+   */
+
+  @Test
+  public void testGenerateAccessorBodiesCFlat()
+    throws IOException
+  {
+    final var text =
+      this.generateAccessorBodies("cflat", "com_io7m_access.h");
+
+    assertTrue(text.contains("""
+      static inline void COM_IO7M_ACCESS_M_INTFLAGS__update(const uint8_t mask, const uint8_t bits)
+      {
+        *((volatile uint8_t *) COM_IO7M_ACCESS_M_INTFLAGS) = (uint8_t) (bits & mask);
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline void COM_IO7M_ACCESS_M_CTRL__update(const uint8_t mask, const uint8_t bits)
+      {
+        volatile uint8_t * const r = (volatile uint8_t *) COM_IO7M_ACCESS_M_CTRL;
+        *r = (uint8_t) ((*r & (uint8_t) (0xf9 & ~mask)) | (bits & mask));
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline void COM_IO7M_ACCESS_M_DATA__update(const uint8_t mask, const uint8_t bits)
+      {
+        COM_IO7M_ACCESS_M_DATA__SHADOW = (uint8_t) ((COM_IO7M_ACCESS_M_DATA__SHADOW & (uint8_t) (0xff & ~mask)) | (bits & mask));
+        *((volatile uint8_t *) COM_IO7M_ACCESS_M_DATA) = COM_IO7M_ACCESS_M_DATA__SHADOW;
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline uint8_t COM_IO7M_ACCESS_M_DATA__read(void)
+      {
+        return COM_IO7M_ACCESS_M_DATA__SHADOW;
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline uint8_t COM_IO7M_ACCESS_M_CTRL_ENABLE__modify(const uint8_t r, const uint8_t value)
+      {
+        return (uint8_t) ((r & (uint8_t) ~COM_IO7M_ACCESS_M_CTRL_ENABLE__FIELD_MASK) | COM_IO7M_ACCESS_M_CTRL_ENABLE__bits(value));
+      }
+      """));
+    assertFalse(text.contains(
+      "= *((volatile uint8_t *) COM_IO7M_ACCESS_M_DATA)"));
+    assertFalse(text.contains(
+      "return *((volatile uint8_t *) COM_IO7M_ACCESS_M_DATA)"));
+  }
+
+  @Test
+  public void testGenerateAccessorBodiesCPP()
+    throws IOException
+  {
+    final var text =
+      this.generateAccessorBodies("cpp", "com_io7m_access.h");
+
+    assertTrue(text.contains("""
+      static inline void com_io7m_access_T_INTFLAGS__update(volatile com_io7m_access_T * const s, const uint8_t mask, const uint8_t bits)
+      {
+        s->INTFLAGS = (uint8_t) (bits & mask);
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline void com_io7m_access_T_CTRL__update(volatile com_io7m_access_T * const s, const uint8_t mask, const uint8_t bits)
+      {
+        const uint8_t r = s->CTRL;
+        s->CTRL = (uint8_t) ((r & (uint8_t) (0xf9 & ~mask)) | (bits & mask));
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline void com_io7m_access_T_DATA__update(volatile com_io7m_access_T * const s, uint8_t * const shadow, const uint8_t mask, const uint8_t bits)
+      {
+        *shadow = (uint8_t) ((*shadow & (uint8_t) (0xff & ~mask)) | (bits & mask));
+        s->DATA = *shadow;
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline uint8_t com_io7m_access_T_DATA__read(const uint8_t * const shadow)
+      {
+        return *shadow;
+      }
+      """));
+    assertTrue(text.contains("""
+      static inline uint8_t com_io7m_access_T_CTRL_ENABLE__modify(const uint8_t r, const uint8_t value)
+      {
+        return (uint8_t) ((r & (uint8_t) ~com_io7m_access_T_CTRL_ENABLE__FIELD_MASK) | com_io7m_access_T_CTRL_ENABLE__bits(value));
+      }
+      """));
+    assertFalse(text.contains("= s->DATA;"));
+    assertFalse(text.contains("return s->DATA;"));
+  }
+
+  private String generateAccessorBodies(
+    final String extractor,
+    final String file)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("access-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor." + extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--accessors",
+      "true"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+    return Files.readString(output.resolve(file));
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateSnapshots()
+  {
+    return Stream.of(
+      List.of("com.io7m.mirasol.extractor.cpp", "false"),
+      List.of("com.io7m.mirasol.extractor.cflat", "false"),
+      List.of("com.io7m.mirasol.extractor.cflat", "true")
+    ).map(arguments -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateSnapshots_%s_%s".formatted(
+          arguments.get(0),
+          arguments.get(1)),
+        () -> {
+          this.generateSnapshots(arguments.get(0), arguments.get(1));
+        });
+    });
+  }
+
+  private void generateSnapshots(
+    final String extractor,
+    final String baseAddresses)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--snapshots",
+      "true",
+      "--base-addresses",
+      baseAddresses
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text = new StringBuilder();
+    for (final var file : listFiles(output)) {
+      text.append(Files.readString(output.resolve(file)));
+    }
+
+    assertTrue(text.toString().contains("#include <string.h>"));
+    assertTrue(text.toString().contains("__snapshot("));
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateSnapshotLoads()
+  {
+    return Stream.of(
+      List.of("cpp", "false"),
+      List.of("cflat", "false"),
+      List.of("cflat", "true")
+    ).map(arguments -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateSnapshotLoads_%s_%s".formatted(
+          arguments.get(0),
+          arguments.get(1)),
+        () -> {
+          this.generateSnapshotLoads(arguments.get(0), arguments.get(1));
+        });
+    });
+  }
+
+  private void generateSnapshotLoads(
+    final String extractor,
+    final String baseAddresses)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("snapshot-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor." + extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--snapshots",
+      "true",
+      "--base-addresses",
+      baseAddresses
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text =
+      Files.readString(output.resolve("com_io7m_snapshot.h"));
+    final var loads =
+      text.lines()
+        .map(String::strip)
+        .filter(line -> line.contains(" v = *((const volatile uint"))
+        .toList();
+
+    final String expected;
+    try (var stream = resource(
+      "snapshot-0-loads-%s-%s.txt".formatted(extractor, baseAddresses))) {
+      expected = new String(stream.readAllBytes(), UTF_8);
+    }
+
+    assertEquals(expected.lines().toList(), loads);
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testGenerateResetImages()
+  {
+    return Stream.of(
+      List.of("cpp", "false", "false"),
+      List.of("cflat", "false", "false"),
+      List.of("cflat", "false", "true"),
+      List.of("cflat", "true", "false")
+    ).map(arguments -> {
+      return DynamicTest.dynamicTest(
+        "testGenerateResetImages_%s_%s_%s".formatted(
+          arguments.get(0),
+          arguments.get(1),
+          arguments.get(2)),
+        () -> {
+          this.generateResetImages(
+            arguments.get(0),
+            arguments.get(1),
+            arguments.get(2)
+          );
+        });
+    });
+  }
+
+  /**
+   * The reset image for reset-image-0.xml is split into runs on each change
+   * of register size and on each gap, write-one-to-clear bits are written as
+   * zero, read-only and read-to-clear registers are not restored at all, and
+   * the shadows of write-only registers are restored when accessors are
+   * generated.
+   */
+
+  private void generateResetImages(
+    final String extractor,
+    final String baseAddresses,
+    final String accessors)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("reset-image-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor." + extractor,
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--base-addresses",
+      baseAddresses,
+      "--accessors",
+      accessors
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text =
+      Files.readString(output.resolve("com_io7m_resetimage.h"));
+
+    final String expected;
+    try (var stream = resource(
+      "reset-image-0-%s-%s-%s.txt".formatted(
+        extractor,
+        baseAddresses,
+        accessors))) {
+      expected = new String(stream.readAllBytes(), UTF_8);
+    }
+
+    assertTrue(
+      text.contains(expected),
+      () -> "Output must contain:\n%s\nOutput was:\n%s".formatted(
+        expected,
+        text)
+    );
+  }
+
+  @Test
+  public void testGenerateRegmap()
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("regmap-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.regmap",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text =
+      Files.readString(output.resolve("com_io7m_regmap_regmap.h"));
+
+    /*
+     * Defaults are produced for registers with reset values, except for
+     * the volatile STATUS register.
+     */
+
+    assertTrue(text.contains("""
+      com_io7m_regmap_R__reg_defaults[] __maybe_unused = {
+        { .reg = 0x0, .def = 0x5 },
+        { .reg = 0x4, .def = 0x0 },
+      };
+      """));
+
+    assertTrue(text.contains("""
+      com_io7m_regmap_R__rd_ranges[] __maybe_unused = {
+        regmap_reg_range(0x0, 0x3),
+      };
+      """));
+    assertTrue(text.contains("""
+      com_io7m_regmap_R__wr_ranges[] __maybe_unused = {
+        regmap_reg_range(0x0, 0x0),
+        regmap_reg_range(0x2, 0x2),
+        regmap_reg_range(0x4, 0x4),
+      };
+      """));
+
+    /*
+     * Read-only, write-one-to-clear, and read-to-clear registers are
+     * volatile. Only read-to-clear registers are precious.
+     */
+
+    assertTrue(text.contains("""
+      com_io7m_regmap_R__volatile_ranges[] __maybe_unused = {
+        regmap_reg_range(0x1, 0x3),
+      };
+      """));
+    assertTrue(text.contains("""
+      com_io7m_regmap_R__precious_ranges[] __maybe_unused = {
+        regmap_reg_range(0x3, 0x3),
+      };
+      """));
+
+    assertTrue(text.contains(".val_bits = 8"));
+    assertTrue(text.contains(".reg_stride = 1"));
+    assertTrue(text.contains(".max_register = 0x4"));
+    assertTrue(text.contains(
+      "#define com_io7m_regmap_M__REGMAP_CONFIG com_io7m_regmap_R__REGMAP_CONFIG"
+    ));
+
+    /*
+     * W contains registers of different sizes and is skipped, along with
+     * the map that uses it.
+     */
+
+    assertTrue(text.contains("// W: Registers of different sizes"));
+    assertFalse(text.contains("com_io7m_regmap_W__"));
+    assertFalse(text.contains("com_io7m_regmap_N__"));
+  }
+
+  @Test
+  public void testGenerateCPP17()
+    throws Exception
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("access-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cpp17",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    assertTrue(Files.isRegularFile(output.resolve("mirasol_cpp17.hpp")));
+
+    final var text =
+      Files.readString(output.resolve("com_io7m_access.hpp"));
+
+    assertTrue(text.contains("#include \"mirasol_cpp17.hpp\""));
+    assertTrue(text.contains("namespace com::io7m::access::types {"));
+    assertTrue(text.contains("namespace com::io7m::access::maps {"));
+
+    /*
+     * The busy and error bits of CTRL are not preserved by modify().
+     */
+
+    assertTrue(text.contains("""
+          static constexpr value_type preserve_mask = 0xF9;
+          static constexpr bool shadowed = false;
+          using ENABLE = ::mirasol::field<CTRL, 0, 1, ::mirasol::access::read_write>;
+          using BUSY = ::mirasol::field<CTRL, 1, 1, ::mirasol::access::read_only>;
+          using ERROR = ::mirasol::field<CTRL, 2, 1, ::mirasol::access::read_to_clear>;
+      """));
+
+    /*
+     * The write-only DATA register is shadowed.
+     */
+
+    assertTrue(text.contains("""
+          static constexpr ::mirasol::access access_mode = ::mirasol::access::write_only;
+          static constexpr value_type preserve_mask = 0xFF;
+          static constexpr bool shadowed = true;
+      """));
+
+    assertTrue(text.contains(
+      "using CTRL = ::mirasol::reg<::com::io7m::access::types::T::CTRL, 0x1002>;"
+    ));
+
+    /*
+     * If a C++ compiler is available, check that the headers are accepted
+     * when the register accessors are instantiated.
+     */
+
+    final var compiler = findCXXCompiler();
+    if (compiler.isEmpty()) {
+      return;
+    }
+
+    Files.writeString(
+      output.resolve("test.cpp"),
+      """
+        #include "com_io7m_access.hpp"
+
+        using namespace com::io7m::access;
+
+        void test()
+        {
+          maps::M::CTRL::modify(types::T::CTRL::ENABLE::value<1>());
+          maps::M::CTRL::set<types::T::CTRL::ENABLE>(0);
+          maps::M::DATA::write(types::T::DATA::VALUE::of(0x2a));
+          (void) maps::M::CTRL::get<types::T::CTRL::BUSY>();
+          (void) maps::M::DATA::get<types::T::DATA::VALUE>();
+          (void) maps::M::STATUS::read();
+        }
+        """
+    );
+
+    final var process =
+      new ProcessBuilder(
+        compiler.get().toString(),
+        "-std=c++17",
+        "-Wall",
+        "-Wextra",
+        "-Werror",
+        "-fsyntax-only",
+        "test.cpp")
+        .directory(output.toFile())
+        .inheritIO()
+        .start();
+
+    assertEquals(0, process.waitFor());
+  }
+
+  private static Optional<Path> findCXXCompiler()
+  {
+    final var searchPath = System.getenv("PATH");
+    if (searchPath == null) {
+      return Optional.empty();
+    }
+
+    for (final var name : List.of("c++", "g++", "clang++")) {
+      for (final var element : searchPath.split(File.pathSeparator)) {
+        final var file = Path.of(element).resolve(name);
+        if (Files.isExecutable(file)) {
+          return Optional.of(file);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * The generated Java sources use the foreign memory API, which requires
+   * Java 22 or newer to be used without preview features enabled.
+   */
+
+  @Test
+  public void testGenerateJavaCompiles()
+    throws Exception
+  {
+    assumeTrue(Runtime.version().feature() >= 22);
+
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("layout-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.java",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final List<String> sources;
+    try (var files = Files.walk(output)) {
+      sources = files.filter(p -> p.toString().endsWith(".java"))
+        .map(Path::toString)
+        .toList();
+    }
+
+    final var classes = this.directory.resolve("classes");
+    Files.createDirectories(classes);
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("-d");
+    arguments.add(classes.toString());
+    arguments.addAll(sources);
+
+    final var compiler = ToolProvider.getSystemJavaCompiler();
+    assertEquals(
+      0,
+      compiler.run(null, null, null, arguments.toArray(new String[0]))
+    );
+
+    /*
+     * The test suite itself targets Java 21, and so must not refer to the
+     * foreign memory API directly.
+     */
+
+    final var byteSize =
+      Class.forName("java.lang.foreign.MemoryLayout").getMethod("byteSize");
+
+    try (var loader = new URLClassLoader(new URL[]{classes.toUri().toURL()})) {
+      final var sizes = Map.of(
+        "Inner", 4L,
+        "Outer", 8L,
+        "Top", 16L,
+        "M", 16L
+      );
+
+      for (final var entry : sizes.entrySet()) {
+        final var clazz =
+          Class.forName("com.io7m.layout." + entry.getKey(), true, loader);
+        final var layout =
+          clazz.getField("LAYOUT").get(null);
+        assertEquals(entry.getValue(), byteSize.invoke(layout));
+      }
+    }
+  }
+
+  @Test
+  public void testDecode()
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var data = new byte[256];
+    data[0x00] = 0x07;
+    data[0xa0] = 0x35;
+
+    final var dump = this.directory.resolve("dump.bin");
+    Files.write(dump, data);
+
+    final var output = this.directory.resolve("output.csv");
+    final var main = new MiMain(new String[]{
+      "decode",
+      "--file", path.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--package",
+      "com.microchip.attiny212",
+      "--map",
+      "Map",
+      "--dump",
+      dump.toString(),
+      "--format",
+      "csv",
+      "--threads",
+      "2",
+      "--output",
+      output.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text = Files.readString(output);
+    assertTrue(text.startsWith("file,record,address,path,value\n"));
+    assertTrue(text.contains(",0,0x0,Map.VPORTA.DIR,7\n"));
+    assertTrue(text.contains(",0,0xa0,Map.VREF.CTRLA,53\n"));
+    assertTrue(text.contains(",0,0xa0,Map.VREF.CTRLA.DAC0REFSEL,5\n"));
+    assertTrue(text.contains(",0,0xa0,Map.VREF.CTRLA.ADC0REFSEL,3\n"));
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testDecodeUnaligned()
+  {
+    return Stream.of(
+      List.of("0x1ffd", "41"),
+      List.of("0x2000", "39"),
+      List.of("0x1fff", "48")
+    ).map(parameters -> {
+      return DynamicTest.dynamicTest(
+        "testDecodeUnaligned_%s_%s".formatted(
+          parameters.get(0),
+          parameters.get(1)),
+        () -> {
+          this.checkDecodeUnaligned(
+            Integer.decode(parameters.get(0)).intValue(),
+            Integer.parseInt(parameters.get(1))
+          );
+        });
+    });
+  }
+
+  private void checkDecodeUnaligned(
+    final int dumpBase,
+    final int recordSize)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("wide-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var data =
+      ByteBuffer.allocate(recordSize * 3)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    for (int record = 0; record < 3; ++record) {
+      for (final var mapBase : List.of(0x2000, 0x2013)) {
+        final var position = (record * recordSize) + (mapBase - dumpBase);
+        data.putShort(position, (short) (0x1234 + record));
+        data.putInt(position + 4, 0x89abcdef);
+        data.putLong(position + 8, 0xfedcba9876543210L + record);
+      }
+    }
+
+    final var dump = this.directory.resolve("dump.bin");
+    Files.write(dump, data.array());
+
+    final var output = this.directory.resolve("output.csv");
+    final var main = new MiMain(new String[]{
+      "decode",
+      "--file", path.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--package",
+      "com.io7m.wide",
+      "--dump",
+      dump.toString(),
+      "--dump-base",
+      "0x%x".formatted(Integer.valueOf(dumpBase)),
+      "--record-size",
+      Integer.toString(recordSize),
+      "--format",
+      "csv",
+      "--output",
+      output.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var text = Files.readString(output);
+    for (int record = 0; record < 3; ++record) {
+      for (final var map : List.of("M:2000", "N:2013")) {
+        final var name = map.substring(0, 1);
+        final var base = Integer.parseInt(map.substring(2), 16);
+
+        assertTrue(text.contains(",%d,0x%x,%s.A,%d\n".formatted(
+          Integer.valueOf(record),
+          Integer.valueOf(base),
+          name,
+          Integer.valueOf(0x1234 + record))));
+        assertTrue(text.contains(",%d,0x%x,%s.B,%s\n".formatted(
+          Integer.valueOf(record),
+          Integer.valueOf(base + 4),
+          name,
+          Long.toUnsignedString(0x89abcdefL))));
+        assertTrue(text.contains(",%d,0x%x,%s.C,%s\n".formatted(
+          Integer.valueOf(record),
+          Integer.valueOf(base + 8),
+          name,
+          Long.toUnsignedString(0xfedcba9876543210L + record))));
+      }
+    }
+  }
+
+  @Test
+  public void testDecodeTooSmall()
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var dump = this.directory.resolve("dump.bin");
+    Files.write(dump, new byte[16]);
+
+    final var main = new MiMain(new String[]{
+      "decode",
+      "--file", path.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--package",
+      "com.microchip.attiny212",
+      "--dump",
+      dump.toString(),
+      "--output",
+      this.directory.resolve("output.csv").toString()
+    });
+    main.run();
+    assertEquals(1, main.exitCode());
+  }
+
+  @Test
+  public void testQuery()
+    throws IOException
+  {
+    /*
+     * 0xa1 is the second register of VREF (at 0xa0), and bit 1 of that
+     * register is the ADC0REFEN range.
+     */
+
+    final var expected =
+      "0xa1 com.microchip.attiny212.Map.VREF.CTRLB.ADC0REFEN ReadWrite";
+
+    final var found = new ByteArrayOutputStream();
+    assertEquals(0, this.query(found, "0xa1"));
+    assertTrue(
+      found.toString(UTF_8).lines().toList().contains(expected),
+      found.toString(UTF_8)
+    );
+
+    final var missing = new ByteArrayOutputStream();
+    assertEquals(1, this.query(missing, "0x1000"));
+    assertTrue(
+      missing.toString(UTF_8)
+        .lines()
+        .noneMatch(line -> line.startsWith("0x1000 ")),
+      missing.toString(UTF_8)
+    );
+  }
+
+  private int query(
+    final ByteArrayOutputStream output,
+    final String address)
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    /*
+     * The command writes its results to whatever standard output was at
+     * the time the application was constructed.
+     */
+
+    final var savedOut = System.out;
+    System.setOut(new PrintStream(output, true, UTF_8));
+    try {
+      final var main = new MiMain(new String[]{
+        "query",
+        "--file", path.toString(),
+        "--package-directory",
+        this.directory.toString(),
+        "--address",
+        address,
+        "--bit",
+        "1"
+      });
+      main.run();
+      return main.exitCode();
+    } finally {
+      System.setOut(savedOut);
+    }
+  }
+
+  @Test
+  public void testStats()
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = new ByteArrayOutputStream();
+    final var savedOut = System.out;
+    System.setOut(new PrintStream(output, true, UTF_8));
+    try {
+      final var main = new MiMain(new String[]{
+        "stats",
+        "--file", path.toString(),
+        "--package-directory",
+        this.directory.toString()
+      });
+      main.run();
+      assertEquals(0, main.exitCode());
+    } finally {
+      System.setOut(savedOut);
+    }
+
+    final var text = output.toString(UTF_8);
+
+    /*
+     * attiny212.xml imports the core package, which contributes only its
+     * eight scalar types. The single map reaches 24 leaves through VPORTA
+     * (sixteen registers and eight PINCTRL bit fields) and two through VREF,
+     * at a nesting depth of three (ATTiny212, PORT, PINCTRL).
+     */
+
+    final var attiny =
+      countsOf(text, "\"name\": \"com.microchip.attiny212\"");
+    assertEquals(Long.valueOf(1L), attiny.get("imports"));
+    assertEquals(Long.valueOf(0L), attiny.get("scalars"));
+    assertEquals(Long.valueOf(6L), attiny.get("structures"));
+    assertEquals(Long.valueOf(44L), attiny.get("fields"));
+    assertEquals(Long.valueOf(27L), attiny.get("bitRanges"));
+    assertEquals(Long.valueOf(1L), attiny.get("maps"));
+    assertEquals(Long.valueOf(3L), attiny.get("maxNestingDepth"));
+    assertEquals(Long.valueOf(26L), attiny.get("leaves"));
+    assertTrue(text.contains("{ \"name\": \"Map\", \"leaves\": 26 }"));
+
+    final var core =
+      countsOf(text, "\"name\": \"com.io7m.mirasol.core\"");
+    assertEquals(Long.valueOf(8L), core.get("scalars"));
+    assertEquals(Long.valueOf(0L), core.get("leaves"));
+
+    final var total =
+      countsOf(text, "\"total\": {");
+    assertEquals(Long.valueOf(1L), total.get("imports"));
+    assertEquals(Long.valueOf(8L), total.get("scalars"));
+    assertEquals(Long.valueOf(6L), total.get("structures"));
+    assertEquals(Long.valueOf(44L), total.get("fields"));
+    assertEquals(Long.valueOf(27L), total.get("bitRanges"));
+    assertEquals(Long.valueOf(1L), total.get("maps"));
+    assertEquals(Long.valueOf(3L), total.get("maxNestingDepth"));
+    assertEquals(Long.valueOf(26L), total.get("leaves"));
+    assertTrue(total.get("estimatedHeapOctets").longValue() > 0L);
+  }
+
+  /**
+   * Read the counts that follow the given marker in the JSON produced by
+   * the stats command, up to the next array or the end of the object.
+   */
+
+  private static Map<String, Long> countsOf(
+    final String text,
+    final String marker)
+  {
+    final var start = text.indexOf(marker);
+    assertTrue(start >= 0, marker);
+
+    final var block =
+      text.substring(start + marker.length())
+        .split("[\\[}]", 2)[0];
+
+    final var counts = new HashMap<String, Long>();
+    final var matcher =
+      Pattern.compile("\"(\\w+)\": (\\d+)")
+        .matcher(block);
+
+    while (matcher.find()) {
+      counts.put(matcher.group(1), Long.valueOf(matcher.group(2)));
+    }
+    return counts;
+  }
+
+  @Test
+  public void testTrainingRun()
+  {
+    final var main = new MiMain(new String[]{
+      "training-run"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+  }
+
+  @Test
+  public void testTrace()
+    throws IOException
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("attiny212.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var trace = this.directory.resolve("trace.csv");
+    Files.writeString(
+      trace,
+      """
+      timestamp,address,width,value,direction
+      100,0xa0,1,0x35,W
+      200,0xa0,2,0x0236,R
+      300,0x1000,1,0x00,R
+      """
+    );
+
+    final var output = this.directory.resolve("trace.jsonl");
+    final var summary = this.directory.resolve("summary.jsonl");
+    final var main = new MiMain(new String[]{
+      "trace",
+      "--file", path.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--trace",
+      trace.toString(),
+      "--format",
+      "csv",
+      "--output",
+      output.toString(),
+      "--summary-output",
+      summary.toString()
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    final var records = Files.readAllLines(output);
+    assertEquals(3, records.size());
+    assertTrue(records.get(0).contains(
+      "{\"path\":\"com.microchip.attiny212.Map.VREF.CTRLA\",\"fields\":{\"DAC0REFSEL\":5,\"ADC0REFSEL\":3}}"));
+    assertTrue(records.get(1).contains(
+      "{\"path\":\"com.microchip.attiny212.Map.VREF.CTRLB\",\"fields\":{\"DAC0REFEN\":0,\"ADC0REFEN\":1}}"));
+    assertTrue(records.get(2).contains("\"registers\":[]"));
+
+    final var summaries = Files.readString(summary);
+    assertTrue(summaries.contains(
+      "{\"register\":\"com.microchip.attiny212.Map.VREF.CTRLA\",\"reads\":1,\"writes\":1,"));
+    assertTrue(summaries.contains(
+      "{\"name\":\"DAC0REFSEL\",\"first\":5,\"last\":6,\"changes\":1}"));
+  }
+
+  @Test
+  public void testGenerateRemoteCacheUnreachable()
+    throws Exception
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("access-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    Files.createDirectories(output);
+
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cpp",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--remote-cache",
+      "http://127.0.0.1:1/cache/"
+    });
+    main.run();
+    assertEquals(0, main.exitCode());
+
+    try (var files = Files.list(output)) {
+      assertTrue(files.findAny().isPresent());
+    }
+  }
+
+  @Test
+  public void testGenerateWatch()
+    throws Exception
+  {
+    final var path = this.directory.resolve("file.xml");
+    Files.deleteIfExists(path);
+
+    try (var stream = resource("access-0.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var output = this.directory.resolve("output");
+    Files.createDirectories(output);
+
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cpp",
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--watch",
+      "true"
+    });
+
+    final var thread = new Thread(main::run);
+    thread.start();
+
+    try {
+      awaitOutputContaining(output, "INTFLAGS");
+
+      Files.writeString(
+        path,
+        Files.readString(path).replace("\"INTFLAGS\"", "\"IRQFLAGS\"")
+      );
+
+      awaitOutputContaining(output, "IRQFLAGS");
+    } finally {
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testGenerateWatchNewPackage()
+    throws Exception
+  {
+    final var path = this.directory.resolve("file.xml");
+    try (var stream = resource("watch-a.xml")) {
+      Files.copy(stream, path);
+    }
+
+    final var directory0 = this.directory.resolve("d0");
+    final var directory1 = this.directory.resolve("d1");
+    Files.createDirectories(directory0);
+    Files.createDirectories(directory1);
+
+    final var output = this.directory.resolve("output");
+    Files.createDirectories(output);
+
+    final var main = new MiMain(new String[]{
+      "generate",
+      "--file", path.toString(),
+      "--extractor",
+      "com.io7m.mirasol.extractor.cpp",
+      "--package-directory",
+      directory0.toString(),
+      "--package-directory",
+      directory1.toString(),
+      "--package-directory",
+      this.directory.toString(),
+      "--output-directory",
+      output.toString(),
+      "--watch",
+      "true"
+    });
+
+    final var thread = new Thread(main::run);
+    thread.start();
+
+    try {
+      /*
+       * The imported package does not exist yet, so the first build fails.
+       * Creating it must cause a rebuild.
+       */
+
+      try (var stream = resource("watch-b-0.xml")) {
+        Files.copy(stream, directory1.resolve("com.io7m.watch_b.mpx"));
+      }
+      awaitOutputContaining(output, "FIRST");
+
+      /*
+       * A package created earlier in the search path shadows the package
+       * that was loaded, and must cause it to be recompiled.
+       */
+
+      try (var stream = resource("watch-b-1.xml")) {
+        Files.copy(stream, directory0.resolve("com.io7m.watch_b.mpx"));
+      }
+      awaitOutputContaining(output, "SECOND");
+    } finally {
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testDaemon()
+    throws Exception
+  {
+    final var socket = this.directory.resolve("daemon.sock");
+    final var daemon = new MiMain(new String[]{
+      "daemon",
+      "--socket",
+      socket.toString()
+    });
+
+    final var thread = new Thread(daemon::run);
+    thread.start();
+
+    try {
+      final var timeEnd =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+      while (!Files.exists(socket) && System.nanoTime() < timeEnd) {
+        Thread.sleep(10L);
+      }
+
+      final var good = this.directory.resolve("good.xml");
+      try (var stream = resource("attiny212.xml")) {
+        Files.copy(stream, good);
+      }
+      final var bad = this.directory.resolve("bad.xml");
+      try (var stream = resource("error-sizes-0.xml")) {
+        Files.copy(stream, bad);
+      }
+
+      for (int index = 0; index < 2; ++index) {
+        assertEquals(0, this.daemonCompile(socket, good));
+        assertEquals(1, this.daemonCompile(socket, bad));
+      }
+
+      final var output = this.directory.resolve("output");
+      Files.createDirectories(output);
+
+      final var main = new MiMain(new String[]{
+        "generate",
+        "--daemon-socket",
+        socket.toString(),
+        "--file",
+        good.toString(),
+        "--extractor",
+        "com.io7m.mirasol.extractor.cpp",
+        "--package-directory",
+        this.directory.toString(),
+        "--output-directory",
+        output.toString()
+      });
+      main.run();
+      assertEquals(0, main.exitCode());
+
+      try (var files = Files.list(output)) {
+        assertTrue(files.findAny().isPresent());
+      }
+    } finally {
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+  private int daemonCompile(
+    final Path socket,
+    final Path file)
+  {
+    final var main = new MiMain(new String[]{
+      "compile",
+      "--daemon-socket",
+      socket.toString(),
+      "--file",
+      file.toString(),
+      "--package-directory",
+      this.directory.toString()
+    });
+    main.run();
+    return main.exitCode();
+  }
+
+  private static void awaitOutputContaining(
+    final Path output,
+    final String text)
+    throws Exception
+  {
+    final var timeEnd =
+      System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+
+    while (System.nanoTime() < timeEnd) {
+      try (var files = Files.list(output)) {
+        if (files.anyMatch(p -> readString(p).contains(text))) {
+          return;
+        }
+      }
+      Thread.sleep(50L);
+    }
+    fail("Timed out waiting for output containing %s".formatted(text));
+  }
 }
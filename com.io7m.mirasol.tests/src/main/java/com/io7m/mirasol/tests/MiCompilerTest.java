@@ -20,14 +20,34 @@ package com.io7m.mirasol.tests;
 import com.io7m.anethum.api.SerializationException;
 import com.io7m.mirasol.compiler.MiCompilers;
 import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.MiMapStatistics;
+import com.io7m.mirasol.compiler.MiPackageFingerprints;
 import com.io7m.mirasol.compiler.MiStandardPackages;
+import com.io7m.mirasol.compiler.MiStatistics;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType.Failed;
 import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
 import com.io7m.mirasol.compiler.api.MiCompilerType;
+import com.io7m.mirasol.compiler.api.MiIncrementalCheckerType;
+import com.io7m.mirasol.compiler.api.MiRemoteCacheType;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiCompilationEventType;
+import com.io7m.mirasol.core.MiCompilationEventType.CacheMiss;
+import com.io7m.mirasol.core.MiCompilationEventType.PackageResolved;
+import com.io7m.mirasol.core.MiCompilationEventType.ParseFinished;
+import com.io7m.mirasol.core.MiCompilationEventType.ParseStarted;
+import com.io7m.mirasol.core.MiCompilationEventType.PassFinished;
+import com.io7m.mirasol.core.MiCompilationEventType.PassStarted;
+import com.io7m.mirasol.core.MiCompilationEventType.RemoteCacheHit;
+import com.io7m.mirasol.core.MiCompilationEventType.RemoteCacheMiss;
 import com.io7m.mirasol.core.MiPackageElementType;
 import com.io7m.mirasol.core.MiPackageType;
 import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.core.MiTimingPhase;
+import com.io7m.mirasol.core.MiTimingRecord;
+import com.io7m.mirasol.core.MiTimingRecorder;
 import com.io7m.mirasol.loader.api.MiLoaderType;
 import com.io7m.mirasol.parser.MiParsers;
 import com.io7m.mirasol.parser.MiSerializers;
@@ -37,17 +57,28 @@ import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -261,6 +292,48 @@ public final class MiCompilerTest
     );
   }
 
+  @Test
+  public void testStatistics()
+    throws Exception
+  {
+    Files.copy(
+      MiStandardPackages.core().openStream(),
+      this.directory.resolve("com.io7m.mirasol.core.mpx")
+    );
+
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("attiny212.xml")
+      );
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    final var pack = success.result();
+    final var statistics = MiStatistics.ofPackage(pack);
+    final var counts = statistics.counts();
+
+    assertEquals(pack.name(), statistics.name());
+    assertEquals(pack.imports().size(), counts.imports());
+    assertEquals(pack.maps().size(), counts.maps());
+    assertEquals(pack.types().size(), counts.scalars() + counts.structures());
+    assertEquals(
+      counts.leaves(),
+      statistics.maps()
+        .stream()
+        .mapToLong(MiMapStatistics::leaves)
+        .sum()
+    );
+    assertTrue(counts.maxNestingDepth() >= 1);
+    assertTrue(counts.estimatedHeapOctets() > 0L);
+
+    final var total =
+      MiStatistics.total(List.of(statistics, statistics));
+    assertEquals(counts.fields() * 2L, total.fields());
+    assertEquals(counts.maxNestingDepth(), total.maxNestingDepth());
+  }
+
   private void roundTrip(
     final MiPackageType pack)
     throws SerializationException, IOException
@@ -274,6 +347,263 @@ public final class MiCompilerTest
     assertEquals(pack, result.result());
   }
 
+  @Test
+  public void testEvents()
+    throws Exception
+  {
+    Files.copy(
+      MiStandardPackages.core().openStream(),
+      this.directory.resolve("com.io7m.mirasol.core.mpx")
+    );
+
+    final var compilerEvents =
+      new LinkedBlockingQueue<MiCompilationEventType>();
+    final var loaderEvents =
+      new LinkedBlockingQueue<MiCompilationEventType>();
+
+    this.compilers.addListener(compilerEvents::add);
+    this.loader.addListener(loaderEvents::add);
+
+    final var source = URI.create("urn:stdin");
+    final var result =
+      this.compiler.compile(source, resource("attiny212.xml"));
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    final var received =
+      takeUntil(
+        compilerEvents,
+        new PassFinished(source, MiTimingPhase.CHECK_BUILD, true)
+      );
+
+    assertEquals(new ParseStarted(source), received.get(0));
+    assertEquals(new ParseFinished(source, true), received.get(1));
+    assertEquals(
+      new PassStarted(source, MiTimingPhase.CHECK_IMPORTS),
+      received.get(2)
+    );
+
+    final var coreName =
+      success.result().imports().get(0).packageName();
+    final var coreURI =
+      this.directory.resolve("com.io7m.mirasol.core.mpx").toUri();
+
+    final var loaded =
+      takeUntil(loaderEvents, new PackageResolved(coreName, coreURI));
+
+    assertEquals(new CacheMiss(coreName), loaded.get(0));
+    assertEquals(new ParseStarted(coreURI), loaded.get(1));
+  }
+
+  @Test
+  public void testRemoteCache()
+    throws Exception
+  {
+    Files.copy(
+      MiStandardPackages.core().openStream(),
+      this.directory.resolve("com.io7m.mirasol.core.mpx")
+    );
+
+    final var entries = new ConcurrentHashMap<String, byte[]>();
+    final var cache = new MiRemoteCacheType()
+    {
+      @Override
+      public Optional<byte[]> get(
+        final String key)
+      {
+        return Optional.ofNullable(entries.get(key));
+      }
+
+      @Override
+      public void put(
+        final String key,
+        final byte[] value)
+      {
+        entries.put(key, value);
+      }
+    };
+
+    final var source = URI.create("urn:stdin");
+
+    final var firstEvents = new LinkedBlockingQueue<MiCompilationEventType>();
+    final var first = this.compileWithRemoteCache(cache, firstEvents);
+    final var firstReceived = takeUntilRemoteCache(firstEvents, source);
+    assertInstanceOf(RemoteCacheMiss.class, firstReceived.getLast());
+    assertEquals(2, entries.size());
+
+    final var secondEvents = new LinkedBlockingQueue<MiCompilationEventType>();
+    final var second = this.compileWithRemoteCache(cache, secondEvents);
+    final var secondReceived = takeUntilRemoteCache(secondEvents, source);
+    assertInstanceOf(RemoteCacheHit.class, secondReceived.getLast());
+    assertFalse(
+      secondReceived.stream().anyMatch(e -> e instanceof ParseStarted)
+    );
+
+    assertEquals(first, second);
+    assertEquals(
+      MiPackageFingerprints.fingerprint(first),
+      MiPackageFingerprints.fingerprint(second)
+    );
+  }
+
+  @Test
+  public void testRemoteCacheDifferentBuild()
+    throws Exception
+  {
+    Files.copy(
+      MiStandardPackages.core().openStream(),
+      this.directory.resolve("com.io7m.mirasol.core.mpx")
+    );
+
+    final var entries = new ConcurrentHashMap<String, byte[]>();
+    final var cache = new MiRemoteCacheType()
+    {
+      @Override
+      public Optional<byte[]> get(
+        final String key)
+      {
+        return Optional.ofNullable(entries.get(key));
+      }
+
+      @Override
+      public void put(
+        final String key,
+        final byte[] value)
+      {
+        entries.put(key, value);
+      }
+    };
+
+    final var source = URI.create("urn:stdin");
+
+    final var firstEvents = new LinkedBlockingQueue<MiCompilationEventType>();
+    this.compileWithRemoteCache(cache, "1.0.0/aaaa", firstEvents);
+    assertInstanceOf(
+      RemoteCacheMiss.class,
+      takeUntilRemoteCache(firstEvents, source).getLast()
+    );
+
+    final var secondEvents = new LinkedBlockingQueue<MiCompilationEventType>();
+    this.compileWithRemoteCache(cache, "1.0.0/bbbb", secondEvents);
+    assertInstanceOf(
+      RemoteCacheMiss.class,
+      takeUntilRemoteCache(secondEvents, source).getLast()
+    );
+
+    final var thirdEvents = new LinkedBlockingQueue<MiCompilationEventType>();
+    this.compileWithRemoteCache(cache, "1.0.0/aaaa", thirdEvents);
+    assertInstanceOf(
+      RemoteCacheHit.class,
+      takeUntilRemoteCache(thirdEvents, source).getLast()
+    );
+  }
+
+  @Test
+  public void testRemoteCacheUnavailable()
+    throws Exception
+  {
+    Files.copy(
+      MiStandardPackages.core().openStream(),
+      this.directory.resolve("com.io7m.mirasol.core.mpx")
+    );
+
+    final var cache = new MiRemoteCacheType()
+    {
+      @Override
+      public Optional<byte[]> get(
+        final String key)
+        throws IOException
+      {
+        throw new IOException("Unavailable.");
+      }
+
+      @Override
+      public void put(
+        final String key,
+        final byte[] value)
+        throws IOException
+      {
+        throw new IOException("Unavailable.");
+      }
+    };
+
+    final var pack =
+      this.compileWithRemoteCache(cache, new LinkedBlockingQueue<>());
+    assertEquals("com.microchip.attiny212", pack.name().toString());
+  }
+
+  private MiPackageType compileWithRemoteCache(
+    final MiRemoteCacheType cache,
+    final BlockingQueue<MiCompilationEventType> events)
+    throws IOException
+  {
+    return this.compileWithRemoteCache(cache, "1.0.0/0", events);
+  }
+
+  private MiPackageType compileWithRemoteCache(
+    final MiRemoteCacheType cache,
+    final String version,
+    final BlockingQueue<MiCompilationEventType> events)
+    throws IOException
+  {
+    final var remoteCompilers =
+      new MiCompilers(cache, version);
+    remoteCompilers.addListener(events::add);
+
+    final var remoteLoader =
+      new MiDirectoryLoaders(List.of(this.directory), remoteCompilers)
+        .create();
+
+    final var result =
+      remoteCompilers.create(remoteLoader)
+        .compile(URI.create("urn:stdin"), resource("attiny212.xml"));
+
+    dumpResult(result);
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+    return success.result();
+  }
+
+  private static List<MiCompilationEventType> takeUntilRemoteCache(
+    final BlockingQueue<MiCompilationEventType> queue,
+    final URI source)
+    throws InterruptedException
+  {
+    final var received = new ArrayList<MiCompilationEventType>();
+    while (true) {
+      final var event = queue.poll(10L, TimeUnit.SECONDS);
+      assertNotNull(event, "Timed out waiting for " + source);
+      received.add(event);
+
+      final var done = switch (event) {
+        case final RemoteCacheHit hit -> hit.source().equals(source);
+        case final RemoteCacheMiss miss -> miss.source().equals(source);
+        default -> false;
+      };
+      if (done) {
+        return received;
+      }
+    }
+  }
+
+  private static List<MiCompilationEventType> takeUntil(
+    final BlockingQueue<MiCompilationEventType> queue,
+    final MiCompilationEventType last)
+    throws InterruptedException
+  {
+    final var received = new ArrayList<MiCompilationEventType>();
+    while (true) {
+      final var event = queue.poll(10L, TimeUnit.SECONDS);
+      assertNotNull(event, "Timed out waiting for " + last);
+      received.add(event);
+      if (event.equals(last)) {
+        return received;
+      }
+    }
+  }
+
   @Test
   public void testSizeError0()
     throws Exception
@@ -330,6 +660,217 @@ public final class MiCompilerTest
     }
   }
 
+  @Test
+  public void testTimings()
+    throws Exception
+  {
+    final List<MiTimingRecord> records;
+    final MiCompilerResultType<MiPackageType> result;
+    try (var recorder = MiTimingRecorder.open()) {
+      result =
+        this.compiler.compile(
+          URI.create("urn:stdin"),
+          resource("sizes-0.xml")
+        );
+      records = recorder.records();
+    }
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+    final var name =
+      success.result().name().toString();
+
+    final var phases =
+      records.stream()
+        .filter(r -> Objects.equals(r.packageName(), name))
+        .map(MiTimingRecord::phase)
+        .toList();
+
+    assertEquals(
+      List.of(
+        MiTimingPhase.PARSE,
+        MiTimingPhase.CHECK_IMPORTS,
+        MiTimingPhase.CHECK_BINDINGS,
+        MiTimingPhase.CHECK_SIZES,
+        MiTimingPhase.CHECK_BUILD,
+        MiTimingPhase.CREATE_PACKAGE
+      ),
+      phases
+    );
+  }
+
+  @Test
+  public void testAccess0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("access-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    final var pack = success.result();
+    final var type =
+      (MiStructureType) pack.type(new MiSimpleName("T"))
+        .orElseThrow()
+        .type();
+
+    final var fields = type.fields();
+    assertEquals(MiAccess.READ_ONLY, fields.get(0).access());
+    assertEquals(MiAccess.WRITE_ONE_TO_CLEAR, fields.get(1).access());
+    assertEquals(MiAccess.READ_WRITE, fields.get(2).access());
+    assertEquals(MiAccess.WRITE_ONLY, fields.get(3).access());
+
+    final var flags = (MiBitFieldType) fields.get(1);
+    assertEquals(MiAccess.WRITE_ONE_TO_CLEAR, flags.ranges().get(0).access());
+    assertEquals(MiAccess.WRITE_ONE_TO_CLEAR, flags.ranges().get(1).access());
+
+    final var ctrl = (MiBitFieldType) fields.get(2);
+    assertEquals(MiAccess.READ_WRITE, ctrl.ranges().get(0).access());
+    assertEquals(MiAccess.READ_ONLY, ctrl.ranges().get(1).access());
+    assertEquals(MiAccess.READ_TO_CLEAR, ctrl.ranges().get(2).access());
+  }
+
+  @Test
+  public void testAccessBitRangeIncompatible0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("error-bit-range-access-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Failed<MiPackageType> failed =
+      (Failed<MiPackageType>) assertInstanceOf(Failed.class, result);
+
+    final var errors = failed.errors();
+    final var e0 = errors.get(0);
+    assertEquals("error-bit-range-access", e0.errorCode());
+  }
+
+  @Test
+  public void testReset0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("reset-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    final var pack = success.result();
+    final var type =
+      (MiStructureType) pack.type(new MiSimpleName("T"))
+        .orElseThrow()
+        .type();
+
+    final var fields = type.fields();
+    assertEquals(Optional.of(BigInteger.valueOf(0xf501L)), fields.get(0).reset());
+    assertEquals(Optional.empty(), fields.get(1).reset());
+    assertEquals(Optional.of(BigInteger.valueOf(0x10L)), fields.get(2).reset());
+
+    final var ctrl = (MiBitFieldType) fields.get(0);
+    assertEquals(Optional.of(BigInteger.ONE), ctrl.ranges().get(0).reset());
+    assertEquals(Optional.of(BigInteger.valueOf(5L)), ctrl.ranges().get(1).reset());
+    assertEquals(Optional.of(BigInteger.valueOf(0xfL)), ctrl.ranges().get(2).reset());
+
+    final var status = (MiBitFieldType) fields.get(1);
+    assertEquals(Optional.empty(), status.ranges().get(0).reset());
+  }
+
+  @Test
+  public void testResetTooLarge0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("error-reset-too-large-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Failed<MiPackageType> failed =
+      (Failed<MiPackageType>) assertInstanceOf(Failed.class, result);
+
+    final var errors = failed.errors();
+    final var e0 = errors.get(0);
+    assertEquals("error-reset-value-too-large", e0.errorCode());
+  }
+
+  @Test
+  public void testResetTooLarge1()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("error-reset-too-large-1.xml")
+      );
+
+    dumpResult(result);
+
+    final Failed<MiPackageType> failed =
+      (Failed<MiPackageType>) assertInstanceOf(Failed.class, result);
+
+    final var errors = failed.errors();
+    final var e0 = errors.get(0);
+    assertEquals("error-reset-value-too-large", e0.errorCode());
+  }
+
+  @Test
+  public void testResetNotScalar0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("error-reset-not-scalar-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Failed<MiPackageType> failed =
+      (Failed<MiPackageType>) assertInstanceOf(Failed.class, result);
+
+    final var errors = failed.errors();
+    final var e0 = errors.get(0);
+    assertEquals("error-reset-not-scalar", e0.errorCode());
+  }
+
+  @Test
+  public void testResetImportNonexistent0()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("error-reset-import-nonexistent-0.xml")
+      );
+
+    dumpResult(result);
+
+    final Failed<MiPackageType> failed =
+      (Failed<MiPackageType>) assertInstanceOf(Failed.class, result);
+
+    final var errors = failed.errors();
+    final var e0 = errors.get(0);
+    assertEquals("error-type-reference-nonexistent", e0.errorCode());
+  }
+
   @Test
   public void testSizesBitRangeOverlap0()
     throws Exception
@@ -550,6 +1091,109 @@ public final class MiCompilerTest
     assertEquals("error-type-reference-map", e0.errorCode());
   }
 
+  /**
+   * Editing one structure of a package only causes that structure to be
+   * checked again, moving elements causes nothing to be checked again, and
+   * the errors are the same as those of a full compilation.
+   */
+
+  @Test
+  public void testIncrementalEdits()
+    throws Exception
+  {
+    final var uri =
+      URI.create("urn:stdin");
+    final var checker =
+      this.compilers.createIncremental(this.loader, uri);
+
+    final var lines = new ArrayList<String>();
+    lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+    lines.add("<Package xmlns=\"urn:com.io7m.mirasol:1\" Name=\"com.io7m.i\">");
+    lines.add("  <ScalarType Name=\"S0\" Kind=\"IntegerUnsigned\" "
+              + "SizeInBits=\"32\"/>");
+    for (var i = 0; i < 20; ++i) {
+      lines.add("  <Structure Name=\"T%d\">".formatted(i));
+      lines.add(incrementalField("F0", 0));
+      lines.add(incrementalField("F1", 4));
+      lines.add("  </Structure>");
+    }
+    lines.add("  <Map Name=\"M\"><Offset Value=\"0\"/>"
+              + "<Type Name=\"T19\"/></Map>");
+    lines.add("</Package>");
+
+    assertEquals(List.of(), this.checkBoth(checker, lines));
+    assertEquals(22, checker.elementsChecked());
+
+    final var field = lines.indexOf(incrementalField("F1", 4)) + 4 * 5;
+    lines.set(field, incrementalField("F1", 2));
+
+    final var errors0 = this.checkBoth(checker, lines);
+    assertEquals(1, checker.elementsChecked());
+    assertEquals(1, errors0.size());
+    assertTrue(errors0.get(0).startsWith("error-field-overlap"));
+
+    lines.add(2, "");
+    final var errors1 = this.checkBoth(checker, lines);
+    assertEquals(0, checker.elementsChecked());
+    assertEquals(1, errors1.size());
+
+    lines.set(field + 1, incrementalField("F1", 4));
+    assertEquals(List.of(), this.checkBoth(checker, lines));
+    assertEquals(1, checker.elementsChecked());
+  }
+
+  private static String incrementalField(
+    final String name,
+    final int offset)
+  {
+    return "    <Field Name=\"%s\"><Offset Value=\"%d\"/>"
+      .formatted(name, Integer.valueOf(offset))
+           + "<Type Name=\"S0\"/></Field>";
+  }
+
+  /**
+   * Check the given text with both the incremental checker and the
+   * compiler, and require that the errors are the same.
+   */
+
+  private List<String> checkBoth(
+    final MiIncrementalCheckerType checker,
+    final List<String> lines)
+  {
+    final var text =
+      String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+
+    final var incremental =
+      checker.check(new ByteArrayInputStream(text))
+        .stream()
+        .map(e -> e.errorCode() + e.attributes())
+        .sorted()
+        .toList();
+
+    final var full =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        new ByteArrayInputStream(text)
+      );
+
+    dumpResult(full);
+
+    final var expected =
+      switch (full) {
+        case final Failed<MiPackageType> failed -> {
+          yield failed.errors()
+            .stream()
+            .map(e -> e.errorCode() + e.attributes())
+            .sorted()
+            .toList();
+        }
+        case final Succeeded<MiPackageType> succeeded -> List.<String>of();
+      };
+
+    assertEquals(expected, incremental);
+    return incremental;
+  }
+
   private static void dumpResult(
     final MiCompilerResultType<MiPackageType> result)
   {
@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.mirasol.tests;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
+import com.io7m.mirasol.core.MiBitFieldType;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.core.MiStructureType;
+import com.io7m.mirasol.extractor.api.MiExtractorAccess;
+import com.io7m.mirasol.extractor.api.MiExtractorResetImages;
+import com.io7m.mirasol.extractor.api.MiExtractorResetRegister;
+import com.io7m.mirasol.extractor.api.MiExtractorResetRun;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshotLoad;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshotRegister;
+import com.io7m.mirasol.extractor.api.MiExtractorSnapshots;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+public final class MiExtractorsTest
+{
+  private MiCompilers compilers;
+  private MiDirectoryLoaders loaders;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+  {
+    this.compilers =
+      new MiCompilers();
+    this.loaders =
+      new MiDirectoryLoaders(List.of(directory));
+  }
+
+  @Test
+  public void testSnapshotRegisters()
+    throws Exception
+  {
+    final var pack =
+      this.compile("snapshot-0.xml");
+    final var registers =
+      MiExtractorSnapshots.registersOf(structureOf(pack, "S"));
+
+    assertEquals(
+      List.of(
+        "A@0/1",
+        "B@1/1",
+        "C@2/2",
+        "G@7/1",
+        "H@8/1",
+        "I@9/1",
+        "R0@16/1",
+        "R1@17/1",
+        "R2@18/1",
+        "R3@19/1",
+        "R4@20/1",
+        "R5@21/1",
+        "R6@22/1",
+        "R7@23/1",
+        "P@24/8"
+      ),
+      registers.stream()
+        .map(MiExtractorsTest::showRegister)
+        .toList()
+    );
+  }
+
+  @Test
+  public void testSnapshotLoadsPointer()
+    throws Exception
+  {
+    final var pack =
+      this.compile("snapshot-0.xml");
+
+    assertEquals(
+      List.of(
+        "0:4:A,B,C",
+        "7:1:G",
+        "8:2:H,I",
+        "16:4:R0,R1,R2,R3",
+        "20:4:R4,R5,R6,R7",
+        "24:8:P"
+      ),
+      showLoads(
+        MiExtractorSnapshots.loadsOf(
+          MiExtractorSnapshots.registersOf(structureOf(pack, "S"))
+        )
+      )
+    );
+
+    assertEquals(
+      List.of(
+        "0:1:Q0",
+        "1:1:Q1",
+        "2:1:Q2",
+        "3:1:Q3",
+        "4:1:Q4",
+        "5:1:Q5",
+        "6:1:Q6",
+        "7:1:Q7"
+      ),
+      showLoads(
+        MiExtractorSnapshots.loadsOf(
+          MiExtractorSnapshots.registersOf(structureOf(pack, "B8"))
+        )
+      )
+    );
+  }
+
+  @Test
+  public void testSnapshotLoadsAbsolute()
+    throws Exception
+  {
+    final var pack =
+      this.compile("snapshot-0.xml");
+
+    assertEquals(
+      List.of(
+        "0:4:A,B,C",
+        "7:1:G",
+        "8:2:H,I",
+        "16:4:R0,R1,R2,R3",
+        "20:4:R4,R5,R6,R7",
+        "24:8:P"
+      ),
+      showLoads(
+        MiExtractorSnapshots.loadsOf(
+          MiExtractorSnapshots.registersOf(structureOf(pack, "S")),
+          BigInteger.valueOf(0x1000L)
+        )
+      )
+    );
+
+    assertEquals(
+      List.of(
+        "0:2:Q0,Q1",
+        "2:4:Q2,Q3,Q4,Q5",
+        "6:2:Q6,Q7"
+      ),
+      showLoads(
+        MiExtractorSnapshots.loadsOf(
+          MiExtractorSnapshots.registersOf(structureOf(pack, "B8")),
+          BigInteger.valueOf(0x2002L)
+        )
+      )
+    );
+  }
+
+  @Test
+  public void testResetRegisters()
+    throws Exception
+  {
+    final var pack =
+      this.compile("reset-image-0.xml");
+    final var registers =
+      MiExtractorResetImages.registersOf(structureOf(pack, "T"));
+
+    assertEquals(
+      List.of(
+        "A@0/1=0x11",
+        "B@1/1=0x22",
+        "C@2/2=0x3344",
+        "D@4/2=0x5566 (shadowed)",
+        "F@8/2=0x1",
+        "G@10/2=0xfffd (shadowed)",
+        "J@20/4=0x12345678"
+      ),
+      registers.stream()
+        .map(MiExtractorsTest::showResetRegister)
+        .toList()
+    );
+  }
+
+  @Test
+  public void testResetRuns()
+    throws Exception
+  {
+    final var pack =
+      this.compile("reset-image-0.xml");
+    final var runs =
+      MiExtractorResetImages.runsOf(
+        MiExtractorResetImages.registersOf(structureOf(pack, "T"))
+      );
+
+    assertEquals(
+      List.of(
+        "0/1=[0x11, 0x22]",
+        "2/2=[0x3344, 0x5566]",
+        "8/2=[0x1, 0xfffd]",
+        "20/4=[0x12345678]"
+      ),
+      runs.stream()
+        .map(MiExtractorsTest::showResetRun)
+        .toList()
+    );
+  }
+
+  @Test
+  public void testPreservedMasks()
+    throws Exception
+  {
+    final var pack =
+      this.compile("access-0.xml");
+    final var structure =
+      structureOf(pack, "T");
+
+    final var flags = bitFieldOf(structure, "INTFLAGS");
+    assertEquals(
+      BigInteger.ZERO,
+      MiExtractorAccess.preservedMaskOf(flags));
+    assertEquals(
+      BigInteger.ZERO,
+      MiExtractorAccess.shadowPreservedMaskOf(flags));
+
+    final var ctrl = bitFieldOf(structure, "CTRL");
+    assertEquals(
+      BigInteger.valueOf(0xf9L),
+      MiExtractorAccess.preservedMaskOf(ctrl));
+    assertEquals(
+      BigInteger.valueOf(0xf9L),
+      MiExtractorAccess.shadowPreservedMaskOf(ctrl));
+
+    final var data = bitFieldOf(structure, "DATA");
+    assertEquals(
+      BigInteger.ZERO,
+      MiExtractorAccess.preservedMaskOf(data));
+    assertEquals(
+      BigInteger.valueOf(0xffL),
+      MiExtractorAccess.shadowPreservedMaskOf(data));
+  }
+
+  private MiPackageType compile(
+    final String name)
+    throws IOException
+  {
+    final var compiler =
+      this.compilers.create(this.loaders.create());
+
+    try (var stream = resource(name)) {
+      final var result =
+        compiler.compile(URI.create("urn:stdin"), stream);
+      final Succeeded<MiPackageType> success =
+        (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+      return success.result();
+    }
+  }
+
+  private static MiStructureType structureOf(
+    final MiPackageType pack,
+    final String name)
+  {
+    return (MiStructureType) pack.type(new MiSimpleName(name))
+      .orElseThrow()
+      .type();
+  }
+
+  private static MiBitFieldType bitFieldOf(
+    final MiStructureType structure,
+    final String name)
+  {
+    return structure.fields()
+      .stream()
+      .filter(f -> f.name().equals(new MiSimpleName(name)))
+      .map(MiBitFieldType.class::cast)
+      .findFirst()
+      .orElseThrow();
+  }
+
+  private static String showRegister(
+    final MiExtractorSnapshotRegister register)
+  {
+    return "%s@%s/%s".formatted(
+      showPath(register.path()),
+      register.offset(),
+      register.size()
+    );
+  }
+
+  private static String showResetRegister(
+    final MiExtractorResetRegister register)
+  {
+    return "%s@%s/%s=0x%s%s".formatted(
+      showPath(register.path()),
+      register.offset(),
+      register.size(),
+      register.value().toString(16),
+      register.shadowed() ? " (shadowed)" : ""
+    );
+  }
+
+  private static String showResetRun(
+    final MiExtractorResetRun run)
+  {
+    return "%s/%s=%s".formatted(
+      run.offset(),
+      run.size(),
+      run.values()
+        .stream()
+        .map(v -> "0x" + v.toString(16))
+        .toList()
+    );
+  }
+
+  private static List<String> showLoads(
+    final List<MiExtractorSnapshotLoad> loads)
+  {
+    return loads.stream()
+      .map(load -> {
+        return "%s:%s:%s".formatted(
+          load.offset(),
+          load.size(),
+          load.registers()
+            .stream()
+            .map(r -> showPath(r.path()))
+            .collect(Collectors.joining(","))
+        );
+      })
+      .toList();
+  }
+
+  private static String showPath(
+    final List<MiSimpleName> path)
+  {
+    return path.stream()
+      .map(MiSimpleName::value)
+      .collect(Collectors.joining("."));
+  }
+
+  private static InputStream resource(
+    final String name)
+    throws IOException
+  {
+    final var path =
+      "/com/io7m/mirasol/tests/%s".formatted(name);
+    final var url =
+      MiExtractorsTest.class.getResource(path);
+
+    return url.openStream();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mirasol.tests;
+
+import com.io7m.mirasol.compiler.MiHTTPRemoteCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class MiHTTPRemoteCacheTest
+{
+  private static final String BROKEN_KEY = "0bad";
+
+  private HttpServer server;
+  private ConcurrentHashMap<String, byte[]> entries;
+  private MiHTTPRemoteCache cache;
+
+  @BeforeEach
+  public void setup()
+    throws IOException
+  {
+    this.entries = new ConcurrentHashMap<>();
+    this.server = HttpServer.create(
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+      0
+    );
+    this.server.createContext("/cache/", this::handle);
+    this.server.start();
+
+    this.cache = new MiHTTPRemoteCache(
+      URI.create(
+        "http://127.0.0.1:%d/cache".formatted(
+          Integer.valueOf(this.server.getAddress().getPort()))
+      ),
+      Duration.ofSeconds(5L)
+    );
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+  }
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (exchange) {
+      final var key =
+        exchange.getRequestURI()
+          .getPath()
+          .substring("/cache/".length());
+
+      if (key.equals(BROKEN_KEY)) {
+        exchange.sendResponseHeaders(500, -1L);
+        return;
+      }
+
+      switch (exchange.getRequestMethod()) {
+        case "GET" -> {
+          final var value = this.entries.get(key);
+          if (value == null) {
+            exchange.sendResponseHeaders(404, -1L);
+            return;
+          }
+          exchange.sendResponseHeaders(200, value.length);
+          exchange.getResponseBody().write(value);
+        }
+        case "PUT" -> {
+          this.entries.put(key, exchange.getRequestBody().readAllBytes());
+          exchange.sendResponseHeaders(204, -1L);
+        }
+        default -> {
+          exchange.sendResponseHeaders(405, -1L);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testGetMissing()
+    throws IOException
+  {
+    assertEquals(Optional.empty(), this.cache.get("abcd"));
+  }
+
+  @Test
+  public void testPutGet()
+    throws IOException
+  {
+    final var value = "Hello.".getBytes(StandardCharsets.UTF_8);
+    this.cache.put("abcd", value);
+    assertArrayEquals(value, this.entries.get("abcd"));
+    assertArrayEquals(value, this.cache.get("abcd").orElseThrow());
+  }
+
+  @Test
+  public void testServerError()
+  {
+    assertThrows(IOException.class, () -> this.cache.get(BROKEN_KEY));
+    assertThrows(
+      IOException.class,
+      () -> this.cache.put(BROKEN_KEY, new byte[0])
+    );
+  }
+
+  @Test
+  public void testUnreachable()
+  {
+    this.server.stop(0);
+    assertThrows(IOException.class, () -> this.cache.get("abcd"));
+  }
+
+  @Test
+  public void testInvalidKey()
+  {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> this.cache.get("../abcd")
+    );
+  }
+}
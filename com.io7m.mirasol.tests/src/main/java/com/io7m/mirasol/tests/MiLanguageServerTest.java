@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.tests;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.lsp.MiLanguageServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class MiLanguageServerTest
+{
+  private Path directory;
+  private ByteArrayOutputStream input;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+  {
+    this.directory = inDirectory;
+    this.input = new ByteArrayOutputStream();
+  }
+
+  /**
+   * Opening a document with errors publishes them as diagnostics, and
+   * fixing the document publishes an empty set of diagnostics.
+   */
+
+  @Test
+  public void testDiagnostics()
+    throws Exception
+  {
+    final var broken =
+      resourceText("error-field-overlap-0.xml");
+    final var fixed =
+      broken.replace("<Offset Value=\"1\"/>", "<Offset Value=\"4\"/>");
+
+    this.send("""
+      {"jsonrpc":"2.0","id":1,"method":"initialize","params":{}}""");
+    this.send("""
+      {"jsonrpc":"2.0","method":"initialized","params":{}}""");
+    this.send("""
+      {"jsonrpc":"2.0","method":"textDocument/didOpen","params":{
+        "textDocument":{"uri":"file:///x.xml","version":1,"text":%s}}}"""
+                .formatted(quote(broken)));
+    this.send("""
+      {"jsonrpc":"2.0","method":"textDocument/didChange","params":{
+        "textDocument":{"uri":"file:///x.xml","version":2},
+        "contentChanges":[{"text":%s}]}}"""
+                .formatted(quote(fixed)));
+    this.send("""
+      {"jsonrpc":"2.0","id":2,"method":"shutdown"}""");
+    this.send("""
+      {"jsonrpc":"2.0","method":"exit"}""");
+
+    final var output = new ByteArrayOutputStream();
+    final var server =
+      new MiLanguageServer(
+        new MiCompilers(),
+        new MiDirectoryLoaders(List.of(this.directory)).create(),
+        new ByteArrayInputStream(this.input.toByteArray()),
+        output
+      );
+
+    assertEquals(0, server.run());
+
+    final var messages = messages(output.toByteArray());
+    assertEquals(4, messages.size());
+
+    assertTrue(messages.get(0).contains("\"id\":1"));
+    assertTrue(messages.get(0).contains("\"textDocumentSync\""));
+
+    final var opened = messages.get(1);
+    assertTrue(opened.contains("\"version\":1"));
+    assertTrue(opened.contains("\"code\":\"error-field-overlap\""));
+    assertTrue(opened.contains("\"start\":{\"line\":14,"));
+
+    final var changed = messages.get(2);
+    assertTrue(changed.contains("\"version\":2"));
+    assertTrue(changed.contains("\"diagnostics\":[]"));
+
+    assertTrue(messages.get(3).contains("\"id\":2"));
+  }
+
+  /**
+   * Exiting without a shutdown request yields a failure code, and unknown
+   * requests are rejected.
+   */
+
+  @Test
+  public void testExitWithoutShutdown()
+    throws Exception
+  {
+    this.send("""
+      {"jsonrpc":"2.0","id":1,"method":"textDocument/hover","params":{}}""");
+    this.send("""
+      {"jsonrpc":"2.0","method":"exit"}""");
+
+    final var output = new ByteArrayOutputStream();
+    final var server =
+      new MiLanguageServer(
+        new MiCompilers(),
+        new MiDirectoryLoaders(List.of(this.directory)).create(),
+        new ByteArrayInputStream(this.input.toByteArray()),
+        output
+      );
+
+    assertEquals(1, server.run());
+
+    final var messages = messages(output.toByteArray());
+    assertEquals(1, messages.size());
+    assertTrue(messages.get(0).contains("-32601"));
+  }
+
+  private void send(
+    final String text)
+    throws IOException
+  {
+    final var data = text.getBytes(StandardCharsets.UTF_8);
+    this.input.write(
+      "Content-Length: %d\r\n\r\n".formatted(Integer.valueOf(data.length))
+        .getBytes(StandardCharsets.US_ASCII)
+    );
+    this.input.write(data);
+  }
+
+  private static List<String> messages(
+    final byte[] data)
+  {
+    final var text = new String(data, StandardCharsets.UTF_8);
+    final var results = new ArrayList<String>();
+    var index = 0;
+    while (index < text.length()) {
+      final var separator = text.indexOf("\r\n\r\n", index);
+      final var length = Integer.parseInt(
+        text.substring(index, separator).replace("Content-Length: ", "")
+      );
+      final var start = separator + 4;
+      results.add(text.substring(start, start + length));
+      index = start + length;
+    }
+    return results;
+  }
+
+  private static String quote(
+    final String text)
+  {
+    return "\"%s\"".formatted(
+      text.replace("\\", "\\\\")
+        .replace("\"", "\\\"")
+        .replace("\n", "\\n")
+    );
+  }
+
+  private static String resourceText(
+    final String name)
+    throws IOException
+  {
+    try (var stream = resource(name)) {
+      return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static InputStream resource(
+    final String name)
+    throws IOException
+  {
+    final var path =
+      "/com/io7m/mirasol/tests/%s".formatted(name);
+    final var url =
+      MiLanguageServerTest.class.getResource(path);
+
+    return url.openStream();
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.tests;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
+import com.io7m.mirasol.compiler.api.MiCompilerType;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.runtime.MiAddressIndex;
+import com.io7m.mirasol.runtime.MiRegisterMap;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class MiRuntimeTest
+{
+  private MiCompilerType compiler;
+  private MiPackageType pack;
+  private MiRegisterMap registers;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+    throws Exception
+  {
+    this.compiler =
+      new MiCompilers()
+        .create(new MiDirectoryLoaders(List.of(inDirectory)).create());
+
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("access-0.xml")
+      );
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    this.pack =
+      success.result();
+    this.registers =
+      MiRegisterMap.create(this.pack);
+  }
+
+  @Test
+  public void testResolveCached()
+    throws Exception
+  {
+    final var h0 = this.registers.resolve("M.CTRL");
+    final var h1 = this.registers.resolve("M.CTRL");
+    assertSame(h0, h1);
+    assertEquals(2, h0.offset());
+    assertEquals(1L, h0.size().value().longValue());
+    assertEquals(2, this.registers.resolve("T.CTRL").offset());
+    assertEquals(0, this.registers.resolve("M.STATUS").offset());
+    assertEquals(MiAccess.READ_ONLY, this.registers.resolve("M.STATUS").access());
+  }
+
+  @Test
+  public void testSetPreservesOnlyWriteBackBits()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocateDirect(8);
+    buffer.put(2, (byte) 0xf6);
+
+    final var enable = this.registers.resolve("M.CTRL.ENABLE");
+    enable.set(buffer, 0, 1L);
+
+    assertEquals(0xf1, Byte.toUnsignedInt(buffer.get(2)));
+    assertEquals(1L, enable.get(buffer, 0));
+    assertEquals(1L, this.registers.resolve("M.CTRL.BUSY").get(buffer, 0));
+  }
+
+  @Test
+  public void testSetWriteOneToClear()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocateDirect(8);
+    buffer.put(5, (byte) 0xff);
+
+    this.registers.resolve("M.INTFLAGS.RXC").set(buffer, 4, 1L);
+    assertEquals(0x01, Byte.toUnsignedInt(buffer.get(5)));
+  }
+
+  @Test
+  public void testModify()
+    throws Exception
+  {
+    final var buffer = ByteBuffer.allocateDirect(8);
+    buffer.put(3, (byte) 0xaa);
+
+    final var data = this.registers.resolve("M.DATA.VALUE");
+    data.modify(buffer, 0, 0x0fL, 0x05L);
+    assertEquals(0x05, Byte.toUnsignedInt(buffer.get(3)));
+  }
+
+  @Test
+  public void testWideMisalignedBase()
+    throws Exception
+  {
+    final var result =
+      this.compiler.compile(
+        URI.create("urn:stdin"),
+        resource("wide-0.xml")
+      );
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+    final var wide =
+      MiRegisterMap.create(success.result(), ByteOrder.LITTLE_ENDIAN);
+
+    final var a = wide.resolve("M.A");
+    final var b = wide.resolve("M.B");
+    final var c = wide.resolve("M.C");
+
+    /*
+     * The registers are aligned within the map, but the map is placed at
+     * an odd index, and the buffer itself is a slice at an odd position.
+     */
+
+    final var buffer =
+      ByteBuffer.allocateDirect(64)
+        .slice(3, 32)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    for (final var base : List.of(0, 1, 5, 8)) {
+      a.set(buffer, base, 0x1234L);
+      b.set(buffer, base, 0x89abcdefL);
+      c.set(buffer, base, 0xfedcba9876543210L);
+
+      assertEquals(0x1234L, a.get(buffer, base));
+      assertEquals(0x89abcdefL, b.get(buffer, base));
+      assertEquals(0xfedcba9876543210L, c.get(buffer, base));
+      assertEquals(0x89abcdef, buffer.getInt(base + 4));
+      assertEquals(0xfedcba9876543210L, buffer.getLong(base + 8));
+
+      b.modify(buffer, base, 0xff00L, 0x4200L);
+      assertEquals(0x89ab42efL, b.get(buffer, base));
+    }
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testErrorNoSuchElement()
+  {
+    return Stream.of(
+      "X",
+      "9",
+      "M.X",
+      "M.CTRL.X",
+      "M.CTRL.ENABLE.X",
+      "M.STATUS.X",
+      "M..CTRL"
+    ).map(path -> {
+      return DynamicTest.dynamicTest(
+        "testErrorNoSuchElement_%s".formatted(path),
+        () -> {
+          final var ex =
+            assertThrows(MiRuntimeException.class, () -> {
+              this.registers.resolve(path);
+            });
+          assertEquals("error-no-such-element", ex.errorCode());
+        });
+    });
+  }
+
+  @Test
+  public void testErrorNotRegister()
+  {
+    final var ex =
+      assertThrows(MiRuntimeException.class, () -> {
+        this.registers.resolve("M");
+      });
+    assertEquals("error-not-register", ex.errorCode());
+  }
+
+  @Test
+  public void testAddressIndex()
+    throws Exception
+  {
+    final var index = MiAddressIndex.create(List.of(this.pack));
+    assertEquals(4, index.size());
+
+    assertEquals(-1, index.find(0x0fffL));
+    assertEquals(-1, index.find(0x1004L));
+    assertEquals(-1, index.find(-1L));
+
+    final var ctrl = index.find(0x1002L);
+    assertEquals("com.io7m.access.M.CTRL", index.path(ctrl));
+    assertEquals(0x1002L, index.address(ctrl));
+    assertEquals(1, index.sizeOctets(ctrl));
+
+    final var busy = index.findRange(ctrl, 0x1002L, 1);
+    assertEquals("com.io7m.access.M.CTRL.BUSY", index.rangePath(busy));
+    assertEquals(-1, index.findRange(ctrl, 0x1002L, 7));
+
+    for (long address = 0x1000L; address < 0x1004L; ++address) {
+      assertEquals(address, index.address(index.find(address)));
+    }
+  }
+
+  private static InputStream resource(
+    final String name)
+    throws IOException
+  {
+    final var path =
+      "/com/io7m/mirasol/tests/%s".formatted(name);
+    final var url =
+      MiRuntimeTest.class.getResource(path);
+
+    return url.openStream();
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.mirasol.tests;
+
+import com.io7m.mirasol.compiler.MiCompilers;
+import com.io7m.mirasol.compiler.MiDirectoryLoaders;
+import com.io7m.mirasol.compiler.api.MiCompilerResultType.Succeeded;
+import com.io7m.mirasol.core.MiAccess;
+import com.io7m.mirasol.core.MiPackageType;
+import com.io7m.mirasol.core.MiSimpleName;
+import com.io7m.mirasol.runtime.MiRuntimeException;
+import com.io7m.mirasol.simulator.MiSimulator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class MiSimulatorTest
+{
+  private MiSimulator simulator;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+    throws Exception
+  {
+    final var compiler =
+      new MiCompilers()
+        .create(new MiDirectoryLoaders(List.of(inDirectory)).create());
+
+    final var result =
+      compiler.compile(
+        URI.create("urn:stdin"),
+        resource("access-0.xml")
+      );
+
+    final Succeeded<MiPackageType> success =
+      (Succeeded<MiPackageType>) assertInstanceOf(Succeeded.class, result);
+
+    this.simulator =
+      MiSimulator.create(success.result(), new MiSimpleName("M"));
+  }
+
+  @Test
+  public void testAccessSemantics()
+    throws Exception
+  {
+    final var status = this.simulator.register("M.STATUS");
+    status.poke(0x12L);
+    status.write(0xffL);
+    assertEquals(0x12L, status.read());
+
+    final var flags = this.simulator.register("M.INTFLAGS");
+    flags.poke(0x03L);
+    flags.write(0x01L);
+    assertEquals(0x02L, flags.read());
+
+    final var ctrl = this.simulator.register("M.CTRL");
+    ctrl.poke(0x06L);
+    ctrl.write(0x01L);
+    assertEquals(0x07L, ctrl.read());
+    assertEquals(0x03L, ctrl.read());
+
+    final var data = this.simulator.register("M.DATA");
+    data.write(0x5aL);
+    assertEquals(0x00L, data.read());
+    assertEquals(0x5aL, data.peek());
+    assertEquals(0x5a, Byte.toUnsignedInt(this.simulator.buffer().get(3)));
+  }
+
+  @Test
+  public void testSetAccess()
+    throws Exception
+  {
+    this.simulator.setAccess("M.CTRL.BUSY", MiAccess.READ_WRITE);
+
+    final var ctrl = this.simulator.register("M.CTRL");
+    ctrl.write(0x02L);
+    assertEquals(0x02L, ctrl.read());
+  }
+
+  @Test
+  public void testWriteCallback()
+    throws Exception
+  {
+    final var ctrl = this.simulator.register("M.CTRL");
+
+    this.simulator.onWrite("M.CTRL", (register, written, oldValue, newValue) -> {
+      if ((newValue & 0x01L) != 0L) {
+        register.pokeModify(0x02L, 0x02L);
+      }
+    });
+
+    ctrl.write(0x01L);
+    assertEquals(0x03L, ctrl.read());
+  }
+
+  @Test
+  public void testConcurrentWriteOneToClear()
+    throws Exception
+  {
+    final var flags = this.simulator.register("M.INTFLAGS");
+    final var executor = Executors.newFixedThreadPool(4);
+
+    try {
+      for (int round = 0; round < 1000; ++round) {
+        flags.poke(0xffL);
+
+        final var futures = new ArrayList<Future<?>>();
+        for (int bit = 0; bit < 8; ++bit) {
+          final var mask = 1L << bit;
+          futures.add(executor.submit(() -> flags.write(mask)));
+        }
+        for (final var future : futures) {
+          future.get();
+        }
+        assertEquals(0x00L, flags.peek());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testReset()
+    throws Exception
+  {
+    final var ctrl = this.simulator.register("M.CTRL");
+    ctrl.write(0x01L);
+    this.simulator.reset();
+    assertEquals(0x00L, ctrl.peek());
+  }
+
+  @Test
+  public void testErrorNotRegister()
+  {
+    final var ex =
+      assertThrows(MiRuntimeException.class, () -> {
+        this.simulator.register("M.CTRL.ENABLE");
+      });
+    assertEquals("error-not-register", ex.errorCode());
+  }
+
+  @Test
+  public void testErrorNoSuchElement()
+  {
+    final var ex =
+      assertThrows(MiRuntimeException.class, () -> {
+        this.simulator.register("M.X");
+      });
+    assertEquals("error-no-such-element", ex.errorCode());
+  }
+
+  private static InputStream resource(
+    final String name)
+    throws IOException
+  {
+    final var path =
+      "/com/io7m/mirasol/tests/%s".formatted(name);
+    final var url =
+      MiSimulatorTest.class.getResource(path);
+
+    return url.openStream();
+  }
+}
@@ -29,16 +29,24 @@ open module com.io7m.mirasol.tests
   requires com.io7m.mirasol.extractor.api;
   requires com.io7m.mirasol.extractor.cflat;
   requires com.io7m.mirasol.extractor.cpp;
+  requires com.io7m.mirasol.extractor.cpp17;
+  requires com.io7m.mirasol.extractor.java;
   requires com.io7m.mirasol.extractor.pascal;
+  requires com.io7m.mirasol.extractor.regmap;
   requires com.io7m.mirasol.loader.api;
+  requires com.io7m.mirasol.lsp;
   requires com.io7m.mirasol.parser.api;
   requires com.io7m.mirasol.parser;
+  requires com.io7m.mirasol.runtime;
   requires com.io7m.mirasol.schema;
+  requires com.io7m.mirasol.simulator;
   requires com.io7m.mirasol.strings;
 
   requires com.io7m.quarrel.core;
   requires com.io7m.anethum.api;
   requires com.io7m.jxe.core;
+  requires java.compiler;
+  requires jdk.httpserver;
   requires org.slf4j;
 
   requires transitive org.junit.jupiter.api;